@@ -39,6 +39,7 @@ public enum AnalyticsMetaDataKey
     DIMENSIONS( "dimensions" ),
     NAMES( "names" ),
     PAGER( "pager" ),
+    NEXT_PAGE_TOKEN( "nextPageToken" ),
     ORG_UNIT_HIERARCHY( "ouHierarchy" ),
     ORG_UNIT_NAME_HIERARCHY( "ouNameHierarchy" ),
     ORG_UNIT_ANCESTORS( "ouAncestors");
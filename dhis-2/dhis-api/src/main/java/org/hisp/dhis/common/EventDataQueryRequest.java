@@ -106,6 +106,8 @@ public class EventDataQueryRequest
 
     protected Integer pageSize;
 
+    protected String pageToken;
+
     public String getProgram()
     {
         return program;
@@ -271,6 +273,11 @@ public class EventDataQueryRequest
         return pageSize;
     }
 
+    public String getPageToken()
+    {
+        return pageToken;
+    }
+
     /**
      * Copies all properties of this request onto the given request.
      * 
@@ -312,6 +319,7 @@ public class EventDataQueryRequest
         request.coordinateField = this.coordinateField;
         request.page = this.page;
         request.pageSize = this.pageSize;
+        request.pageToken = this.pageToken;
         return request;
     }
 
@@ -541,6 +549,12 @@ public class EventDataQueryRequest
             return this;
         }
 
+        public EventDataQueryRequestBuilder pageToken( String pageToken )
+        {
+            this.request.pageToken = pageToken;
+            return this;
+        }
+
         public EventDataQueryRequest build()
         {
             return request;
@@ -28,6 +28,8 @@ package org.hisp.dhis.common;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import java.io.Serializable;
+
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableSet;
 
@@ -35,7 +37,10 @@ import com.google.common.collect.ImmutableSet;
  * @author Lars Helge Overland
  */
 public class GridHeader
+    implements Serializable
 {
+    private static final long serialVersionUID = 6093612829358702745L;
+
     private static final ImmutableSet<String> NUMERIC_TYPES = 
         ImmutableSet.of( Float.class.getName(), Double.class.getName(), Long.class.getName(), Integer.class.getName() );
 
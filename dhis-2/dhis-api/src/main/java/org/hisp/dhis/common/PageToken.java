@@ -0,0 +1,146 @@
+package org.hisp.dhis.common;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Base64;
+import java.util.Date;
+import java.util.regex.Pattern;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Opaque cursor for keyset paging. Encodes the sort key and the identifier of
+ * the last row of a page, so that the next page can be fetched with a range
+ * condition on an index instead of skipping rows with an offset.
+ */
+public class PageToken
+{
+    private static final String SEPARATOR = "\n";
+
+    private static final Pattern ID_PATTERN = Pattern.compile( "^[a-zA-Z0-9]{1,64}$" );
+
+    /**
+     * Sort key of the last row of the previous page.
+     */
+    private final Timestamp sortKey;
+
+    /**
+     * Identifier of the last row of the previous page, used as tie-breaker.
+     */
+    private final String id;
+
+    public PageToken( Date sortKey, String id )
+    {
+        checkNotNull( sortKey );
+        checkNotNull( id );
+
+        this.sortKey = sortKey instanceof Timestamp ? (Timestamp) sortKey : new Timestamp( sortKey.getTime() );
+        this.id = id;
+    }
+
+    // -------------------------------------------------------------------------
+    // Logic
+    // -------------------------------------------------------------------------
+
+    /**
+     * Decodes the given token. The sort key must be a valid timestamp and the
+     * identifier must be alphanumeric, which makes both safe for inclusion
+     * in SQL statements.
+     *
+     * @param token the encoded token, can be null.
+     * @return a page token, or null if the given token is null or empty.
+     * @throws IllegalQueryException if the token is invalid.
+     */
+    public static PageToken decode( String token )
+    {
+        if ( token == null || token.trim().isEmpty() )
+        {
+            return null;
+        }
+
+        try
+        {
+            String value = new String( Base64.getUrlDecoder().decode( token.trim() ), StandardCharsets.UTF_8 );
+
+            String[] parts = value.split( SEPARATOR );
+
+            if ( parts.length == 2 && ID_PATTERN.matcher( parts[1] ).matches() )
+            {
+                return new PageToken( Timestamp.valueOf( parts[0] ), parts[1] );
+            }
+        }
+        catch ( IllegalArgumentException ex )
+        {
+            // Fall through
+        }
+
+        throw new IllegalQueryException( "Page token is invalid: " + token );
+    }
+
+    /**
+     * Encodes this token as a URL safe string.
+     */
+    public String encode()
+    {
+        String value = sortKey.toString() + SEPARATOR + id;
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString( value.getBytes( StandardCharsets.UTF_8 ) );
+    }
+
+    /**
+     * Returns the sort key as a SQL timestamp literal, including fractional
+     * seconds.
+     */
+    public String getSortKeyLiteral()
+    {
+        return "'" + sortKey.toString() + "'";
+    }
+
+    // -------------------------------------------------------------------------
+    // Get methods
+    // -------------------------------------------------------------------------
+
+    public Timestamp getSortKey()
+    {
+        return sortKey;
+    }
+
+    public String getId()
+    {
+        return id;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "[Sort key: " + sortKey + ", id: " + id + "]";
+    }
+}
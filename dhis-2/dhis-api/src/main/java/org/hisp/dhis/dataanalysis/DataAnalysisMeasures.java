@@ -37,6 +37,8 @@ package org.hisp.dhis.dataanalysis;
  */
 public class DataAnalysisMeasures
 {
+    private int dataElementId;
+
     private int orgUnitId;
 
     private int categoryOptionComboId;
@@ -58,10 +60,22 @@ public class DataAnalysisMeasures
         this.standardDeviation = standardDeviation;
     }
 
+    public DataAnalysisMeasures( int dataElementId, int orgUnitId, int categoryOptionComboId,
+        double average, double standardDeviation )
+    {
+        this( orgUnitId, categoryOptionComboId, average, standardDeviation );
+        this.dataElementId = dataElementId;
+    }
+
     // -------------------------------------------------------------------------
     // Getters
     // -------------------------------------------------------------------------
 
+    public int getDataElementId()
+    {
+        return dataElementId;
+    }
+
     public int getOrgUnitId()
     {
         return orgUnitId;
@@ -38,7 +38,7 @@ import org.hisp.dhis.period.Period;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
-import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * @author Lars Helge Overland
@@ -48,18 +48,22 @@ public interface DataAnalysisStore
     String ID = DataAnalysisStore.class.getName();
 
     /**
-     * Calculates the average and standard deviation measures of the DataValues
-     * registered for a given data element, set of category option combos,
-     * and organisation unit parents.
+     * Streams the DataValues registered for the given data elements, category
+     * option combos and organisation unit parents to the given consumer in a
+     * single pass, ordered by data element, category option combo and
+     * organisation unit. Includes DataValues for periods starting on or after
+     * the from date, and for the given periods.
      *
-     * @param dataElement the DataElement.
-     * @param parentPaths the parent OrganisationUnits' paths.
-     * @param from        the from date for which to include data values.
-     * @return a mapping between OrganisationUnit identifier and its standard deviation.
+     * @param dataElements         the data elements.
+     * @param categoryOptionCombos the category option combos.
+     * @param parentPaths          the parent OrganisationUnits' paths.
+     * @param periods              the periods to include regardless of the from date.
+     * @param from                 the from date for which to include data values.
+     * @param consumer             the consumer of DeflatedDataValues, including names.
      */
-    List<DataAnalysisMeasures> getDataAnalysisMeasures( DataElement dataElement,
-        Collection<CategoryOptionCombo> categoryOptionCombos,
-        Collection<String> parentPaths, Date from );
+    void getDataAnalysisValues( Collection<DataElement> dataElements,
+        Collection<CategoryOptionCombo> categoryOptionCombos, Collection<String> parentPaths,
+        Collection<Period> periods, Date from, Consumer<DeflatedDataValue> consumer );
 
     /**
      * Generates a collection of data value violations of min-max predefined values.
@@ -75,19 +79,6 @@ public interface DataAnalysisStore
         Collection<CategoryOptionCombo> categoryOptionCombos,
         Collection<Period> periods, Collection<OrganisationUnit> parents, int limit );
 
-    /**
-     * Returns a collection of DeflatedDataValues for the given input.
-     *
-     * @param dataElement         the DataElement.
-     * @param categoryOptionCombo the CategoryOptionCombo.
-     * @param periods             the collection of Periods.
-     * @param lowerBoundMap       the lower bound for the registered MinMaxDataElement.
-     * @param upperBoundMap       the upper bound for the registered MinMaxDataElement.
-     * @return a list of DeflatedDataValues.
-     */
-    List<DeflatedDataValue> getDeflatedDataValues( DataElement dataElement, CategoryOptionCombo categoryOptionCombo,
-        Collection<Period> periods, Map<Integer, Integer> lowerBoundMap, Map<Integer, Integer> upperBoundMap );
-
     /**
      * Returns a collection of DeflatedDataValues which are marked for followup and
      * whose source OrganisationUnit is equal or subordinate to the given OrganisationUnit.
@@ -41,6 +41,7 @@ import org.hisp.dhis.program.ProgramIndicator;
 import org.hisp.dhis.validation.ValidationRule;
 
 import java.util.*;
+import java.util.function.BiConsumer;
 
 /**
  * @author Fredrik Fjeld
@@ -205,6 +206,20 @@ public interface DataIntegrityService
      */
     FlattenedDataIntegrityReport getFlattenedDataIntegrityReport();
 
+    /**
+     * Returns a FlattenedDataIntegrityReport with the results of the given
+     * checks only. Checks are run concurrently, each in its own transaction
+     * and with the security context of the calling thread.
+     * The listener is invoked on the calling thread as each check completes,
+     * with the check and a snapshot of the results completed so far. The
+     * snapshot is not modified by checks completing later.
+     *
+     * @param checks the checks to run.
+     * @param listener the listener to notify of completed checks.
+     */
+    FlattenedDataIntegrityReport getFlattenedDataIntegrityReport( Set<DataIntegrityCheckType> checks,
+        BiConsumer<DataIntegrityCheckType, FlattenedDataIntegrityReport> listener );
+
     /**
      * Get all ProgramIndicators with invalid expressions.
      */
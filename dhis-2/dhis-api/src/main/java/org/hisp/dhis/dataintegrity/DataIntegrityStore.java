@@ -0,0 +1,110 @@
+package org.hisp.dhis.dataintegrity;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.hisp.dhis.dataset.DataSet;
+import org.hisp.dhis.dataset.DataSetElement;
+import org.hisp.dhis.indicator.Indicator;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.organisationunit.OrganisationUnitGroup;
+import org.hisp.dhis.period.Period;
+import org.hisp.dhis.validation.ValidationRule;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Store for data integrity checks which can be answered by the database
+ * without loading the full set of objects of a type.
+ */
+public interface DataIntegrityStore
+{
+    /**
+     * Returns the data set elements of all data elements which are members of
+     * data sets with different period types.
+     */
+    List<DataSetElement> getDataSetElementsWithDifferentPeriodTypes();
+
+    /**
+     * Returns all data sets which are not assigned to any organisation units.
+     */
+    List<DataSet> getDataSetsWithoutOrganisationUnits();
+
+    /**
+     * Returns the numerator and denominator of all indicators as a mapping
+     * from indicator identifier to formula, where the formula is the numerator
+     * and denominator joined by the given separator.
+     *
+     * @param separator the separator between numerator and denominator.
+     */
+    Map<Integer, String> getIndicatorFormulas( String separator );
+
+    /**
+     * Returns the indicators with the given identifiers.
+     *
+     * @param ids the indicator identifiers.
+     */
+    List<Indicator> getIndicators( Collection<Integer> ids );
+
+    /**
+     * Returns all periods which share period type and start date with another
+     * period.
+     */
+    List<Period> getDuplicatePeriods();
+
+    /**
+     * Returns a mapping from organisation unit identifier to parent identifier
+     * for all organisation units which have a parent.
+     */
+    Map<Integer, Integer> getOrganisationUnitParents();
+
+    /**
+     * Returns the organisation units with the given identifiers.
+     *
+     * @param ids the organisation unit identifiers.
+     */
+    List<OrganisationUnit> getOrganisationUnits( Collection<Integer> ids );
+
+    /**
+     * Returns all organisation units with no parent and no children.
+     */
+    List<OrganisationUnit> getOrphanedOrganisationUnits();
+
+    /**
+     * Returns all organisation unit groups which are not members of any
+     * group set.
+     */
+    List<OrganisationUnitGroup> getOrganisationUnitGroupsWithoutGroupSets();
+
+    /**
+     * Returns all validation rules which are not members of any group.
+     */
+    List<ValidationRule> getValidationRulesWithoutGroups();
+}
@@ -117,6 +117,15 @@ public class FlattenedDataIntegrityReport
     @JsonProperty
     private Map<String, String> invalidProgramIndicatorFilters;
 
+    /**
+     * Creates an empty report. Results are added per check through
+     * {@link #setCheckResult(DataIntegrityCheckType, Object)}, checks which
+     * have not been run are left out of the serialized report.
+     */
+    public FlattenedDataIntegrityReport()
+    {
+    }
+
     public FlattenedDataIntegrityReport( org.hisp.dhis.dataintegrity.DataIntegrityReport report )
     {
         dataElementsWithoutDataSet = transformCollection( report.getDataElementsWithoutDataSet() );
@@ -166,6 +175,131 @@ public class FlattenedDataIntegrityReport
         invalidProgramIndicatorFilters = transformMapOfStrings( report.getInvalidProgramIndicatorFilters() );
     }
 
+    /**
+     * Flattens and sets the result of the given check. The result must be of
+     * the type returned by the corresponding method of DataIntegrityService,
+     * and must be flattened while the objects of the result are attached to
+     * a session. Safe to call concurrently for different checks.
+     *
+     * @param check the check.
+     * @param result the result of the check.
+     */
+    @SuppressWarnings( "unchecked" )
+    public synchronized void setCheckResult( DataIntegrityCheckType check, Object result )
+    {
+        switch ( check )
+        {
+            case DATA_ELEMENTS_WITHOUT_DATA_SET:
+                dataElementsWithoutDataSet = transformCollection( (Collection<? extends IdentifiableObject>) result );
+                break;
+            case DATA_ELEMENTS_WITHOUT_GROUPS:
+                dataElementsWithoutGroups = transformCollection( (Collection<? extends IdentifiableObject>) result );
+                break;
+            case DATA_ELEMENTS_ASSIGNED_TO_DATA_SETS_WITH_DIFFERENT_PERIOD_TYPES:
+                dataElementsAssignedToDataSetsWithDifferentPeriodTypes = transformMapOfCollections( (Map<? extends IdentifiableObject, ? extends Collection<? extends IdentifiableObject>>) result );
+                break;
+            case DATA_ELEMENTS_VIOLATING_EXCLUSIVE_GROUP_SETS:
+                dataElementsViolatingExclusiveGroupSets = transformSortedMap( (SortedMap<? extends IdentifiableObject, ? extends Collection<? extends IdentifiableObject>>) result );
+                break;
+            case DATA_ELEMENTS_IN_DATA_SET_NOT_IN_FORM:
+                dataElementsInDataSetNotInForm = transformSortedMap( (SortedMap<? extends IdentifiableObject, ? extends Collection<? extends IdentifiableObject>>) result );
+                break;
+            case INVALID_CATEGORY_COMBOS:
+                invalidCategoryCombos = transformCollection( (Collection<? extends IdentifiableObject>) result );
+                break;
+            case DATA_SETS_NOT_ASSIGNED_TO_ORGANISATION_UNITS:
+                dataSetsNotAssignedToOrganisationUnits = transformCollection( (Collection<? extends IdentifiableObject>) result );
+                break;
+            case INDICATORS_WITH_IDENTICAL_FORMULAS:
+                indicatorsWithIdenticalFormulas = transformCollectionOfCollections( (Collection<? extends Collection<? extends IdentifiableObject>>) result );
+                break;
+            case INDICATORS_WITHOUT_GROUPS:
+                indicatorsWithoutGroups = transformCollection( (Collection<? extends IdentifiableObject>) result );
+                break;
+            case INVALID_INDICATOR_NUMERATORS:
+                invalidIndicatorNumerators = transformMapOfStrings( (Map<? extends IdentifiableObject, String>) result );
+                break;
+            case INVALID_INDICATOR_DENOMINATORS:
+                invalidIndicatorDenominators = transformMapOfStrings( (Map<? extends IdentifiableObject, String>) result );
+                break;
+            case INDICATORS_VIOLATING_EXCLUSIVE_GROUP_SETS:
+                indicatorsViolatingExclusiveGroupSets = transformSortedMap( (SortedMap<? extends IdentifiableObject, ? extends Collection<? extends IdentifiableObject>>) result );
+                break;
+            case DUPLICATE_PERIODS:
+                duplicatePeriods = transformCollection( (Collection<? extends IdentifiableObject>) result );
+                break;
+            case ORGANISATION_UNITS_WITH_CYCLIC_REFERENCES:
+                organisationUnitsWithCyclicReferences = transformCollection( (Collection<? extends IdentifiableObject>) result );
+                break;
+            case ORPHANED_ORGANISATION_UNITS:
+                orphanedOrganisationUnits = transformCollection( (Collection<? extends IdentifiableObject>) result );
+                break;
+            case ORGANISATION_UNITS_WITHOUT_GROUPS:
+                organisationUnitsWithoutGroups = transformCollection( (Collection<? extends IdentifiableObject>) result );
+                break;
+            case ORGANISATION_UNITS_VIOLATING_EXCLUSIVE_GROUP_SETS:
+                organisationUnitsViolatingExclusiveGroupSets = transformSortedMap( (SortedMap<? extends IdentifiableObject, ? extends Collection<? extends IdentifiableObject>>) result );
+                break;
+            case ORGANISATION_UNIT_GROUPS_WITHOUT_GROUP_SETS:
+                organisationUnitGroupsWithoutGroupSets = transformCollection( (Collection<? extends IdentifiableObject>) result );
+                break;
+            case VALIDATION_RULES_WITHOUT_GROUPS:
+                validationRulesWithoutGroups = transformCollection( (Collection<? extends IdentifiableObject>) result );
+                break;
+            case INVALID_VALIDATION_RULE_LEFT_SIDE_EXPRESSIONS:
+                invalidValidationRuleLeftSideExpressions = transformMapOfStrings( (Map<? extends IdentifiableObject, String>) result );
+                break;
+            case INVALID_VALIDATION_RULE_RIGHT_SIDE_EXPRESSIONS:
+                invalidValidationRuleRightSideExpressions = transformMapOfStrings( (Map<? extends IdentifiableObject, String>) result );
+                break;
+            case INVALID_PROGRAM_INDICATOR_EXPRESSIONS:
+                invalidProgramIndicatorExpressions = transformMapOfStrings( (Map<? extends IdentifiableObject, String>) result );
+                break;
+            case INVALID_PROGRAM_INDICATOR_FILTERS:
+                invalidProgramIndicatorFilters = transformMapOfStrings( (Map<? extends IdentifiableObject, String>) result );
+                break;
+            default:
+                throw new IllegalArgumentException( "Unsupported data integrity check: " + check );
+        }
+    }
+
+    /**
+     * Returns a snapshot of the results set so far. Results are replaced and
+     * never modified once set, so the snapshot shares them with this report.
+     *
+     * @return a copy of this report.
+     */
+    public synchronized FlattenedDataIntegrityReport copy()
+    {
+        FlattenedDataIntegrityReport copy = new FlattenedDataIntegrityReport();
+
+        copy.dataElementsWithoutDataSet = dataElementsWithoutDataSet;
+        copy.dataElementsWithoutGroups = dataElementsWithoutGroups;
+        copy.dataElementsAssignedToDataSetsWithDifferentPeriodTypes = dataElementsAssignedToDataSetsWithDifferentPeriodTypes;
+        copy.dataElementsViolatingExclusiveGroupSets = dataElementsViolatingExclusiveGroupSets;
+        copy.dataElementsInDataSetNotInForm = dataElementsInDataSetNotInForm;
+        copy.invalidCategoryCombos = invalidCategoryCombos;
+        copy.dataSetsNotAssignedToOrganisationUnits = dataSetsNotAssignedToOrganisationUnits;
+        copy.indicatorsWithIdenticalFormulas = indicatorsWithIdenticalFormulas;
+        copy.indicatorsWithoutGroups = indicatorsWithoutGroups;
+        copy.invalidIndicatorNumerators = invalidIndicatorNumerators;
+        copy.invalidIndicatorDenominators = invalidIndicatorDenominators;
+        copy.indicatorsViolatingExclusiveGroupSets = indicatorsViolatingExclusiveGroupSets;
+        copy.duplicatePeriods = duplicatePeriods;
+        copy.organisationUnitsWithCyclicReferences = organisationUnitsWithCyclicReferences;
+        copy.orphanedOrganisationUnits = orphanedOrganisationUnits;
+        copy.organisationUnitsWithoutGroups = organisationUnitsWithoutGroups;
+        copy.organisationUnitsViolatingExclusiveGroupSets = organisationUnitsViolatingExclusiveGroupSets;
+        copy.organisationUnitGroupsWithoutGroupSets = organisationUnitGroupsWithoutGroupSets;
+        copy.validationRulesWithoutGroups = validationRulesWithoutGroups;
+        copy.invalidValidationRuleLeftSideExpressions = invalidValidationRuleLeftSideExpressions;
+        copy.invalidValidationRuleRightSideExpressions = invalidValidationRuleRightSideExpressions;
+        copy.invalidProgramIndicatorExpressions = invalidProgramIndicatorExpressions;
+        copy.invalidProgramIndicatorFilters = invalidProgramIndicatorFilters;
+
+        return copy;
+    }
+
     // -------------------------------------------------------------------------
     // Supportive methods
     // -------------------------------------------------------------------------
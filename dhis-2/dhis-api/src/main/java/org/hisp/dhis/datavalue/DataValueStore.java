@@ -144,6 +144,17 @@ public interface DataValueStore
      */
     List<DeflatedDataValue> getDeflatedDataValues( DataExportParams params );
 
+    /**
+     * Returns deflated data values, including soft deleted data values, for
+     * the identifiers of the given data values using a single query. The result
+     * may include data values for combinations of identifiers which are not
+     * among the given data values, and must be matched against them.
+     *
+     * @param dataValues the data values to use as parameters.
+     * @return a list of deflated data values.
+     */
+    List<DeflatedDataValue> getDeflatedDataValues( Collection<DataValue> dataValues );
+
     /**
      * Gets the number of DataValues which have been updated between the given 
      * start and end date. The <pre>startDate</pre> and <pre>endDate</pre> parameters
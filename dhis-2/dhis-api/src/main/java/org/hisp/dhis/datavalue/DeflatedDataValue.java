@@ -69,6 +69,8 @@ public class DeflatedDataValue
 
     private boolean followup;
 
+    private boolean deleted;
+
     // -------------------------------------------------------------------------
     // Optional attributes
     // -------------------------------------------------------------------------
@@ -106,6 +108,7 @@ public class DeflatedDataValue
         this.lastUpdated = dataValue.getLastUpdated();
         this.comment = dataValue.getComment();
         this.followup = dataValue.isFollowup();
+        this.deleted = dataValue.isDeleted();
     }
 
     public DeflatedDataValue( Integer dataElementId, Integer periodId, Integer sourceId,
@@ -259,6 +262,16 @@ public class DeflatedDataValue
         this.followup = followup;
     }
 
+    public boolean isDeleted()
+    {
+        return deleted;
+    }
+
+    public void setDeleted( boolean deleted )
+    {
+        this.deleted = deleted;
+    }
+
     @JsonProperty
     public int getMin()
     {
@@ -40,6 +40,15 @@ public interface ExternalFileResourceService
      */
     ExternalFileResource getExternalFileResourceByAccessToken( String accessToken );
 
+    /**
+     * Retrieves a non-expired ExternalFileResource for stored content with the
+     * given MD5 hash, allowing identical files to be shared rather than stored again.
+     * @param contentMd5 MD5 hash of the file content
+     * @param domain domain of the FileResource
+     * @return ExternalFileResource or null if none exists
+     */
+    ExternalFileResource getExternalFileResourceByContentMd5( String contentMd5, FileResourceDomain domain );
+
     /**
      * Generates an accessToken before persisting the object.
      * @param externalFileResource
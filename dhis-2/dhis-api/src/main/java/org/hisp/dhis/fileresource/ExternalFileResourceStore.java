@@ -43,4 +43,14 @@ public interface ExternalFileResourceStore
      * @return ExternalFileResource
      */
     ExternalFileResource getExternalFileResourceByAccessToken( String accessToken );
+
+    /**
+     * Returns a non-expired ExternalFileResource for a stored FileResource in
+     * the given domain with the given content MD5 hash, or null if none exists.
+     *
+     * @param contentMd5 the MD5 hash of the file content.
+     * @param domain the domain of the FileResource.
+     * @return ExternalFileResource
+     */
+    ExternalFileResource getExternalFileResourceByContentMd5( String contentMd5, FileResourceDomain domain );
 }
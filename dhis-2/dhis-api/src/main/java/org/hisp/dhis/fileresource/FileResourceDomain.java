@@ -35,6 +35,7 @@ public enum FileResourceDomain
 {
     DATA_VALUE( "dataValue" ),
     PUSH_ANALYSIS( "pushAnalysis" ),
+    ANALYTICS( "analytics" ),
     DOCUMENT( "document" );
 
     /**
@@ -29,6 +29,7 @@ package org.hisp.dhis.fileresource;
  */
 
 import com.google.common.io.ByteSource;
+import org.springframework.util.concurrent.ListenableFutureCallback;
 
 import java.io.File;
 import java.net.URI;
@@ -47,6 +48,13 @@ public interface FileResourceService
 
     String saveFileResource( FileResource fileResource, File file );
 
+    /**
+     * Saves the file resource and stores the file content asynchronously. The
+     * given callback is invoked when the content is stored, after the storage
+     * status of the file resource has been updated.
+     */
+    String saveFileResource( FileResource fileResource, File file, ListenableFutureCallback<String> callback );
+
     String saveFileResource( FileResource fileResource, byte[] bytes );
 
     void deleteFileResource( String uid );
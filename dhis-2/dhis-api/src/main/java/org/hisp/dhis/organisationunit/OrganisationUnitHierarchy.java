@@ -244,6 +244,15 @@ public class OrganisationUnitHierarchy
         return children;
     }
     
+    /**
+     * Returns the mapping of parent identifier to identifiers of the immediate
+     * children.
+     */
+    public Map<Integer, Set<Integer>> getRelationships()
+    {
+        return relationships;
+    }
+
     // -------------------------------------------------------------------------
     // Supportive methods
     // -------------------------------------------------------------------------
@@ -0,0 +1,324 @@
+package org.hisp.dhis.organisationunit;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compact index of the organisation unit hierarchy based on primitive arrays,
+ * which answers ancestry, level and sub-tree queries for organisation unit
+ * identifiers in constant or logarithmic time without loading any objects.
+ *
+ * Each organisation unit is assigned the interval [pre, post] from a depth
+ * first traversal of the hierarchy, where pre is the order in which the unit
+ * is visited and post is the highest pre of any unit in its sub-tree. A unit
+ * is a descendant of another unit if its pre is within the interval of the
+ * other unit.
+ *
+ * Instances are immutable and safe to share between threads.
+ */
+public class OrganisationUnitHierarchyIndex
+{
+    private static final int NOT_INDEXED = -1;
+
+    /**
+     * Sorted organisation unit identifiers. The position of an identifier is
+     * the index of the organisation unit in the other arrays.
+     */
+    private final int[] ids;
+
+    private final int[] pre;
+
+    private final int[] post;
+
+    private final int[] levels;
+
+    // -------------------------------------------------------------------------
+    // Constructors
+    // -------------------------------------------------------------------------
+
+    public OrganisationUnitHierarchyIndex( OrganisationUnitHierarchy hierarchy )
+    {
+        this( hierarchy.getRelationships() );
+    }
+
+    /**
+     * @param relationships mapping of parent identifier to identifiers of the
+     *        immediate children. Organisation units with parent identifier 0
+     *        are considered roots.
+     */
+    public OrganisationUnitHierarchyIndex( Map<Integer, Set<Integer>> relationships )
+    {
+        this.ids = getIds( relationships );
+
+        int size = ids.length;
+
+        // ---------------------------------------------------------------------
+        // Parent and children per index, children in compressed row format
+        // ---------------------------------------------------------------------
+
+        int[] parents = new int[size];
+        int[] childCounts = new int[size + 1];
+
+        Arrays.fill( parents, NOT_INDEXED );
+
+        for ( Map.Entry<Integer, Set<Integer>> entry : relationships.entrySet() )
+        {
+            int parent = entry.getKey() != 0 ? indexOf( entry.getKey() ) : NOT_INDEXED;
+
+            for ( Integer child : entry.getValue() )
+            {
+                int index = indexOf( child );
+
+                if ( parent != NOT_INDEXED && parents[index] == NOT_INDEXED && index != parent )
+                {
+                    parents[index] = parent;
+                    childCounts[parent + 1]++;
+                }
+            }
+        }
+
+        int[] offsets = childCounts;
+
+        for ( int i = 0; i < size; i++ )
+        {
+            offsets[i + 1] += offsets[i];
+        }
+
+        int[] children = new int[offsets[size]];
+        int[] cursor = Arrays.copyOf( offsets, size );
+
+        for ( int i = 0; i < size; i++ )
+        {
+            if ( parents[i] != NOT_INDEXED )
+            {
+                children[cursor[parents[i]]++] = i;
+            }
+        }
+
+        // ---------------------------------------------------------------------
+        // Iterative depth first traversal from each root
+        // ---------------------------------------------------------------------
+
+        this.pre = new int[size];
+        this.post = new int[size];
+        this.levels = new int[size];
+
+        Arrays.fill( pre, NOT_INDEXED );
+        Arrays.fill( post, NOT_INDEXED );
+
+        int[] stack = new int[size];
+        int counter = 0;
+
+        for ( int root = 0; root < size; root++ )
+        {
+            if ( parents[root] != NOT_INDEXED )
+            {
+                continue;
+            }
+
+            int top = 0;
+            stack[top++] = root;
+            pre[root] = counter++;
+            levels[root] = 1;
+            cursor[root] = offsets[root];
+
+            while ( top > 0 )
+            {
+                int node = stack[top - 1];
+
+                if ( cursor[node] < offsets[node + 1] )
+                {
+                    int child = children[cursor[node]++];
+
+                    pre[child] = counter++;
+                    levels[child] = levels[node] + 1;
+                    cursor[child] = offsets[child];
+                    stack[top++] = child;
+                }
+                else
+                {
+                    post[node] = counter - 1;
+                    top--;
+                }
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Queries
+    // -------------------------------------------------------------------------
+
+    /**
+     * Indicates whether the organisation unit with the given identifier is
+     * part of the index.
+     *
+     * @param id the organisation unit identifier.
+     * @return true if indexed, false otherwise.
+     */
+    public boolean contains( int id )
+    {
+        int index = indexOf( id );
+
+        return index != NOT_INDEXED && pre[index] != NOT_INDEXED;
+    }
+
+    /**
+     * Returns the hierarchy level of the organisation unit with the given
+     * identifier, where roots are at level 1.
+     *
+     * @param id the organisation unit identifier.
+     * @return the level, or -1 if the organisation unit is not indexed.
+     */
+    public int getLevel( int id )
+    {
+        int index = indexOf( id );
+
+        return index != NOT_INDEXED && pre[index] != NOT_INDEXED ? levels[index] : NOT_INDEXED;
+    }
+
+    /**
+     * Returns the number of organisation units in the sub-tree of the
+     * organisation unit with the given identifier, including itself.
+     *
+     * @param id the organisation unit identifier.
+     * @return the sub-tree size, or 0 if the organisation unit is not indexed.
+     */
+    public int getSubTreeSize( int id )
+    {
+        int index = indexOf( id );
+
+        return index != NOT_INDEXED && pre[index] != NOT_INDEXED ? post[index] - pre[index] + 1 : 0;
+    }
+
+    /**
+     * Indicates whether the organisation unit with the given identifier is
+     * equal to or a descendant of the organisation unit with the given
+     * ancestor identifier.
+     *
+     * @param id the organisation unit identifier.
+     * @param ancestorId the ancestor organisation unit identifier.
+     * @return true if the organisation unit is in the sub-tree of the ancestor.
+     */
+    public boolean isDescendant( int id, int ancestorId )
+    {
+        if ( id == ancestorId )
+        {
+            return true;
+        }
+
+        int index = indexOf( id );
+        int ancestor = indexOf( ancestorId );
+
+        if ( index == NOT_INDEXED || ancestor == NOT_INDEXED || pre[index] == NOT_INDEXED || pre[ancestor] == NOT_INDEXED )
+        {
+            return false;
+        }
+
+        return pre[ancestor] <= pre[index] && pre[index] <= post[ancestor];
+    }
+
+    /**
+     * Indicates whether the organisation unit with the given identifier is
+     * equal to or a descendant of any of the organisation units with the given
+     * ancestor identifiers.
+     *
+     * @param id the organisation unit identifier.
+     * @param ancestorIds the ancestor organisation unit identifiers.
+     * @return true if the organisation unit is in the sub-tree of any of the
+     *         ancestors.
+     */
+    public boolean isDescendant( int id, Collection<Integer> ancestorIds )
+    {
+        if ( ancestorIds == null )
+        {
+            return false;
+        }
+
+        for ( Integer ancestorId : ancestorIds )
+        {
+            if ( ancestorId != null && isDescendant( id, ancestorId ) )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the number of indexed organisation units.
+     */
+    public int size()
+    {
+        return ids.length;
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private int indexOf( int id )
+    {
+        int index = Arrays.binarySearch( ids, id );
+
+        return index >= 0 ? index : NOT_INDEXED;
+    }
+
+    private static int[] getIds( Map<Integer, Set<Integer>> relationships )
+    {
+        int count = 0;
+
+        for ( Set<Integer> children : relationships.values() )
+        {
+            count += children.size();
+        }
+
+        int[] ids = new int[count + relationships.size()];
+        int i = 0;
+
+        for ( Map.Entry<Integer, Set<Integer>> entry : relationships.entrySet() )
+        {
+            if ( entry.getKey() != 0 )
+            {
+                ids[i++] = entry.getKey();
+            }
+
+            for ( Integer child : entry.getValue() )
+            {
+                ids[i++] = child;
+            }
+        }
+
+        return Arrays.stream( ids, 0, i ).sorted().distinct().toArray();
+    }
+}
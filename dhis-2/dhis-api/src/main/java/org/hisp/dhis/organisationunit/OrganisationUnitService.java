@@ -373,6 +373,18 @@ public interface OrganisationUnitService
      * @return true if the organisation unit with the given uid is part of the hierarchy.
      */
     boolean isInUserHierarchy( String uid, Set<OrganisationUnit> organisationUnits );
+
+    /**
+     * Indicates whether the given organisation unit is equal to or a descendant
+     * of any of the given ancestor organisation units. Uses the organisation
+     * unit hierarchy index and does not load any parent organisation units.
+     *
+     * @param organisationUnit the organisation unit.
+     * @param ancestors        the ancestor organisation units.
+     * @return true if the organisation unit is part of the hierarchy of any of
+     *         the ancestors.
+     */
+    boolean isDescendant( OrganisationUnit organisationUnit, Set<OrganisationUnit> ancestors );
     
     // -------------------------------------------------------------------------
     // OrganisationUnitHierarchy
@@ -385,6 +397,14 @@ public interface OrganisationUnitService
      */
     OrganisationUnitHierarchy getOrganisationUnitHierarchy();
 
+    /**
+     * Returns the organisation unit hierarchy index. The index is built from
+     * the organisation unit hierarchy and cached until the hierarchy changes.
+     *
+     * @return the {@link OrganisationUnitHierarchyIndex}.
+     */
+    OrganisationUnitHierarchyIndex getOrganisationUnitHierarchyIndex();
+
     /**
      * Updates the parent id of the organisation unit with the given id.
      *
@@ -115,6 +115,16 @@ public interface OrganisationUnitStore
      * @return a list of objects.
      */
     List<OrganisationUnit> getWithinCoordinateArea( double[] box );
+
+    /**
+     * Retrieves the identifier, hierarchy level, feature type and coordinates
+     * of all organisation units with coordinates and a polygon, multi-polygon
+     * or point feature type.
+     *
+     * @return a list of object arrays holding identifier, hierarchy level,
+     *         feature type and coordinates.
+     */
+    List<Object[]> getOrganisationUnitCoordinates();
     
     // -------------------------------------------------------------------------
     // OrganisationUnitHierarchy
@@ -34,6 +34,7 @@ import org.hisp.dhis.common.CodeGenerator;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * @author Lars Helge Overland
@@ -98,6 +99,19 @@ public abstract class ResourceTable<T>
         return "alter table " + getTempTableName() + " rename to " + getTableName() + ";";
     }
     
+    /**
+     * Writes content for the temporary resource table row by row to the given
+     * consumer. Defaults to the content provided by
+     * {@link #getPopulateTempTableContent()}. Subclasses with large content
+     * should override this method to avoid holding all rows in memory.
+     * 
+     * @param consumer the consumer of rows.
+     */
+    public void writeTempTableContent( Consumer<Object[]> consumer )
+    {
+        getPopulateTempTableContent().ifPresent( content -> content.forEach( consumer ) );
+    }
+    
     // -------------------------------------------------------------------------
     // Protected methods
     // -------------------------------------------------------------------------
@@ -28,6 +28,10 @@ package org.hisp.dhis.resourcetable;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 /**
 * @author Lars Helge Overland
 */
@@ -44,17 +48,29 @@ public enum ResourceTableType
     PERIOD_STRUCTURE( "_periodstructure" ),
     DATE_PERIOD_STRUCTURE( "_dateperiodstructure" ),
     DATA_ELEMENT_CATEGORY_OPTION_COMBO( "_dataelementcategoryoptioncombo" ),
-    DATA_APPROVAL_MIN_LEVEL( "_dataapprovalminlevel" );
+    DATA_APPROVAL_MIN_LEVEL( "_dataapprovalminlevel", ORG_UNIT_STRUCTURE );
     
     private String tableName;
     
-    ResourceTableType( String tableName )
+    private List<ResourceTableType> dependencies;
+    
+    ResourceTableType( String tableName, ResourceTableType... dependencies )
     {
         this.tableName = tableName;
+        this.dependencies = Collections.unmodifiableList( Arrays.asList( dependencies ) );
     }
     
     public String getTableName()
     {
         return tableName;
     }
+
+    /**
+     * Returns the resource tables which must be generated before this
+     * resource table, as this resource table is populated from them.
+     */
+    public List<ResourceTableType> getDependencies()
+    {
+        return dependencies;
+    }
 }
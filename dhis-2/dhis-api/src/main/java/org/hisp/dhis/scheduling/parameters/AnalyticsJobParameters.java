@@ -53,6 +53,9 @@ public class AnalyticsJobParameters
     @JsonProperty
     private boolean skipResourceTables = false;
 
+    @JsonProperty
+    private boolean latestUpdate = false;
+
     public AnalyticsJobParameters()
     {
     }
@@ -64,6 +67,12 @@ public class AnalyticsJobParameters
         this.skipResourceTables = skipResourceTables;
     }
 
+    public AnalyticsJobParameters( Integer lastYears, Set<AnalyticsTableType> skipTableTypes, boolean skipResourceTables, boolean latestUpdate )
+    {
+        this( lastYears, skipTableTypes, skipResourceTables );
+        this.latestUpdate = latestUpdate;
+    }
+
     public Integer getLastYears()
     {
         return lastYears;
@@ -79,6 +88,11 @@ public class AnalyticsJobParameters
         return skipResourceTables;
     }
 
+    public boolean isLatestUpdate()
+    {
+        return latestUpdate;
+    }
+
     public ErrorReport validate()
     {
         return null;
@@ -43,6 +43,8 @@ import org.springframework.core.Ordered;
 import java.lang.reflect.Method;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 /**
  * @author Morten Olav Hansen <mortenoh@gmail.com>
@@ -80,6 +82,16 @@ public class Property implements Ordered, Klass
      */
     private Method setterMethod;
 
+    /**
+     * Generated accessor invoking the getter method, created on first use.
+     */
+    private transient Function<Object, Object> getter;
+
+    /**
+     * Generated accessor invoking the setter method, created on first use.
+     */
+    private transient BiConsumer<Object, Object> setter;
+
     /**
      * Name for this property, if this class is a collection, it is the name of the items -inside- the collection
      * and not the collection wrapper itself.
@@ -331,6 +343,7 @@ public class Property implements Ordered, Klass
     public void setGetterMethod( Method getterMethod )
     {
         this.getterMethod = getterMethod;
+        this.getter = null;
     }
 
     public Method getSetterMethod()
@@ -341,6 +354,57 @@ public class Property implements Ordered, Klass
     public void setSetterMethod( Method setterMethod )
     {
         this.setterMethod = setterMethod;
+        this.setter = null;
+    }
+
+    /**
+     * Returns the value of this property for the given object through the
+     * getter method.
+     *
+     * @param object the object to read from.
+     * @return the property value, or null if the object or the getter method
+     *         is null.
+     */
+    @SuppressWarnings( "unchecked" )
+    public <T> T getValue( Object object )
+    {
+        if ( object == null || getterMethod == null )
+        {
+            return null;
+        }
+
+        Function<Object, Object> accessor = getter;
+
+        if ( accessor == null )
+        {
+            accessor = getter = PropertyAccessors.getter( getterMethod );
+        }
+
+        return (T) accessor.apply( object );
+    }
+
+    /**
+     * Sets the value of this property for the given object through the
+     * setter method. Does nothing if the object or the setter method is null.
+     *
+     * @param object the object to write to.
+     * @param value the property value.
+     */
+    public void setValue( Object object, Object value )
+    {
+        if ( object == null || setterMethod == null )
+        {
+            return;
+        }
+
+        BiConsumer<Object, Object> accessor = setter;
+
+        if ( accessor == null )
+        {
+            accessor = setter = PropertyAccessors.setter( setterMethod );
+        }
+
+        accessor.accept( object, value );
     }
 
     @JsonProperty
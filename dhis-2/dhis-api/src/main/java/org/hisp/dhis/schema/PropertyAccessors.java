@@ -0,0 +1,136 @@
+package org.hisp.dhis.schema;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Factory for functions which invoke the getter and setter methods of
+ * properties. Functions are generated through {@link LambdaMetafactory} and
+ * perform like direct method calls. Methods which cannot be linked, such as
+ * public methods declared in non-public classes, are invoked through
+ * reflection.
+ */
+final class PropertyAccessors
+{
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private PropertyAccessors()
+    {
+    }
+
+    /**
+     * Returns a function which invokes the given getter method on its argument.
+     * Private and protected methods are not invoked and yield null.
+     *
+     * @param method the getter method.
+     * @return a getter function.
+     */
+    @SuppressWarnings( "unchecked" )
+    static Function<Object, Object> getter( Method method )
+    {
+        if ( isHidden( method ) )
+        {
+            return object -> null;
+        }
+
+        try
+        {
+            MethodHandle handle = LOOKUP.unreflect( method );
+
+            CallSite site = LambdaMetafactory.metafactory( LOOKUP, "apply",
+                MethodType.methodType( Function.class ), MethodType.methodType( Object.class, Object.class ),
+                handle, handle.type().wrap() );
+
+            return (Function<Object, Object>) site.getTarget().invokeExact();
+        }
+        catch ( Throwable ex )
+        {
+            return object -> invoke( method, object );
+        }
+    }
+
+    /**
+     * Returns a function which invokes the given setter method on its first
+     * argument with its second argument. Private and protected methods are not
+     * invoked.
+     *
+     * @param method the setter method.
+     * @return a setter function.
+     */
+    @SuppressWarnings( "unchecked" )
+    static BiConsumer<Object, Object> setter( Method method )
+    {
+        if ( isHidden( method ) )
+        {
+            return ( object, value ) -> {};
+        }
+
+        try
+        {
+            MethodHandle handle = LOOKUP.unreflect( method );
+
+            CallSite site = LambdaMetafactory.metafactory( LOOKUP, "accept",
+                MethodType.methodType( BiConsumer.class ), MethodType.methodType( void.class, Object.class, Object.class ),
+                handle, handle.type().wrap().changeReturnType( void.class ) );
+
+            return (BiConsumer<Object, Object>) site.getTarget().invokeExact();
+        }
+        catch ( Throwable ex )
+        {
+            return ( object, value ) -> invoke( method, object, value );
+        }
+    }
+
+    private static boolean isHidden( Method method )
+    {
+        return Modifier.isProtected( method.getModifiers() ) || Modifier.isPrivate( method.getModifiers() );
+    }
+
+    private static Object invoke( Method method, Object object, Object... args )
+    {
+        try
+        {
+            return method.invoke( object, args );
+        }
+        catch ( InvocationTargetException | IllegalAccessException ex )
+        {
+            throw new RuntimeException( ex );
+        }
+    }
+}
@@ -29,9 +29,22 @@ package org.hisp.dhis.sms.incoming;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import org.hisp.dhis.sms.parse.ParserType;
+
 public interface IncomingSmsListener
 {
     boolean accept( IncomingSms sms );
 
     void receive( IncomingSms sms );
+
+    /**
+     * Returns the parser type of the SMS commands handled by this listener.
+     * Listeners with a parser type are only asked to {@link #accept(IncomingSms)}
+     * an SMS when a command of that parser type may match it. Listeners returning
+     * null are always asked.
+     */
+    default ParserType getParserType()
+    {
+        return null;
+    }
 }
@@ -28,6 +28,7 @@ package org.hisp.dhis.sms.incoming;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Date;
 
@@ -46,6 +47,13 @@ public interface IncomingSmsService
 
     void update( IncomingSms sms );
 
+    /**
+     * Writes the status and parsed flag of the given messages in bulk.
+     *
+     * @param smses the messages to update.
+     */
+    void updateStatuses( Collection<IncomingSms> smses );
+
     IncomingSms findBy( Integer id );
 
     List<IncomingSms> listAllMessage();
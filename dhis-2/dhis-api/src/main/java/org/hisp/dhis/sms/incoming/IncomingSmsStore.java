@@ -28,6 +28,7 @@ package org.hisp.dhis.sms.incoming;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -41,6 +42,14 @@ public interface IncomingSmsStore
 
     void update( IncomingSms incomingSms );
 
+    /**
+     * Writes the status and parsed flag of the given messages, using one
+     * statement per distinct combination of status and parsed flag.
+     *
+     * @param incomingSmses the messages to update.
+     */
+    void updateStatuses( Collection<IncomingSms> incomingSmses );
+
     IncomingSms get( int id );
 
     List<IncomingSms> getSmsByStatus( SmsMessageStatus status, String keyword );
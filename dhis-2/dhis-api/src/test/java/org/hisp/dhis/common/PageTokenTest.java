@@ -0,0 +1,73 @@
+package org.hisp.dhis.common;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.*;
+
+import java.sql.Timestamp;
+
+import org.junit.Test;
+
+public class PageTokenTest
+{
+    @Test
+    public void testEncodeDecode()
+    {
+        Timestamp sortKey = Timestamp.valueOf( "2018-03-14 10:25:31.123456" );
+
+        String token = new PageToken( sortKey, "3941" ).encode();
+
+        PageToken decoded = PageToken.decode( token );
+
+        assertEquals( sortKey, decoded.getSortKey() );
+        assertEquals( "3941", decoded.getId() );
+        assertEquals( "'2018-03-14 10:25:31.123456'", decoded.getSortKeyLiteral() );
+    }
+
+    @Test
+    public void testDecodeEmpty()
+    {
+        assertNull( PageToken.decode( null ) );
+        assertNull( PageToken.decode( "" ) );
+    }
+
+    @Test( expected = IllegalQueryException.class )
+    public void testDecodeInvalidBase64()
+    {
+        PageToken.decode( "not*base64" );
+    }
+
+    @Test( expected = IllegalQueryException.class )
+    public void testDecodeInvalidId()
+    {
+        String token = new PageToken( new Timestamp( 0 ), "1' or '1'='1" ).encode();
+
+        PageToken.decode( token );
+    }
+}
@@ -0,0 +1,117 @@
+package org.hisp.dhis.organisationunit;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class OrganisationUnitHierarchyIndexTest
+{
+    private OrganisationUnitHierarchyIndex index;
+
+    @Before
+    public void before()
+    {
+        List<OrganisationUnitRelationship> relationships = new ArrayList<>();
+
+        relationships.add( new OrganisationUnitRelationship( 0, 1 ) );
+        relationships.add( new OrganisationUnitRelationship( 1, 2 ) );
+        relationships.add( new OrganisationUnitRelationship( 1, 3 ) );
+        relationships.add( new OrganisationUnitRelationship( 2, 4 ) );
+        relationships.add( new OrganisationUnitRelationship( 2, 5 ) );
+        relationships.add( new OrganisationUnitRelationship( 3, 6 ) );
+        relationships.add( new OrganisationUnitRelationship( 4, 7 ) );
+        relationships.add( new OrganisationUnitRelationship( 0, 8 ) );
+
+        index = new OrganisationUnitHierarchyIndex( new OrganisationUnitHierarchy( relationships ) );
+    }
+
+    @Test
+    public void testContains()
+    {
+        assertEquals( 8, index.size() );
+        assertTrue( index.contains( 1 ) );
+        assertTrue( index.contains( 7 ) );
+        assertTrue( index.contains( 8 ) );
+        assertFalse( index.contains( 0 ) );
+        assertFalse( index.contains( 9 ) );
+    }
+
+    @Test
+    public void testGetLevel()
+    {
+        assertEquals( 1, index.getLevel( 1 ) );
+        assertEquals( 2, index.getLevel( 3 ) );
+        assertEquals( 3, index.getLevel( 5 ) );
+        assertEquals( 4, index.getLevel( 7 ) );
+        assertEquals( 1, index.getLevel( 8 ) );
+        assertEquals( -1, index.getLevel( 9 ) );
+    }
+
+    @Test
+    public void testGetSubTreeSize()
+    {
+        assertEquals( 7, index.getSubTreeSize( 1 ) );
+        assertEquals( 4, index.getSubTreeSize( 2 ) );
+        assertEquals( 1, index.getSubTreeSize( 7 ) );
+        assertEquals( 1, index.getSubTreeSize( 8 ) );
+        assertEquals( 0, index.getSubTreeSize( 9 ) );
+    }
+
+    @Test
+    public void testIsDescendant()
+    {
+        assertTrue( index.isDescendant( 7, 1 ) );
+        assertTrue( index.isDescendant( 7, 2 ) );
+        assertTrue( index.isDescendant( 7, 4 ) );
+        assertTrue( index.isDescendant( 7, 7 ) );
+        assertTrue( index.isDescendant( 6, 3 ) );
+
+        assertFalse( index.isDescendant( 7, 3 ) );
+        assertFalse( index.isDescendant( 2, 4 ) );
+        assertFalse( index.isDescendant( 6, 8 ) );
+        assertFalse( index.isDescendant( 1, 8 ) );
+        assertFalse( index.isDescendant( 7, 9 ) );
+    }
+
+    @Test
+    public void testIsDescendantOfAny()
+    {
+        assertTrue( index.isDescendant( 5, Lists.newArrayList( 3, 2 ) ) );
+        assertTrue( index.isDescendant( 8, Lists.newArrayList( 1, 8 ) ) );
+        assertFalse( index.isDescendant( 5, Lists.newArrayList( 3, 8 ) ) );
+        assertFalse( index.isDescendant( 5, null ) );
+    }
+}
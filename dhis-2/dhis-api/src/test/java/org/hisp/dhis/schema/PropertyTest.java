@@ -0,0 +1,110 @@
+package org.hisp.dhis.schema;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.hisp.dhis.common.BaseIdentifiableObject;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.dataelement.DataElementDomain;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PropertyTest
+{
+    @Test
+    public void testGetSetObjectValue()
+        throws Exception
+    {
+        Property property = new Property( DataElement.class,
+            BaseIdentifiableObject.class.getMethod( "getName" ),
+            BaseIdentifiableObject.class.getMethod( "setName", String.class ) );
+
+        DataElement deA = new DataElement( "DataElementA" );
+
+        assertEquals( "DataElementA", property.getValue( deA ) );
+
+        property.setValue( deA, "DataElementB" );
+
+        assertEquals( "DataElementB", deA.getName() );
+        assertEquals( "DataElementB", property.getValue( deA ) );
+    }
+
+    @Test
+    public void testGetSetPrimitiveValue()
+        throws Exception
+    {
+        Property property = new Property( DataElement.class,
+            DataElement.class.getMethod( "isZeroIsSignificant" ),
+            DataElement.class.getMethod( "setZeroIsSignificant", boolean.class ) );
+
+        DataElement deA = new DataElement( "DataElementA" );
+
+        assertFalse( property.getValue( deA ) );
+
+        property.setValue( deA, true );
+
+        assertTrue( deA.isZeroIsSignificant() );
+        assertTrue( property.getValue( deA ) );
+    }
+
+    @Test
+    public void testGetSetEnumValue()
+        throws Exception
+    {
+        Property property = new Property( DataElement.class,
+            DataElement.class.getMethod( "getDomainType" ),
+            DataElement.class.getMethod( "setDomainType", DataElementDomain.class ) );
+
+        DataElement deA = new DataElement( "DataElementA" );
+
+        property.setValue( deA, DataElementDomain.TRACKER );
+
+        assertEquals( DataElementDomain.TRACKER, deA.getDomainType() );
+        assertEquals( DataElementDomain.TRACKER, property.getValue( deA ) );
+    }
+
+    @Test
+    public void testGetSetNull()
+        throws Exception
+    {
+        Property property = new Property( DataElement.class, null, null );
+
+        DataElement deA = new DataElement( "DataElementA" );
+
+        assertNull( property.getValue( deA ) );
+        assertNull( property.getValue( null ) );
+
+        property.setValue( deA, "DataElementB" );
+
+        assertEquals( "DataElementA", deA.getName() );
+    }
+}
@@ -28,8 +28,12 @@ package org.hisp.dhis.security.acl;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.hisp.dhis.cache.CacheInvalidationBus;
 import org.hisp.dhis.common.BaseIdentifiableObject;
 import org.hisp.dhis.common.IdentifiableObject;
+import org.hisp.dhis.common.IdentifiableObjectUtils;
 import org.hisp.dhis.category.CategoryOption;
 import org.hisp.dhis.category.CategoryOptionCombo;
 import org.hisp.dhis.feedback.ErrorCode;
@@ -39,11 +43,16 @@ import org.hisp.dhis.schema.SchemaService;
 import org.hisp.dhis.security.AuthorityType;
 import org.hisp.dhis.user.User;
 import org.hisp.dhis.user.UserAccess;
+import org.hisp.dhis.user.UserGroup;
 import org.hisp.dhis.user.UserGroupAccess;
 
+import javax.annotation.PostConstruct;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import static org.springframework.util.CollectionUtils.containsAny;
 
@@ -54,11 +63,39 @@ import static org.springframework.util.CollectionUtils.containsAny;
  */
 public class DefaultAclService implements AclService
 {
+    /**
+     * Cache for the identifiers of the user groups which a user is a member
+     * of, keyed by user identifier.
+     */
+    private static final Cache<String, Set<String>> USER_GROUP_CACHE = Caffeine.newBuilder()
+        .expireAfterWrite( 1, TimeUnit.HOURS )
+        .initialCapacity( 1000 )
+        .maximumSize( 50000 )
+        .build();
+
     private final SchemaService schemaService;
 
-    public DefaultAclService( SchemaService schemaService )
+    private final UserGroupMembershipStore userGroupMembershipStore;
+
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    public DefaultAclService( SchemaService schemaService, UserGroupMembershipStore userGroupMembershipStore,
+        CacheInvalidationBus cacheInvalidationBus )
     {
         this.schemaService = schemaService;
+        this.userGroupMembershipStore = userGroupMembershipStore;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+    }
+
+    /**
+     * Invalidates the user group membership cache when user groups or their
+     * members are changed on this or other instances.
+     */
+    @PostConstruct
+    public void init()
+    {
+        cacheInvalidationBus.subscribe( UserGroup.class.getName(), key -> USER_GROUP_CACHE.invalidateAll() );
+        cacheInvalidationBus.subscribe( UserGroup.class.getName() + ".members", key -> USER_GROUP_CACHE.invalidateAll() );
     }
 
     @Override
@@ -684,16 +721,22 @@ public class DefaultAclService implements AclService
             return true;
         }
 
+        Set<String> userGroups = null;
+
         for ( UserGroupAccess userGroupAccess : object.getUserGroupAccesses() )
         {
             /** 
              * Is the user allowed to read this object through group access? 
              * 
              */
-            if ( AccessStringHelper.isEnabled( userGroupAccess.getAccess(), permission )
-                && userGroupAccess.getUserGroup().getMembers().contains( user ) )
+            if ( AccessStringHelper.isEnabled( userGroupAccess.getAccess(), permission ) )
             {
-                return true;
+                userGroups = userGroups != null ? userGroups : getUserGroupUids( user );
+
+                if ( userGroups.contains( userGroupAccess.getUserGroup().getUid() ) )
+                {
+                    return true;
+                }
             }
         }
 
@@ -713,6 +756,34 @@ public class DefaultAclService implements AclService
         return false;
     }
     
+    /**
+     * Returns the identifiers of the user groups which the given user is a
+     * member of. Looks up the user groups through the membership store and
+     * caches them, so that the members of shared user groups are not loaded.
+     * Users which are not yet persisted are looked up through their groups.
+     *
+     * @param user the user.
+     * @return a set of user group identifiers.
+     */
+    private Set<String> getUserGroupUids( User user )
+    {
+        if ( user.getId() == 0 || user.getUid() == null )
+        {
+            return new HashSet<>( IdentifiableObjectUtils.getUids( user.getGroups() ) );
+        }
+
+        Set<String> userGroups = USER_GROUP_CACHE.getIfPresent( user.getUid() );
+
+        if ( userGroups == null )
+        {
+            userGroups = userGroupMembershipStore.getUserGroupUids( user );
+
+            USER_GROUP_CACHE.put( user.getUid(), userGroups );
+        }
+
+        return userGroups;
+    }
+
     private boolean checkOptionComboSharingPermission( User user, IdentifiableObject object, AccessStringHelper.Permission permission )
     {
     	CategoryOptionCombo optionCombo = (CategoryOptionCombo) object; 
@@ -31,6 +31,7 @@ package org.hisp.dhis.dataintegrity;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.hisp.dhis.common.ListMap;
+import org.hisp.dhis.commons.util.SystemUtils;
 import org.hisp.dhis.dataelement.DataElement;
 import org.hisp.dhis.category.CategoryCombo;
 import org.hisp.dhis.category.CategoryService;
@@ -39,6 +40,7 @@ import org.hisp.dhis.dataelement.DataElementGroupSet;
 import org.hisp.dhis.dataelement.DataElementService;
 import org.hisp.dhis.dataentryform.DataEntryFormService;
 import org.hisp.dhis.dataset.DataSet;
+import org.hisp.dhis.dataset.DataSetElement;
 import org.hisp.dhis.dataset.DataSetService;
 import org.hisp.dhis.expression.ExpressionService;
 import org.hisp.dhis.expression.ExpressionValidationOutcome;
@@ -53,18 +55,18 @@ import org.hisp.dhis.organisationunit.OrganisationUnitGroupSet;
 import org.hisp.dhis.organisationunit.OrganisationUnitService;
 import org.hisp.dhis.period.Period;
 import org.hisp.dhis.period.PeriodService;
-import org.hisp.dhis.period.PeriodType;
 import org.hisp.dhis.program.ProgramIndicator;
 import org.hisp.dhis.program.ProgramIndicatorService;
 import org.hisp.dhis.validation.ValidationRule;
 import org.hisp.dhis.validation.ValidationRuleService;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
 import org.springframework.transaction.annotation.Transactional;
-
-import com.google.common.collect.Sets;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -72,6 +74,14 @@ import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static org.hisp.dhis.commons.collection.ListUtils.getDuplicates;
@@ -167,6 +177,21 @@ public class DefaultDataIntegrityService
     {
         this.programIndicatorService = programIndicatorService;
     }
+
+    private DataIntegrityStore dataIntegrityStore;
+
+    public void setDataIntegrityStore( DataIntegrityStore dataIntegrityStore )
+    {
+        this.dataIntegrityStore = dataIntegrityStore;
+    }
+
+    private TransactionTemplate transactionTemplate;
+
+    public void setTransactionTemplate( TransactionTemplate transactionTemplate )
+    {
+        this.transactionTemplate = transactionTemplate;
+    }
+
     // -------------------------------------------------------------------------
     // DataIntegrityService implementation
     // -------------------------------------------------------------------------
@@ -190,30 +215,11 @@ public class DefaultDataIntegrityService
     @Override
     public SortedMap<DataElement, Collection<DataSet>> getDataElementsAssignedToDataSetsWithDifferentPeriodTypes()
     {
-        Collection<DataElement> dataElements = dataElementService.getAllDataElements();
-
-        Collection<DataSet> dataSets = dataSetService.getAllDataSets();
-
         SortedMap<DataElement, Collection<DataSet>> targets = new TreeMap<>();
 
-        for ( DataElement element : dataElements )
+        for ( DataSetElement element : dataIntegrityStore.getDataSetElementsWithDifferentPeriodTypes() )
         {
-            final Set<PeriodType> targetPeriodTypes = new HashSet<>();
-            final Collection<DataSet> targetDataSets = new HashSet<>();
-
-            for ( DataSet dataSet : dataSets )
-            {
-                if ( dataSet.getDataElements().contains( element ) )
-                {
-                    targetPeriodTypes.add( dataSet.getPeriodType() );
-                    targetDataSets.add( dataSet );
-                }
-            }
-
-            if ( targetPeriodTypes.size() > 1 )
-            {
-                targets.put( element, targetDataSets );
-            }
+            targets.computeIfAbsent( element.getDataElement(), de -> new HashSet<>() ).add( element.getDataSet() );
         }
 
         return targets;
@@ -291,9 +297,7 @@ public class DefaultDataIntegrityService
     @Override
     public List<DataSet> getDataSetsNotAssignedToOrganisationUnits()
     {
-        Collection<DataSet> dataSets = dataSetService.getAllDataSets();
-
-        return dataSets.stream().filter( ds -> ds.getSources() == null || ds.getSources().isEmpty() ).collect( Collectors.toList() );
+        return dataIntegrityStore.getDataSetsWithoutOrganisationUnits();
     }
 
     // -------------------------------------------------------------------------
@@ -303,40 +307,29 @@ public class DefaultDataIntegrityService
     @Override
     public Set<Set<Indicator>> getIndicatorsWithIdenticalFormulas()
     {
-        Map<String, Indicator> formulas = new HashMap<>();
+        ListMap<String, Integer> formulas = new ListMap<>();
 
-        Map<String, Set<Indicator>> targets = new HashMap<>();
+        dataIntegrityStore.getIndicatorFormulas( FORMULA_SEPARATOR ).forEach( ( id, formula ) -> formulas.putValue( formula, id ) );
 
-        List<Indicator> indicators = indicatorService.getAllIndicators();
+        List<List<Integer>> duplicates = formulas.values().stream()
+            .filter( ids -> ids.size() > 1 )
+            .collect( Collectors.toList() );
 
-        for ( Indicator indicator : indicators )
-        {
-            final String formula = indicator.getNumerator() + FORMULA_SEPARATOR + indicator.getDenominator();
+        Set<Integer> duplicateIds = duplicates.stream()
+            .flatMap( List::stream )
+            .collect( Collectors.toSet() );
 
-            if ( formulas.containsKey( formula ) )
-            {
-                if ( targets.containsKey( formula ) )
-                {
-                    targets.get( formula ).add( indicator );
-                }
-                else
-                {
-                    Set<Indicator> elements = new HashSet<>();
+        Map<Integer, Indicator> indicators = dataIntegrityStore.getIndicators( duplicateIds ).stream()
+            .collect( Collectors.toMap( Indicator::getId, Function.identity() ) );
 
-                    elements.add( indicator );
-                    elements.add( formulas.get( formula ) );
+        Set<Set<Indicator>> targets = new HashSet<>();
 
-                    targets.put( formula, elements );
-                    targets.get( formula ).add( indicator );
-                }
-            }
-            else
-            {
-                formulas.put( formula, indicator );
-            }
+        for ( List<Integer> ids : duplicates )
+        {
+            targets.add( ids.stream().map( indicators::get ).collect( Collectors.toSet() ) );
         }
 
-        return Sets.newHashSet( targets.values() );
+        return targets;
     }
 
     @Override
@@ -347,12 +340,17 @@ public class DefaultDataIntegrityService
 
     @Override
     public SortedMap<Indicator, String> getInvalidIndicatorNumerators()
+    {
+        return getInvalidIndicatorNumerators( new HashMap<>() );
+    }
+
+    private SortedMap<Indicator, String> getInvalidIndicatorNumerators( Map<String, ExpressionValidationOutcome> expressionCache )
     {
         SortedMap<Indicator, String> invalids = new TreeMap<>();
 
         for ( Indicator indicator : indicatorService.getAllIndicators() )
         {
-            ExpressionValidationOutcome result = expressionService.expressionIsValid( indicator.getNumerator() );
+            ExpressionValidationOutcome result = getExpressionValidationOutcome( indicator.getNumerator(), expressionCache );
 
             if ( !result.isValid() )
             {
@@ -365,12 +363,17 @@ public class DefaultDataIntegrityService
 
     @Override
     public SortedMap<Indicator, String> getInvalidIndicatorDenominators()
+    {
+        return getInvalidIndicatorDenominators( new HashMap<>() );
+    }
+
+    private SortedMap<Indicator, String> getInvalidIndicatorDenominators( Map<String, ExpressionValidationOutcome> expressionCache )
     {
         SortedMap<Indicator, String> invalids = new TreeMap<>();
 
         for ( Indicator indicator : indicatorService.getAllIndicators() )
         {
-            ExpressionValidationOutcome result = expressionService.expressionIsValid( indicator.getDenominator() );
+            ExpressionValidationOutcome result = getExpressionValidationOutcome( indicator.getDenominator(), expressionCache );
 
             if ( !result.isValid() )
             {
@@ -409,29 +412,11 @@ public class DefaultDataIntegrityService
     @Override
     public List<Period> getDuplicatePeriods()
     {
-        Collection<Period> periods = periodService.getAllPeriods();
-
-        List<Period> duplicates = new ArrayList<>();
+        List<Period> duplicates = dataIntegrityStore.getDuplicatePeriods();
 
-        ListMap<String, Period> map = new ListMap<>();
-
-        for ( Period period : periods )
+        for ( Period period : duplicates )
         {
-            String key = period.getPeriodType().getName() + period.getStartDate().toString();
-
             period.setName( period.toString() );
-
-            map.putValue( key, period );
-        }
-
-        for ( String key : map.keySet() )
-        {
-            List<Period> values = map.get( key );
-
-            if ( values != null && values.size() > 1 )
-            {
-                duplicates.addAll( values );
-            }
         }
 
         return duplicates;
@@ -444,19 +429,19 @@ public class DefaultDataIntegrityService
     @Override
     public Set<OrganisationUnit> getOrganisationUnitsWithCyclicReferences()
     {
-        List<OrganisationUnit> organisationUnits = organisationUnitService.getAllOrganisationUnits();
+        Map<Integer, Integer> parents = dataIntegrityStore.getOrganisationUnitParents();
 
-        Set<OrganisationUnit> cyclic = new HashSet<>();
+        Set<Integer> cyclic = new HashSet<>();
 
-        Set<OrganisationUnit> visited = new HashSet<>();
+        Set<Integer> visited = new HashSet<>();
 
-        OrganisationUnit parent = null;
+        Integer parent = null;
 
-        for ( OrganisationUnit unit : organisationUnits )
+        for ( Integer unit : parents.keySet() )
         {
             parent = unit;
 
-            while ( (parent = parent.getParent()) != null )
+            while ( (parent = parents.get( parent )) != null )
             {
                 if ( parent.equals( unit ) ) // Cyclic reference
                 {
@@ -477,15 +462,13 @@ public class DefaultDataIntegrityService
             visited.clear();
         }
 
-        return cyclic;
+        return new HashSet<>( dataIntegrityStore.getOrganisationUnits( cyclic ) );
     }
 
     @Override
     public List<OrganisationUnit> getOrphanedOrganisationUnits()
     {
-        List<OrganisationUnit> units = organisationUnitService.getAllOrganisationUnits();
-        
-        return units.stream().filter( ou -> ou.getParent() == null && ( ou.getChildren() == null || ou.getChildren().size() == 0 ) ).collect( Collectors.toList() );
+        return dataIntegrityStore.getOrphanedOrganisationUnits();
     }
 
     @Override
@@ -519,9 +502,7 @@ public class DefaultDataIntegrityService
     @Override
     public List<OrganisationUnitGroup> getOrganisationUnitGroupsWithoutGroupSets()
     {
-        Collection<OrganisationUnitGroup> groups = organisationUnitGroupService.getAllOrganisationUnitGroups();
-        
-        return groups.stream().filter( g -> g == null || g.getGroupSets().isEmpty() ).collect( Collectors.toList() );
+        return dataIntegrityStore.getOrganisationUnitGroupsWithoutGroupSets();
     }
 
     // -------------------------------------------------------------------------
@@ -531,19 +512,22 @@ public class DefaultDataIntegrityService
     @Override
     public List<ValidationRule> getValidationRulesWithoutGroups()
     {
-        Collection<ValidationRule> validationRules = validationRuleService.getAllValidationRules();
-        
-        return validationRules.stream().filter( r -> r.getGroups() == null || r.getGroups().isEmpty() ).collect( Collectors.toList() );
+        return dataIntegrityStore.getValidationRulesWithoutGroups();
     }
 
     @Override
     public SortedMap<ValidationRule, String> getInvalidValidationRuleLeftSideExpressions()
+    {
+        return getInvalidValidationRuleLeftSideExpressions( new HashMap<>() );
+    }
+
+    private SortedMap<ValidationRule, String> getInvalidValidationRuleLeftSideExpressions( Map<String, ExpressionValidationOutcome> expressionCache )
     {
         SortedMap<ValidationRule, String> invalids = new TreeMap<>();
 
         for ( ValidationRule rule : validationRuleService.getAllValidationRules() )
         {
-            ExpressionValidationOutcome result = expressionService.expressionIsValid( rule.getLeftSide().getExpression() );
+            ExpressionValidationOutcome result = getExpressionValidationOutcome( rule.getLeftSide().getExpression(), expressionCache );
 
             if ( !result.isValid() )
             {
@@ -556,12 +540,17 @@ public class DefaultDataIntegrityService
 
     @Override
     public SortedMap<ValidationRule, String> getInvalidValidationRuleRightSideExpressions()
+    {
+        return getInvalidValidationRuleRightSideExpressions( new HashMap<>() );
+    }
+
+    private SortedMap<ValidationRule, String> getInvalidValidationRuleRightSideExpressions( Map<String, ExpressionValidationOutcome> expressionCache )
     {
         SortedMap<ValidationRule, String> invalids = new TreeMap<>();
 
         for ( ValidationRule rule : validationRuleService.getAllValidationRules() )
         {
-            ExpressionValidationOutcome result = expressionService.expressionIsValid( rule.getRightSide().getExpression() );
+            ExpressionValidationOutcome result = getExpressionValidationOutcome( rule.getRightSide().getExpression(), expressionCache );
 
             if ( !result.isValid() )
             {
@@ -576,7 +565,9 @@ public class DefaultDataIntegrityService
     public DataIntegrityReport getDataIntegrityReport()
     {
         DataIntegrityReport report = new DataIntegrityReport();
-        
+
+        Map<String, ExpressionValidationOutcome> expressionCache = new HashMap<>();
+
         report.setDataElementsWithoutDataSet( new ArrayList<>( getDataElementsWithoutDataSet() ) );
         report.setDataElementsWithoutGroups( new ArrayList<>( getDataElementsWithoutGroups() ) );
         report.setDataElementsAssignedToDataSetsWithDifferentPeriodTypes( getDataElementsAssignedToDataSetsWithDifferentPeriodTypes() );
@@ -592,8 +583,8 @@ public class DefaultDataIntegrityService
 
         report.setIndicatorsWithIdenticalFormulas( getIndicatorsWithIdenticalFormulas() );
         report.setIndicatorsWithoutGroups( new ArrayList<>( getIndicatorsWithoutGroups() ) );
-        report.setInvalidIndicatorNumerators( getInvalidIndicatorNumerators() );
-        report.setInvalidIndicatorDenominators( getInvalidIndicatorDenominators() );
+        report.setInvalidIndicatorNumerators( getInvalidIndicatorNumerators( expressionCache ) );
+        report.setInvalidIndicatorDenominators( getInvalidIndicatorDenominators( expressionCache ) );
         report.setIndicatorsViolatingExclusiveGroupSets( getIndicatorsViolatingExclusiveGroupSets() );
 
         log.info( "Checked indicators" );
@@ -611,8 +602,8 @@ public class DefaultDataIntegrityService
 
         log.info( "Checked organisation units" );
 
-        report.setInvalidValidationRuleLeftSideExpressions( getInvalidValidationRuleLeftSideExpressions() );
-        report.setInvalidValidationRuleRightSideExpressions( getInvalidValidationRuleRightSideExpressions() );
+        report.setInvalidValidationRuleLeftSideExpressions( getInvalidValidationRuleLeftSideExpressions( expressionCache ) );
+        report.setInvalidValidationRuleRightSideExpressions( getInvalidValidationRuleRightSideExpressions( expressionCache ) );
 
         log.info( "Checked validation rules" );
 
@@ -637,7 +628,68 @@ public class DefaultDataIntegrityService
     @Override
     public FlattenedDataIntegrityReport getFlattenedDataIntegrityReport()
     {
-        return new FlattenedDataIntegrityReport( getDataIntegrityReport() );
+        return getFlattenedDataIntegrityReport( EnumSet.allOf( DataIntegrityCheckType.class ), ( check, report ) -> {} );
+    }
+
+    @Override
+    public FlattenedDataIntegrityReport getFlattenedDataIntegrityReport( Set<DataIntegrityCheckType> checks,
+        BiConsumer<DataIntegrityCheckType, FlattenedDataIntegrityReport> listener )
+    {
+        FlattenedDataIntegrityReport report = new FlattenedDataIntegrityReport();
+
+        Map<String, ExpressionValidationOutcome> expressionCache = new ConcurrentHashMap<>();
+
+        if ( checks.size() == 1 )
+        {
+            DataIntegrityCheckType check = checks.iterator().next();
+
+            report.setCheckResult( check, getCheckResult( check, expressionCache ) );
+
+            listener.accept( check, report.copy() );
+
+            return report;
+        }
+
+        ExecutorService executor = new DelegatingSecurityContextExecutorService(
+            Executors.newFixedThreadPool( Math.min( checks.size(), SystemUtils.getThreadPoolSize() ) ) );
+
+        CompletionService<DataIntegrityCheckType> completionService = new ExecutorCompletionService<>( executor );
+
+        try
+        {
+            for ( DataIntegrityCheckType check : checks )
+            {
+                completionService.submit( () -> transactionTemplate.execute( status -> {
+                    report.setCheckResult( check, getCheckResult( check, expressionCache ) );
+                    return check;
+                } ) );
+            }
+
+            for ( int i = 0; i < checks.size(); i++ )
+            {
+                DataIntegrityCheckType check = completionService.take().get();
+
+                log.info( "Completed data integrity check: " + check.getName() );
+
+                listener.accept( check, report.copy() );
+            }
+        }
+        catch ( ExecutionException ex )
+        {
+            throw new RuntimeException( "Exception during data integrity check", ex.getCause() );
+        }
+        catch ( InterruptedException ex )
+        {
+            Thread.currentThread().interrupt();
+
+            throw new RuntimeException( "Data integrity check was interrupted", ex );
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        return report;
     }
 
     @Override
@@ -663,4 +715,110 @@ public class DefaultDataIntegrityService
 
         return invalidFilters;
     }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Runs the given check. Results are returned in the form expected by
+     * {@link FlattenedDataIntegrityReport#setCheckResult}, with lists sorted
+     * as in {@link #getDataIntegrityReport()}.
+     *
+     * @param check the check to run.
+     * @param expressionCache the expression validation outcomes shared
+     *        between the checks of a report.
+     * @return the result of the check.
+     */
+    private Object getCheckResult( DataIntegrityCheckType check, Map<String, ExpressionValidationOutcome> expressionCache )
+    {
+        switch ( check )
+        {
+            case DATA_ELEMENTS_WITHOUT_DATA_SET:
+                return sorted( getDataElementsWithoutDataSet() );
+            case DATA_ELEMENTS_WITHOUT_GROUPS:
+                return sorted( getDataElementsWithoutGroups() );
+            case DATA_ELEMENTS_ASSIGNED_TO_DATA_SETS_WITH_DIFFERENT_PERIOD_TYPES:
+                return getDataElementsAssignedToDataSetsWithDifferentPeriodTypes();
+            case DATA_ELEMENTS_VIOLATING_EXCLUSIVE_GROUP_SETS:
+                return getDataElementsViolatingExclusiveGroupSets();
+            case DATA_ELEMENTS_IN_DATA_SET_NOT_IN_FORM:
+                return getDataElementsInDataSetNotInForm();
+            case INVALID_CATEGORY_COMBOS:
+                return getInvalidCategoryCombos();
+            case DATA_SETS_NOT_ASSIGNED_TO_ORGANISATION_UNITS:
+                return sorted( getDataSetsNotAssignedToOrganisationUnits() );
+            case INDICATORS_WITH_IDENTICAL_FORMULAS:
+                return getIndicatorsWithIdenticalFormulas();
+            case INDICATORS_WITHOUT_GROUPS:
+                return sorted( getIndicatorsWithoutGroups() );
+            case INVALID_INDICATOR_NUMERATORS:
+                return getInvalidIndicatorNumerators( expressionCache );
+            case INVALID_INDICATOR_DENOMINATORS:
+                return getInvalidIndicatorDenominators( expressionCache );
+            case INDICATORS_VIOLATING_EXCLUSIVE_GROUP_SETS:
+                return getIndicatorsViolatingExclusiveGroupSets();
+            case DUPLICATE_PERIODS:
+                return getDuplicatePeriods();
+            case ORGANISATION_UNITS_WITH_CYCLIC_REFERENCES:
+                return sorted( getOrganisationUnitsWithCyclicReferences() );
+            case ORPHANED_ORGANISATION_UNITS:
+                return sorted( getOrphanedOrganisationUnits() );
+            case ORGANISATION_UNITS_WITHOUT_GROUPS:
+                return sorted( getOrganisationUnitsWithoutGroups() );
+            case ORGANISATION_UNITS_VIOLATING_EXCLUSIVE_GROUP_SETS:
+                return getOrganisationUnitsViolatingExclusiveGroupSets();
+            case ORGANISATION_UNIT_GROUPS_WITHOUT_GROUP_SETS:
+                return sorted( getOrganisationUnitGroupsWithoutGroupSets() );
+            case VALIDATION_RULES_WITHOUT_GROUPS:
+                return sorted( getValidationRulesWithoutGroups() );
+            case INVALID_VALIDATION_RULE_LEFT_SIDE_EXPRESSIONS:
+                return getInvalidValidationRuleLeftSideExpressions( expressionCache );
+            case INVALID_VALIDATION_RULE_RIGHT_SIDE_EXPRESSIONS:
+                return getInvalidValidationRuleRightSideExpressions( expressionCache );
+            case INVALID_PROGRAM_INDICATOR_EXPRESSIONS:
+                return getInvalidProgramIndicatorExpressions();
+            case INVALID_PROGRAM_INDICATOR_FILTERS:
+                return getInvalidProgramIndicatorFilters();
+            default:
+                throw new IllegalArgumentException( "Unsupported data integrity check: " + check );
+        }
+    }
+
+    /**
+     * Validates the given expression, reusing the outcome for expressions
+     * which have already been validated. Indicators and validation rules
+     * frequently share expressions.
+     *
+     * @param expression the expression.
+     * @param expressionCache the expression validation outcomes.
+     * @return the expression validation outcome.
+     */
+    private ExpressionValidationOutcome getExpressionValidationOutcome( String expression, Map<String, ExpressionValidationOutcome> expressionCache )
+    {
+        if ( expression == null )
+        {
+            return expressionService.expressionIsValid( expression );
+        }
+
+        ExpressionValidationOutcome outcome = expressionCache.get( expression );
+
+        if ( outcome == null )
+        {
+            outcome = expressionService.expressionIsValid( expression );
+
+            expressionCache.put( expression, outcome );
+        }
+
+        return outcome;
+    }
+
+    private <T extends Comparable<? super T>> List<T> sorted( Collection<T> collection )
+    {
+        List<T> list = new ArrayList<>( collection );
+
+        Collections.sort( list );
+
+        return list;
+    }
 }
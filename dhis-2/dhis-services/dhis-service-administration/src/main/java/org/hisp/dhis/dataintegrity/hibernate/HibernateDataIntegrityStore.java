@@ -0,0 +1,205 @@
+package org.hisp.dhis.dataintegrity.hibernate;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hisp.dhis.dataintegrity.DataIntegrityStore;
+import org.hisp.dhis.dataset.DataSet;
+import org.hisp.dhis.dataset.DataSetElement;
+import org.hisp.dhis.indicator.Indicator;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.organisationunit.OrganisationUnitGroup;
+import org.hisp.dhis.period.Period;
+import org.hisp.dhis.validation.ValidationRule;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hibernate implementation of {@link DataIntegrityStore}. Queries are
+ * expressed in HQL so that pending changes in the current session are
+ * flushed before the checks run.
+ */
+public class HibernateDataIntegrityStore
+    implements DataIntegrityStore
+{
+    private SessionFactory sessionFactory;
+
+    public void setSessionFactory( SessionFactory sessionFactory )
+    {
+        this.sessionFactory = sessionFactory;
+    }
+
+    // -------------------------------------------------------------------------
+    // DataIntegrityStore implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    @SuppressWarnings( "unchecked" )
+    public List<DataSetElement> getDataSetElementsWithDifferentPeriodTypes()
+    {
+        String hql =
+            "select dse from DataSetElement dse " +
+            "join fetch dse.dataElement " +
+            "join fetch dse.dataSet " +
+            "where dse.dataElement.id in (" +
+                "select d.dataElement.id from DataSetElement d " +
+                "group by d.dataElement.id " +
+                "having count(distinct d.dataSet.periodType.id) > 1)";
+
+        return getSession().createQuery( hql ).list();
+    }
+
+    @Override
+    @SuppressWarnings( "unchecked" )
+    public List<DataSet> getDataSetsWithoutOrganisationUnits()
+    {
+        String hql = "from DataSet d where size(d.sources) = 0";
+
+        return getSession().createQuery( hql ).list();
+    }
+
+    @Override
+    @SuppressWarnings( "unchecked" )
+    public Map<Integer, String> getIndicatorFormulas( String separator )
+    {
+        String hql = "select i.id, i.numerator, i.denominator from Indicator i";
+
+        List<Object[]> rows = getSession().createQuery( hql ).list();
+
+        Map<Integer, String> formulas = new HashMap<>( rows.size() );
+
+        for ( Object[] row : rows )
+        {
+            formulas.put( (Integer) row[0], row[1] + separator + row[2] );
+        }
+
+        return formulas;
+    }
+
+    @Override
+    @SuppressWarnings( "unchecked" )
+    public List<Indicator> getIndicators( Collection<Integer> ids )
+    {
+        if ( ids.isEmpty() )
+        {
+            return new ArrayList<>();
+        }
+
+        String hql = "from Indicator i where i.id in (:ids)";
+
+        return getSession().createQuery( hql ).setParameterList( "ids", ids ).list();
+    }
+
+    @Override
+    @SuppressWarnings( "unchecked" )
+    public List<Period> getDuplicatePeriods()
+    {
+        String hql =
+            "from Period p where exists (" +
+                "select q.id from Period q " +
+                "where q.periodType = p.periodType " +
+                "and q.startDate = p.startDate " +
+                "and q.id <> p.id)";
+
+        return getSession().createQuery( hql ).list();
+    }
+
+    @Override
+    @SuppressWarnings( "unchecked" )
+    public Map<Integer, Integer> getOrganisationUnitParents()
+    {
+        String hql = "select o.id, o.parent.id from OrganisationUnit o where o.parent is not null";
+
+        List<Object[]> rows = getSession().createQuery( hql ).list();
+
+        Map<Integer, Integer> parents = new HashMap<>( rows.size() );
+
+        for ( Object[] row : rows )
+        {
+            parents.put( (Integer) row[0], (Integer) row[1] );
+        }
+
+        return parents;
+    }
+
+    @Override
+    @SuppressWarnings( "unchecked" )
+    public List<OrganisationUnit> getOrganisationUnits( Collection<Integer> ids )
+    {
+        if ( ids.isEmpty() )
+        {
+            return new ArrayList<>();
+        }
+
+        String hql = "from OrganisationUnit o where o.id in (:ids)";
+
+        return getSession().createQuery( hql ).setParameterList( "ids", ids ).list();
+    }
+
+    @Override
+    @SuppressWarnings( "unchecked" )
+    public List<OrganisationUnit> getOrphanedOrganisationUnits()
+    {
+        String hql = "from OrganisationUnit o where o.parent is null and size(o.children) = 0";
+
+        return getSession().createQuery( hql ).list();
+    }
+
+    @Override
+    @SuppressWarnings( "unchecked" )
+    public List<OrganisationUnitGroup> getOrganisationUnitGroupsWithoutGroupSets()
+    {
+        String hql = "from OrganisationUnitGroup g where size(g.groupSets) = 0";
+
+        return getSession().createQuery( hql ).list();
+    }
+
+    @Override
+    @SuppressWarnings( "unchecked" )
+    public List<ValidationRule> getValidationRulesWithoutGroups()
+    {
+        String hql = "from ValidationRule r where size(r.groups) = 0";
+
+        return getSession().createQuery( hql ).list();
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private Session getSession()
+    {
+        return sessionFactory.getCurrentSession();
+    }
+}
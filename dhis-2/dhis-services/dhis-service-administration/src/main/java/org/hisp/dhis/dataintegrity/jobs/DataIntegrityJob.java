@@ -30,6 +30,7 @@ package org.hisp.dhis.dataintegrity.jobs;
 
 import org.hisp.dhis.commons.timer.SystemTimer;
 import org.hisp.dhis.commons.timer.Timer;
+import org.hisp.dhis.dataintegrity.DataIntegrityCheckType;
 import org.hisp.dhis.dataintegrity.DataIntegrityService;
 import org.hisp.dhis.dataintegrity.FlattenedDataIntegrityReport;
 import org.hisp.dhis.scheduling.AbstractJob;
@@ -39,6 +40,8 @@ import org.hisp.dhis.system.notification.NotificationLevel;
 import org.hisp.dhis.system.notification.Notifier;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.EnumSet;
+
 /**
  * @author Halvdan Hoem Grelland <halvdanhg@gmail.com>
  */
@@ -83,7 +86,16 @@ public class DataIntegrityJob
             jobConfiguration, NotificationLevel.INFO,
             "Starting data integrity job", false );
 
-        FlattenedDataIntegrityReport report = dataIntegrityService.getFlattenedDataIntegrityReport();
+        FlattenedDataIntegrityReport report = dataIntegrityService.getFlattenedDataIntegrityReport(
+            EnumSet.allOf( DataIntegrityCheckType.class ), ( check, partialReport ) -> {
+                if ( jobConfiguration != null )
+                {
+                    notifier.notify(
+                        jobConfiguration, NotificationLevel.INFO,
+                        "Completed data integrity check: " + check.getName(), false )
+                        .addJobSummary( jobConfiguration, partialReport, FlattenedDataIntegrityReport.class );
+                }
+            } );
 
         timer.stop();
 
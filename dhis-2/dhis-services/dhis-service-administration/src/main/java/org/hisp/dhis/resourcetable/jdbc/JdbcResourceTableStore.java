@@ -35,6 +35,8 @@ import org.hisp.dhis.analytics.AnalyticsTableHookService;
 import org.hisp.dhis.analytics.AnalyticsTablePhase;
 import org.hisp.dhis.dbms.DbmsManager;
 import org.hisp.dhis.jdbc.StatementBuilder;
+import org.hisp.dhis.jdbc.TableWriter;
+import org.hisp.dhis.jdbc.writer.TableWriterFactory;
 import org.hisp.dhis.resourcetable.ResourceTable;
 import org.hisp.dhis.resourcetable.ResourceTableStore;
 import org.hisp.dhis.system.util.Clock;
@@ -81,7 +83,6 @@ public class JdbcResourceTableStore
         final Clock clock = new Clock().startClock();
         final String createTableSql = resourceTable.getCreateTempTableStatement();
         final Optional<String> populateTableSql = resourceTable.getPopulateTempTableStatement();
-        final Optional<List<Object[]>> populateTableContent = resourceTable.getPopulateTempTableContent();
         final List<String> createIndexSql = resourceTable.getCreateIndexStatements();
         final String analyzeTableSql = statementBuilder.getAnalyze( resourceTable.getTableName() );
 
@@ -103,7 +104,7 @@ public class JdbcResourceTableStore
         jdbcTemplate.execute( createTableSql );
 
         // ---------------------------------------------------------------------
-        // Populate temporary table through SQL or object batch update
+        // Populate temporary table through SQL or streamed content
         // ---------------------------------------------------------------------
 
         if ( populateTableSql.isPresent() )
@@ -112,17 +113,13 @@ public class JdbcResourceTableStore
             
             jdbcTemplate.execute( populateTableSql.get() );
         }
-        else if ( populateTableContent.isPresent() )
+        else
         {
-            List<Object[]> content = populateTableContent.get();
-            
-            log.info( "Populate table content rows: " + content.size() );
-            
-            if ( content.size() > 0 )
+            try ( TableWriter writer = TableWriterFactory.getTableWriter( jdbcTemplate, statementBuilder, resourceTable.getTempTableName() ) )
             {
-                int columns = content.get( 0 ).length;
+                resourceTable.writeTempTableContent( writer::write );
                 
-                batchUpdate( columns, resourceTable.getTempTableName(), content );
+                log.info( "Populate table content rows: " + writer.getRowCount() );
             }
         }
 
@@ -33,6 +33,7 @@ import static org.hisp.dhis.dataapproval.DataApprovalLevelService.APPROVAL_LEVEL
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import org.hisp.dhis.dataelement.DataElement;
 import org.hisp.dhis.dataset.DataSet;
@@ -88,6 +89,14 @@ public class DataElementResourceTable
     {
         List<Object[]> batchArgs = new ArrayList<>();
 
+        writeTempTableContent( batchArgs::add );
+
+        return Optional.of( batchArgs );
+    }
+
+    @Override
+    public void writeTempTableContent( Consumer<Object[]> consumer )
+    {
         for ( DataElement dataElement : objects )
         {
             List<Object> values = new ArrayList<>();
@@ -111,10 +120,8 @@ public class DataElementResourceTable
             values.add( periodType != null ? periodType.getId() : null );
             values.add( periodType != null ? periodType.getName() : null );
 
-            batchArgs.add( values.toArray() );
+            consumer.accept( values.toArray() );
         }
-
-        return Optional.of( batchArgs );
     }
 
     @Override
@@ -39,6 +39,7 @@ import org.hisp.dhis.resourcetable.ResourceTableType;
 import org.hisp.dhis.system.util.DateUtils;
 
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -75,6 +76,16 @@ public class DataSetOrganisationUnitCategoryResourceTable
         return Optional.empty();
     }
 
+    @Override
+    public Optional<List<Object[]>> getPopulateTempTableContent()
+    {
+        List<Object[]> batchArgs = new ArrayList<>();
+
+        writeTempTableContent( batchArgs::add );
+
+        return Optional.of( batchArgs );
+    }
+
     /**
      * Iterate over data sets and associated organisation units. If data set
      * has a category combination and the organisation unit has category options, 
@@ -84,10 +95,8 @@ public class DataSetOrganisationUnitCategoryResourceTable
      * not, use the default category option combo.
      */
     @Override
-    public Optional<List<Object[]>> getPopulateTempTableContent()
+    public void writeTempTableContent( Consumer<Object[]> consumer )
     {
-        List<Object[]> batchArgs = new ArrayList<>();
-        
         for ( DataSet dataSet : objects )
         {
             CategoryCombo categoryCombo = dataSet.getCategoryCombo();
@@ -111,7 +120,7 @@ public class DataSetOrganisationUnitCategoryResourceTable
                                 
                                 List<Object> values = Lists.newArrayList( dataSet.getId(), orgUnit.getId(), optionCombo.getId(), startDate, endDate );
                                 
-                                batchArgs.add( values.toArray() );
+                                consumer.accept( values.toArray() );
                             }
                         }
                     }
@@ -120,12 +129,10 @@ public class DataSetOrganisationUnitCategoryResourceTable
                 {
                     List<Object> values = Lists.newArrayList( dataSet.getId(), orgUnit.getId(), defaultOptionCombo.getId(), null, null );
                     
-                    batchArgs.add( values.toArray() );
+                    consumer.accept( values.toArray() );
                 }
             }
         }
-        
-        return Optional.of( batchArgs );
     }
 
     @Override
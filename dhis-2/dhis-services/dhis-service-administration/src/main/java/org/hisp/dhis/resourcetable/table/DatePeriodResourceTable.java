@@ -32,6 +32,7 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import org.hisp.dhis.calendar.Calendar;
 import org.hisp.dhis.commons.collection.UniqueArrayList;
@@ -87,10 +88,18 @@ public class DatePeriodResourceTable
     @Override
     public Optional<List<Object[]>> getPopulateTempTableContent()
     {
-        List<PeriodType> periodTypes = PeriodType.getAvailablePeriodTypes();
-
         List<Object[]> batchArgs = new ArrayList<>();
 
+        writeTempTableContent( batchArgs::add );
+
+        return Optional.of( batchArgs );
+    }
+
+    @Override
+    public void writeTempTableContent( Consumer<Object[]> consumer )
+    {
+        List<PeriodType> periodTypes = PeriodType.getAvailablePeriodTypes();
+
         Date startDate = new Cal( 1975, 1, 1, true ).time(); //TODO
         Date endDate = new Cal( 2025, 1, 1, true ).time();
 
@@ -112,10 +121,8 @@ public class DatePeriodResourceTable
                 values.add( periodType.createPeriod( day.getStartDate(), calendar ).getIsoDate() );
             }
 
-            batchArgs.add( values.toArray() );
+            consumer.accept( values.toArray() );
         }
-
-        return Optional.of( batchArgs );
     }
 
     @Override
@@ -34,6 +34,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.organisationunit.OrganisationUnitService;
@@ -96,7 +97,15 @@ public class OrganisationUnitStructureResourceTable
     public Optional<List<Object[]>> getPopulateTempTableContent()
     {
         List<Object[]> batchArgs = new ArrayList<>();
+        
+        writeTempTableContent( batchArgs::add );
+        
+        return Optional.of( batchArgs );
+    }
 
+    @Override
+    public void writeTempTableContent( Consumer<Object[]> consumer )
+    {
         for ( int i = 0; i < organisationUnitLevels; i++ )
         {
             int level = i + 1;
@@ -131,11 +140,9 @@ public class OrganisationUnitStructureResourceTable
                     values.add( names.get( k ) );
                 }
 
-                batchArgs.add( values.toArray() );
+                consumer.accept( values.toArray() );
             }
         }
-        
-        return Optional.of( batchArgs );
     }
 
     @Override
@@ -33,6 +33,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import org.hisp.dhis.calendar.Calendar;
 import org.hisp.dhis.common.IdentifiableObjectUtils;
@@ -87,11 +88,19 @@ public class PeriodResourceTable
 
     @Override
     public Optional<List<Object[]>> getPopulateTempTableContent()
+    {
+        List<Object[]> batchArgs = new ArrayList<>();
+
+        writeTempTableContent( batchArgs::add );
+
+        return Optional.of( batchArgs );
+    }
+
+    @Override
+    public void writeTempTableContent( Consumer<Object[]> consumer )
     {
         Calendar calendar = PeriodType.getCalendar();
 
-        List<Object[]> batchArgs = new ArrayList<>();
-        
         Set<String> uniqueIsoDates = new HashSet<>();
         
         for ( Period period : objects )
@@ -122,11 +131,9 @@ public class PeriodResourceTable
                     values.add( pe != null ? IdentifiableObjectUtils.getLocalPeriodIdentifier( pe, calendar ) : null );
                 }
 
-                batchArgs.add( values.toArray() );
+                consumer.accept( values.toArray() );
             }
         }
-
-        return Optional.of( batchArgs );
     }
 
     @Override
@@ -0,0 +1,272 @@
+package org.hisp.dhis.dataintegrity;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.hisp.dhis.DhisSpringTest;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.dataelement.DataElementService;
+import org.hisp.dhis.dataset.DataSet;
+import org.hisp.dhis.dataset.DataSetElement;
+import org.hisp.dhis.dataset.DataSetService;
+import org.hisp.dhis.expression.Expression;
+import org.hisp.dhis.expression.ExpressionService;
+import org.hisp.dhis.indicator.Indicator;
+import org.hisp.dhis.indicator.IndicatorService;
+import org.hisp.dhis.indicator.IndicatorType;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.organisationunit.OrganisationUnitGroup;
+import org.hisp.dhis.organisationunit.OrganisationUnitGroupService;
+import org.hisp.dhis.organisationunit.OrganisationUnitGroupSet;
+import org.hisp.dhis.organisationunit.OrganisationUnitService;
+import org.hisp.dhis.period.MonthlyPeriodType;
+import org.hisp.dhis.period.Period;
+import org.hisp.dhis.period.PeriodService;
+import org.hisp.dhis.period.QuarterlyPeriodType;
+import org.hisp.dhis.validation.ValidationRule;
+import org.hisp.dhis.validation.ValidationRuleGroup;
+import org.hisp.dhis.validation.ValidationRuleService;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static org.hisp.dhis.expression.Operator.equal_to;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DataIntegrityStoreTest
+    extends DhisSpringTest
+{
+    @Autowired
+    private DataIntegrityStore dataIntegrityStore;
+
+    @Autowired
+    private DataElementService dataElementService;
+
+    @Autowired
+    private DataSetService dataSetService;
+
+    @Autowired
+    private IndicatorService indicatorService;
+
+    @Autowired
+    private PeriodService periodService;
+
+    @Autowired
+    private OrganisationUnitService organisationUnitService;
+
+    @Autowired
+    private OrganisationUnitGroupService organisationUnitGroupService;
+
+    @Autowired
+    private ExpressionService expressionService;
+
+    @Autowired
+    private ValidationRuleService validationRuleService;
+
+    private DataElement elementA;
+    private DataElement elementB;
+
+    private DataSet dataSetA;
+    private DataSet dataSetB;
+
+    private OrganisationUnit unitA;
+    private OrganisationUnit unitB;
+    private OrganisationUnit unitC;
+
+    // -------------------------------------------------------------------------
+    // Fixture
+    // -------------------------------------------------------------------------
+
+    @Override
+    public void setUpTest()
+    {
+        elementA = createDataElement( 'A' );
+        elementB = createDataElement( 'B' );
+
+        dataElementService.addDataElement( elementA );
+        dataElementService.addDataElement( elementB );
+
+        unitA = createOrganisationUnit( 'A' );
+        unitB = createOrganisationUnit( 'B', unitA );
+        unitC = createOrganisationUnit( 'C' );
+
+        organisationUnitService.addOrganisationUnit( unitA );
+        organisationUnitService.addOrganisationUnit( unitB );
+        organisationUnitService.addOrganisationUnit( unitC );
+
+        dataSetA = createDataSet( 'A', new MonthlyPeriodType() );
+        dataSetB = createDataSet( 'B', new QuarterlyPeriodType() );
+
+        dataSetA.addDataSetElement( elementA );
+        dataSetA.addDataSetElement( elementB );
+        dataSetA.addOrganisationUnit( unitA );
+
+        dataSetB.addDataSetElement( elementA );
+
+        dataSetService.addDataSet( dataSetA );
+        dataSetService.addDataSet( dataSetB );
+    }
+
+    // -------------------------------------------------------------------------
+    // Tests
+    // -------------------------------------------------------------------------
+
+    @Test
+    public void testGetDataSetElementsWithDifferentPeriodTypes()
+    {
+        List<DataSetElement> elements = dataIntegrityStore.getDataSetElementsWithDifferentPeriodTypes();
+
+        assertEquals( 2, elements.size() );
+
+        for ( DataSetElement element : elements )
+        {
+            assertEquals( elementA, element.getDataElement() );
+        }
+
+        assertTrue( elements.stream().anyMatch( e -> dataSetA.equals( e.getDataSet() ) ) );
+        assertTrue( elements.stream().anyMatch( e -> dataSetB.equals( e.getDataSet() ) ) );
+    }
+
+    @Test
+    public void testGetDataSetsWithoutOrganisationUnits()
+    {
+        assertEquals( newArrayList( dataSetB ), dataIntegrityStore.getDataSetsWithoutOrganisationUnits() );
+    }
+
+    @Test
+    public void testGetIndicatorFormulas()
+    {
+        IndicatorType indicatorType = createIndicatorType( 'A' );
+
+        indicatorService.addIndicatorType( indicatorType );
+
+        Indicator indicatorA = createIndicator( 'A', indicatorType );
+        Indicator indicatorB = createIndicator( 'B', indicatorType );
+
+        indicatorA.setNumerator( "NumeratorA" );
+        indicatorA.setDenominator( "DenominatorA" );
+        indicatorB.setNumerator( "NumeratorB" );
+        indicatorB.setDenominator( "DenominatorB" );
+
+        indicatorService.addIndicator( indicatorA );
+        indicatorService.addIndicator( indicatorB );
+
+        Map<Integer, String> formulas = dataIntegrityStore.getIndicatorFormulas( "|" );
+
+        assertEquals( 2, formulas.size() );
+        assertEquals( "NumeratorA|DenominatorA", formulas.get( indicatorA.getId() ) );
+        assertEquals( "NumeratorB|DenominatorB", formulas.get( indicatorB.getId() ) );
+
+        assertEquals( newArrayList( indicatorB ), dataIntegrityStore.getIndicators( newArrayList( indicatorB.getId() ) ) );
+        assertTrue( dataIntegrityStore.getIndicators( newArrayList() ).isEmpty() );
+    }
+
+    @Test
+    public void testGetDuplicatePeriods()
+    {
+        Period periodA = createPeriod( new MonthlyPeriodType(), getDate( 2000, 3, 1 ), getDate( 2000, 3, 31 ) );
+        Period periodB = createPeriod( new MonthlyPeriodType(), getDate( 2000, 3, 1 ), getDate( 2000, 3, 30 ) );
+        Period periodC = createPeriod( new MonthlyPeriodType(), getDate( 2000, 4, 1 ), getDate( 2000, 4, 30 ) );
+
+        periodService.addPeriod( periodA );
+        periodService.addPeriod( periodB );
+        periodService.addPeriod( periodC );
+
+        List<Period> periods = dataIntegrityStore.getDuplicatePeriods();
+
+        assertEquals( 2, periods.size() );
+        assertTrue( periods.contains( periodA ) );
+        assertTrue( periods.contains( periodB ) );
+    }
+
+    @Test
+    public void testGetOrganisationUnitParents()
+    {
+        Map<Integer, Integer> parents = dataIntegrityStore.getOrganisationUnitParents();
+
+        assertEquals( 1, parents.size() );
+        assertEquals( Integer.valueOf( unitA.getId() ), parents.get( unitB.getId() ) );
+
+        assertEquals( newArrayList( unitB ), dataIntegrityStore.getOrganisationUnits( newArrayList( unitB.getId() ) ) );
+        assertTrue( dataIntegrityStore.getOrganisationUnits( newArrayList() ).isEmpty() );
+    }
+
+    @Test
+    public void testGetOrphanedOrganisationUnits()
+    {
+        assertEquals( newArrayList( unitC ), dataIntegrityStore.getOrphanedOrganisationUnits() );
+    }
+
+    @Test
+    public void testGetOrganisationUnitGroupsWithoutGroupSets()
+    {
+        OrganisationUnitGroup groupA = createOrganisationUnitGroup( 'A' );
+        OrganisationUnitGroup groupB = createOrganisationUnitGroup( 'B' );
+
+        organisationUnitGroupService.addOrganisationUnitGroup( groupA );
+        organisationUnitGroupService.addOrganisationUnitGroup( groupB );
+
+        OrganisationUnitGroupSet groupSet = createOrganisationUnitGroupSet( 'A' );
+        groupSet.addOrganisationUnitGroup( groupA );
+
+        organisationUnitGroupService.addOrganisationUnitGroupSet( groupSet );
+
+        assertEquals( newArrayList( groupB ), dataIntegrityStore.getOrganisationUnitGroupsWithoutGroupSets() );
+    }
+
+    @Test
+    public void testGetValidationRulesWithoutGroups()
+    {
+        Expression expressionA = new Expression( "expressionA", "descriptionA" );
+        Expression expressionB = new Expression( "expressionB", "descriptionB" );
+        Expression expressionC = new Expression( "expressionC", "descriptionC" );
+        Expression expressionD = new Expression( "expressionD", "descriptionD" );
+
+        expressionService.addExpression( expressionA );
+        expressionService.addExpression( expressionB );
+        expressionService.addExpression( expressionC );
+        expressionService.addExpression( expressionD );
+
+        ValidationRule ruleA = createValidationRule( 'A', equal_to, expressionA, expressionB, new MonthlyPeriodType() );
+        ValidationRule ruleB = createValidationRule( 'B', equal_to, expressionC, expressionD, new MonthlyPeriodType() );
+
+        validationRuleService.saveValidationRule( ruleA );
+        validationRuleService.saveValidationRule( ruleB );
+
+        ValidationRuleGroup group = createValidationRuleGroup( 'A' );
+        group.addValidationRule( ruleA );
+
+        validationRuleService.addValidationRuleGroup( group );
+
+        assertEquals( newArrayList( ruleB ), dataIntegrityStore.getValidationRulesWithoutGroups() );
+    }
+}
@@ -0,0 +1,80 @@
+package org.hisp.dhis.analytics;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.function.Function;
+
+import org.hisp.dhis.common.Grid;
+
+/**
+ * Cache of analytics query responses. Responses are keyed on the canonical
+ * key of the query, see {@link DataQueryParams#getKey()}, and are discarded
+ * when the analytics tables are regenerated.
+ */
+public interface AnalyticsCache
+{
+    /**
+     * Indicates whether the cache is enabled, as configured through the
+     * {@code analytics.cache.expiration} property in {@code dhis.conf}.
+     */
+    boolean isEnabled();
+
+    /**
+     * Returns the cached grid for the given query if present, otherwise
+     * invokes the given function to compute the grid and caches the result.
+     * The returned grid is not shared with the cache and can be modified
+     * by the caller.
+     *
+     * @param params the {@link DataQueryParams}, must be security constrained.
+     * @param function the function which computes the grid.
+     * @return a {@link Grid}.
+     */
+    Grid getOrFetch( DataQueryParams params, Function<DataQueryParams, Grid> function );
+
+    /**
+     * Discards all cached grids, on this and other instances.
+     */
+    void invalidateAll();
+
+    /**
+     * Returns the number of requests served from the cache.
+     */
+    long getHitCount();
+
+    /**
+     * Returns the number of requests which were not served from the cache.
+     */
+    long getMissCount();
+
+    /**
+     * Returns the number of cached grids discarded because of size or expiry
+     * constraints.
+     */
+    long getEvictionCount();
+}
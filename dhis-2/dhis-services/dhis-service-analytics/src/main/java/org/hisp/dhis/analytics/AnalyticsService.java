@@ -30,6 +30,7 @@ package org.hisp.dhis.analytics;
 
 import org.hisp.dhis.common.AnalyticalObject;
 import org.hisp.dhis.common.Grid;
+import org.hisp.dhis.common.GridRowHandler;
 import org.hisp.dhis.dxf2.datavalueset.DataValueSet;
 
 import java.util.List;
@@ -130,6 +131,17 @@ public interface AnalyticsService
      * @return raw data as a Grid object.
      */
     Grid getRawDataValues( DataQueryParams params );
+
+    /**
+     * Streams raw data for the given query to the given row handler. Rows are
+     * passed to the handler as they are read from the database and are not
+     * held in memory, which makes this method suitable for large exports.
+     * Meta data is not included.
+     * 
+     * @param params the data query parameters.
+     * @param handler the {@link GridRowHandler}.
+     */
+    void getRawDataValues( DataQueryParams params, GridRowHandler handler );
     
     /**
      * Generates a data value set for the given query. The query must contain
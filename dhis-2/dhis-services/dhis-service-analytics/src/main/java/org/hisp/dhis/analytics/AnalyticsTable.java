@@ -109,6 +109,36 @@ public class AnalyticsTable
         this.partitionTables.add( partitionTable );
         return this;
     }
+
+    /**
+     * Adds the latest partition table to this master table, holding data 
+     * which was updated within the given time interval.
+     * 
+     * @param startDate the start of the last updated interval, inclusive.
+     * @param endDate the end of the last updated interval, exclusive.
+     * @return this analytics table.
+     */
+    public AnalyticsTable addLatestPartitionTable( Date startDate, Date endDate )
+    {
+        Assert.notNull( startDate, "Start date must be specified" );
+        Assert.notNull( endDate, "End date must be specified" );
+        
+        this.partitionTables.add( new AnalyticsTablePartition( this, startDate, endDate ) );
+        return this;
+    }
+
+    /**
+     * Returns the latest partition table of this master table, or null if no
+     * latest partition table exists.
+     * 
+     * @return the latest {@link AnalyticsTablePartition}.
+     */
+    public AnalyticsTablePartition getLatestPartition()
+    {
+        return partitionTables.stream()
+            .filter( AnalyticsTablePartition::isLatestPartition )
+            .findFirst().orElse( null );
+    }
         
     public String getTableName()
     {
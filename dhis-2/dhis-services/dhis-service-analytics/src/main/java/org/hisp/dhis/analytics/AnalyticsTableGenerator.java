@@ -41,7 +41,9 @@ import javax.annotation.Nullable;
 public interface AnalyticsTableGenerator
 {
     /**
-     * Generates analytics tables.
+     * Generates analytics tables. When a latest update is requested, only data
+     * which was updated since the last update is appended to the latest
+     * partition.
      *
      * @param params the {@link AnalyticsTableUpdateParams}.
      */
@@ -59,6 +59,37 @@ public interface AnalyticsTableManager
      */
     List<AnalyticsTable> getAnalyticsTables( Date earliest );
     
+    /**
+     * Indicates whether this manager supports updating the latest partition,
+     * meaning appending data which was updated since the last update instead
+     * of regenerating the full analytics tables.
+     * 
+     * @return true if latest partition updates are supported.
+     */
+    boolean isLatestUpdateSupported();
+    
+    /**
+     * Returns a {@link AnalyticsTable} with a single latest 
+     * {@link AnalyticsTablePartition} for data updated between the given 
+     * start and end time.
+     * 
+     * @param startTime the start of the last updated interval, inclusive.
+     * @param endTime the end of the last updated interval, exclusive.
+     * @return the analytics table with the latest partition, or null if
+     *         latest partition updates are not supported.
+     */
+    AnalyticsTable getLatestAnalyticsTable( Date startTime, Date endTime );
+    
+    /**
+     * Indicates whether data was updated or deleted between the given start
+     * and end time.
+     * 
+     * @param startTime the start of the last updated interval, inclusive.
+     * @param endTime the end of the last updated interval, exclusive.
+     * @return true if data was updated or deleted in the interval.
+     */
+    boolean hasUpdatedLatestData( Date startTime, Date endTime );
+    
     /**
      * Returns a list of existing analytics database table names.
      * 
@@ -86,6 +117,14 @@ public interface AnalyticsTableManager
      */
     void createTable( AnalyticsTable table, boolean skipMasterTable );
     
+    /**
+     * Attempts to drop and then create the temporary latest partition table
+     * of the given analytics table.
+     * 
+     * @param table the analytics table with a latest partition.
+     */
+    void createLatestPartitionTable( AnalyticsTable table );
+    
     /**
      * Creates single indexes on the given columns of the analytics table with
      * the given name.
@@ -103,6 +142,16 @@ public interface AnalyticsTableManager
      */
     void swapTable( AnalyticsTable table, boolean skipMasterTable );
     
+    /**
+     * Removes data which was updated or deleted within the interval of the
+     * latest partition from the analytics table, then moves the content of 
+     * the temporary latest partition table into the latest partition table.
+     * The latest partition table is created if it does not exist.
+     * 
+     * @param table the analytics table with a latest partition.
+     */
+    void swapLatestPartition( AnalyticsTable table );
+    
     /**
      * Copies and denormalizes rows from data value table into analytics table.
      * The data range is based on the start date of the data value row.
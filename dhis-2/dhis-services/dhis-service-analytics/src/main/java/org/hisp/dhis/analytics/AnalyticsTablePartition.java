@@ -39,6 +39,11 @@ import org.hisp.dhis.analytics.table.PartitionUtils;
  */
 public class AnalyticsTablePartition
 {
+    /**
+     * Table name suffix of the latest partition.
+     */
+    public static final String LATEST_PARTITION = "latest";
+    
     /**
      * The master analytics table for this partition.
      */
@@ -64,6 +69,12 @@ public class AnalyticsTablePartition
      */
     private boolean dataApproval;
 
+    /**
+     * Indicates whether this is the latest partition, holding data which was
+     * updated after the last full analytics table update.
+     */
+    private boolean latest;
+
     public AnalyticsTablePartition( AnalyticsTable masterTable, Integer year, Date startDate, Date endDate, boolean dataApproval )
     {
         this.masterTable = masterTable;
@@ -73,6 +84,12 @@ public class AnalyticsTablePartition
         this.dataApproval = dataApproval;
     }
 
+    public AnalyticsTablePartition( AnalyticsTable masterTable, Date startDate, Date endDate )
+    {
+        this( masterTable, null, startDate, endDate, false );
+        this.latest = true;
+    }
+
     // -------------------------------------------------------------------------
     // Logic
     // -------------------------------------------------------------------------
@@ -85,6 +102,10 @@ public class AnalyticsTablePartition
         {
             name += PartitionUtils.SEP + year;
         }
+        else if ( latest )
+        {
+            name += PartitionUtils.SEP + LATEST_PARTITION;
+        }
 
         if ( masterTable.getProgram() != null )
         {
@@ -102,6 +123,10 @@ public class AnalyticsTablePartition
         {
             name += PartitionUtils.SEP + year;
         }
+        else if ( latest )
+        {
+            name += PartitionUtils.SEP + LATEST_PARTITION;
+        }
 
         if ( masterTable.getProgram() != null )
         {
@@ -135,6 +160,11 @@ public class AnalyticsTablePartition
     {
         return dataApproval;
     }
+
+    public boolean isLatestPartition()
+    {
+        return latest;
+    }
     
     @Override
     public String toString()
@@ -31,6 +31,7 @@ package org.hisp.dhis.analytics;
 import com.google.common.base.MoreObjects;
 import org.hisp.dhis.scheduling.JobConfiguration;
 
+import java.util.Date;
 import java.util.Set;
 
 /**
@@ -60,11 +61,28 @@ public class AnalyticsTableUpdateParams
      */
     private Set<AnalyticsTableType> skipTableTypes;
     
+    /**
+     * Indicates whether to only update the latest partition with data which
+     * was updated since the last analytics table update, instead of
+     * regenerating and swapping the full analytics tables.
+     */
+    private boolean latestUpdate;
+    
     /**
      * Job ID.
      */
     private JobConfiguration jobId;
     
+    /**
+     * Start time for update process.
+     */
+    private Date startTime;
+    
+    private AnalyticsTableUpdateParams()
+    {
+        this.startTime = new Date();
+    }
+    
     // -------------------------------------------------------------------------
     // Get methods
     // -------------------------------------------------------------------------
@@ -89,11 +107,21 @@ public class AnalyticsTableUpdateParams
         return skipTableTypes;
     }
 
+    public boolean isLatestUpdate()
+    {
+        return latestUpdate;
+    }
+
     public JobConfiguration getJobId()
     {
         return jobId;
     }
 
+    public Date getStartTime()
+    {
+        return startTime;
+    }
+
     // -------------------------------------------------------------------------
     // toString
     // -------------------------------------------------------------------------
@@ -106,6 +134,8 @@ public class AnalyticsTableUpdateParams
             .add( "skip master table", skipMasterTable )
             .add( "skip resource tables", skipResourceTables )
             .add( "skip table types", skipTableTypes )
+            .add( "latest update", latestUpdate )
+            .add( "start time", startTime )
             .toString();
     }
     
@@ -154,6 +184,12 @@ public class AnalyticsTableUpdateParams
             return this;
         }
         
+        public Builder withLatestUpdate( boolean latestUpdate )
+        {
+            this.params.latestUpdate = latestUpdate;
+            return this;
+        }
+        
         public Builder withJobId( JobConfiguration jobId )
         {
             this.params.jobId = jobId;
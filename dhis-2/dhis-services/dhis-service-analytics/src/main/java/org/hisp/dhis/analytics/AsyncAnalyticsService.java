@@ -0,0 +1,98 @@
+package org.hisp.dhis.analytics;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.List;
+
+import org.hisp.dhis.common.DataQueryRequest;
+import org.hisp.dhis.common.EventDataQueryRequest;
+import org.hisp.dhis.fileresource.FileResource;
+import org.hisp.dhis.scheduling.JobConfiguration;
+
+/**
+ * Runs analytics queries as background jobs. The response of each query is
+ * spooled to a compressed file resource, which can be downloaded when the job
+ * has completed. Progress is reported through the notifier under the job type
+ * {@link org.hisp.dhis.scheduling.JobType#ANALYTICS_QUERY}.
+ * <p>
+ * Requests are parsed when submitted, so that invalid dimensions are reported
+ * immediately, and parsed again by the job in its own session. Errors raised
+ * while running the query are reported through the notifier.
+ * <p>
+ * The number of concurrent queries per user is bounded by the
+ * {@code analytics.async.max_user_queries} configuration property. Queries
+ * run on a dedicated pool of {@code analytics.async.max_queries} threads, so
+ * that they do not hold up other background jobs.
+ */
+public interface AsyncAnalyticsService
+{
+    /**
+     * Submits a query for aggregated data values. The result is a grid in
+     * JSON format.
+     *
+     * @param request the data query request.
+     * @param columns the identifiers of the dimensions to use as columns.
+     * @param rows the identifiers of the dimensions to use as rows.
+     * @return the configuration of the submitted job.
+     * @throws org.hisp.dhis.common.IllegalQueryException if the current user
+     *         has too many queries running, or too many queries are queued.
+     */
+    JobConfiguration submitAggregatedDataValues( DataQueryRequest request, List<String> columns, List<String> rows );
+
+    /**
+     * Submits a query for raw data values. The result is streamed to the
+     * file in CSV format.
+     *
+     * @param request the data query request.
+     * @return the configuration of the submitted job.
+     * @throws org.hisp.dhis.common.IllegalQueryException if the current user
+     *         has too many queries running, or too many queries are queued.
+     */
+    JobConfiguration submitRawDataValues( DataQueryRequest request );
+
+    /**
+     * Submits an event query. The result is a grid in JSON format.
+     *
+     * @param request the event data query request.
+     * @return the configuration of the submitted job.
+     * @throws org.hisp.dhis.common.IllegalQueryException if the current user
+     *         has too many queries running, or too many queries are queued.
+     */
+    JobConfiguration submitEvents( EventDataQueryRequest request );
+
+    /**
+     * Returns the file resource holding the result of the job with the given
+     * identifier. The content of the file resource is gzip compressed.
+     *
+     * @param jobId the job identifier.
+     * @return the file resource, or null if no result exists or the result
+     *         belongs to another user.
+     */
+    FileResource getResult( String jobId );
+}
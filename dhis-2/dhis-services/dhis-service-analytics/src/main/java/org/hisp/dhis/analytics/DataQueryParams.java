@@ -460,7 +460,62 @@ public class DataQueryParams
     {
         return aggregationType != null ? aggregationType.toString() : null;
     }
-            
+
+    /**
+     * Returns a canonical key which uniquely identifies the response of this
+     * query. Dimensions are included in order, as the order is significant for
+     * the response, while filters are sorted by dimension identifier. Data
+     * approval constraints are included as they restrict the response.
+     */
+    public String getKey()
+    {
+        QueryKey key = new QueryKey();
+
+        dimensions.forEach( dim -> key.add( "dimension", getDimensionKey( dim ) ) );
+
+        filters.stream()
+            .sorted( Comparator.comparing( DimensionalObject::getDimension ) )
+            .forEach( filter -> key.add( "filter", getDimensionKey( filter ) ) );
+
+        new TreeMap<>( measureCriteria ).forEach( ( filter, value ) -> key.add( "measureCriteria", filter + DIMENSION_NAME_SEP + value ) );
+        new TreeMap<>( preAggregateMeasureCriteria ).forEach( ( filter, value ) -> key.add( "preAggregateMeasureCriteria", filter + DIMENSION_NAME_SEP + value ) );
+
+        dataApprovalLevels.entrySet().stream()
+            .map( entry -> entry.getKey().getUid() + DIMENSION_NAME_SEP + entry.getValue() )
+            .sorted()
+            .forEach( level -> key.add( "dataApprovalLevel", level ) );
+
+        return key
+            .add( "aggregationType", aggregationType )
+            .add( "skipMeta", skipMeta )
+            .add( "skipData", skipData )
+            .add( "skipHeaders", skipHeaders )
+            .add( "skipRounding", skipRounding )
+            .add( "completedOnly", completedOnly )
+            .add( "hierarchyMeta", hierarchyMeta )
+            .add( "ignoreLimit", ignoreLimit )
+            .add( "hideEmptyRows", hideEmptyRows )
+            .add( "hideEmptyColumns", hideEmptyColumns )
+            .add( "showHierarchy", showHierarchy )
+            .add( "includeNumDen", includeNumDen )
+            .add( "includePeriodStartEndDates", includePeriodStartEndDates )
+            .add( "includeMetadataDetails", includeMetadataDetails )
+            .add( "displayProperty", displayProperty )
+            .add( "outputIdScheme", outputIdScheme )
+            .add( "outputFormat", outputFormat )
+            .add( "duplicatesOnly", duplicatesOnly )
+            .add( "approvalLevel", approvalLevel )
+            .add( "startDate", startDate != null ? startDate.getTime() : null )
+            .add( "endDate", endDate != null ? endDate.getTime() : null )
+            .add( "order", order )
+            .add( "timely", timely )
+            .add( "orgUnitLevels", IdentifiableObjectUtils.getUids( orgUnitLevels ) )
+            .add( "restrictByOrgUnitOpeningClosedDate", restrictByOrgUnitOpeningClosedDate )
+            .add( "restrictByCategoryOptionStartEndDate", restrictByCategoryOptionStartEndDate )
+            .add( "apiVersion", apiVersion )
+            .build();
+    }
+
     /**
      * Creates a mapping between filter dimension identifiers and filter dimensions. 
      * Filters are guaranteed not to be null.
@@ -1283,6 +1338,15 @@ public class DataQueryParams
     // Supportive private methods
     // -------------------------------------------------------------------------
 
+    /**
+     * Returns a key for the given dimension based on the dimension identifier
+     * and the identifiers of the dimension items, in order.
+     */
+    private String getDimensionKey( DimensionalObject dimension )
+    {
+        return dimension.getDimension() + DIMENSION_NAME_SEP + StringUtils.join( DimensionalObjectUtils.getDimensionalItemIds( dimension.getItems() ), OPTION_SEP );
+    }
+
     /**
      * Replaces the periods of this query with the corresponding data periods.
      * Sets the period type to the data period type. This method is relevant only 
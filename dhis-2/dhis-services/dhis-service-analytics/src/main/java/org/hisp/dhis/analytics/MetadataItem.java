@@ -28,6 +28,8 @@ package org.hisp.dhis.analytics;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import java.io.Serializable;
+
 import com.fasterxml.jackson.annotation.JsonProperty;
 import org.hisp.dhis.common.DimensionItemType;
 import org.hisp.dhis.common.DimensionType;
@@ -43,7 +45,10 @@ import org.hisp.dhis.program.ProgramStage;
 * @author Lars Helge Overland
 */
 public class MetadataItem
-{    
+    implements Serializable
+{
+    private static final long serialVersionUID = -3873486540364734185L;
+
     private String name;
     
     private String legendSet;
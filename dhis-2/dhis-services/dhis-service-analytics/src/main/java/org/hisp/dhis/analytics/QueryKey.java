@@ -0,0 +1,107 @@
+package org.hisp.dhis.analytics;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.google.common.hash.Hashing;
+
+/**
+ * Builder of canonical keys which uniquely identify an analytics query. Key
+ * components are added in a fixed order by the query object, and the resulting
+ * key is a SHA-256 hex digest of the components.
+ */
+public class QueryKey
+{
+    private static final String COMPONENT_SEP = "-";
+    private static final String VALUE_SEP = ":";
+
+    private final List<String> keyComponents = new ArrayList<>();
+
+    public QueryKey()
+    {
+    }
+
+    /**
+     * Adds a component to this key. Null values are included as they may be
+     * significant for the query.
+     *
+     * @param property the key property.
+     * @param value the key value.
+     * @return this object.
+     */
+    public QueryKey add( String property, Object value )
+    {
+        this.keyComponents.add( property + VALUE_SEP + value );
+        return this;
+    }
+
+    /**
+     * Adds a component to this key if the given value is not null.
+     *
+     * @param property the key property.
+     * @param value the key value.
+     * @return this object.
+     */
+    public QueryKey addIgnoreNull( String property, Object value )
+    {
+        if ( value != null )
+        {
+            this.add( property, value );
+        }
+
+        return this;
+    }
+
+    /**
+     * Returns the key components as a plain string. Useful for debugging.
+     */
+    public String asPlainKey()
+    {
+        return StringUtils.join( keyComponents, COMPONENT_SEP );
+    }
+
+    /**
+     * Returns a SHA-256 hex digest of the key components.
+     */
+    public String build()
+    {
+        return Hashing.sha256().hashString( asPlainKey(), StandardCharsets.UTF_8 ).toString();
+    }
+
+    @Override
+    public String toString()
+    {
+        return asPlainKey();
+    }
+}
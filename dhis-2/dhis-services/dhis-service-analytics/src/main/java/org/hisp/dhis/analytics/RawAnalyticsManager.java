@@ -28,6 +28,9 @@ package org.hisp.dhis.analytics;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import java.util.List;
+import java.util.function.Consumer;
+
 import org.hisp.dhis.common.Grid;
 
 /**
@@ -44,5 +47,15 @@ public interface RawAnalyticsManager
      * @param grid the grid.
      * @return a grid with data.
      */
-    Grid getRawDataValues( DataQueryParams params, Grid grid );    
+    Grid getRawDataValues( DataQueryParams params, Grid grid );
+
+    /**
+     * Streams raw analytics data for the given query to the given row handler.
+     * Rows are read from the database with a cursor and are not held in memory.
+     * 
+     * @param params the query.
+     * @param rowHandler the handler of rows, where each row holds the values
+     *        of the query dimensions followed by the data value.
+     */
+    void getRawDataValues( DataQueryParams params, Consumer<List<Object>> rowHandler );
 }
@@ -0,0 +1,253 @@
+package org.hisp.dhis.analytics.cache;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.Date;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+
+import org.apache.commons.lang3.SerializationException;
+import org.apache.commons.lang3.SerializationUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hisp.dhis.analytics.AnalyticsCache;
+import org.hisp.dhis.analytics.AnalyticsSecurityManager;
+import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.analytics.QueryKey;
+import org.hisp.dhis.cache.Cache;
+import org.hisp.dhis.cache.CacheInvalidationBus;
+import org.hisp.dhis.cache.CacheProvider;
+import org.hisp.dhis.common.Grid;
+import org.hisp.dhis.common.IdentifiableObjectUtils;
+import org.hisp.dhis.common.UserContext;
+import org.hisp.dhis.commons.util.SystemUtils;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.setting.SettingKey;
+import org.hisp.dhis.setting.SystemSettingManager;
+import org.hisp.dhis.system.grid.ListGrid;
+import org.hisp.dhis.user.User;
+import org.hisp.dhis.user.UserSettingKey;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Analytics response cache backed by {@link CacheProvider}, which means a
+ * local cache is used unless redis is enabled in {@code dhis.conf}.
+ * <p>
+ * Cache keys are composed of the canonical query key, the time of the last
+ * successful analytics table and latest partition updates, the database
+ * locale of the current user and, when hierarchy meta data is requested, the
+ * data view roots of the current user. Including the table update times
+ * means that entries produced before a table update are never served
+ * afterwards, also when the cache is shared between instances through redis.
+ * Clearing the cache clears the caches of all instances through the
+ * {@link CacheInvalidationBus}.
+ */
+public class DefaultAnalyticsCache
+    implements AnalyticsCache
+{
+    private static final Log log = LogFactory.getLog( DefaultAnalyticsCache.class );
+
+    private static final String CACHE_REGION = "analyticsQueryResponse";
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder evictionCount = new LongAdder();
+
+    private Cache<Grid> queryCache;
+
+    private boolean enabled;
+
+    @Autowired
+    private CacheProvider cacheProvider;
+
+    @Autowired
+    private DhisConfigurationProvider configurationProvider;
+
+    @Autowired
+    private SystemSettingManager systemSettingManager;
+
+    @Autowired
+    private AnalyticsSecurityManager securityManager;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @PostConstruct
+    public void init()
+    {
+        long expiration = Long.parseLong( configurationProvider.getProperty( ConfigurationKey.ANALYTICS_CACHE_EXPIRATION ) );
+        long maxSize = Long.parseLong( configurationProvider.getProperty( ConfigurationKey.ANALYTICS_CACHE_MAX_SIZE ) );
+
+        enabled = expiration > 0 && maxSize > 0 && !SystemUtils.isTestRun();
+
+        queryCache = cacheProvider.newCacheBuilder( Grid.class ).forRegion( CACHE_REGION )
+            .expireAfterWrite( expiration, TimeUnit.SECONDS )
+            .withMaximumSize( enabled ? maxSize : 0 )
+            .withEvictionListener( key -> evictionCount.increment() )
+            .build();
+
+        cacheInvalidationBus.subscribe( CACHE_REGION, key -> {
+            queryCache.invalidateAll();
+
+            log.info( "Analytics cache cleared" );
+        } );
+
+        log.info( String.format( "Analytics cache enabled: %b, expiration: %d seconds, max size: %d", enabled, expiration, maxSize ) );
+    }
+
+    // -------------------------------------------------------------------------
+    // AnalyticsCache implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    @Override
+    public Grid getOrFetch( DataQueryParams params, Function<DataQueryParams, Grid> function )
+    {
+        String key = getCacheKey( params );
+
+        Optional<Grid> cachedGrid = queryCache.getIfPresent( key );
+
+        if ( cachedGrid.isPresent() )
+        {
+            hitCount.increment();
+
+            return getCopy( cachedGrid.get() );
+        }
+
+        missCount.increment();
+
+        Grid grid = function.apply( params );
+
+        Grid gridCopy = getCopy( grid );
+
+        if ( gridCopy != grid )
+        {
+            queryCache.put( key, gridCopy );
+        }
+
+        return grid;
+    }
+
+    @Override
+    public void invalidateAll()
+    {
+        cacheInvalidationBus.invalidateAll( CACHE_REGION );
+    }
+
+    @Override
+    public long getHitCount()
+    {
+        return hitCount.sum();
+    }
+
+    @Override
+    public long getMissCount()
+    {
+        return missCount.sum();
+    }
+
+    @Override
+    public long getEvictionCount()
+    {
+        return evictionCount.sum();
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the cache key for the given query.
+     *
+     * @param params the {@link DataQueryParams}.
+     */
+    private String getCacheKey( DataQueryParams params )
+    {
+        Date lastTableUpdate = (Date) systemSettingManager.getSystemSetting( SettingKey.LAST_SUCCESSFUL_ANALYTICS_TABLES_UPDATE );
+        Date lastLatestUpdate = (Date) systemSettingManager.getSystemSetting( SettingKey.LAST_SUCCESSFUL_LATEST_ANALYTICS_PARTITION_UPDATE );
+
+        QueryKey key = new QueryKey()
+            .add( "query", params.getKey() )
+            .add( "lastTableUpdate", lastTableUpdate != null ? lastTableUpdate.getTime() : null )
+            .add( "lastLatestUpdate", lastLatestUpdate != null ? lastLatestUpdate.getTime() : null )
+            .add( "locale", UserContext.getUserSetting( UserSettingKey.DB_LOCALE, Locale.class ) );
+
+        if ( params.isHierarchyMeta() || params.isShowHierarchy() )
+        {
+            User user = securityManager.getCurrentUser( params );
+
+            String roots = user != null ? IdentifiableObjectUtils.getUids( user.getOrganisationUnits() ).stream()
+                .sorted().collect( Collectors.joining( "," ) ) : null;
+
+            key.add( "roots", roots );
+        }
+
+        return key.build();
+    }
+
+    /**
+     * Returns a deep copy of the given grid, so that cached grids are never
+     * exposed to modifications by callers. Returns the given grid if it cannot
+     * be copied, in which case it should not be cached.
+     *
+     * @param grid the {@link Grid}.
+     */
+    private Grid getCopy( Grid grid )
+    {
+        if ( !( grid instanceof ListGrid ) )
+        {
+            return grid;
+        }
+
+        try
+        {
+            return (ListGrid) SerializationUtils.clone( (ListGrid) grid );
+        }
+        catch ( SerializationException ex )
+        {
+            log.warn( "Grid could not be copied and will not be cached", ex );
+
+            return grid;
+        }
+    }
+}
@@ -33,6 +33,7 @@ import com.google.common.collect.Lists;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.hisp.dhis.analytics.AnalyticsAggregationType;
+import org.hisp.dhis.analytics.AnalyticsCache;
 import org.hisp.dhis.analytics.AnalyticsManager;
 import org.hisp.dhis.analytics.AnalyticsMetaDataKey;
 import org.hisp.dhis.analytics.AnalyticsSecurityManager;
@@ -64,6 +65,7 @@ import org.hisp.dhis.common.DimensionalObject;
 import org.hisp.dhis.common.DimensionalObjectUtils;
 import org.hisp.dhis.common.Grid;
 import org.hisp.dhis.common.GridHeader;
+import org.hisp.dhis.common.GridRowHandler;
 import org.hisp.dhis.common.IdentifiableObjectUtils;
 import org.hisp.dhis.common.ReportingRateMetric;
 import org.hisp.dhis.common.ValueType;
@@ -183,6 +185,9 @@ public class DefaultAnalyticsService
     @Autowired
     private DataQueryService dataQueryService;
 
+    @Autowired
+    private AnalyticsCache analyticsCache;
+
     // -------------------------------------------------------------------------
     // AnalyticsService implementation
     // -------------------------------------------------------------------------
@@ -201,6 +206,11 @@ public class DefaultAnalyticsService
 
         queryValidator.validate( params );
 
+        if ( analyticsCache.isEnabled() )
+        {
+            return analyticsCache.getOrFetch( params, this::getAggregatedDataValueGridInternal );
+        }
+
         return getAggregatedDataValueGridInternal( params );
     }
 
@@ -227,6 +237,51 @@ public class DefaultAnalyticsService
         return getRawDataGrid( params );
     }
 
+    @Override
+    public void getRawDataValues( DataQueryParams params, GridRowHandler handler )
+    {
+        securityManager.decideAccess( params );
+
+        params = securityManager.withDataApprovalConstraints( params );
+        params = securityManager.withDimensionConstraints( params );
+
+        queryValidator.validate( params );
+
+        params = preHandleRawDataQuery( params );
+
+        Grid grid = new ListGrid();
+
+        addHeaders( params, grid );
+
+        Map<String, String> idSchemeMap = getIdSchemeMap( params );
+
+        List<Integer> metaIndexes = grid.getMetaColumnIndexes();
+
+        grid.substituteMetaData( idSchemeMap );
+
+        handler.handleHeaders( grid.getHeaders() );
+
+        if ( !params.isSkipData() )
+        {
+            rawAnalyticsManager.getRawDataValues( withRawDataTable( params ), row -> {
+                if ( idSchemeMap != null )
+                {
+                    for ( Integer index : metaIndexes )
+                    {
+                        String value = idSchemeMap.get( row.get( index ) );
+
+                        if ( value != null )
+                        {
+                            row.set( index, value );
+                        }
+                    }
+                }
+
+                handler.handleRow( row );
+            } );
+        }
+    }
+
     @Override
     public DataValueSet getAggregatedDataValueSet( DataQueryParams params )
     {
@@ -806,7 +861,7 @@ public class DefaultAnalyticsService
                 getLocalPeriodIdentifiers( params.getDimensionOrFilterItems( PERIOD_DIM_ID ), calendar );
 
             dimensionItems.put( PERIOD_DIM_ID, periodUids );
-            dimensionItems.put( CATEGORYOPTIONCOMBO_DIM_ID, cocNameMap.keySet() );
+            dimensionItems.put( CATEGORYOPTIONCOMBO_DIM_ID, new ArrayList<>( cocNameMap.keySet() ) );
 
             for ( DimensionalObject dim : params.getDimensionsAndFilters() )
             {
@@ -870,17 +925,37 @@ public class DefaultAnalyticsService
      */
     private void applyIdScheme( DataQueryParams params, Grid grid )
     {
-        if ( !params.isSkipMeta() && params.hasNonUidOutputIdScheme() )
+        Map<String, String> map = getIdSchemeMap( params );
+
+        if ( map != null )
         {
-            Map<String, String> map = DimensionalObjectUtils.getDimensionItemIdSchemeMap( params.getAllDimensionItems(), params.getOutputIdScheme() );
+            grid.substituteMetaData( map );
+        }
+    }
 
-            if ( params.isOutputFormat( OutputFormat.DATA_VALUE_SET ) && !params.getDataElementOperands().isEmpty() )
-            {
-                map.putAll( DimensionalObjectUtils.getDataElementOperandIdSchemeMap( asTypedList( params.getDataElementOperands() ), params.getOutputIdScheme() ) );
-            }
+    /**
+     * Returns a mapping of dimension item identifiers to the identifier scheme
+     * meta data property indicated in the query, or null if the query does
+     * not specify a non-UID output identifier scheme.
+     *
+     * @param params the {@link DataQueryParams}.
+     * @return a mapping of identifiers, or null.
+     */
+    private Map<String, String> getIdSchemeMap( DataQueryParams params )
+    {
+        if ( params.isSkipMeta() || !params.hasNonUidOutputIdScheme() )
+        {
+            return null;
+        }
 
-            grid.substituteMetaData( map );
+        Map<String, String> map = DimensionalObjectUtils.getDimensionItemIdSchemeMap( params.getAllDimensionItems(), params.getOutputIdScheme() );
+
+        if ( params.isOutputFormat( OutputFormat.DATA_VALUE_SET ) && !params.getDataElementOperands().isEmpty() )
+        {
+            map.putAll( DimensionalObjectUtils.getDataElementOperandIdSchemeMap( asTypedList( params.getDataElementOperands() ), params.getOutputIdScheme() ) );
         }
+
+        return map;
     }
 
     /**
@@ -1197,15 +1272,24 @@ public class DefaultAnalyticsService
     {
         if ( !params.isSkipData() )
         {
-            QueryPlannerParams plannerParams = QueryPlannerParams.newBuilder()
-                .withTableName( AnalyticsTableType.DATA_VALUE.getTableName() ).build();
-            
-            params = queryPlanner.withTableNameAndPartitions( params, plannerParams );
-            
-            rawAnalyticsManager.getRawDataValues( params, grid );
+            rawAnalyticsManager.getRawDataValues( withRawDataTable( params ), grid );
         }
     }
 
+    /**
+     * Returns the given data query parameters with the table name and 
+     * partitions of the data value analytics table.
+     * 
+     * @param params the {@link DataQueryParams}.
+     */
+    private DataQueryParams withRawDataTable( DataQueryParams params )
+    {
+        QueryPlannerParams plannerParams = QueryPlannerParams.newBuilder()
+            .withTableName( AnalyticsTableType.DATA_VALUE.getTableName() ).build();
+        
+        return queryPlanner.withTableNameAndPartitions( params, plannerParams );
+    }
+
     // -------------------------------------------------------------------------
     // Supportive methods
     // -------------------------------------------------------------------------
@@ -0,0 +1,379 @@
+package org.hisp.dhis.analytics.data;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.hisp.dhis.scheduling.JobType.ANALYTICS_QUERY;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hibernate.SessionFactory;
+import org.hisp.dhis.analytics.AnalyticsService;
+import org.hisp.dhis.analytics.AsyncAnalyticsService;
+import org.hisp.dhis.analytics.DataQueryService;
+import org.hisp.dhis.analytics.event.EventAnalyticsService;
+import org.hisp.dhis.analytics.event.EventDataQueryService;
+import org.hisp.dhis.common.DataQueryRequest;
+import org.hisp.dhis.common.EventDataQueryRequest;
+import org.hisp.dhis.common.IllegalQueryException;
+import org.hisp.dhis.dbms.DbmsUtils;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.fileresource.FileResource;
+import org.hisp.dhis.fileresource.FileResourceDomain;
+import org.hisp.dhis.fileresource.FileResourceService;
+import org.hisp.dhis.render.RenderService;
+import org.hisp.dhis.scheduling.JobConfiguration;
+import org.hisp.dhis.security.SecurityContextRunnable;
+import org.hisp.dhis.system.grid.GridUtils;
+import org.hisp.dhis.system.notification.NotificationLevel;
+import org.hisp.dhis.system.notification.Notifier;
+import org.hisp.dhis.user.CurrentUserService;
+import org.hisp.dhis.user.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+
+/**
+ * Result files are stored as unassigned file resources, which means they are
+ * removed by the file resource clean up job once they are two hours old.
+ * Queries run on a dedicated executor with a bounded queue, queries beyond
+ * the queue capacity are rejected.
+ */
+public class DefaultAsyncAnalyticsService
+    implements AsyncAnalyticsService
+{
+    private static final Log log = LogFactory.getLog( DefaultAsyncAnalyticsService.class );
+
+    private static final String CONTENT_TYPE_JSON = "application/json";
+    private static final String CONTENT_TYPE_CSV = "application/csv";
+
+    private static final int MAX_QUEUED_QUERIES = 100;
+
+    /**
+     * Number of submitted and running queries per user identifier.
+     */
+    private final Map<String, Integer> userQueries = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor executor;
+
+    @Autowired
+    private DataQueryService dataQueryService;
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    @Autowired
+    private EventDataQueryService eventDataQueryService;
+
+    @Autowired
+    private EventAnalyticsService eventAnalyticsService;
+
+    @Autowired
+    private FileResourceService fileResourceService;
+
+    @Autowired
+    private RenderService renderService;
+
+    @Autowired
+    private Notifier notifier;
+
+    @Autowired
+    private CurrentUserService currentUserService;
+
+    @Autowired
+    private DhisConfigurationProvider configurationProvider;
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    @PostConstruct
+    public void init()
+    {
+        int threads = Integer.parseInt( configurationProvider.getProperty( ConfigurationKey.ANALYTICS_ASYNC_MAX_QUERIES ) );
+
+        executor = new ThreadPoolExecutor( threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>( MAX_QUEUED_QUERIES ) );
+    }
+
+    @PreDestroy
+    public void destroy()
+    {
+        executor.shutdownNow();
+    }
+
+    // -------------------------------------------------------------------------
+    // AsyncAnalyticsService implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    public JobConfiguration submitAggregatedDataValues( DataQueryRequest request, List<String> columns, List<String> rows )
+    {
+        dataQueryService.getFromRequest( request );
+
+        return submit( "analyticsQuery", "json", CONTENT_TYPE_JSON, out -> renderService.toJson( out,
+            analyticsService.getAggregatedDataValues( dataQueryService.getFromRequest( request ), columns, rows ) ) );
+    }
+
+    @Override
+    public JobConfiguration submitRawDataValues( DataQueryRequest request )
+    {
+        dataQueryService.getFromRequest( request );
+
+        return submit( "analyticsRawDataQuery", "csv", CONTENT_TYPE_CSV, out -> {
+            Writer writer = new OutputStreamWriter( out, StandardCharsets.UTF_8 );
+            analyticsService.getRawDataValues( dataQueryService.getFromRequest( request ), GridUtils.getCsvRowHandler( writer ) );
+            writer.flush();
+        } );
+    }
+
+    @Override
+    public JobConfiguration submitEvents( EventDataQueryRequest request )
+    {
+        eventDataQueryService.getFromRequest( request );
+
+        return submit( "analyticsEventQuery", "json", CONTENT_TYPE_JSON, out -> renderService.toJson( out,
+            eventAnalyticsService.getEvents( eventDataQueryService.getFromRequest( request ) ) ) );
+    }
+
+    @Override
+    public FileResource getResult( String jobId )
+    {
+        FileResource fileResource = fileResourceService.getFileResource( jobId );
+
+        if ( fileResource == null || fileResource.getDomain() != FileResourceDomain.ANALYTICS )
+        {
+            return null;
+        }
+
+        User user = currentUserService.getCurrentUser();
+
+        boolean owner = user != null && fileResource.getUser() != null && user.getUid().equals( fileResource.getUser().getUid() );
+
+        return owner || currentUserService.currentUserIsSuper() ? fileResource : null;
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Writes a query result to an output stream.
+     */
+    @FunctionalInterface
+    private interface ResultWriter
+    {
+        void write( OutputStream out )
+            throws IOException;
+    }
+
+    private JobConfiguration submit( String name, String extension, String contentType, ResultWriter resultWriter )
+    {
+        User user = currentUserService.getCurrentUser();
+
+        if ( user == null )
+        {
+            throw new IllegalQueryException( "Asynchronous analytics queries require an authenticated user" );
+        }
+
+        final String userUid = user.getUid();
+
+        acquire( userUid );
+
+        JobConfiguration jobId = new JobConfiguration( name, ANALYTICS_QUERY, userUid, true );
+
+        notifier.notify( jobId, "Analytics query submitted" );
+
+        try
+        {
+            executor.execute( new SecurityContextRunnable()
+            {
+                @Override
+                public void before()
+                {
+                    DbmsUtils.bindSessionToThread( sessionFactory );
+                }
+
+                @Override
+                public void call()
+                {
+                    spool( jobId, extension, contentType, resultWriter );
+                }
+
+                @Override
+                public void after()
+                {
+                    release( userUid );
+                    DbmsUtils.unbindSessionFromThread( sessionFactory );
+                }
+            } );
+        }
+        catch ( RejectedExecutionException ex )
+        {
+            release( userUid );
+            throw new IllegalQueryException( "Max number of queued analytics queries reached: " + MAX_QUEUED_QUERIES );
+        }
+        catch ( RuntimeException ex )
+        {
+            release( userUid );
+            throw ex;
+        }
+
+        return jobId;
+    }
+
+    /**
+     * Runs the query and writes the result to a compressed temporary file,
+     * which is then handed to the file resource store. The file resource is
+     * given the job identifier as identifier. Completion is reported when the
+     * content is stored, as the result can not be downloaded before.
+     */
+    private void spool( JobConfiguration jobId, String extension, String contentType, ResultWriter resultWriter )
+    {
+        File file = null;
+
+        boolean stored = false;
+
+        try
+        {
+            notifier.notify( jobId, "Running analytics query" );
+
+            file = File.createTempFile( "analytics-" + jobId.getUid() + "-", ".gz" );
+
+            try ( OutputStream out = new GZIPOutputStream( new BufferedOutputStream( new FileOutputStream( file ) ) ) )
+            {
+                resultWriter.write( out );
+            }
+
+            long contentLength = file.length();
+
+            String contentMd5 = Files.asByteSource( file ).hash( Hashing.md5() ).toString();
+
+            FileResource fileResource = new FileResource( "analytics-" + jobId.getUid() + "." + extension,
+                contentType, contentLength, contentMd5, FileResourceDomain.ANALYTICS );
+
+            fileResource.setUid( jobId.getUid() );
+            fileResource.setUser( currentUserService.getCurrentUser() );
+
+            notifier.notify( jobId, "Storing analytics query result" );
+
+            fileResourceService.saveFileResource( fileResource, file, getStoreCallback( jobId, file, contentLength ) );
+
+            stored = true;
+        }
+        catch ( Exception ex )
+        {
+            log.error( "Analytics query failed", ex );
+
+            notifier.notify( jobId, NotificationLevel.ERROR, "Analytics query failed: " + ex.getMessage(), true );
+        }
+        finally
+        {
+            if ( file != null && !stored && !file.delete() )
+            {
+                log.warn( "Temporary file could not be deleted: " + file.getPath() );
+            }
+        }
+    }
+
+    /**
+     * Returns a callback which reports completion of the job once the result
+     * is stored, and removes the temporary file if storing fails.
+     */
+    private ListenableFutureCallback<String> getStoreCallback( JobConfiguration jobId, File file, long contentLength )
+    {
+        return new ListenableFutureCallback<String>()
+        {
+            @Override
+            public void onSuccess( String key )
+            {
+                if ( key != null )
+                {
+                    notifier.notify( jobId, NotificationLevel.INFO, "Analytics query completed, result size: " + contentLength + " bytes", true );
+                }
+                else
+                {
+                    onFailure( new IOException( "Result content was not stored" ) );
+                }
+            }
+
+            @Override
+            public void onFailure( Throwable ex )
+            {
+                log.error( "Storing analytics query result failed", ex );
+
+                notifier.notify( jobId, NotificationLevel.ERROR, "Storing analytics query result failed: " + ex.getMessage(), true );
+
+                if ( file.exists() && !file.delete() )
+                {
+                    log.warn( "Temporary file could not be deleted: " + file.getPath() );
+                }
+            }
+        };
+    }
+
+    private void acquire( String userUid )
+    {
+        int max = Integer.parseInt( configurationProvider.getProperty( ConfigurationKey.ANALYTICS_ASYNC_MAX_USER_QUERIES ) );
+
+        int count = userQueries.merge( userUid, 1, Integer::sum );
+
+        if ( count > max )
+        {
+            release( userUid );
+
+            throw new IllegalQueryException( "Max number of concurrent analytics queries per user reached: " + max );
+        }
+    }
+
+    private void release( String userUid )
+    {
+        userQueries.computeIfPresent( userUid, ( uid, count ) -> count > 1 ? count - 1 : null );
+    }
+}
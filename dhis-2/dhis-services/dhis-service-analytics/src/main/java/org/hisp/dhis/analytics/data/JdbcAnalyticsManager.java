@@ -64,7 +64,7 @@ import org.hisp.dhis.period.PeriodType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.BadSqlGrammarException;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.rowset.SqlRowSet;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.AsyncResult;
 import org.springframework.util.Assert;
@@ -578,13 +578,13 @@ public class JdbcAnalyticsManager
 
         log.debug( String.format( "Analytics SQL: %s", sql ) );
 
-        SqlRowSet rowSet = jdbcTemplate.queryForRowSet( sql );
-
-        int counter = 0;
+        // Rows are consumed directly from the result set rather than through a cached row set
         
-        while ( rowSet.next() )
-        {
-            if ( maxLimit > 0 && ++counter > maxLimit )
+        final int[] counter = { 0 };
+        
+        jdbcTemplate.query( sql, (RowCallbackHandler) rs -> {
+            
+            if ( maxLimit > 0 && ++counter[0] > maxLimit )
             {
                 throw new IllegalQueryException( "Query result set exceeds max limit: " + maxLimit );
             }
@@ -593,7 +593,7 @@ public class JdbcAnalyticsManager
 
             for ( DimensionalObject dim : params.getDimensions() )
             {
-                String value = dim.isFixed() ? dim.getDimensionName() : rowSet.getString( dim.getDimensionName() );
+                String value = dim.isFixed() ? dim.getDimensionName() : rs.getString( dim.getDimensionName() );
                 
                 key.append( value ).append( DIMENSION_SEP );
             }
@@ -602,17 +602,17 @@ public class JdbcAnalyticsManager
 
             if ( params.isDataType( TEXT ) )
             {
-                String value = rowSet.getString( VALUE_ID );
+                String value = rs.getString( VALUE_ID );
 
                 map.put( key.toString(), value );
             }
             else // NUMERIC
             {
-                Double value = rowSet.getDouble( VALUE_ID );
+                Double value = rs.getDouble( VALUE_ID );
 
                 map.put( key.toString(), value );
             }
-        }
+        } );
 
         return map;
     }
@@ -32,8 +32,11 @@ import static org.hisp.dhis.common.IdentifiableObjectUtils.getUids;
 import static org.hisp.dhis.commons.util.TextUtils.getQuotedCommaDelimitedString;
 import static org.hisp.dhis.analytics.DataQueryParams.*;
 
+import java.sql.ResultSet;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import javax.annotation.Resource;
@@ -56,8 +59,8 @@ import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.system.util.DateUtils;
 import org.hisp.dhis.util.ObjectUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.util.Assert;
 
 import com.google.api.client.util.Lists;
@@ -75,6 +78,8 @@ public class JdbcRawAnalyticsManager
     
     private static final String DIM_NAME_OU = "ou.path";
     
+    private static final int FETCH_SIZE = 10000;
+    
     @Resource( name = "readOnlyJdbcTemplate" )
     private JdbcTemplate jdbcTemplate;
 
@@ -87,6 +92,14 @@ public class JdbcRawAnalyticsManager
 
     @Override
     public Grid getRawDataValues( DataQueryParams params, Grid grid )
+    {
+        getRawDataValues( params, row -> grid.addRow().addValuesAsList( row ) );
+        
+        return grid;
+    }
+
+    @Override
+    public void getRawDataValues( DataQueryParams params, Consumer<List<Object>> rowHandler )
     {
         Assert.isTrue( params.hasStartEndDate(), "Start and end dates must be specified" );
         
@@ -104,21 +117,42 @@ public class JdbcRawAnalyticsManager
         
         log.debug( "Get raw data SQL: " + sql );
         
-        SqlRowSet rowSet = jdbcTemplate.queryForRowSet( sql );
-        
-        while ( rowSet.next() )
-        {
-            grid.addRow();
+        jdbcTemplate.execute( (ConnectionCallback<Void>) connection -> {
+            
+            // PostgreSQL only fetches rows with a cursor outside of auto-commit mode
+            
+            boolean autoCommit = connection.getAutoCommit();
+            
+            connection.setAutoCommit( false );
             
-            for ( DimensionalObject dim : dimensions )
+            try ( Statement statement = connection.createStatement() )
             {
-                grid.addValue( rowSet.getString( dim.getDimensionName() ) );
+                statement.setFetchSize( FETCH_SIZE );
+                
+                try ( ResultSet resultSet = statement.executeQuery( sql ) )
+                {
+                    while ( resultSet.next() )
+                    {
+                        List<Object> row = new ArrayList<>( dimensions.size() + 1 );
+                        
+                        for ( DimensionalObject dim : dimensions )
+                        {
+                            row.add( resultSet.getString( dim.getDimensionName() ) );
+                        }
+                        
+                        row.add( resultSet.getDouble( "value" ) );
+                        
+                        rowHandler.accept( row );
+                    }
+                }
+            }
+            finally
+            {
+                connection.setAutoCommit( autoCommit );
             }
             
-            grid.addValue( rowSet.getDouble( "value" ) );
-        }
-        
-        return grid;
+            return null;
+        } );
     }
 
     // -------------------------------------------------------------------------
@@ -120,6 +120,11 @@ public class EventQueryParams
      */
     private Integer pageSize;
 
+    /**
+     * The position of the last event of the previous page.
+     */
+    private PageToken pageToken;
+
     /**
      * The value sort order.
      */
@@ -233,6 +238,7 @@ public class EventQueryParams
         params.organisationUnitMode = this.organisationUnitMode;
         params.page = this.page;
         params.pageSize = this.pageSize;
+        params.pageToken = this.pageToken;
         params.sortOrder = this.sortOrder;
         params.limit = this.limit;
         params.outputType = this.outputType;
@@ -511,7 +517,7 @@ public class EventQueryParams
 
     public boolean isPaging()
     {
-        return page != null || pageSize != null;
+        return page != null || pageSize != null || pageToken != null;
     }
 
     public int getPageWithDefault()
@@ -529,6 +535,20 @@ public class EventQueryParams
         return (getPageWithDefault() - 1) * getPageSizeWithDefault();
     }
 
+    /**
+     * Indicates whether keyset paging applies, which requires paging and no
+     * explicit sorting, as events are then ordered by event date and id.
+     */
+    public boolean isKeysetPaging()
+    {
+        return isPaging() && !isSorting();
+    }
+
+    public boolean hasPageToken()
+    {
+        return pageToken != null;
+    }
+
     public boolean hasSortOrder()
     {
         return sortOrder != null;
@@ -678,6 +698,11 @@ public class EventQueryParams
         return pageSize;
     }
 
+    public PageToken getPageToken()
+    {
+        return pageToken;
+    }
+
     public SortOrder getSortOrder()
     {
         return sortOrder;
@@ -927,6 +952,12 @@ public class EventQueryParams
             this.params.pageSize = pageSize;
             return this;
         }
+
+        public Builder withPageToken( PageToken pageToken )
+        {
+            this.params.pageToken = pageToken;
+            return this;
+        }
         
         public Builder withPartitions( Partitions partitions )
         {
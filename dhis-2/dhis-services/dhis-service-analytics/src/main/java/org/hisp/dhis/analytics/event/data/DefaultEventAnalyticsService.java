@@ -53,6 +53,7 @@ import org.hisp.dhis.common.Grid;
 import org.hisp.dhis.common.GridHeader;
 import org.hisp.dhis.common.IdentifiableObjectUtils;
 import org.hisp.dhis.common.IllegalQueryException;
+import org.hisp.dhis.common.PageToken;
 import org.hisp.dhis.common.Pager;
 import org.hisp.dhis.common.QueryItem;
 import org.hisp.dhis.common.ValueType;
@@ -70,6 +71,7 @@ import org.hisp.dhis.user.User;
 import org.hisp.dhis.util.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
@@ -80,6 +82,7 @@ import java.util.Map;
 
 import static org.hisp.dhis.analytics.AnalyticsMetaDataKey.DIMENSIONS;
 import static org.hisp.dhis.analytics.AnalyticsMetaDataKey.ITEMS;
+import static org.hisp.dhis.analytics.AnalyticsMetaDataKey.NEXT_PAGE_TOKEN;
 import static org.hisp.dhis.analytics.AnalyticsMetaDataKey.ORG_UNIT_HIERARCHY;
 import static org.hisp.dhis.analytics.AnalyticsMetaDataKey.ORG_UNIT_NAME_HIERARCHY;
 import static org.hisp.dhis.analytics.AnalyticsMetaDataKey.PAGER;
@@ -565,7 +568,7 @@ public class DefaultEventAnalyticsService
 
         if ( params.getPartitions().hasAny() )
         {
-            if ( params.isPaging() )
+            if ( params.isPaging() && !params.hasPageToken() )
             {
                 count += eventAnalyticsManager.getEventCount( params );
             }
@@ -592,9 +595,56 @@ public class DefaultEventAnalyticsService
             grid.getMetaData().put( PAGER.getKey(), pager );
         }
 
+        PageToken nextPageToken = getNextPageToken( params, grid );
+
+        if ( nextPageToken != null )
+        {
+            grid.getMetaData().put( NEXT_PAGE_TOKEN.getKey(), nextPageToken.encode() );
+        }
+
         return grid;
     }
 
+    /**
+     * Returns the position of the last event of a full page when keyset paging
+     * applies, based on the event and event date columns of the last row.
+     * Returns null if there are no more events to fetch.
+     */
+    private PageToken getNextPageToken( EventQueryParams params, Grid grid )
+    {
+        if ( !params.isKeysetPaging() || grid.getHeight() == 0 || grid.getHeight() < params.getPageSizeWithDefault() )
+        {
+            return null;
+        }
+
+        int eventIndex = grid.getIndexOfHeader( ITEM_EVENT );
+        int eventDateIndex = grid.getIndexOfHeader( ITEM_EVENT_DATE );
+
+        if ( eventIndex == -1 || eventDateIndex == -1 )
+        {
+            return null;
+        }
+
+        List<Object> lastRow = grid.getRow( grid.getHeight() - 1 );
+
+        Object event = lastRow.get( eventIndex );
+        Object eventDate = lastRow.get( eventDateIndex );
+
+        if ( event == null || eventDate == null )
+        {
+            return null;
+        }
+
+        try
+        {
+            return new PageToken( Timestamp.valueOf( String.valueOf( eventDate ) ), String.valueOf( event ) );
+        }
+        catch ( IllegalArgumentException ex )
+        {
+            return null;
+        }
+    }
+
     @Override
     public Grid getEventClusters( EventQueryParams params )
     {
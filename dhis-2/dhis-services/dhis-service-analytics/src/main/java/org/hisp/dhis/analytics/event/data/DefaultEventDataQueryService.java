@@ -204,6 +204,7 @@ public class DefaultEventDataQueryService
             .withCoordinateField( getCoordinateField( request.getCoordinateField() ) )
             .withPage( request.getPage() )
             .withPageSize( request.getPageSize() )
+            .withPageToken( PageToken.decode( request.getPageToken() ) )
             .withProgramStatus( request.getProgramStatus() )
             .withIncludeMetadataDetails( request.isIncludeMetadataDetails() )
             .withApiVersion( request.getApiVersion() )
@@ -116,6 +116,11 @@ public class DefaultEventQueryValidator
             violation = "Page size must be zero or a positive number: " + params.getPageSize();
         }
         
+        if ( params.hasPageToken() && params.isSorting() )
+        {
+            violation = "Page token cannot be combined with sorting";
+        }
+        
         if ( params.hasLimit() && getMaxLimit() > 0 && params.getLimit() > getMaxLimit() )
         {
             violation = "Limit of: " + params.getLimit() + " is larger than max limit: " + getMaxLimit();
@@ -92,12 +92,23 @@ public class JdbcEventAnalyticsManager
         sql += getFromClause( params );
         
         sql += getWhereClause( params );
+
+        if ( params.hasPageToken() )
+        {
+            PageToken token = params.getPageToken();
+
+            sql += "and (" + statementBuilder.columnQuote( "executiondate" ) + ", psi) < (" + token.getSortKeyLiteral() + ", '" + token.getId() + "') ";
+        }
         
         // ---------------------------------------------------------------------
         // Sorting
         // ---------------------------------------------------------------------
 
-        if ( params.isSorting() )
+        if ( params.isKeysetPaging() )
+        {
+            sql += "order by " + statementBuilder.columnQuote( "executiondate" ) + " desc, psi desc ";
+        }
+        else if ( params.isSorting() )
         {
             sql += "order by ";
 
@@ -118,7 +129,11 @@ public class JdbcEventAnalyticsManager
         // Paging
         // ---------------------------------------------------------------------
 
-        if ( params.isPaging() )
+        if ( params.hasPageToken() )
+        {
+            sql += "limit " + params.getPageSizeWithDefault();
+        }
+        else if ( params.isPaging() )
         {
             sql += "limit " + params.getPageSizeWithDefault() + " offset " + params.getOffset();
         }
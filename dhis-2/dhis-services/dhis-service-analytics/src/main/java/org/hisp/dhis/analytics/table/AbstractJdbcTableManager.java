@@ -61,6 +61,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.BadSqlGrammarException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.Async;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -126,6 +127,34 @@ public abstract class AbstractJdbcTableManager
     {
     }
 
+    /**
+     * Override in order to support latest partition updates.
+     */
+    @Override
+    public boolean isLatestUpdateSupported()
+    {
+        return false;
+    }
+
+    /**
+     * Override in order to support latest partition updates. Returns null
+     * by default.
+     */
+    @Override
+    public AnalyticsTable getLatestAnalyticsTable( Date startTime, Date endTime )
+    {
+        return null;
+    }
+
+    /**
+     * Override in order to support latest partition updates.
+     */
+    @Override
+    public boolean hasUpdatedLatestData( Date startTime, Date endTime )
+    {
+        return false;
+    }
+
     @Override
     public void createTable( AnalyticsTable table, boolean skipMasterTable )
     {
@@ -136,6 +165,33 @@ public abstract class AbstractJdbcTableManager
         
         createTempTablePartitions( table );
     }
+
+    @Override
+    public void createLatestPartitionTable( AnalyticsTable table )
+    {
+        AnalyticsTablePartition partition = table.getLatestPartition();
+        
+        validateDimensionColumns( table.getDimensionColumns() );
+        
+        final String tableName = partition.getTempTableName();
+        
+        dropTable( tableName );
+
+        String sqlCreate = "create table " + tableName + " (";
+
+        for ( AnalyticsTableColumn col : ListUtils.union( table.getDimensionColumns(), table.getValueColumns() ) )
+        {
+            sqlCreate += col.getName() + " " + col.getDataType() + ",";
+        }
+
+        sqlCreate = TextUtils.removeLastComma( sqlCreate ) + ")";
+        
+        log.info( String.format( "Creating latest partition table: %s, columns: %d", tableName, table.getDimensionColumns().size() ) );
+
+        log.debug( "Create SQL: " + sqlCreate );
+
+        jdbcTemplate.execute( sqlCreate );
+    }
     
     @Override
     @Async
@@ -179,6 +235,31 @@ public abstract class AbstractJdbcTableManager
         }
     }
     
+    @Override
+    @Transactional
+    public void swapLatestPartition( AnalyticsTable table )
+    {
+        AnalyticsTablePartition partition = table.getLatestPartition();
+        
+        List<AnalyticsTableColumn> tableColumns = ListUtils.union( table.getDimensionColumns(), table.getValueColumns() );
+        
+        createLatestPartition( table, tableColumns );
+        
+        removeUpdatedData( partition );
+        
+        String columns = tableColumns.stream()
+            .map( AnalyticsTableColumn::getName )
+            .collect( Collectors.joining( "," ) );
+        
+        final String sql = 
+            "insert into " + partition.getTableName() + " (" + columns + ") " +
+            "select " + columns + " from " + partition.getTempTableName();
+        
+        populateAndLog( sql, partition.getTableName() );
+        
+        dropTable( partition.getTempTableName() );
+    }
+    
     @Override
     public void dropTempTable( AnalyticsTable table )
     {
@@ -253,6 +334,17 @@ public abstract class AbstractJdbcTableManager
      */
     protected abstract void populateTable( AnalyticsTablePartition partition );
 
+    /**
+     * Removes data which was updated or deleted within the interval of the 
+     * given latest partition from the analytics table. Override in order to 
+     * support latest partition updates.
+     * 
+     * @param partition the latest {@link AnalyticsTablePartition}.
+     */
+    protected void removeUpdatedData( AnalyticsTablePartition partition )
+    {
+    }
+
     // -------------------------------------------------------------------------
     // Protected supportive methods
     // -------------------------------------------------------------------------
@@ -494,6 +586,65 @@ public abstract class AbstractJdbcTableManager
     // Private supportive methods
     // -------------------------------------------------------------------------
 
+    /**
+     * Creates the latest partition of the given table, inheriting from the 
+     * master table, if it does not exist. If the partition exists but lacks 
+     * any of the given columns, as when dimensions were added since the 
+     * partition was created, the partition is rebuilt with the given columns 
+     * and the existing rows are copied for the columns present in both. 
+     * Columns which were removed are inherited from the master table until 
+     * the next full update.
+     * 
+     * @param table the {@link AnalyticsTable}.
+     * @param columns the columns of the latest partition.
+     */
+    private void createLatestPartition( AnalyticsTable table, List<AnalyticsTableColumn> columns )
+    {
+        final String tableName = table.getLatestPartition().getTableName();
+        
+        final String sqlColumns =
+            "select column_name from information_schema.columns " +
+            "where table_name = '" + tableName + "'";
+        
+        Set<String> existingColumns = new HashSet<>( jdbcTemplate.queryForList( sqlColumns, String.class ) );
+        
+        List<AnalyticsTableColumn> missingColumns = columns.stream()
+            .filter( col -> !existingColumns.contains( StringUtils.remove( col.getName(), '"' ) ) )
+            .collect( Collectors.toList() );
+        
+        if ( !existingColumns.isEmpty() && missingColumns.isEmpty() )
+        {
+            return;
+        }
+        
+        String columnDefinitions = columns.stream()
+            .map( col -> col.getName() + " " + col.getDataType() )
+            .collect( Collectors.joining( "," ) );
+        
+        if ( existingColumns.isEmpty() )
+        {
+            jdbcTemplate.execute( "create table " + tableName + " (" + columnDefinitions + ") inherits (" + table.getTableName() + ")" );
+            return;
+        }
+        
+        log.info( String.format( "Rebuilding latest partition table: %s, missing columns: %s", tableName,
+            missingColumns.stream().map( AnalyticsTableColumn::getName ).collect( Collectors.joining( "," ) ) ) );
+        
+        final String rebuildTableName = tableName + "_rebuild";
+        
+        String commonColumns = columns.stream()
+            .filter( col -> !missingColumns.contains( col ) )
+            .map( AnalyticsTableColumn::getName )
+            .collect( Collectors.joining( "," ) );
+        
+        dropTable( rebuildTableName );
+        
+        jdbcTemplate.execute( "create table " + rebuildTableName + " (" + columnDefinitions + ") inherits (" + table.getTableName() + ")" );
+        jdbcTemplate.execute( "insert into " + rebuildTableName + " (" + commonColumns + ") select " + commonColumns + " from " + tableName );
+        jdbcTemplate.execute( "drop table " + tableName );
+        jdbcTemplate.execute( "alter table " + rebuildTableName + " rename to " + tableName );
+    }
+
     /**
      * Swaps a database table, meaning drops the real table and renames the
      * temporary table to become the real table.
@@ -30,13 +30,16 @@ package org.hisp.dhis.analytics.table;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.hisp.dhis.analytics.AnalyticsCache;
 import org.hisp.dhis.analytics.AnalyticsTableGenerator;
 import org.hisp.dhis.analytics.AnalyticsTableService;
 import org.hisp.dhis.analytics.AnalyticsTableType;
 import org.hisp.dhis.analytics.AnalyticsTableUpdateParams;
 import org.hisp.dhis.commons.collection.CollectionUtils;
+import org.hisp.dhis.commons.util.SystemUtils;
 import org.hisp.dhis.message.MessageService;
 import org.hisp.dhis.resourcetable.ResourceTableService;
+import org.hisp.dhis.resourcetable.ResourceTableType;
 import org.hisp.dhis.scheduling.JobConfiguration;
 import org.hisp.dhis.setting.SettingKey;
 import org.hisp.dhis.setting.SystemSettingManager;
@@ -46,7 +49,9 @@ import org.hisp.dhis.system.util.DateUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -76,6 +81,9 @@ public class DefaultAnalyticsTableGenerator
     @Autowired
     private Notifier notifier;
 
+    @Autowired
+    private AnalyticsCache analyticsCache;
+
     // -------------------------------------------------------------------------
     // Implementation
     // -------------------------------------------------------------------------
@@ -101,7 +109,7 @@ public class DefaultAnalyticsTableGenerator
             if ( !params.isSkipResourceTables() )
             {
                 notifier.notify( jobId, "Updating resource tables" );
-                generateResourceTables();
+                generateResourceTables( jobId );
             }
 
             for ( AnalyticsTableService service : analyticsTableServices )
@@ -129,8 +137,13 @@ public class DefaultAnalyticsTableGenerator
             throw ex;
         }
 
-        systemSettingManager.saveSystemSetting( SettingKey.LAST_SUCCESSFUL_ANALYTICS_TABLES_UPDATE, startTime );
-        systemSettingManager.saveSystemSetting( SettingKey.LAST_SUCCESSFUL_ANALYTICS_TABLES_RUNTIME, DateUtils.getPrettyInterval( clock.getSplitTime() ) );
+        if ( !params.isLatestUpdate() )
+        {
+            systemSettingManager.saveSystemSetting( SettingKey.LAST_SUCCESSFUL_ANALYTICS_TABLES_UPDATE, startTime );
+            systemSettingManager.saveSystemSetting( SettingKey.LAST_SUCCESSFUL_ANALYTICS_TABLES_RUNTIME, DateUtils.getPrettyInterval( clock.getSplitTime() ) );
+        }
+
+        analyticsCache.invalidateAll();
     }
 
     @Override
@@ -140,6 +153,8 @@ public class DefaultAnalyticsTableGenerator
         {
             service.dropTables();
         }
+
+        analyticsCache.invalidateAll();
     }
 
     @Override
@@ -151,7 +166,7 @@ public class DefaultAnalyticsTableGenerator
 
         try
         {
-            generateResourceTables();
+            generateResourceTables( jobId );
 
             notifier.notify( jobId, INFO, "Resource tables generated: " + clock.time(), true );
         }
@@ -169,22 +184,37 @@ public class DefaultAnalyticsTableGenerator
     // Supportive methods
     // -------------------------------------------------------------------------
 
-    private void generateResourceTables()
+    /**
+     * Generates the resource tables. Independent resource tables are generated
+     * concurrently, where each task runs in a separate transaction through the
+     * resource table service.
+     * 
+     * @param jobId the {@link JobConfiguration}.
+     */
+    private void generateResourceTables( JobConfiguration jobId )
     {
         final Date startTime = new Date();
 
+        Map<ResourceTableType, Runnable> tasks = new LinkedHashMap<>();
+        tasks.put( ResourceTableType.ORG_UNIT_STRUCTURE, resourceTableService::generateOrganisationUnitStructures );
+        tasks.put( ResourceTableType.DATA_SET_ORG_UNIT_CATEGORY, resourceTableService::generateDataSetOrganisationUnitCategoryTable );
+        tasks.put( ResourceTableType.CATEGORY_OPTION_COMBO_NAME, resourceTableService::generateCategoryOptionComboNames );
+        tasks.put( ResourceTableType.DATA_ELEMENT_GROUP_SET_STRUCTURE, resourceTableService::generateDataElementGroupSetTable );
+        tasks.put( ResourceTableType.INDICATOR_GROUP_SET_STRUCTURE, resourceTableService::generateIndicatorGroupSetTable );
+        tasks.put( ResourceTableType.ORG_UNIT_GROUP_SET_STRUCTURE, resourceTableService::generateOrganisationUnitGroupSetTable );
+        tasks.put( ResourceTableType.CATEGORY_STRUCTURE, resourceTableService::generateCategoryTable );
+        tasks.put( ResourceTableType.DATA_ELEMENT_STRUCTURE, resourceTableService::generateDataElementTable );
+        tasks.put( ResourceTableType.PERIOD_STRUCTURE, resourceTableService::generatePeriodTable );
+        tasks.put( ResourceTableType.DATE_PERIOD_STRUCTURE, resourceTableService::generateDatePeriodTable );
+        tasks.put( ResourceTableType.DATA_ELEMENT_CATEGORY_OPTION_COMBO, resourceTableService::generateCategoryOptionComboTable );
+
         resourceTableService.dropAllSqlViews();
-        resourceTableService.generateOrganisationUnitStructures();
-        resourceTableService.generateDataSetOrganisationUnitCategoryTable();
-        resourceTableService.generateCategoryOptionComboNames();
-        resourceTableService.generateDataElementGroupSetTable();
-        resourceTableService.generateIndicatorGroupSetTable();
-        resourceTableService.generateOrganisationUnitGroupSetTable();
-        resourceTableService.generateCategoryTable();
-        resourceTableService.generateDataElementTable();
-        resourceTableService.generatePeriodTable();
-        resourceTableService.generateDatePeriodTable();
-        resourceTableService.generateCategoryOptionComboTable();
+
+        int processNo = SystemUtils.getThreadPoolSize( (Integer) systemSettingManager.getSystemSetting( SettingKey.DATABASE_SERVER_CPUS ) );
+
+        ResourceTableTaskExecutor.execute( tasks, processNo, ( type, time ) -> 
+            notifier.notify( jobId, "Generated resource table: " + type.getTableName() + ", time: " + time ) );
+
         resourceTableService.createAllSqlViews();
 
         systemSettingManager.saveSystemSetting( SettingKey.LAST_SUCCESSFUL_RESOURCE_TABLES_UPDATE, startTime );
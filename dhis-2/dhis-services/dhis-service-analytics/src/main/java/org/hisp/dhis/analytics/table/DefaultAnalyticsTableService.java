@@ -28,6 +28,7 @@ package org.hisp.dhis.analytics.table;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import com.google.common.collect.Lists;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.hisp.dhis.analytics.*;
@@ -51,6 +52,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Lars Helge Overland
@@ -59,6 +61,13 @@ public class DefaultAnalyticsTableService
     implements AnalyticsTableService
 {
     private static final Log log = LogFactory.getLog( DefaultAnalyticsTableService.class );
+
+    /**
+     * Interval by which the latest partition update reaches back beyond the
+     * high-water mark, to include data written by transactions which started
+     * before but committed after the previous update.
+     */
+    private static final long LATEST_UPDATE_OVERLAP = TimeUnit.MINUTES.toMillis( 5 );
     
     private AnalyticsTableManager tableManager;
     
@@ -116,6 +125,12 @@ public class DefaultAnalyticsTableService
             return;
         }
 
+        if ( params.isLatestUpdate() )
+        {
+            updateLatestPartition( params, clock );
+            return;
+        }
+
         final List<AnalyticsTable> tables = tableManager.getAnalyticsTables( earliest );
         
         if ( tables.isEmpty() )
@@ -170,6 +185,11 @@ public class DefaultAnalyticsTableService
         
         swapTables( tables, params.isSkipMasterTable() );
         
+        if ( tableManager.isLatestUpdateSupported() && !params.isSkipMasterTable() )
+        {
+            systemSettingManager.saveSystemSetting( SettingKey.LAST_SUCCESSFUL_LATEST_ANALYTICS_PARTITION_UPDATE, params.getStartTime() );
+        }
+        
         clock.logTime( "Table update done: " + tableType.getTableName() );
         notifier.notify( jobId, "Table update done" );
     }
@@ -198,6 +218,80 @@ public class DefaultAnalyticsTableService
     // Supportive methods
     // -------------------------------------------------------------------------
 
+    /**
+     * Appends data which was updated or deleted since the last update to the 
+     * latest partition. The time of the last update is used as high-water mark 
+     * and is set by both full and latest partition updates. The interval starts
+     * a safety overlap before the high-water mark, as data updated in that
+     * overlap is removed and appended again. Existing rows for updated data are
+     * removed from the analytics table before the latest partition is appended,
+     * which means no table swap is required.
+     *
+     * @param params the {@link AnalyticsTableUpdateParams}.
+     * @param clock the {@link Clock}.
+     */
+    private void updateLatestPartition( AnalyticsTableUpdateParams params, Clock clock )
+    {
+        JobConfiguration jobId = params.getJobId();
+        
+        AnalyticsTableType tableType = tableManager.getAnalyticsTableType();
+        
+        if ( !tableManager.isLatestUpdateSupported() )
+        {
+            clock.logTime( "Latest partition update not supported: " + tableType.getTableName() );
+            return;
+        }
+        
+        Date lastLatestUpdate = (Date) systemSettingManager.getSystemSetting( SettingKey.LAST_SUCCESSFUL_LATEST_ANALYTICS_PARTITION_UPDATE );
+        Date endTime = params.getStartTime();
+        
+        if ( lastLatestUpdate == null )
+        {
+            clock.logTime( "Latest partition update aborted, no full analytics table update found" );
+            notifier.notify( jobId, "Latest partition update aborted, no full analytics table update found" );
+            return;
+        }
+        
+        Date startTime = new Date( lastLatestUpdate.getTime() - LATEST_UPDATE_OVERLAP );
+        
+        if ( !tableManager.hasUpdatedLatestData( startTime, endTime ) )
+        {
+            systemSettingManager.saveSystemSetting( SettingKey.LAST_SUCCESSFUL_LATEST_ANALYTICS_PARTITION_UPDATE, endTime );
+
+            clock.logTime( "Latest partition update done, no updated data found since: " + startTime );
+            notifier.notify( jobId, "Latest partition update done, no updated data found" );
+            return;
+        }
+
+        final List<AnalyticsTable> tables = Lists.newArrayList( tableManager.getLatestAnalyticsTable( startTime, endTime ) );
+        
+        clock.logTime( "Latest partition update start: " + tableType.getTableName() + ", start time: " + startTime + ", end time: " + endTime );
+        notifier.notify( jobId, "Creating latest partition table" );
+        
+        tables.forEach( table -> tableManager.createLatestPartitionTable( table ) );
+        
+        clock.logTime( "Created latest partition table" );
+        notifier.notify( jobId, "Populating latest partition table" );
+        
+        populateTables( tables );
+        
+        clock.logTime( "Populated latest partition table" );
+        notifier.notify( jobId, "Applying aggregation levels" );
+        
+        applyAggregationLevels( tables );
+        
+        clock.logTime( "Applied aggregation levels" );
+        notifier.notify( jobId, "Swapping latest partition table" );
+        
+        tables.forEach( table -> tableManager.swapLatestPartition( table ) );
+        tables.forEach( table -> tableManager.analyzeTable( table.getLatestPartition().getTableName() ) );
+        
+        systemSettingManager.saveSystemSetting( SettingKey.LAST_SUCCESSFUL_LATEST_ANALYTICS_PARTITION_UPDATE, endTime );
+        
+        clock.logTime( "Latest partition update done: " + tableType.getTableName() );
+        notifier.notify( jobId, "Latest partition update done" );
+    }
+
     /**
      * Drops the given temporary analytics tables.
      *
@@ -383,10 +477,6 @@ public class DefaultAnalyticsTableService
      */
     private int getProcessNo()
     {
-        Integer cores = (Integer) systemSettingManager.getSystemSetting( SettingKey.DATABASE_SERVER_CPUS );
-        
-        cores = ( cores == null || cores == 0 ) ? SystemUtils.getCpuCores() : cores;
-                        
-        return cores > 2 ? ( cores - 1 ) : cores;
+        return SystemUtils.getThreadPoolSize( (Integer) systemSettingManager.getSystemSetting( SettingKey.DATABASE_SERVER_CPUS ) );
     }
 }
@@ -56,6 +56,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.util.*;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 import static org.hisp.dhis.commons.util.TextUtils.getQuotedCommaDelimitedString;
 import static org.hisp.dhis.dataapproval.DataApprovalLevelService.APPROVAL_LEVEL_UNAPPROVED;
@@ -72,7 +73,9 @@ import static org.hisp.dhis.dataapproval.DataApprovalLevelService.APPROVAL_LEVEL
  * aggregate in organisation unit hierarchy dimension, in the period/time dimension,
  * and the category dimensions, as well as organisation unit group set dimensions.
  * <p>
- * This analytics table is partitioned by year.
+ * This analytics table is partitioned by year. Data which was updated after
+ * the last full update can be appended to the latest partition, which
+ * inherits from the master table.
  *
  * @author Lars Helge Overland
  */
@@ -103,6 +106,32 @@ public class JdbcAnalyticsTableManager
         
         return table.hasPartitionTables() ? Lists.newArrayList( table ) : Lists.newArrayList();
     }
+
+    @Override
+    public boolean isLatestUpdateSupported()
+    {
+        return true;
+    }
+
+    @Override
+    @Transactional
+    public AnalyticsTable getLatestAnalyticsTable( Date startTime, Date endTime )
+    {
+        AnalyticsTable table = new AnalyticsTable( getTableName(), getDimensionColumns( null ), getValueColumns() );
+        
+        return table.addLatestPartitionTable( startTime, endTime );
+    }
+
+    @Override
+    public boolean hasUpdatedLatestData( Date startTime, Date endTime )
+    {
+        final String sql = 
+            "select dv.dataelementid from datavalue dv " +
+            "where " + getLastUpdatedClause( startTime, endTime ) + " " +
+            "limit 1";
+        
+        return jdbcTemplate.queryForRowSet( sql ).next();
+    }
     
     @Override
     public Set<String> getExistingDatabaseTables()
@@ -148,38 +177,112 @@ public class JdbcAnalyticsTableManager
             "pestartdate < '" + DateUtils.getMediumDateString( partition.getEndDate() ) + "'" );
     }
     
+    /**
+     * Populates the given partition. The latest partition is populated per year
+     * of the updated data, so that approval is applied as for the partition of
+     * the respective year.
+     */
     @Override
     protected void populateTable( AnalyticsTablePartition partition )
+    {
+        List<Integer> years = partition.isLatestPartition() ?
+            getLatestDataYears( partition ) : Lists.newArrayList( partition.getYear() );
+
+        for ( Integer year : years )
+        {
+            populateTable( partition, year );
+        }
+    }
+
+    private void populateTable( AnalyticsTablePartition partition, Integer year )
     {
         final String dbl = statementBuilder.getDoubleColumnType();
         final boolean skipDataTypeValidation = (Boolean) systemSettingManager.getSystemSetting( SettingKey.SKIP_DATA_TYPE_VALIDATION_IN_ANALYTICS_TABLE_EXPORT );
 
-        final String approvalClause = getApprovalJoinClause( partition.getYear() );
+        final String approvalClause = getApprovalJoinClause( year );
         final String numericClause = skipDataTypeValidation ? "" : ( "and dv.value " + statementBuilder.getRegexpMatch() + " '" + MathUtils.NUMERIC_LENIENT_REGEXP + "' " );
 
         String intClause =
             "( dv.value != '0' or de.aggregationtype in ('" + AggregationType.AVERAGE + ',' + AggregationType.AVERAGE_SUM_ORG_UNIT + "') or de.zeroissignificant = true ) " +
             numericClause;
 
-        populateTable( partition, "cast(dv.value as " + dbl + ")", "null", ValueType.NUMERIC_TYPES, intClause, approvalClause );
+        populateTable( partition, year, "cast(dv.value as " + dbl + ")", "null", ValueType.NUMERIC_TYPES, intClause, approvalClause );
 
-        populateTable( partition, "1", "null", Sets.newHashSet( ValueType.BOOLEAN, ValueType.TRUE_ONLY ), "dv.value = 'true'", approvalClause );
+        populateTable( partition, year, "1", "null", Sets.newHashSet( ValueType.BOOLEAN, ValueType.TRUE_ONLY ), "dv.value = 'true'", approvalClause );
 
-        populateTable( partition, "0", "null", Sets.newHashSet( ValueType.BOOLEAN ), "dv.value = 'false'", approvalClause );
+        populateTable( partition, year, "0", "null", Sets.newHashSet( ValueType.BOOLEAN ), "dv.value = 'false'", approvalClause );
 
-        populateTable( partition, "null", "dv.value", Sets.union( ValueType.TEXT_TYPES, ValueType.DATE_TYPES ), null, approvalClause );
+        populateTable( partition, year, "null", "dv.value", Sets.union( ValueType.TEXT_TYPES, ValueType.DATE_TYPES ), null, approvalClause );
+    }
+
+    /**
+     * Removes rows from the master analytics table, including all partitions,
+     * which correspond to data values that were updated or deleted within the
+     * interval of the given latest partition.
+     */
+    @Override
+    protected void removeUpdatedData( AnalyticsTablePartition partition )
+    {
+        final String sql =
+            "delete from " + partition.getMasterTable().getTableName() + " ax " +
+            "using (" +
+                "select de.uid as dx, ps.iso as pe, ou.uid as ou, co.uid as co, ao.uid as ao " +
+                "from datavalue dv " +
+                "inner join _periodstructure ps on dv.periodid=ps.periodid " +
+                "inner join dataelement de on dv.dataelementid=de.dataelementid " +
+                "inner join organisationunit ou on dv.sourceid=ou.organisationunitid " +
+                "inner join categoryoptioncombo co on dv.categoryoptioncomboid=co.categoryoptioncomboid " +
+                "inner join categoryoptioncombo ao on dv.attributeoptioncomboid=ao.categoryoptioncomboid " +
+                "where " + getLastUpdatedClause( partition.getStartDate(), partition.getEndDate() ) + ") as dv " +
+            "where ax." + quote( "dx" ) + "=dv.dx " +
+            "and ax." + quote( "pe" ) + "=dv.pe " +
+            "and ax." + quote( "ou" ) + "=dv.ou " +
+            "and ax." + quote( "co" ) + "=dv.co " +
+            "and ax." + quote( "ao" ) + "=dv.ao";
+        
+        populateAndLog( sql, partition.getMasterTable().getTableName() + ", removed updated data" );
+    }
+
+    /**
+     * Drops the latest partition if the master table is swapped, as the full
+     * update includes all data. If not, removes data for the years of the
+     * swapped partitions from the latest partition.
+     */
+    @Override
+    public void swapTable( AnalyticsTable table, boolean skipMasterTable )
+    {
+        final String latestTableName = table.getTableName() + PartitionUtils.SEP + AnalyticsTablePartition.LATEST_PARTITION;
+        
+        if ( skipMasterTable )
+        {
+            List<Integer> years = table.getPartitionTables().stream()
+                .map( AnalyticsTablePartition::getYear )
+                .collect( Collectors.toList() );
+            
+            if ( !years.isEmpty() )
+            {
+                executeSilently( "delete from " + latestTableName + " where " + quote( "year" ) + " in (" + TextUtils.getCommaDelimitedString( years ) + ")" );
+            }
+        }
+        else
+        {
+            dropTable( latestTableName );
+        }
+        
+        super.swapTable( table, skipMasterTable );
     }
 
     /**
      * Populates the given analytics table.
      *
-     * @param table analytics table to populate.
+     * @param partition the analytics table partition to populate.
+     * @param year the data year.
      * @param valueExpression numeric value expression.
      * @param textValueExpression textual value expression.
      * @param valueTypes data element value types to include data for.
      * @param whereClause where clause to constrain data query.
      */
-    private void populateTable( AnalyticsTablePartition partition, String valueExpression,
+    private void populateTable( AnalyticsTablePartition partition, Integer year, String valueExpression,
         String textValueExpression, Set<ValueType> valueTypes, String whereClause, String approvalClause )
     {
         final String tableName = partition.getTempTableName();
@@ -188,7 +291,7 @@ public class JdbcAnalyticsTableManager
 
         String sql = "insert into " + partition.getTempTableName() + " (";
 
-        List<AnalyticsTableColumn> columns = getDimensionColumns( partition.getYear() );
+        List<AnalyticsTableColumn> columns = getDimensionColumns( year );
         List<AnalyticsTableColumn> values = partition.getMasterTable().getValueColumns();
 
         validateDimensionColumns( columns );
@@ -229,8 +332,16 @@ public class JdbcAnalyticsTableManager
 
             approvalClause +
             "where de.valuetype in (" + valTypes + ") " +
-            "and de.domaintype = 'AGGREGATE' " +
-            "and ps.year = " + partition.getYear() + " " +
+            "and de.domaintype = 'AGGREGATE' ";
+
+        sql += "and ps.year = " + year + " ";
+
+        if ( partition.isLatestPartition() )
+        {
+            sql += "and " + getLastUpdatedClause( partition.getStartDate(), partition.getEndDate() ) + " ";
+        }
+
+        sql +=
             "and dv.value is not null " +
             "and dv.deleted is false ";
 
@@ -378,6 +489,37 @@ public class JdbcAnalyticsTableManager
             new AnalyticsTableColumn( quote( "textvalue" ), "text", "textvalue" ) );
     }
 
+    /**
+     * Returns a SQL clause restricting data values to those last updated 
+     * between the given start time, inclusive, and end time, exclusive.
+     * 
+     * @param startTime the start time.
+     * @param endTime the end time.
+     */
+    private String getLastUpdatedClause( Date startTime, Date endTime )
+    {
+        return
+            "dv.lastupdated >= '" + DateUtils.getLongDateString( startTime ) + "' " +
+            "and dv.lastupdated < '" + DateUtils.getLongDateString( endTime ) + "'";
+    }
+
+    /**
+     * Returns the years of data values updated within the interval of the
+     * given latest partition.
+     *
+     * @param partition the latest {@link AnalyticsTablePartition}.
+     */
+    private List<Integer> getLatestDataYears( AnalyticsTablePartition partition )
+    {
+        final String sql =
+            "select distinct(ps.year) " +
+            "from datavalue dv " +
+            "inner join _periodstructure ps on dv.periodid=ps.periodid " +
+            "where " + getLastUpdatedClause( partition.getStartDate(), partition.getEndDate() );
+
+        return jdbcTemplate.queryForList( sql, Integer.class );
+    }
+
     private List<Integer> getDataYears( Date earliest )
     {
         String sql =
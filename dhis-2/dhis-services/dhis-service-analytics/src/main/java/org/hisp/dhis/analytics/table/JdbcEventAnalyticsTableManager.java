@@ -41,6 +41,7 @@ import org.hisp.dhis.analytics.AnalyticsTableColumn;
 import org.hisp.dhis.analytics.AnalyticsTablePartition;
 import org.hisp.dhis.analytics.AnalyticsTableType;
 import org.hisp.dhis.calendar.Calendar;
+import org.hisp.dhis.common.IdentifiableObjectUtils;
 import org.hisp.dhis.common.ValueType;
 import org.hisp.dhis.commons.util.TextUtils;
 import org.hisp.dhis.category.CategoryOptionGroupSet;
@@ -163,6 +164,8 @@ public class JdbcEventAnalyticsTableManager
                 "and (cast(date_trunc('month', psi.executiondate) as date)=ougs.startdate or ougs.startdate is null) " +
             "inner join _categorystructure acs on psi.attributeoptioncomboid=acs.categoryoptioncomboid " +
             "left join _dateperiodstructure dps on cast(psi.executiondate as date)=dps.dateperiod " +
+            getDataValuePivotJoin( program, start, end ) +
+            getAttributeValuePivotJoin( program, start, end ) +
             "where psi.executiondate >= '" + start + "' " + 
             "and psi.executiondate < '" + end + "' " +
             "and pr.programid=" + program.getId() + " " + 
@@ -173,13 +176,137 @@ public class JdbcEventAnalyticsTableManager
         populateAndLog( sql, tableName );
     }
 
+    /**
+     * Returns a join with a derived table which pivots the data values of the
+     * events of the given program and partition into one column per data
+     * element, named by the data element identifier. The data values are read
+     * in a single scan instead of one subquery per data element and event.
+     * 
+     * @param program the program.
+     * @param start the start date of the partition.
+     * @param end the end date of the partition.
+     * @return a left join SQL clause, or an empty string if the program has
+     *         no data elements.
+     */
+    private String getDataValuePivotJoin( Program program, String start, String end )
+    {
+        Set<DataElement> dataElements = program.getDataElements();
+        
+        if ( dataElements.isEmpty() )
+        {
+            return "";
+        }
+        
+        String sql = "left join (select dv.programstageinstanceid, ";
+        
+        for ( DataElement dataElement : dataElements )
+        {
+            sql += "max(case when dv.dataelementid=" + dataElement.getId() + " then dv.value end) as " + quote( dataElement.getUid() ) + ",";
+        }
+        
+        sql = TextUtils.removeLastComma( sql ) + " " +
+            "from trackedentitydatavalue dv " +
+            "inner join programstageinstance psi on dv.programstageinstanceid=psi.programstageinstanceid " +
+            "inner join programinstance pi on psi.programinstanceid=pi.programinstanceid " +
+            "where pi.programid=" + program.getId() + " " +
+            "and psi.executiondate >= '" + start + "' " +
+            "and psi.executiondate < '" + end + "' " +
+            "and psi.deleted is false " +
+            "and dv.dataelementid in (" + TextUtils.getCommaDelimitedString( IdentifiableObjectUtils.getIdentifiers( dataElements ) ) + ") " +
+            "group by dv.programstageinstanceid) dv on psi.programstageinstanceid=dv.programstageinstanceid ";
+        
+        return sql;
+    }
+
+    /**
+     * Returns a join with a derived table which pivots the attribute values of
+     * the tracked entity instances with events of the given program and
+     * partition into one column per tracked entity attribute, named by the
+     * attribute identifier.
+     * 
+     * @param program the program.
+     * @param start the start date of the partition.
+     * @param end the end date of the partition.
+     * @return a left join SQL clause, or an empty string if the program has
+     *         no non-confidential tracked entity attributes.
+     */
+    private String getAttributeValuePivotJoin( Program program, String start, String end )
+    {
+        List<TrackedEntityAttribute> attributes = program.getNonConfidentialTrackedEntityAttributes();
+        
+        if ( attributes.isEmpty() )
+        {
+            return "";
+        }
+        
+        String sql = "left join (select av.trackedentityinstanceid, ";
+        
+        for ( TrackedEntityAttribute attribute : attributes )
+        {
+            sql += "max(case when av.trackedentityattributeid=" + attribute.getId() + " then av.value end) as " + quote( attribute.getUid() ) + ",";
+        }
+        
+        sql = TextUtils.removeLastComma( sql ) + " " +
+            "from trackedentityattributevalue av " +
+            "where av.trackedentityinstanceid in (" +
+                "select pi.trackedentityinstanceid from programinstance pi " +
+                "inner join programstageinstance psi on pi.programinstanceid=psi.programinstanceid " +
+                "where pi.programid=" + program.getId() + " " +
+                "and pi.deleted is false " +
+                "and psi.executiondate >= '" + start + "' " +
+                "and psi.executiondate < '" + end + "' " +
+                "and psi.deleted is false) " +
+            "and av.trackedentityattributeid in (" + TextUtils.getCommaDelimitedString( IdentifiableObjectUtils.getIdentifiers( attributes ) ) + ") " +
+            "group by av.trackedentityinstanceid) av on pi.trackedentityinstanceid=av.trackedentityinstanceid ";
+        
+        return sql;
+    }
+
+    /**
+     * Returns the select clause for the given pivoted value column. Numeric and
+     * date values which do not match the expected format are selected as null.
+     * 
+     * @param valueType the value type.
+     * @param column the pivoted value column.
+     */
+    private String getPivotSelectClause( ValueType valueType, String column )
+    {
+        String select = getSelectClause( valueType, column );
+        
+        if ( valueType.isNumeric() )
+        {
+            return "case when " + column + " " + statementBuilder.getRegexpMatch() + " '" + NUMERIC_LENIENT_REGEXP + "' then " + select + " end";
+        }
+        else if ( valueType.isDate() )
+        {
+            return "case when " + column + " " + statementBuilder.getRegexpMatch() + " '" + DATE_REGEXP + "' then " + select + " end";
+        }
+        
+        return select;
+    }
+
+    /**
+     * Returns the select clause for the legend of the given legend set for the
+     * given pivoted value column.
+     * 
+     * @param legendSet the legend set.
+     * @param valueType the value type.
+     * @param column the pivoted value column.
+     */
+    private String getPivotLegendSelectClause( LegendSet legendSet, ValueType valueType, String column )
+    {
+        String value = "case when " + column + " " + statementBuilder.getRegexpMatch() + " '" + NUMERIC_LENIENT_REGEXP + 
+            "' then " + getSelectClause( valueType, column ) + " end";
+        
+        return "(select l.uid from maplegend l " +
+            "where l.maplegendsetid=" + legendSet.getId() + " " +
+            "and l.startvalue <= " + value + " " +
+            "and l.endvalue > " + value + ")";
+    }
+
     private List<AnalyticsTableColumn> getDimensionColumns( Program program )
     {
         final String dbl = statementBuilder.getDoubleColumnType();
-        final String numericClause = " and value " + statementBuilder.getRegexpMatch() + " '" + NUMERIC_LENIENT_REGEXP + "'";
-        final String dateClause = " and value " + statementBuilder.getRegexpMatch() + " '" + DATE_REGEXP + "'";
-        
-        //TODO dateClause regular expression
 
         List<AnalyticsTableColumn> columns = new ArrayList<>();
 
@@ -230,12 +357,10 @@ public class JdbcEventAnalyticsTableManager
         for ( DataElement dataElement : program.getDataElements() )
         {
             String dataType = getColumnType( dataElement.getValueType() );
-            String dataClause = dataElement.isNumericType() ? numericClause : dataElement.getValueType().isDate() ? dateClause : "";
-            String select = getSelectClause( dataElement.getValueType() );
+            String select = getPivotSelectClause( dataElement.getValueType(), "dv." + quote( dataElement.getUid() ) );
             boolean skipIndex = NO_INDEX_VAL_TYPES.contains( dataElement.getValueType() ) && !dataElement.hasOptionSet();
 
-            String sql = "(select " + select + " from trackedentitydatavalue where programstageinstanceid=psi.programstageinstanceid " +
-                "and dataelementid=" + dataElement.getId() + dataClause + ") as " + quote( dataElement.getUid() );
+            String sql = select + " as " + quote( dataElement.getUid() );
 
             columns.add( new AnalyticsTableColumn( quote( dataElement.getUid() ), dataType, sql, skipIndex ) );
         }
@@ -244,17 +369,10 @@ public class JdbcEventAnalyticsTableManager
         {
             for ( LegendSet legendSet : dataElement.getLegendSets() )
             {
-                String column = quote(
-                    dataElement.getUid() + PartitionUtils.SEP + legendSet.getUid() );
-                String select = getSelectClause( dataElement.getValueType() );
-
-                String sql =
-                    "(select l.uid from maplegend l " +
-                    "inner join trackedentitydatavalue dv on l.startvalue <= " + select + " " +
-                    "and l.endvalue > " + select + " " +
-                    "and l.maplegendsetid=" + legendSet.getId() + " " +
-                    "and dv.programstageinstanceid=psi.programstageinstanceid " +
-                    "and dv.dataelementid=" + dataElement.getId() + numericClause + ") as " + column;
+                String column = quote( dataElement.getUid() + PartitionUtils.SEP + legendSet.getUid() );
+                String select = getPivotLegendSelectClause( legendSet, dataElement.getValueType(), "dv." + quote( dataElement.getUid() ) );
+
+                String sql = select + " as " + column;
 
                 columns.add( new AnalyticsTableColumn( column, "character(11)", sql ) );
             }
@@ -263,12 +381,10 @@ public class JdbcEventAnalyticsTableManager
         for ( TrackedEntityAttribute attribute : program.getNonConfidentialTrackedEntityAttributes() )
         {
             String dataType = getColumnType( attribute.getValueType() );
-            String dataClause = attribute.isNumericType() ? numericClause : attribute.isDateType() ? dateClause : "";
-            String select = getSelectClause( attribute.getValueType() );
+            String select = getPivotSelectClause( attribute.getValueType(), "av." + quote( attribute.getUid() ) );
             boolean skipIndex = NO_INDEX_VAL_TYPES.contains( attribute.getValueType() ) && !attribute.hasOptionSet();
 
-            String sql = "(select " + select + " from trackedentityattributevalue where trackedentityinstanceid=pi.trackedentityinstanceid " + 
-                "and trackedentityattributeid=" + attribute.getId() + dataClause + ") as " + quote( attribute.getUid() );
+            String sql = select + " as " + quote( attribute.getUid() );
 
             columns.add( new AnalyticsTableColumn( quote( attribute.getUid() ), dataType, sql, skipIndex ) );
         }
@@ -278,15 +394,9 @@ public class JdbcEventAnalyticsTableManager
             for ( LegendSet legendSet : attribute.getLegendSets() )
             {
                 String column = quote( attribute.getUid() + PartitionUtils.SEP + legendSet.getUid() );
-                String select = getSelectClause( attribute.getValueType() );
-
-                String sql =
-                    "(select l.uid from maplegend l " +
-                    "inner join trackedentityattributevalue av on l.startvalue <= " + select + " " +
-                    "and l.endvalue > " + select + " " +
-                    "and l.maplegendsetid=" + legendSet.getId() + " " +
-                    "and av.trackedentityinstanceid=pi.trackedentityinstanceid " +
-                    "and av.trackedentityattributeid=" + attribute.getId() + numericClause + ") as " + column;
+                String select = getPivotLegendSelectClause( legendSet, attribute.getValueType(), "av." + quote( attribute.getUid() ) );
+
+                String sql = select + " as " + column;
 
                 columns.add( new AnalyticsTableColumn( column, "character(11)", sql ) );
             }
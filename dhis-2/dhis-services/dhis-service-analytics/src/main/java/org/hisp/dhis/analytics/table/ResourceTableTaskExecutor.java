@@ -0,0 +1,162 @@
+package org.hisp.dhis.analytics.table;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hisp.dhis.resourcetable.ResourceTableType;
+import org.hisp.dhis.system.util.Clock;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+
+/**
+ * Executes resource table generation tasks on a bounded thread pool. The tasks
+ * form a dependency graph as declared by {@link ResourceTableType#getDependencies()},
+ * and a task is started only when the tasks of all resource tables it depends
+ * on have completed. Dependencies which are not part of the given tasks are
+ * considered satisfied.
+ */
+public class ResourceTableTaskExecutor
+{
+    private static final Log log = LogFactory.getLog( ResourceTableTaskExecutor.class );
+
+    /**
+     * Executes the given resource table tasks and blocks until all have
+     * completed. The completion callback is invoked on the calling thread.
+     * 
+     * @param tasks the resource table tasks, the order is used for submission
+     *        of tasks which are ready at the same time.
+     * @param threads the max number of tasks to execute concurrently.
+     * @param callback the callback receiving the resource table type and the
+     *        formatted execution time for each completed task.
+     * @throws RuntimeException if a task fails, in which case no further
+     *         tasks are started.
+     */
+    public static void execute( Map<ResourceTableType, Runnable> tasks, int threads,
+        BiConsumer<ResourceTableType, String> callback )
+    {
+        if ( tasks.isEmpty() )
+        {
+            return;
+        }
+        
+        final Map<ResourceTableType, Runnable> pending = new LinkedHashMap<>( tasks );
+        final Set<ResourceTableType> completed = EnumSet.noneOf( ResourceTableType.class );
+        final Map<ResourceTableType, String> times = new ConcurrentHashMap<>();
+        
+        ExecutorService executor = Executors.newFixedThreadPool( Math.max( 1, Math.min( threads, tasks.size() ) ) );
+        CompletionService<ResourceTableType> completionService = new ExecutorCompletionService<>( executor );
+        
+        log.info( "Resource table task number: " + tasks.size() + ", threads: " + threads );
+        
+        try
+        {
+            int running = 0;
+            
+            while ( !pending.isEmpty() || running > 0 )
+            {
+                for ( ResourceTableType type : getReady( pending, tasks.keySet(), completed ) )
+                {
+                    final Runnable task = pending.remove( type );
+                    
+                    completionService.submit( () -> {
+                        Clock clock = new Clock().startClock();
+                        task.run();
+                        times.put( type, clock.time() );
+                        return type;
+                    } );
+                    
+                    running++;
+                }
+                
+                if ( running == 0 )
+                {
+                    throw new IllegalStateException( "Resource table dependencies cannot be satisfied: " + pending.keySet() );
+                }
+                
+                ResourceTableType type = completionService.take().get();
+                
+                running--;
+                
+                completed.add( type );
+                
+                callback.accept( type, times.get( type ) );
+            }
+        }
+        catch ( ExecutionException ex )
+        {
+            throw new RuntimeException( "Exception during resource table generation", ex.getCause() );
+        }
+        catch ( InterruptedException ex )
+        {
+            Thread.currentThread().interrupt();
+            
+            throw new RuntimeException( "Thread interrupted", ex );
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+    
+    /**
+     * Returns the pending resource table types for which all dependencies which
+     * are part of the given tasks have completed.
+     */
+    private static List<ResourceTableType> getReady( Map<ResourceTableType, Runnable> pending, 
+        Set<ResourceTableType> tasks, Set<ResourceTableType> completed )
+    {
+        List<ResourceTableType> ready = new ArrayList<>();
+        
+        for ( ResourceTableType type : pending.keySet() )
+        {
+            boolean satisfied = type.getDependencies().stream()
+                .allMatch( dependency -> !tasks.contains( dependency ) || completed.contains( dependency ) );
+            
+            if ( satisfied )
+            {
+                ready.add( type );
+            }
+        }
+        
+        return ready;
+    }
+}
@@ -65,6 +65,7 @@ public class AnalyticsTableJob
             .withJobId( jobConfiguration )
             .withSkipTableTypes( parameters.getSkipTableTypes() )
             .withSkipResourceTables( parameters.isSkipResourceTables() )
+            .withLatestUpdate( parameters.isLatestUpdate() )
             .build();
 
         analyticsTableGenerator.generateTables( params );
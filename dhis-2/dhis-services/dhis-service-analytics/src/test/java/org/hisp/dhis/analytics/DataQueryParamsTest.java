@@ -541,4 +541,35 @@ public class DataQueryParamsTest
         
         assertEquals( expected, params.getProgramsInAttributesAndDataElements() );        
     }
+
+    @Test
+    public void testGetKey()
+    {
+        DataQueryParams paramsA = DataQueryParams.newBuilder()
+            .withDataElements( Lists.newArrayList( deA, deB ) )
+            .withFilterPeriods( Lists.newArrayList( peA ) )
+            .withFilterOrganisationUnits( Lists.newArrayList( ouA ) )
+            .build();
+
+        DataQueryParams paramsB = DataQueryParams.newBuilder()
+            .withDataElements( Lists.newArrayList( deA, deB ) )
+            .withFilterOrganisationUnits( Lists.newArrayList( ouA ) )
+            .withFilterPeriods( Lists.newArrayList( peA ) )
+            .build();
+
+        DataQueryParams paramsC = DataQueryParams.newBuilder()
+            .withDataElements( Lists.newArrayList( deA, deB ) )
+            .withFilterPeriods( Lists.newArrayList( peB ) )
+            .withFilterOrganisationUnits( Lists.newArrayList( ouA ) )
+            .build();
+
+        DataQueryParams paramsD = DataQueryParams.newBuilder( paramsA )
+            .withSkipMeta( true )
+            .build();
+
+        assertNotNull( paramsA.getKey() );
+        assertEquals( paramsA.getKey(), paramsB.getKey() );
+        assertNotEquals( paramsA.getKey(), paramsC.getKey() );
+        assertNotEquals( paramsA.getKey(), paramsD.getKey() );
+    }
 }
@@ -0,0 +1,240 @@
+package org.hisp.dhis.analytics.data;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import com.google.common.collect.Lists;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hisp.dhis.analytics.AnalyticsService;
+import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.analytics.DataQueryService;
+import org.hisp.dhis.common.DataQueryRequest;
+import org.hisp.dhis.common.GridHeader;
+import org.hisp.dhis.common.GridRowHandler;
+import org.hisp.dhis.common.IllegalQueryException;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.fileresource.FileResource;
+import org.hisp.dhis.fileresource.FileResourceDomain;
+import org.hisp.dhis.fileresource.FileResourceService;
+import org.hisp.dhis.scheduling.JobConfiguration;
+import org.hisp.dhis.system.notification.NotificationLevel;
+import org.hisp.dhis.system.notification.Notifier;
+import org.hisp.dhis.user.CurrentUserService;
+import org.hisp.dhis.user.User;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs asynchronous raw data queries against mocked services, with the file
+ * resource service capturing the result file and the store callback.
+ */
+@RunWith( MockitoJUnitRunner.class )
+public class AsyncAnalyticsServiceTest
+{
+    @InjectMocks
+    private DefaultAsyncAnalyticsService asyncAnalyticsService;
+
+    @Mock
+    private DataQueryService dataQueryService;
+
+    @Mock
+    private AnalyticsService analyticsService;
+
+    @Mock
+    private FileResourceService fileResourceService;
+
+    @Mock
+    private Notifier notifier;
+
+    @Mock
+    private CurrentUserService currentUserService;
+
+    @Mock
+    private DhisConfigurationProvider configurationProvider;
+
+    @Mock
+    private SessionFactory sessionFactory;
+
+    private final AtomicReference<FileResource> fileResource = new AtomicReference<>();
+
+    private final AtomicReference<File> file = new AtomicReference<>();
+
+    private final AtomicReference<ListenableFutureCallback<String>> callback = new AtomicReference<>();
+
+    private CountDownLatch saved;
+
+    @Before
+    @SuppressWarnings( "unchecked" )
+    public void setUp()
+    {
+        User user = new User();
+        user.setUid( "userabcdefA" );
+
+        when( currentUserService.getCurrentUser() ).thenReturn( user );
+        when( configurationProvider.getProperty( ConfigurationKey.ANALYTICS_ASYNC_MAX_USER_QUERIES ) ).thenReturn( "2" );
+        when( configurationProvider.getProperty( ConfigurationKey.ANALYTICS_ASYNC_MAX_QUERIES ) ).thenReturn( "1" );
+        when( sessionFactory.openSession() ).thenReturn( mock( Session.class ) );
+        when( dataQueryService.getFromRequest( any( DataQueryRequest.class ) ) ).thenReturn( DataQueryParams.newBuilder().build() );
+
+        saved = new CountDownLatch( 1 );
+
+        doAnswer( invocation -> {
+            fileResource.set( (FileResource) invocation.getArguments()[0] );
+            file.set( (File) invocation.getArguments()[1] );
+            callback.set( (ListenableFutureCallback<String>) invocation.getArguments()[2] );
+            saved.countDown();
+            return fileResource.get().getUid();
+        } ).when( fileResourceService ).saveFileResource( any( FileResource.class ), any( File.class ), any( ListenableFutureCallback.class ) );
+
+        asyncAnalyticsService.init();
+    }
+
+    @After
+    public void tearDown()
+    {
+        asyncAnalyticsService.destroy();
+
+        if ( file.get() != null )
+        {
+            file.get().delete();
+        }
+    }
+
+    @Test
+    public void testSubmitRawDataValues() throws Exception
+    {
+        doAnswer( invocation -> {
+            GridRowHandler handler = (GridRowHandler) invocation.getArguments()[1];
+            handler.handleHeaders( Lists.newArrayList( new GridHeader( "dx", "Data" ) ) );
+            handler.handleRow( Lists.newArrayList( "deabcdefghA" ) );
+            return null;
+        } ).when( analyticsService ).getRawDataValues( any( DataQueryParams.class ), any( GridRowHandler.class ) );
+
+        JobConfiguration jobId = asyncAnalyticsService.submitRawDataValues( DataQueryRequest.newBuilder().build() );
+
+        assertTrue( saved.await( 10, TimeUnit.SECONDS ) );
+
+        assertEquals( jobId.getUid(), fileResource.get().getUid() );
+        assertEquals( FileResourceDomain.ANALYTICS, fileResource.get().getDomain() );
+        assertEquals( "application/csv", fileResource.get().getContentType() );
+        assertEquals( file.get().length(), fileResource.get().getContentLength() );
+        assertNotNull( fileResource.get().getContentMd5() );
+        assertTrue( file.get().length() > 0 );
+    }
+
+    @Test
+    public void testCompletionReportedWhenStored() throws Exception
+    {
+        JobConfiguration jobId = asyncAnalyticsService.submitRawDataValues( DataQueryRequest.newBuilder().build() );
+
+        assertTrue( saved.await( 10, TimeUnit.SECONDS ) );
+
+        verify( notifier, never() ).notify( eq( jobId ), any( NotificationLevel.class ), anyString(), eq( true ) );
+
+        callback.get().onSuccess( "analytics/key" );
+
+        verify( notifier, times( 1 ) ).notify( eq( jobId ), eq( NotificationLevel.INFO ), startsWith( "Analytics query completed" ), eq( true ) );
+    }
+
+    @Test
+    public void testFailureReportedWhenNotStored() throws Exception
+    {
+        JobConfiguration jobId = asyncAnalyticsService.submitRawDataValues( DataQueryRequest.newBuilder().build() );
+
+        assertTrue( saved.await( 10, TimeUnit.SECONDS ) );
+
+        callback.get().onFailure( new IOException( "Storage unavailable" ) );
+
+        verify( notifier, times( 1 ) ).notify( eq( jobId ), eq( NotificationLevel.ERROR ), startsWith( "Storing analytics query result failed" ), eq( true ) );
+        verify( notifier, never() ).notify( eq( jobId ), eq( NotificationLevel.INFO ), anyString(), anyBoolean() );
+        assertFalse( file.get().exists() );
+    }
+
+    @Test
+    public void testMaxUserQueries() throws Exception
+    {
+        CountDownLatch running = new CountDownLatch( 1 );
+        CountDownLatch proceed = new CountDownLatch( 1 );
+
+        doAnswer( invocation -> {
+            running.countDown();
+            proceed.await( 10, TimeUnit.SECONDS );
+            return null;
+        } ).when( analyticsService ).getRawDataValues( any( DataQueryParams.class ), any( GridRowHandler.class ) );
+
+        asyncAnalyticsService.submitRawDataValues( DataQueryRequest.newBuilder().build() );
+        asyncAnalyticsService.submitRawDataValues( DataQueryRequest.newBuilder().build() );
+
+        assertTrue( running.await( 10, TimeUnit.SECONDS ) );
+
+        try
+        {
+            asyncAnalyticsService.submitRawDataValues( DataQueryRequest.newBuilder().build() );
+            fail( "Expected rejection of query over the per user limit" );
+        }
+        catch ( IllegalQueryException ex )
+        {
+            // Expected
+        }
+        finally
+        {
+            proceed.countDown();
+        }
+    }
+}
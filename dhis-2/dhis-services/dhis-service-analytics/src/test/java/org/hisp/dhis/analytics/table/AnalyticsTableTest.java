@@ -30,6 +30,8 @@ package org.hisp.dhis.analytics.table;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import java.util.List;
 
@@ -87,6 +89,29 @@ public class AnalyticsTableTest
         assertEquals( "analytics_event_temp_2015_uida", partitionB.getTempTableName() );
     }
     
+    @Test
+    public void testGetLatestPartition()
+    {
+        Period periodA = new YearlyPeriodType().createPeriod( new DateTime( 2014, 1, 1, 0, 0 ).toDate() );
+        
+        AnalyticsTable tableA = new AnalyticsTable( "analytics", Lists.newArrayList(), Lists.newArrayList() );
+        
+        tableA.addPartitionTable( 2014, periodA.getStartDate(), periodA.getEndDate() );
+        
+        assertNull( tableA.getLatestPartition() );
+        
+        tableA.addLatestPartitionTable( new DateTime( 2018, 3, 1, 10, 0 ).toDate(), new DateTime( 2018, 3, 1, 10, 15 ).toDate() );
+        
+        AnalyticsTablePartition partition = tableA.getLatestPartition();
+        
+        assertNotNull( partition );
+        assertTrue( partition.isLatestPartition() );
+        assertNull( partition.getYear() );
+        assertEquals( "analytics_latest", partition.getTableName() );
+        assertEquals( "analytics_temp_latest", partition.getTempTableName() );
+        assertEquals( 2, tableA.getPartitionTables().size() );
+    }
+    
     @Test
     public void testEquals()
     {        
@@ -0,0 +1,299 @@
+package org.hisp.dhis.analytics.table;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.hisp.dhis.analytics.table.AbstractJdbcTableManager.DATE_REGEXP;
+import static org.hisp.dhis.system.util.MathUtils.NUMERIC_LENIENT_REGEXP;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.hisp.dhis.analytics.AnalyticsTable;
+import org.hisp.dhis.analytics.AnalyticsTablePartition;
+import org.hisp.dhis.category.CategoryService;
+import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.common.ValueType;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.jdbc.StatementBuilder;
+import org.hisp.dhis.legend.LegendSet;
+import org.hisp.dhis.organisationunit.OrganisationUnitService;
+import org.hisp.dhis.program.Program;
+import org.hisp.dhis.program.ProgramStage;
+import org.hisp.dhis.program.ProgramStageDataElement;
+import org.hisp.dhis.program.ProgramTrackedEntityAttribute;
+import org.hisp.dhis.setting.SystemSettingManager;
+import org.hisp.dhis.system.database.DatabaseInfo;
+import org.hisp.dhis.system.util.DateUtils;
+import org.hisp.dhis.trackedentity.TrackedEntityAttribute;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Verifies the SQL which populates event analytics tables, where data values
+ * and attribute values are pivoted into one column per data element and
+ * attribute.
+ */
+@RunWith( MockitoJUnitRunner.class )
+public class JdbcEventAnalyticsTableManagerTest
+{
+    private static final String REGEXP = "~*";
+
+    @InjectMocks
+    private JdbcEventAnalyticsTableManager tableManager;
+
+    @Mock
+    private IdentifiableObjectManager idObjectManager;
+
+    @Mock
+    private OrganisationUnitService organisationUnitService;
+
+    @Mock
+    private CategoryService categoryService;
+
+    @Mock
+    private SystemSettingManager systemSettingManager;
+
+    @Mock
+    private DatabaseInfo databaseInfo;
+
+    @Mock
+    private StatementBuilder statementBuilder;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private LegendSet legendSetA;
+
+    private DataElement deA;
+    private DataElement deB;
+    private DataElement deC;
+    private DataElement deD;
+    private DataElement deE;
+
+    private TrackedEntityAttribute teaA;
+    private TrackedEntityAttribute teaB;
+    private TrackedEntityAttribute teaC;
+
+    private Program program;
+
+    @Before
+    public void setUp()
+    {
+        when( statementBuilder.columnQuote( anyString() ) ).thenAnswer( invocation -> "\"" + invocation.getArguments()[0] + "\"" );
+        when( statementBuilder.getDoubleColumnType() ).thenReturn( "double precision" );
+        when( statementBuilder.getRegexpMatch() ).thenReturn( REGEXP );
+
+        legendSetA = new LegendSet();
+        legendSetA.setId( 31 );
+        legendSetA.setUid( "legendSetAA" );
+
+        deA = createDataElement( 11, "dataElemntA", ValueType.NUMBER );
+        deA.setLegendSets( Lists.newArrayList( legendSetA ) );
+        deB = createDataElement( 12, "dataElemntB", ValueType.INTEGER );
+        deC = createDataElement( 13, "dataElemntC", ValueType.BOOLEAN );
+        deD = createDataElement( 14, "dataElemntD", ValueType.DATETIME );
+        deE = createDataElement( 15, "dataElemntE", ValueType.TEXT );
+
+        teaA = createAttribute( 21, "attributeAA", ValueType.NUMBER, false );
+        teaA.setLegendSets( Lists.newArrayList( legendSetA ) );
+        teaB = createAttribute( 22, "attributeBB", ValueType.TEXT, false );
+        teaC = createAttribute( 23, "attributeCC", ValueType.TEXT, true );
+
+        program = new Program();
+        program.setId( 7 );
+        program.setUid( "programAAAA" );
+
+        ProgramStage stageA = new ProgramStage( "StageA", program );
+        stageA.setUid( "stageAAAAAA" );
+        ProgramStage stageB = new ProgramStage( "StageB", program );
+        stageB.setUid( "stageBBBBBB" );
+
+        stageA.getProgramStageDataElements().add( new ProgramStageDataElement( stageA, deA ) );
+        stageA.getProgramStageDataElements().add( new ProgramStageDataElement( stageA, deB ) );
+        stageA.getProgramStageDataElements().add( new ProgramStageDataElement( stageA, deC ) );
+        stageB.getProgramStageDataElements().add( new ProgramStageDataElement( stageB, deD ) );
+        stageB.getProgramStageDataElements().add( new ProgramStageDataElement( stageB, deE ) );
+
+        program.getProgramStages().add( stageA );
+        program.getProgramStages().add( stageB );
+
+        program.getProgramAttributes().add( new ProgramTrackedEntityAttribute( program, teaA ) );
+        program.getProgramAttributes().add( new ProgramTrackedEntityAttribute( program, teaB ) );
+        program.getProgramAttributes().add( new ProgramTrackedEntityAttribute( program, teaC ) );
+    }
+
+    @Test
+    public void testDataValuePivotJoin()
+    {
+        String sql = populateTable( program );
+
+        assertTrue( sql.contains( "left join (select dv.programstageinstanceid, " ) );
+        assertTrue( sql.contains( "max(case when dv.dataelementid=11 then dv.value end) as \"dataElemntA\"" ) );
+        assertTrue( sql.contains( "max(case when dv.dataelementid=12 then dv.value end) as \"dataElemntB\"" ) );
+        assertTrue( sql.contains( "max(case when dv.dataelementid=13 then dv.value end) as \"dataElemntC\"" ) );
+        assertTrue( sql.contains( "max(case when dv.dataelementid=14 then dv.value end) as \"dataElemntD\"" ) );
+        assertTrue( sql.contains( "max(case when dv.dataelementid=15 then dv.value end) as \"dataElemntE\"" ) );
+        assertTrue( sql.contains( "where pi.programid=7 and psi.executiondate >= '2018-01-01' and psi.executiondate < '2019-01-01' " ) );
+
+        // All values of a stage instance are pivoted into a single row of one derived table
+
+        assertEquals( 1, countOccurrences( sql, "group by dv.programstageinstanceid) dv on psi.programstageinstanceid=dv.programstageinstanceid " ) );
+        assertEquals( 1, countOccurrences( sql, "from trackedentitydatavalue dv " ) );
+    }
+
+    @Test
+    public void testDataValuePivotSelect()
+    {
+        String sql = populateTable( program );
+
+        assertTrue( sql.contains( "case when dv.\"dataElemntA\" " + REGEXP + " '" + NUMERIC_LENIENT_REGEXP +
+            "' then cast(dv.\"dataElemntA\" as double precision) end as \"dataElemntA\"" ) );
+        assertTrue( sql.contains( "case when dv.\"dataElemntB\" " + REGEXP + " '" + NUMERIC_LENIENT_REGEXP +
+            "' then cast(dv.\"dataElemntB\" as bigint) end as \"dataElemntB\"" ) );
+        assertTrue( sql.contains( "case when dv.\"dataElemntC\" = 'true' then 1 when dv.\"dataElemntC\" = 'false' then 0 else null end as \"dataElemntC\"" ) );
+        assertTrue( sql.contains( "case when dv.\"dataElemntD\" " + REGEXP + " '" + DATE_REGEXP +
+            "' then cast(dv.\"dataElemntD\" as timestamp) end as \"dataElemntD\"" ) );
+        assertTrue( sql.contains( ",dv.\"dataElemntE\" as \"dataElemntE\"" ) );
+    }
+
+    @Test
+    public void testDataValuePivotLegendSelect()
+    {
+        String sql = populateTable( program );
+
+        String value = "case when dv.\"dataElemntA\" " + REGEXP + " '" + NUMERIC_LENIENT_REGEXP +
+            "' then cast(dv.\"dataElemntA\" as double precision) end";
+
+        assertTrue( sql.contains( "(select l.uid from maplegend l where l.maplegendsetid=31 " +
+            "and l.startvalue <= " + value + " and l.endvalue > " + value + ") as \"dataElemntA_legendSetAA\"" ) );
+    }
+
+    @Test
+    public void testAttributeValuePivotJoin()
+    {
+        String sql = populateTable( program );
+
+        assertTrue( sql.contains( "left join (select av.trackedentityinstanceid, " +
+            "max(case when av.trackedentityattributeid=21 then av.value end) as \"attributeAA\"," +
+            "max(case when av.trackedentityattributeid=22 then av.value end) as \"attributeBB\" " +
+            "from trackedentityattributevalue av " ) );
+        assertTrue( sql.contains( "and av.trackedentityattributeid in (21,22) " +
+            "group by av.trackedentityinstanceid) av on pi.trackedentityinstanceid=av.trackedentityinstanceid " ) );
+        assertEquals( 1, countOccurrences( sql, "from trackedentityattributevalue av " ) );
+
+        // Confidential attributes are not included
+
+        assertFalse( sql.contains( "attributeCC" ) );
+        assertFalse( sql.contains( "av.trackedentityattributeid=23" ) );
+    }
+
+    @Test
+    public void testAttributeValuePivotSelect()
+    {
+        String sql = populateTable( program );
+
+        String value = "case when av.\"attributeAA\" " + REGEXP + " '" + NUMERIC_LENIENT_REGEXP +
+            "' then cast(av.\"attributeAA\" as double precision) end";
+
+        assertTrue( sql.contains( value + " as \"attributeAA\"" ) );
+        assertTrue( sql.contains( ",av.\"attributeBB\" as \"attributeBB\"" ) );
+        assertTrue( sql.contains( "(select l.uid from maplegend l where l.maplegendsetid=31 " +
+            "and l.startvalue <= " + value + " and l.endvalue > " + value + ") as \"attributeAA_legendSetAA\"" ) );
+    }
+
+    @Test
+    public void testNoPivotJoinWithoutDataElementsAndAttributes()
+    {
+        Program programB = new Program();
+        programB.setId( 8 );
+        programB.setUid( "programBBBB" );
+
+        String sql = populateTable( programB );
+
+        assertFalse( sql.contains( "trackedentitydatavalue" ) );
+        assertFalse( sql.contains( "trackedentityattributevalue" ) );
+        assertTrue( sql.contains( "and pr.programid=8 " ) );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private String populateTable( Program program )
+    {
+        AnalyticsTable table = new AnalyticsTable( "analytics_event", Lists.newArrayList(), Lists.newArrayList(), program );
+        AnalyticsTablePartition partition = new AnalyticsTablePartition( table, 2018,
+            DateUtils.getMediumDate( "2018-01-01" ), DateUtils.getMediumDate( "2019-01-01" ), false );
+
+        tableManager.populateTable( partition );
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass( String.class );
+
+        verify( jdbcTemplate ).execute( sql.capture() );
+
+        return sql.getValue();
+    }
+
+    private DataElement createDataElement( int id, String uid, ValueType valueType )
+    {
+        DataElement dataElement = new DataElement();
+        dataElement.setId( id );
+        dataElement.setUid( uid );
+        dataElement.setValueType( valueType );
+
+        return dataElement;
+    }
+
+    private TrackedEntityAttribute createAttribute( int id, String uid, ValueType valueType, boolean confidential )
+    {
+        TrackedEntityAttribute attribute = new TrackedEntityAttribute();
+        attribute.setId( id );
+        attribute.setUid( uid );
+        attribute.setValueType( valueType );
+        attribute.setConfidential( confidential );
+
+        return attribute;
+    }
+
+    private int countOccurrences( String string, String substring )
+    {
+        return ( string.length() - string.replace( substring, "" ).length() ) / substring.length();
+    }
+}
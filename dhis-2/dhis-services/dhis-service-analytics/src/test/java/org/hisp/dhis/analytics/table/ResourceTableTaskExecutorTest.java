@@ -0,0 +1,86 @@
+package org.hisp.dhis.analytics.table;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hisp.dhis.resourcetable.ResourceTableType;
+import org.junit.Test;
+
+public class ResourceTableTaskExecutorTest
+{
+    @Test
+    public void testExecuteWithDependencies()
+    {
+        List<ResourceTableType> executed = Collections.synchronizedList( new ArrayList<>() );
+        List<ResourceTableType> completed = new ArrayList<>();
+        
+        Map<ResourceTableType, Runnable> tasks = new LinkedHashMap<>();
+        tasks.put( ResourceTableType.DATA_APPROVAL_MIN_LEVEL, () -> executed.add( ResourceTableType.DATA_APPROVAL_MIN_LEVEL ) );
+        tasks.put( ResourceTableType.PERIOD_STRUCTURE, () -> executed.add( ResourceTableType.PERIOD_STRUCTURE ) );
+        tasks.put( ResourceTableType.ORG_UNIT_STRUCTURE, () -> executed.add( ResourceTableType.ORG_UNIT_STRUCTURE ) );
+        
+        ResourceTableTaskExecutor.execute( tasks, 4, ( type, time ) -> completed.add( type ) );
+        
+        assertEquals( 3, executed.size() );
+        assertEquals( 3, completed.size() );
+        assertTrue( executed.indexOf( ResourceTableType.ORG_UNIT_STRUCTURE ) < executed.indexOf( ResourceTableType.DATA_APPROVAL_MIN_LEVEL ) );
+        assertTrue( completed.indexOf( ResourceTableType.ORG_UNIT_STRUCTURE ) < completed.indexOf( ResourceTableType.DATA_APPROVAL_MIN_LEVEL ) );
+    }
+    
+    @Test
+    public void testExecuteWithMissingDependency()
+    {
+        List<ResourceTableType> completed = new ArrayList<>();
+        
+        Map<ResourceTableType, Runnable> tasks = new LinkedHashMap<>();
+        tasks.put( ResourceTableType.DATA_APPROVAL_MIN_LEVEL, () -> {} );
+        
+        ResourceTableTaskExecutor.execute( tasks, 1, ( type, time ) -> completed.add( type ) );
+        
+        assertEquals( 1, completed.size() );
+    }
+    
+    @Test( expected = RuntimeException.class )
+    public void testExecuteWithFailure()
+    {
+        Map<ResourceTableType, Runnable> tasks = new LinkedHashMap<>();
+        tasks.put( ResourceTableType.ORG_UNIT_STRUCTURE, () -> { throw new IllegalStateException( "Failed" ); } );
+        tasks.put( ResourceTableType.DATA_APPROVAL_MIN_LEVEL, () -> {} );
+        
+        ResourceTableTaskExecutor.execute( tasks, 2, ( type, time ) -> {} );
+    }
+}
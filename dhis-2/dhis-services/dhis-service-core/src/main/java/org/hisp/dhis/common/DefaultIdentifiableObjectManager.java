@@ -38,6 +38,7 @@ import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hisp.dhis.attribute.Attribute;
 import org.hisp.dhis.attribute.AttributeValue;
+import org.hisp.dhis.cache.CacheInvalidationBus;
 import org.hisp.dhis.common.exception.InvalidIdentifierReferenceException;
 import org.hisp.dhis.commons.util.SystemUtils;
 import org.hisp.dhis.schema.Schema;
@@ -53,7 +54,9 @@ import org.hisp.dhis.user.UserCredentials;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.annotation.PostConstruct;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
@@ -103,10 +106,26 @@ public class DefaultIdentifiableObjectManager
     @Autowired
     protected SchemaService schemaService;
 
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
     private Map<Class<? extends IdentifiableObject>, IdentifiableObjectStore<? extends IdentifiableObject>> identifiableObjectStoreMap;
 
     private Map<Class<? extends DimensionalObject>, GenericDimensionalObjectStore<? extends DimensionalObject>> dimensionalObjectStoreMap;
 
+    /**
+     * Invalidates cached default objects when objects of their types are changed
+     * on this or other instances.
+     */
+    @PostConstruct
+    public void init()
+    {
+        for ( Class<? extends IdentifiableObject> klass : Arrays.asList( Category.class, CategoryCombo.class, CategoryOption.class, CategoryOptionCombo.class ) )
+        {
+            cacheInvalidationBus.subscribe( klass.getName(), key -> DEFAULT_OBJECT_CACHE.invalidate( klass ) );
+        }
+    }
+
     //--------------------------------------------------------------------------
     // IdentifiableObjectManager implementation
     //--------------------------------------------------------------------------
@@ -78,7 +78,8 @@ class DataApprovalPermissionsEvaluator
         .maximumSize( 50000 ).build();
 
     /**
-     * Clears the user approval level cache, for unit testing when the same user
+     * Clears the user approval level cache. Invoked when approval levels or
+     * user organisation units change, and for unit testing when the same user
      * ID may have different approval levels in quick succession.
      */
     public static void invalidateCache()
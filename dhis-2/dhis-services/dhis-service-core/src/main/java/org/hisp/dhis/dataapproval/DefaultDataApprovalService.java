@@ -32,6 +32,7 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.hisp.dhis.cache.CacheInvalidationBus;
 import org.hisp.dhis.common.IdentifiableObjectUtils;
 import org.hisp.dhis.common.ListMap;
 import org.hisp.dhis.dataapproval.exceptions.DataApprovalNotFound;
@@ -50,8 +51,10 @@ import org.hisp.dhis.setting.SettingKey;
 import org.hisp.dhis.setting.SystemSettingManager;
 import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.user.User;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.annotation.PostConstruct;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
@@ -132,6 +135,25 @@ public class DefaultDataApprovalService
         this.systemSettingManager = systemSettingManager;
     }
 
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Autowired
+    public void setCacheInvalidationBus( CacheInvalidationBus cacheInvalidationBus )
+    {
+        this.cacheInvalidationBus = cacheInvalidationBus;
+    }
+
+    /**
+     * Invalidates cached user approval levels when approval levels or user
+     * organisation units are changed on this or other instances.
+     */
+    @PostConstruct
+    public void init()
+    {
+        cacheInvalidationBus.subscribe( DataApprovalLevel.class.getName(), key -> DataApprovalPermissionsEvaluator.invalidateCache() );
+        cacheInvalidationBus.subscribe( User.class.getName() + ".organisationUnits", key -> DataApprovalPermissionsEvaluator.invalidateCache() );
+    }
+
     // -------------------------------------------------------------------------
     // Data approval workflow
     // -------------------------------------------------------------------------
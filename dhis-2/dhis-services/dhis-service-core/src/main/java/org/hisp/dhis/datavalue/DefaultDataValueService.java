@@ -329,6 +329,12 @@ public class DefaultDataValueService
         return dataValueStore.getDeflatedDataValues( params );
     }
 
+    @Override
+    public List<DeflatedDataValue> getDeflatedDataValues( Collection<DataValue> dataValues )
+    {
+        return dataValueStore.getDeflatedDataValues( dataValues );
+    }
+
     @Override
     public int getDataValueCount( int days )
     {
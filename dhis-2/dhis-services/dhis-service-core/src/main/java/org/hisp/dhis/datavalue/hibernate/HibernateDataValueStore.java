@@ -471,6 +471,49 @@ public class HibernateDataValueStore
         return result;
     }
 
+    @Override
+    @SuppressWarnings( "unchecked" )
+    public List<DeflatedDataValue> getDeflatedDataValues( Collection<DataValue> dataValues )
+    {
+        if ( dataValues == null || dataValues.isEmpty() )
+        {
+            return new ArrayList<>();
+        }
+
+        String hql =
+            "select dv.dataElement.id, dv.period.id, dv.source.id, dv.categoryOptionCombo.id, dv.attributeOptionCombo.id, " +
+            "dv.value, dv.storedBy, dv.created, dv.lastUpdated, dv.comment, dv.followup, dv.deleted " +
+            "from DataValue dv " +
+            "where dv.dataElement.id in (:dataElements) " +
+            "and dv.period.id in (:periods) " +
+            "and dv.source.id in (:sources) " +
+            "and dv.categoryOptionCombo.id in (:categoryOptionCombos) " +
+            "and dv.attributeOptionCombo.id in (:attributeOptionCombos)";
+
+        List<Object[]> rows = sessionFactory.getCurrentSession().createQuery( hql )
+            .setParameterList( "dataElements", dataValues.stream().map( dv -> dv.getDataElement().getId() ).collect( Collectors.toSet() ) )
+            .setParameterList( "periods", dataValues.stream().map( dv -> dv.getPeriod().getId() ).collect( Collectors.toSet() ) )
+            .setParameterList( "sources", dataValues.stream().map( dv -> dv.getSource().getId() ).collect( Collectors.toSet() ) )
+            .setParameterList( "categoryOptionCombos", dataValues.stream().map( dv -> dv.getCategoryOptionCombo().getId() ).collect( Collectors.toSet() ) )
+            .setParameterList( "attributeOptionCombos", dataValues.stream().map( dv -> dv.getAttributeOptionCombo().getId() ).collect( Collectors.toSet() ) )
+            .list();
+
+        List<DeflatedDataValue> result = new ArrayList<>();
+
+        for ( Object[] row : rows )
+        {
+            DeflatedDataValue value = new DeflatedDataValue( (Integer) row[0], (Integer) row[1], (Integer) row[2],
+                (Integer) row[3], (Integer) row[4], (String) row[5], (String) row[6], (Date) row[7], (Date) row[8],
+                (String) row[9], Boolean.TRUE.equals( row[10] ) );
+
+            value.setDeleted( Boolean.TRUE.equals( row[11] ) );
+
+            result.add( value );
+        }
+
+        return result;
+    }
+
     @Override
     public int getDataValueCountLastUpdatedBetween( Date startDate, Date endDate, boolean includeDeleted )
     {
@@ -0,0 +1,424 @@
+package org.hisp.dhis.expression;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.hisp.dhis.common.DimensionalItemObject;
+import org.hisp.dhis.commons.util.TextUtils;
+import org.hisp.dhis.system.jep.CustomFunctions;
+import org.hisp.dhis.system.util.ExpressionUtils;
+import org.nfunk.jep.JEP;
+import org.nfunk.jep.Node;
+import org.nfunk.jep.ParseException;
+import org.nfunk.jep.type.Complex;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+
+import static org.hisp.dhis.expression.ExpressionService.*;
+import static org.hisp.dhis.expression.MissingValueStrategy.*;
+
+/**
+ * An expression which is parsed once into a JEP expression tree where each
+ * dimensional item, constant, organisation unit group and the number of days
+ * are bound to a parser variable. Evaluating the expression against a value
+ * map only sets the variables and evaluates the tree, as opposed to generating
+ * and parsing a new expression string for every evaluation.
+ * <p>
+ * Expressions with aggregate functions or the isNull function cannot be
+ * compiled, as their text depends on the values, and must be evaluated through
+ * expression generation. Instances are shared between threads. Each thread
+ * has a single parser for all expressions, as the variable names are the same
+ * for all expressions, and evaluates the expression tree parsed by that parser.
+ */
+public class CompiledExpression
+{
+    private static final String ITEM_PREFIX = "_i";
+    private static final String CONSTANT_PREFIX = "_c";
+    private static final String ORG_UNIT_GROUP_PREFIX = "_g";
+    private static final String DAYS_VARIABLE = "_days";
+
+    /**
+     * Parser per thread, as the parser holds the variable values.
+     */
+    private static final ThreadLocal<JEP> PARSER = ThreadLocal.withInitial( CompiledExpression::getParser );
+
+    /**
+     * Item value buffers per thread.
+     */
+    private static final ThreadLocal<ItemValues> ITEM_VALUES = ThreadLocal.withInitial( ItemValues::new );
+
+    /**
+     * Mapping of dimension item identifier to variable index.
+     */
+    private final Map<String, Integer> itemIndexes;
+
+    private final String[] constants;
+
+    private final String[] orgUnitGroups;
+
+    private final boolean hasDays;
+
+    private final String[] itemVariables;
+
+    private final String[] constantVariables;
+
+    private final String[] orgUnitGroupVariables;
+
+    /**
+     * Expression tree per thread, parsed by the parser of the thread.
+     */
+    private final ThreadLocal<Node> node;
+
+    private CompiledExpression( String expression, Map<String, Integer> itemIndexes, String[] constants,
+        String[] orgUnitGroups, boolean hasDays )
+    {
+        this.itemIndexes = itemIndexes;
+        this.constants = constants;
+        this.orgUnitGroups = orgUnitGroups;
+        this.hasDays = hasDays;
+        this.itemVariables = getVariables( ITEM_PREFIX, itemIndexes.size() );
+        this.constantVariables = getVariables( CONSTANT_PREFIX, constants.length );
+        this.orgUnitGroupVariables = getVariables( ORG_UNIT_GROUP_PREFIX, orgUnitGroups.length );
+        this.node = ThreadLocal.withInitial( () -> parse( expression ) );
+    }
+
+    // -------------------------------------------------------------------------
+    // Compile
+    // -------------------------------------------------------------------------
+
+    /**
+     * Compiles the given expression. Returns null if the expression is null or
+     * empty, contains aggregate functions or the isNull function, or cannot be
+     * parsed, in which case the expression must be evaluated through expression
+     * generation.
+     *
+     * @param expression the expression.
+     * @return a {@link CompiledExpression} or null.
+     */
+    public static CompiledExpression compile( String expression )
+    {
+        if ( expression == null || expression.isEmpty() ||
+            CustomFunctions.AGGREGATE_PATTERN_PREFIX.matcher( expression ).find() ||
+            ISNULL_PATTERN.matcher( expression ).find() )
+        {
+            return null;
+        }
+
+        expression = ExpressionUtils.normalizeExpression( expression );
+
+        // ---------------------------------------------------------------------
+        // Scalar custom functions (make them case-insensitive)
+        // ---------------------------------------------------------------------
+
+        StringBuffer sb = new StringBuffer();
+        Matcher matcher = CustomFunctions.SCALAR_PATTERN_PREFIX.matcher( expression );
+
+        while ( matcher.find() )
+        {
+            matcher.appendReplacement( sb,
+                expression.substring( matcher.start(), matcher.end() ).toUpperCase() );
+        }
+
+        expression = TextUtils.appendTail( matcher, sb );
+
+        // ---------------------------------------------------------------------
+        // Bind dimensional items, constants, org unit groups and days
+        // ---------------------------------------------------------------------
+
+        Map<String, Integer> itemIndexes = new HashMap<>();
+        Map<String, Integer> constantIndexes = new LinkedHashMap<>();
+        Map<String, Integer> orgUnitGroupIndexes = new LinkedHashMap<>();
+
+        expression = bind( expression, VARIABLE_PATTERN.matcher( expression ), itemIndexes, ITEM_PREFIX );
+        expression = bind( expression, CONSTANT_PATTERN.matcher( expression ), constantIndexes, CONSTANT_PREFIX );
+        expression = bind( expression, OU_GROUP_PATTERN.matcher( expression ), orgUnitGroupIndexes, ORG_UNIT_GROUP_PREFIX );
+
+        boolean hasDays = DAYS_PATTERN.matcher( expression ).find();
+
+        if ( hasDays )
+        {
+            expression = DAYS_PATTERN.matcher( expression ).replaceAll( DAYS_VARIABLE );
+        }
+
+        // ---------------------------------------------------------------------
+        // Validate with a new parser, as errors are kept by the parser
+        // ---------------------------------------------------------------------
+
+        final JEP parser = getParser();
+
+        addVariables( parser, getVariables( ITEM_PREFIX, itemIndexes.size() ) );
+        addVariables( parser, getVariables( CONSTANT_PREFIX, constantIndexes.size() ) );
+        addVariables( parser, getVariables( ORG_UNIT_GROUP_PREFIX, orgUnitGroupIndexes.size() ) );
+
+        parser.parseExpression( expression );
+
+        if ( parser.hasError() )
+        {
+            return null;
+        }
+
+        return new CompiledExpression( expression, itemIndexes,
+            constantIndexes.keySet().toArray( new String[0] ),
+            orgUnitGroupIndexes.keySet().toArray( new String[0] ), hasDays );
+    }
+
+    /**
+     * Replaces each match of the given matcher with a variable, where each
+     * distinct identifier is bound to one variable.
+     */
+    private static String bind( String expression, Matcher matcher, Map<String, Integer> indexes, String prefix )
+    {
+        StringBuffer sb = new StringBuffer();
+
+        while ( matcher.find() )
+        {
+            Integer index = indexes.computeIfAbsent( matcher.group( GROUP_ID ), id -> indexes.size() );
+
+            matcher.appendReplacement( sb, " " + prefix + index + " " );
+        }
+
+        return TextUtils.appendTail( matcher, sb );
+    }
+
+    /**
+     * Returns a parser with the days variable.
+     */
+    private static JEP getParser()
+    {
+        final JEP parser = new JEP();
+        parser.addStandardFunctions();
+        CustomFunctions.addFunctions( parser );
+        parser.addVariable( DAYS_VARIABLE, 0d );
+
+        return parser;
+    }
+
+    private static String[] getVariables( String prefix, int count )
+    {
+        final String[] variables = new String[count];
+
+        for ( int i = 0; i < count; i++ )
+        {
+            variables[i] = prefix + i;
+        }
+
+        return variables;
+    }
+
+    private static void addVariables( JEP parser, String[] variables )
+    {
+        for ( String variable : variables )
+        {
+            parser.addVariable( variable, 0d );
+        }
+    }
+
+    /**
+     * Parses the validated expression with the parser of the current thread,
+     * adding any variables of the expression not yet known to the parser.
+     */
+    private Node parse( String expression )
+    {
+        final JEP parser = PARSER.get();
+
+        addVariables( parser, itemVariables );
+        addVariables( parser, constantVariables );
+        addVariables( parser, orgUnitGroupVariables );
+
+        try
+        {
+            return parser.parse( expression );
+        }
+        catch ( ParseException ex )
+        {
+            throw new IllegalStateException( "Failed to parse validated expression: " + expression, ex );
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Evaluate
+    // -------------------------------------------------------------------------
+
+    /**
+     * Evaluates the expression. Missing values are treated as zero, unless the
+     * missing value strategy implies that the expression should be skipped.
+     *
+     * @param valueMap the value map.
+     * @param constantMap the constant map.
+     * @param orgUnitCountMap the organisation unit count map.
+     * @param days the number of days.
+     * @param missingValueStrategy the missing value strategy.
+     * @return the value of the expression, or null if the expression should
+     *         be skipped according to the missing value strategy.
+     */
+    public Double evaluate( Map<? extends DimensionalItemObject, Double> valueMap,
+        Map<String, Double> constantMap, Map<String, Integer> orgUnitCountMap, Integer days,
+        MissingValueStrategy missingValueStrategy )
+    {
+        final Node node = this.node.get();
+        final JEP parser = PARSER.get();
+
+        if ( !setItemValues( parser, valueMap, missingValueStrategy ) )
+        {
+            return null;
+        }
+
+        for ( int i = 0; i < constants.length; i++ )
+        {
+            Double constant = constantMap != null ? constantMap.get( constants[i] ) : null;
+
+            parser.addVariable( constantVariables[i], constant != null ? constant : 0d );
+        }
+
+        for ( int i = 0; i < orgUnitGroups.length; i++ )
+        {
+            Integer count = orgUnitCountMap != null ? orgUnitCountMap.get( orgUnitGroups[i] ) : null;
+
+            parser.addVariable( orgUnitGroupVariables[i], count != null ? count : 0d );
+        }
+
+        if ( hasDays )
+        {
+            parser.addVariable( DAYS_VARIABLE, days != null ? days : 0d );
+        }
+
+        try
+        {
+            return getValue( parser.evaluate( node ) );
+        }
+        catch ( ParseException ex )
+        {
+            return 0d;
+        }
+    }
+
+    /**
+     * Returns the value of an evaluated expression the same way as
+     * {@link JEP#getValue()}.
+     */
+    private static double getValue( Object value )
+    {
+        if ( value instanceof Complex )
+        {
+            Complex complex = (Complex) value;
+
+            return complex.im() != 0d ? Double.NaN : complex.re();
+        }
+
+        return value instanceof Number ? ((Number) value).doubleValue() : 0d;
+    }
+
+    /**
+     * Sets the dimension item variables from the given value map.
+     *
+     * @return false if the expression should be skipped according to the
+     *         missing value strategy, true otherwise.
+     */
+    private boolean setItemValues( JEP parser, Map<? extends DimensionalItemObject, Double> valueMap,
+        MissingValueStrategy missingValueStrategy )
+    {
+        if ( itemIndexes.isEmpty() )
+        {
+            return true;
+        }
+
+        final int itemCount = itemVariables.length;
+        final ItemValues buffers = ITEM_VALUES.get().reset( itemCount );
+        final double[] itemValues = buffers.values;
+        final boolean[] itemPresent = buffers.present;
+
+        int valueCount = 0;
+
+        for ( Map.Entry<? extends DimensionalItemObject, Double> entry : valueMap.entrySet() )
+        {
+            if ( entry.getValue() == null )
+            {
+                continue;
+            }
+
+            Integer index = itemIndexes.get( entry.getKey().getDimensionItem() );
+
+            if ( index != null && !itemPresent[index] )
+            {
+                itemValues[index] = entry.getValue();
+                itemPresent[index] = true;
+                valueCount++;
+            }
+        }
+
+        if ( SKIP_IF_ANY_VALUE_MISSING.equals( missingValueStrategy ) && valueCount < itemCount )
+        {
+            return false;
+        }
+
+        if ( SKIP_IF_ALL_VALUES_MISSING.equals( missingValueStrategy ) && valueCount == 0 )
+        {
+            return false;
+        }
+
+        for ( int i = 0; i < itemCount; i++ )
+        {
+            parser.addVariable( itemVariables[i], itemPresent[i] ? itemValues[i] : 0d );
+        }
+
+        return true;
+    }
+
+    /**
+     * Item value buffers, reused by the evaluations of a thread and grown to
+     * the largest number of items evaluated.
+     */
+    private static class ItemValues
+    {
+        private double[] values = new double[0];
+
+        private boolean[] present = new boolean[0];
+
+        /**
+         * Makes room for the given number of items and marks them as missing.
+         */
+        private ItemValues reset( int count )
+        {
+            if ( values.length < count )
+            {
+                values = new double[count];
+                present = new boolean[count];
+            }
+            else
+            {
+                Arrays.fill( present, 0, count, false );
+            }
+
+            return this;
+        }
+    }
+}
@@ -28,6 +28,8 @@ package org.hisp.dhis.expression;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.common.collect.Sets;
 
 import org.apache.commons.lang3.ObjectUtils;
@@ -67,7 +69,9 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -89,6 +93,16 @@ public class DefaultExpressionService
 {
     private static final Log log = LogFactory.getLog( DefaultExpressionService.class );
 
+    /**
+     * Cache of compiled expressions keyed on expression string. Expressions
+     * which cannot be compiled are cached as empty.
+     */
+    private static final Cache<String, Optional<CompiledExpression>> COMPILED_EXPRESSION_CACHE = Caffeine.newBuilder()
+        .expireAfterAccess( 1, TimeUnit.HOURS )
+        .initialCapacity( 200 )
+        .maximumSize( 5000 )
+        .build();
+
     // -------------------------------------------------------------------------
     // Dependencies
     // -------------------------------------------------------------------------
@@ -209,28 +223,24 @@ public class DefaultExpressionService
 
         Integer days = period != null ? period.getDaysInPeriod() : null;
 
-        final String denominatorExpression = generateExpression( indicator.getDenominator(), valueMap,
-            constantMap, orgUnitCountMap, days, NEVER_SKIP );
+        final Double denominatorValue = evaluateExpression( indicator.getDenominator(), valueMap,
+            constantMap, orgUnitCountMap, days, NEVER_SKIP, null );
 
-        if ( denominatorExpression == null )
+        if ( denominatorValue == null )
         {
             return null;
         }
 
-        final double denominatorValue = calculateExpression( denominatorExpression );
-
         if ( !isEqual( denominatorValue, 0d ) )
         {
-            final String numeratorExpression = generateExpression( indicator.getNumerator(), valueMap,
-                constantMap, orgUnitCountMap, days, NEVER_SKIP );
+            final Double numeratorValue = evaluateExpression( indicator.getNumerator(), valueMap,
+                constantMap, orgUnitCountMap, days, NEVER_SKIP, null );
 
-            if ( numeratorExpression == null )
+            if ( numeratorValue == null )
             {
                 return null;
             }
 
-            final double numeratorValue = calculateExpression( numeratorExpression );
-
             final double annualizationFactor = period != null ?
                 DateUtils.getAnnualizationFactor( indicator, period.getStartDate(), period.getEndDate() ) : 1d;
             final int factor = indicator.getIndicatorType().getFactor();
@@ -258,11 +268,8 @@ public class DefaultExpressionService
         Map<String, Double> constantMap, Map<String, Integer> orgUnitCountMap, Integer days,
         ListMap<String, Double> aggregateMap )
     {
-        String expressionString = generateExpression( expression.getExpression(),
-            valueMap, constantMap, orgUnitCountMap, days, expression.getMissingValueStrategy(),
-            aggregateMap );
-
-        return expressionString != null ? calculateExpression( expressionString ) : null;
+        return evaluateExpression( expression.getExpression(), valueMap, constantMap, orgUnitCountMap,
+            days, expression.getMissingValueStrategy(), aggregateMap );
     }
 
     @Override
@@ -769,6 +776,43 @@ public class DefaultExpressionService
         return generateExpression( expression, valueMap, constantMap, orgUnitCountMap, days, missingValueStrategy, null );
     }
 
+    /**
+     * Evaluates an expression based on the given data maps. Uses the compiled
+     * form of the expression if it can be compiled, otherwise generates and
+     * calculates the expression.
+     *
+     * @param expression the expression.
+     * @param valueMap the value map.
+     * @param constantMap the constant map.
+     * @param orgUnitCountMap the organisation unit count map.
+     * @param days the number of days.
+     * @param missingValueStrategy the missing value strategy.
+     * @param aggregateMap the aggregate map.
+     * @return the value of the expression, or null.
+     */
+    private Double evaluateExpression( String expression, Map<? extends DimensionalItemObject, Double> valueMap,
+        Map<String, Double> constantMap, Map<String, Integer> orgUnitCountMap, Integer days,
+        MissingValueStrategy missingValueStrategy, Map<String, List<Double>> aggregateMap )
+    {
+        if ( expression == null || expression.isEmpty() )
+        {
+            return null;
+        }
+
+        Optional<CompiledExpression> compiled = COMPILED_EXPRESSION_CACHE.get( expression,
+            e -> Optional.ofNullable( CompiledExpression.compile( e ) ) );
+
+        if ( compiled.isPresent() )
+        {
+            return compiled.get().evaluate( valueMap, constantMap, orgUnitCountMap, days, missingValueStrategy );
+        }
+
+        String expressionString = generateExpression( expression, valueMap, constantMap, orgUnitCountMap,
+            days, missingValueStrategy, aggregateMap );
+
+        return expressionString != null ? calculateExpression( expressionString ) : null;
+    }
+
     /**
      * Generates an expression based on the given data maps.
      * 
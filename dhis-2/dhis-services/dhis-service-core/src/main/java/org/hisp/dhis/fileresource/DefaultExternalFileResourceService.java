@@ -52,6 +52,13 @@ public class DefaultExternalFileResourceService
         return externalFileResourceStore.getExternalFileResourceByAccessToken( accessToken );
     }
 
+    @Override
+    @Transactional( readOnly = true )
+    public ExternalFileResource getExternalFileResourceByContentMd5( String contentMd5, FileResourceDomain domain )
+    {
+        return externalFileResourceStore.getExternalFileResourceByContentMd5( contentMd5, domain );
+    }
+
     @Override
     @Transactional
     public String saveExternalFileResource( ExternalFileResource externalFileResource )
@@ -38,6 +38,7 @@ import org.joda.time.Hours;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureCallback;
 
 import java.io.File;
 import java.net.URI;
@@ -122,14 +123,21 @@ public class DefaultFileResourceService
     @Transactional
     public String saveFileResource( FileResource fileResource, File file )
     {
-        return saveFileResourceInternal( fileResource, () -> fileResourceContentStore.saveFileResourceContent( fileResource, file ) );
+        return saveFileResourceInternal( fileResource, () -> fileResourceContentStore.saveFileResourceContent( fileResource, file ), null );
+    }
+
+    @Override
+    @Transactional
+    public String saveFileResource( FileResource fileResource, File file, ListenableFutureCallback<String> callback )
+    {
+        return saveFileResourceInternal( fileResource, () -> fileResourceContentStore.saveFileResourceContent( fileResource, file ), callback );
     }
 
     @Override
     @Transactional
     public String saveFileResource( FileResource fileResource, byte[] bytes )
     {
-        return saveFileResourceInternal( fileResource, () -> fileResourceContentStore.saveFileResourceContent( fileResource, bytes ) );
+        return saveFileResourceInternal( fileResource, () -> fileResourceContentStore.saveFileResourceContent( fileResource, bytes ), null );
     }
 
     @Override
@@ -196,7 +204,7 @@ public class DefaultFileResourceService
     // Supportive methods
     // -------------------------------------------------------------------------
 
-    private String saveFileResourceInternal( FileResource fileResource, Callable<String> saveCallable )
+    private String saveFileResourceInternal( FileResource fileResource, Callable<String> saveCallable, ListenableFutureCallback<String> callback )
     {
         fileResource.setStorageStatus( FileResourceStorageStatus.PENDING );
         fileResourceStore.save( fileResource );
@@ -208,6 +216,11 @@ public class DefaultFileResourceService
 
         saveContentTask.addCallback( uploadCallback.newInstance( uid ) );
 
+        if ( callback != null )
+        {
+            saveContentTask.addCallback( callback );
+        }
+
         return uid;
     }
 }
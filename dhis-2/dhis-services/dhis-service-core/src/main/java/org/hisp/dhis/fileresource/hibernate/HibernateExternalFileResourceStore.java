@@ -30,6 +30,10 @@ package org.hisp.dhis.fileresource.hibernate;
 import org.hisp.dhis.common.hibernate.HibernateIdentifiableObjectStore;
 import org.hisp.dhis.fileresource.ExternalFileResource;
 import org.hisp.dhis.fileresource.ExternalFileResourceStore;
+import org.hisp.dhis.fileresource.FileResourceDomain;
+import org.hisp.dhis.fileresource.FileResourceStorageStatus;
+
+import java.util.Date;
 
 /**
  * @author Stian Sandvold
@@ -44,4 +48,23 @@ public class HibernateExternalFileResourceStore
         return (ExternalFileResource) getQuery( "from ExternalFileResource where accessToken = :accessToken" )
             .setString( "accessToken", accessToken ).uniqueResult();
     }
+
+    @Override
+    public ExternalFileResource getExternalFileResourceByContentMd5( String contentMd5, FileResourceDomain domain )
+    {
+        String hql =
+            "from ExternalFileResource e " +
+            "where e.fileResource.contentMd5 = :contentMd5 " +
+            "and e.fileResource.domain = :domain " +
+            "and e.fileResource.storageStatus = :storageStatus " +
+            "and (e.expires is null or e.expires > :now) " +
+            "order by e.id desc";
+
+        return (ExternalFileResource) getQuery( hql )
+            .setParameter( "contentMd5", contentMd5 )
+            .setParameter( "domain", domain )
+            .setParameter( "storageStatus", FileResourceStorageStatus.STORED )
+            .setParameter( "now", new Date() )
+            .setMaxResults( 1 ).uniqueResult();
+    }
 }
@@ -28,26 +28,29 @@ package org.hisp.dhis.organisationunit;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import org.apache.commons.lang3.ObjectUtils;
+import org.hisp.dhis.cache.CacheInvalidationBus;
 import org.hisp.dhis.commons.collection.ListUtils;
-import org.hisp.dhis.commons.filter.FilterUtils;
 import org.hisp.dhis.configuration.ConfigurationService;
 import org.hisp.dhis.dataset.DataSet;
 import org.hisp.dhis.dataset.DataSetService;
 import org.hisp.dhis.hierarchy.HierarchyViolationException;
 import org.hisp.dhis.organisationunit.comparator.OrganisationUnitLevelComparator;
-import org.hisp.dhis.system.filter.OrganisationUnitPolygonCoveringCoordinateFilter;
 import org.hisp.dhis.system.util.GeoUtils;
-import org.hisp.dhis.system.util.ValidationUtils;
 import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.user.User;
 import org.hisp.dhis.version.VersionService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.awt.geom.Point2D;
+import javax.annotation.PostConstruct;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static org.hisp.dhis.common.IdentifiableObjectUtils.getUids;
@@ -61,6 +64,38 @@ public class DefaultOrganisationUnitService
 {
     private static final String LEVEL_PREFIX = "Level ";
 
+    private static final String HIERARCHY_INDEX_KEY = "hierarchyIndex";
+
+    private static final Cache<String, OrganisationUnitHierarchyIndex> HIERARCHY_INDEX_CACHE = Caffeine.newBuilder()
+        .expireAfterWrite( 6, TimeUnit.HOURS )
+        .maximumSize( 1 )
+        .build();
+
+    private static final String SPATIAL_INDEX_KEY = "spatialIndex";
+
+    private static final Cache<String, OrganisationUnitSpatialIndex> SPATIAL_INDEX_CACHE = Caffeine.newBuilder()
+        .expireAfterWrite( 6, TimeUnit.HOURS )
+        .maximumSize( 1 )
+        .build();
+
+    /**
+     * Clears the organisation unit hierarchy index cache. Invoked when the
+     * organisation unit hierarchy changes.
+     */
+    public static void invalidateHierarchyIndex()
+    {
+        HIERARCHY_INDEX_CACHE.invalidateAll();
+    }
+
+    /**
+     * Clears the organisation unit spatial index cache. Invoked when the
+     * coordinates or the hierarchy of organisation units change.
+     */
+    public static void invalidateSpatialIndex()
+    {
+        SPATIAL_INDEX_CACHE.invalidateAll();
+    }
+
     // -------------------------------------------------------------------------
     // Dependencies
     // -------------------------------------------------------------------------
@@ -107,6 +142,27 @@ public class DefaultOrganisationUnitService
         this.configurationService = configurationService;
     }
 
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Autowired
+    public void setCacheInvalidationBus( CacheInvalidationBus cacheInvalidationBus )
+    {
+        this.cacheInvalidationBus = cacheInvalidationBus;
+    }
+
+    /**
+     * Invalidates the hierarchy and spatial indexes when organisation units
+     * are changed on this or other instances.
+     */
+    @PostConstruct
+    public void init()
+    {
+        cacheInvalidationBus.subscribe( OrganisationUnit.class.getName(), key -> {
+            invalidateHierarchyIndex();
+            invalidateSpatialIndex();
+        } );
+    }
+
     // -------------------------------------------------------------------------
     // OrganisationUnit
     // -------------------------------------------------------------------------
@@ -457,7 +513,7 @@ public class DefaultOrganisationUnitService
             return false;
         }
 
-        return organisationUnit.isDescendant( user.getOrganisationUnits() );
+        return isDescendant( organisationUnit, user.getOrganisationUnits() );
     }
 
     @Override
@@ -465,7 +521,33 @@ public class DefaultOrganisationUnitService
     {
         OrganisationUnit organisationUnit = organisationUnitStore.getByUid( uid );
 
-        return organisationUnit != null ? organisationUnit.isDescendant( organisationUnits ) : false;
+        return organisationUnit != null ? isDescendant( organisationUnit, organisationUnits ) : false;
+    }
+
+    @Override
+    public boolean isDescendant( OrganisationUnit organisationUnit, Set<OrganisationUnit> ancestors )
+    {
+        if ( organisationUnit == null || ancestors == null || ancestors.isEmpty() )
+        {
+            return false;
+        }
+
+        OrganisationUnitHierarchyIndex index = getOrganisationUnitHierarchyIndex();
+
+        if ( !index.contains( organisationUnit.getId() ) || !ancestors.stream().allMatch( a -> index.contains( a.getId() ) ) )
+        {
+            return organisationUnit.isDescendant( ancestors ); // Not yet flushed to database
+        }
+
+        for ( OrganisationUnit ancestor : ancestors )
+        {
+            if ( index.isDescendant( organisationUnit.getId(), ancestor.getId() ) )
+            {
+                return true;
+            }
+        }
+
+        return false;
     }
 
     // -------------------------------------------------------------------------
@@ -478,10 +560,28 @@ public class DefaultOrganisationUnitService
         return organisationUnitStore.getOrganisationUnitHierarchy();
     }
 
+    @Override
+    public OrganisationUnitHierarchyIndex getOrganisationUnitHierarchyIndex()
+    {
+        OrganisationUnitHierarchyIndex index = HIERARCHY_INDEX_CACHE.getIfPresent( HIERARCHY_INDEX_KEY );
+
+        if ( index == null )
+        {
+            index = new OrganisationUnitHierarchyIndex( organisationUnitStore.getOrganisationUnitHierarchy() );
+
+            HIERARCHY_INDEX_CACHE.put( HIERARCHY_INDEX_KEY, index );
+        }
+
+        return index;
+    }
+
     @Override
     public void updateOrganisationUnitParent( int organisationUnitId, int parentId )
     {
         organisationUnitStore.updateOrganisationUnitParent( organisationUnitId, parentId );
+
+        invalidateHierarchyIndex();
+        invalidateSpatialIndex();
     }
 
     // -------------------------------------------------------------------------
@@ -690,32 +790,9 @@ public class DefaultOrganisationUnitService
     public List<OrganisationUnit> getOrganisationUnitWithinDistance( double longitude, double latitude,
         double distance )
     {
-        List<OrganisationUnit> objects = organisationUnitStore.getWithinCoordinateArea( GeoUtils.getBoxShape(
-            longitude, latitude, distance ) );
-
-        // Go through the list and remove the ones located outside radius
-
-        if ( objects != null && objects.size() > 0 )
-        {
-            Iterator<OrganisationUnit> iter = objects.iterator();
-
-            Point2D centerPoint = new Point2D.Double( longitude, latitude );
+        List<Integer> ids = getOrganisationUnitSpatialIndex().getPointsWithinDistance( longitude, latitude, distance );
 
-            while ( iter.hasNext() )
-            {
-                OrganisationUnit orgunit = iter.next();
-
-                double distancebetween = GeoUtils.getDistanceBetweenTwoPoints( centerPoint,
-                    ValidationUtils.getCoordinatePoint2D( orgunit.getCoordinates() ) );
-
-                if ( distancebetween > distance )
-                {
-                    iter.remove();
-                }
-            }
-        }
-
-        return objects;
+        return ids.isEmpty() ? new ArrayList<>() : getOrganisationUnits( ids );
     }
 
     /**
@@ -729,6 +806,8 @@ public class DefaultOrganisationUnitService
 
         if ( GeoUtils.checkGeoJsonPointValid( longitude, latitude ) )
         {
+            OrganisationUnitSpatialIndex spatialIndex = getOrganisationUnitSpatialIndex();
+
             OrganisationUnit topOrgUnit = null;
 
             if ( topOrgUnitUid != null && !topOrgUnitUid.isEmpty() )
@@ -739,12 +818,12 @@ public class DefaultOrganisationUnitService
             {
                 // Get top search point through top level org unit which contains coordinate
 
-                List<OrganisationUnit> orgUnitsTopLevel = getTopLevelOrgUnitWithPoint( longitude, latitude, 1,
+                List<Integer> orgUnitsTopLevel = getTopLevelOrgUnitWithPoint( spatialIndex, longitude, latitude, 1,
                     getNumberOfOrganisationalLevels() - 1 );
 
                 if ( orgUnitsTopLevel.size() == 1 )
                 {
-                    topOrgUnit = orgUnitsTopLevel.iterator().next();
+                    topOrgUnit = getOrganisationUnit( orgUnitsTopLevel.iterator().next() );
                 }
             }
 
@@ -752,36 +831,25 @@ public class DefaultOrganisationUnitService
 
             if ( topOrgUnit != null )
             {
-                List<OrganisationUnit> orgUnitChildren = new ArrayList<>();
-
-                if ( targetLevel != null )
-                {
-                    orgUnitChildren = getOrganisationUnitsAtLevel( targetLevel, topOrgUnit );
-                }
-                else
-                {
-                    orgUnitChildren = getOrganisationUnitWithChildren( topOrgUnit.getId() );
-                }
+                OrganisationUnitHierarchyIndex hierarchyIndex = getOrganisationUnitHierarchyIndex();
 
-                FilterUtils.filter( orgUnitChildren, new OrganisationUnitPolygonCoveringCoordinateFilter( longitude, latitude ) );
+                final int topOrgUnitId = topOrgUnit.getId();
 
-                // Get org units with lowest level
+                List<Integer> levels = targetLevel != null ? Lists.newArrayList( targetLevel ) :
+                    new ArrayList<>( spatialIndex.getPolygonLevels().tailSet( topOrgUnit.getLevel() ) );
 
-                int bottomLevel = topOrgUnit.getLevel();
+                Collections.reverse( levels );
 
-                for ( OrganisationUnit ou : orgUnitChildren )
+                for ( Integer level : levels )
                 {
-                    if ( ou.getLevel() > bottomLevel )
-                    {
-                        bottomLevel = ou.getLevel();
-                    }
-                }
+                    List<Integer> ids = spatialIndex.getPolygonsContaining( longitude, latitude, level ).stream()
+                        .filter( id -> hierarchyIndex.isDescendant( id, topOrgUnitId ) )
+                        .collect( Collectors.toList() );
 
-                for ( OrganisationUnit ou : orgUnitChildren )
-                {
-                    if ( ou.getLevel() == bottomLevel )
+                    if ( !ids.isEmpty() )
                     {
-                        orgUnits.add( ou );
+                        orgUnits.addAll( getOrganisationUnits( ids ) );
+                        break;
                     }
                 }
             }
@@ -790,6 +858,30 @@ public class DefaultOrganisationUnitService
         return orgUnits;
     }
 
+    /**
+     * Returns the organisation unit spatial index, built from the coordinates
+     * of all organisation units and cached until coordinates or the hierarchy
+     * change.
+     */
+    private OrganisationUnitSpatialIndex getOrganisationUnitSpatialIndex()
+    {
+        OrganisationUnitSpatialIndex index = SPATIAL_INDEX_CACHE.getIfPresent( SPATIAL_INDEX_KEY );
+
+        if ( index == null )
+        {
+            index = new OrganisationUnitSpatialIndex();
+
+            for ( Object[] row : organisationUnitStore.getOrganisationUnitCoordinates() )
+            {
+                index.add( (Integer) row[0], (Integer) row[1], (FeatureType) row[2], (String) row[3] );
+            }
+
+            SPATIAL_INDEX_CACHE.put( SPATIAL_INDEX_KEY, index.build() );
+        }
+
+        return index;
+    }
+
     // -------------------------------------------------------------------------
     // Version
     // -------------------------------------------------------------------------
@@ -807,13 +899,12 @@ public class DefaultOrganisationUnitService
     /**
      * Searches organisation units until finding one with polygon containing point.
      */
-    private List<OrganisationUnit> getTopLevelOrgUnitWithPoint( double longitude, double latitude,
-        int searchLevel, int stopLevel )
+    private List<Integer> getTopLevelOrgUnitWithPoint( OrganisationUnitSpatialIndex spatialIndex,
+        double longitude, double latitude, int searchLevel, int stopLevel )
     {
         for ( int i = searchLevel; i <= stopLevel; i++ )
         {
-            List<OrganisationUnit> unitsAtLevel = new ArrayList<>( getOrganisationUnitsAtLevel( i ) );
-            FilterUtils.filter( unitsAtLevel, new OrganisationUnitPolygonCoveringCoordinateFilter( longitude, latitude ) );
+            List<Integer> unitsAtLevel = spatialIndex.getPolygonsContaining( longitude, latitude, i );
 
             if ( unitsAtLevel.size() > 0 )
             {
@@ -0,0 +1,244 @@
+package org.hisp.dhis.organisationunit;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometryFactory;
+import com.vividsolutions.jts.index.strtree.STRtree;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hisp.dhis.system.util.GeoUtils;
+import org.hisp.dhis.system.util.ValidationUtils;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Spatial index of organisation unit geometries. Polygons and multi-polygons
+ * are held as prepared geometries in one STR tree per hierarchy level, and
+ * points are held in a separate STR tree. Lookups return organisation unit
+ * identifiers.
+ *
+ * Instances are populated through {@link #add(int, Integer, FeatureType, String)}
+ * and must be finalized through {@link #build()} before being queried, after
+ * which they are immutable and safe to share between threads.
+ */
+public class OrganisationUnitSpatialIndex
+{
+    private static final Log log = LogFactory.getLog( OrganisationUnitSpatialIndex.class );
+
+    private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+
+    private final Map<Integer, STRtree> polygonTrees = new TreeMap<>();
+
+    private final STRtree pointTree = new STRtree();
+
+    // -------------------------------------------------------------------------
+    // Build
+    // -------------------------------------------------------------------------
+
+    /**
+     * Adds an organisation unit to the index. Organisation units with feature
+     * types other than polygon, multi-polygon and point, without a level or
+     * with invalid coordinates are ignored.
+     *
+     * @param id the organisation unit identifier.
+     * @param level the hierarchy level.
+     * @param featureType the feature type.
+     * @param coordinates the coordinates.
+     */
+    public void add( int id, Integer level, FeatureType featureType, String coordinates )
+    {
+        if ( featureType == null || coordinates == null || coordinates.isEmpty() )
+        {
+            return;
+        }
+
+        if ( featureType.isPolygon() && level != null )
+        {
+            try
+            {
+                Geometry geometry = GeoUtils.getPolygonGeometry( coordinates, featureType );
+
+                if ( geometry != null )
+                {
+                    polygonTrees.computeIfAbsent( level, l -> new STRtree() ).insert( geometry.getEnvelopeInternal(),
+                        new PolygonEntry( id, PreparedGeometryFactory.prepare( geometry ) ) );
+                }
+            }
+            catch ( Exception ex )
+            {
+                log.debug( String.format( "Ignoring invalid coordinates of organisation unit: %d", id ) );
+            }
+        }
+        else if ( featureType == FeatureType.POINT )
+        {
+            Point2D point = ValidationUtils.getCoordinatePoint2D( coordinates );
+
+            if ( point != null )
+            {
+                pointTree.insert( new Envelope( point.getX(), point.getX(), point.getY(), point.getY() ),
+                    new PointEntry( id, point ) );
+            }
+        }
+    }
+
+    /**
+     * Builds the STR trees. Must be invoked before the index is queried.
+     *
+     * @return this index.
+     */
+    public OrganisationUnitSpatialIndex build()
+    {
+        polygonTrees.values().forEach( STRtree::build );
+        pointTree.build();
+
+        return this;
+    }
+
+    // -------------------------------------------------------------------------
+    // Queries
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the hierarchy levels which have polygon geometries, in ascending
+     * order.
+     */
+    public SortedSet<Integer> getPolygonLevels()
+    {
+        return new TreeSet<>( polygonTrees.keySet() );
+    }
+
+    /**
+     * Returns the identifiers of organisation units at the given level with
+     * polygon geometries which contain the given point.
+     *
+     * @param longitude the longitude.
+     * @param latitude the latitude.
+     * @param level the hierarchy level.
+     * @return a list of organisation unit identifiers.
+     */
+    @SuppressWarnings( "unchecked" )
+    public List<Integer> getPolygonsContaining( double longitude, double latitude, int level )
+    {
+        List<Integer> ids = new ArrayList<>();
+
+        STRtree tree = polygonTrees.get( level );
+
+        if ( tree == null )
+        {
+            return ids;
+        }
+
+        Point point = GEOMETRY_FACTORY.createPoint( new Coordinate( longitude, latitude ) );
+
+        List<PolygonEntry> candidates = tree.query( point.getEnvelopeInternal() );
+
+        for ( PolygonEntry entry : candidates )
+        {
+            if ( entry.geometry.contains( point ) )
+            {
+                ids.add( entry.id );
+            }
+        }
+
+        return ids;
+    }
+
+    /**
+     * Returns the identifiers of organisation units with point geometries
+     * within the given distance of the given point.
+     *
+     * @param longitude the longitude.
+     * @param latitude the latitude.
+     * @param distance the distance in meters.
+     * @return a list of organisation unit identifiers.
+     */
+    @SuppressWarnings( "unchecked" )
+    public List<Integer> getPointsWithinDistance( double longitude, double latitude, double distance )
+    {
+        List<Integer> ids = new ArrayList<>();
+
+        double[] box = GeoUtils.getBoxShape( longitude, latitude, distance );
+
+        List<PointEntry> candidates = pointTree.query( new Envelope( box[3], box[1], box[2], box[0] ) );
+
+        Point2D center = new Point2D.Double( longitude, latitude );
+
+        for ( PointEntry entry : candidates )
+        {
+            if ( GeoUtils.getDistanceBetweenTwoPoints( center, entry.point ) <= distance )
+            {
+                ids.add( entry.id );
+            }
+        }
+
+        return ids;
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive classes
+    // -------------------------------------------------------------------------
+
+    private static class PolygonEntry
+    {
+        private final int id;
+
+        private final PreparedGeometry geometry;
+
+        PolygonEntry( int id, PreparedGeometry geometry )
+        {
+            this.id = id;
+            this.geometry = geometry;
+        }
+    }
+
+    private static class PointEntry
+    {
+        private final int id;
+
+        private final Point2D point;
+
+        PointEntry( int id, Point2D point )
+        {
+            this.id = id;
+            this.point = point;
+        }
+    }
+}
@@ -28,6 +28,7 @@ package org.hisp.dhis.organisationunit.hibernate;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import com.google.common.collect.Lists;
 import org.hibernate.Query;
 import org.hibernate.Session;
 import org.hisp.dhis.common.IdentifiableObjectUtils;
@@ -36,6 +37,7 @@ import org.hisp.dhis.common.hibernate.HibernateIdentifiableObjectStore;
 import org.hisp.dhis.commons.util.SqlHelper;
 import org.hisp.dhis.commons.util.TextUtils;
 import org.hisp.dhis.dbms.DbmsManager;
+import org.hisp.dhis.organisationunit.FeatureType;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.organisationunit.OrganisationUnitHierarchy;
 import org.hisp.dhis.organisationunit.OrganisationUnitQueryParams;
@@ -230,6 +232,20 @@ public class HibernateOrganisationUnitStore
         return getQuery( sql ).list();
     }
 
+    @Override
+    @SuppressWarnings( "unchecked" )
+    public List<Object[]> getOrganisationUnitCoordinates()
+    {
+        final String hql = "select o.id, o.hierarchyLevel, o.featureType, o.coordinates " +
+            "from OrganisationUnit o " +
+            "where o.featureType in (:featureTypes) " +
+            "and o.coordinates is not null";
+
+        return getQuery( hql )
+            .setParameterList( "featureTypes", Lists.newArrayList( FeatureType.POLYGON, FeatureType.MULTI_POLYGON, FeatureType.POINT ) )
+            .list();
+    }
+
     // -------------------------------------------------------------------------
     // OrganisationUnitHierarchy
     // -------------------------------------------------------------------------
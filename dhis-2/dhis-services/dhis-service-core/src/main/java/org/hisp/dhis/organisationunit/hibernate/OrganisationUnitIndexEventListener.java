@@ -0,0 +1,130 @@
+package org.hisp.dhis.organisationunit.hibernate;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import com.google.common.collect.ImmutableSet;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hisp.dhis.organisationunit.DefaultOrganisationUnitService;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Invalidates the organisation unit hierarchy and spatial indexes when
+ * organisation units are inserted, deleted, moved to another parent or get
+ * new coordinates. The indexes are invalidated when changes are flushed, so
+ * that the current transaction sees them. Indexes built concurrently from the
+ * previous state are discarded after commit through the cache invalidation
+ * subscription of {@link DefaultOrganisationUnitService}.
+ */
+public class OrganisationUnitIndexEventListener
+    implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener
+{
+    private static final String PARENT_PROPERTY = "parent";
+
+    private static final Set<String> SPATIAL_PROPERTIES = ImmutableSet.of( "parent", "featureType", "coordinates" );
+
+    @Override
+    public void onPostInsert( PostInsertEvent event )
+    {
+        invalidateIfOrganisationUnit( event.getEntity() );
+    }
+
+    @Override
+    public void onPostUpdate( PostUpdateEvent event )
+    {
+        if ( event.getEntity() instanceof OrganisationUnit )
+        {
+            if ( isPropertyUpdated( event, Collections.singleton( PARENT_PROPERTY ) ) )
+            {
+                DefaultOrganisationUnitService.invalidateHierarchyIndex();
+            }
+
+            if ( isPropertyUpdated( event, SPATIAL_PROPERTIES ) )
+            {
+                DefaultOrganisationUnitService.invalidateSpatialIndex();
+            }
+        }
+    }
+
+    @Override
+    public void onPostDelete( PostDeleteEvent event )
+    {
+        invalidateIfOrganisationUnit( event.getEntity() );
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding( EntityPersister persister )
+    {
+        return false;
+    }
+
+    private void invalidateIfOrganisationUnit( Object entity )
+    {
+        if ( entity instanceof OrganisationUnit )
+        {
+            DefaultOrganisationUnitService.invalidateHierarchyIndex();
+            DefaultOrganisationUnitService.invalidateSpatialIndex();
+        }
+    }
+
+    /**
+     * Indicates whether any of the given properties are among the dirty
+     * properties of the update event. Dirty properties are not always resolved,
+     * in which case the properties are assumed to be updated.
+     */
+    private boolean isPropertyUpdated( PostUpdateEvent event, Set<String> properties )
+    {
+        int[] dirtyProperties = event.getDirtyProperties();
+
+        if ( dirtyProperties == null )
+        {
+            return true;
+        }
+
+        String[] propertyNames = event.getPersister().getPropertyNames();
+
+        for ( int dirty : dirtyProperties )
+        {
+            if ( properties.contains( propertyNames[dirty] ) )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -28,12 +28,17 @@ package org.hisp.dhis.programrule.engine;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.collect.Sets;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.hisp.dhis.cache.CacheInvalidationBus;
 import org.hisp.dhis.commons.util.DebugUtils;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.organisationunit.OrganisationUnitGroup;
 import org.hisp.dhis.organisationunit.OrganisationUnitGroupService;
+import org.hisp.dhis.program.Program;
 import org.hisp.dhis.program.ProgramInstance;
 import org.hisp.dhis.program.ProgramStageInstance;
 import org.hisp.dhis.programrule.*;
@@ -42,7 +47,9 @@ import org.hisp.dhis.rules.RuleEngineContext;
 import org.hisp.dhis.rules.models.*;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import javax.annotation.PostConstruct;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -52,6 +59,28 @@ public class ProgramRuleEngine
 {
     private static final Log log = LogFactory.getLog( ProgramRuleEngine.class );
 
+    private static final String SUPPLEMENTARY_DATA_KEY = "supplementaryData";
+
+    /**
+     * Cache of rule engine contexts keyed on program identifier. A context holds
+     * the mapped program rules and program rule variables of the program and the
+     * supplementary data.
+     */
+    private static final Cache<String, RuleEngineContext> RULE_ENGINE_CONTEXT_CACHE = Caffeine.newBuilder()
+        .expireAfterWrite( 1, TimeUnit.HOURS )
+        .initialCapacity( 20 )
+        .maximumSize( 1000 )
+        .build();
+
+    /**
+     * Cache of supplementary data, holding a mapping of organisation unit group
+     * identifiers to member organisation unit identifiers, shared by all programs.
+     */
+    private static final Cache<String, Map<String, List<String>>> SUPPLEMENTARY_DATA_CACHE = Caffeine.newBuilder()
+        .expireAfterWrite( 1, TimeUnit.HOURS )
+        .maximumSize( 1 )
+        .build();
+
     @Autowired
     private ProgramRuleEntityMapperService programRuleEntityMapperService;
 
@@ -67,6 +96,24 @@ public class ProgramRuleEngine
     @Autowired
     private OrganisationUnitGroupService organisationUnitGroupService;
 
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    /**
+     * Invalidates the caches when program rule or organisation unit group
+     * metadata is changed on this or other instances.
+     */
+    @PostConstruct
+    public void init()
+    {
+        Set<String> regions = Sets.newHashSet( Program.class.getName(), ProgramRule.class.getName(),
+            ProgramRule.class.getName() + ".programRuleActions", ProgramRuleAction.class.getName(),
+            ProgramRuleVariable.class.getName(), OrganisationUnitGroup.class.getName(),
+            OrganisationUnitGroup.class.getName() + ".members" );
+
+        regions.forEach( region -> cacheInvalidationBus.subscribe( region, key -> invalidateCache() ) );
+    }
+
     public List<RuleEffect> evaluateEnrollment( ProgramInstance enrollment )
     {
         if ( enrollment == null )
@@ -76,15 +123,11 @@ public class ProgramRuleEngine
 
         List<RuleEffect> ruleEffects = new ArrayList<>();
 
-        List<ProgramRule> programRules = programRuleService.getProgramRule( enrollment.getProgram() );
-
-        List<ProgramRuleVariable> programRuleVariables = programRuleVariableService.getProgramRuleVariable( enrollment.getProgram() );
-
         RuleEnrollment ruleEnrollment = programRuleEntityMapperService.toMappedRuleEnrollment( enrollment );
 
         List<RuleEvent> ruleEvents = programRuleEntityMapperService.toMappedRuleEvents( enrollment.getProgramStageInstances() );
 
-        RuleEngine ruleEngine = ruleEngineBuilder( programRules, programRuleVariables ).events( ruleEvents ).build();
+        RuleEngine ruleEngine = getRuleEngineContext( enrollment.getProgram() ).toEngineBuilder().events( ruleEvents ).build();
 
         try
         {
@@ -113,15 +156,11 @@ public class ProgramRuleEngine
 
         ProgramInstance enrollment = programStageInstance.getProgramInstance();
 
-        List<ProgramRule> programRules = programRuleService.getProgramRule( enrollment.getProgram() );
-
-        List<ProgramRuleVariable> programRuleVariables = programRuleVariableService.getProgramRuleVariable( enrollment.getProgram() );
-
         RuleEnrollment ruleEnrollment = programRuleEntityMapperService.toMappedRuleEnrollment( enrollment );
 
         List<RuleEvent> ruleEvents = programRuleEntityMapperService.toMappedRuleEvents( enrollment.getProgramStageInstances(), programStageInstance );
 
-        RuleEngine ruleEngine = ruleEngineBuilder( programRules, programRuleVariables ).enrollment( ruleEnrollment ).events( ruleEvents ).build();
+        RuleEngine ruleEngine = getRuleEngineContext( enrollment.getProgram() ).toEngineBuilder().enrollment( ruleEnrollment ).events( ruleEvents ).build();
 
         try
         {
@@ -139,19 +178,69 @@ public class ProgramRuleEngine
         return ruleEffects;
     }
 
-    private RuleEngine.Builder ruleEngineBuilder( List<ProgramRule> programRules, List<ProgramRuleVariable> programRuleVariables )
+    /**
+     * Returns the rule engine context for the given program, using the cache
+     * if available.
+     *
+     * @param program the program.
+     * @return a {@link RuleEngineContext}.
+     */
+    private RuleEngineContext getRuleEngineContext( Program program )
     {
-        Map<String, List<String>> supplementaryData = new HashMap<>();
+        RuleEngineContext context = RULE_ENGINE_CONTEXT_CACHE.getIfPresent( program.getUid() );
 
-        List<OrganisationUnitGroup> groups = organisationUnitGroupService.getAllOrganisationUnitGroups();
+        if ( context == null )
+        {
+            context = loadRuleEngineContext( program );
 
-        groups.stream().forEach( group -> supplementaryData.put( group.getUid(), group.getMembers().stream().map( OrganisationUnit::getUid ).collect( Collectors.toList() ) ) );
+            RULE_ENGINE_CONTEXT_CACHE.put( program.getUid(), context );
+        }
+
+        return context;
+    }
+
+    private RuleEngineContext loadRuleEngineContext( Program program )
+    {
+        List<ProgramRule> programRules = programRuleService.getProgramRule( program );
+
+        List<ProgramRuleVariable> programRuleVariables = programRuleVariableService.getProgramRuleVariable( program );
 
         return RuleEngineContext
             .builder( programRuleExpressionEvaluator )
-            .supplementaryData( supplementaryData )
+            .supplementaryData( getSupplementaryData() )
             .rules( programRuleEntityMapperService.toMappedProgramRules( programRules ) )
             .ruleVariables( programRuleEntityMapperService.toMappedProgramRuleVariables( programRuleVariables ) )
-            .build().toEngineBuilder();
+            .build();
+    }
+
+    private Map<String, List<String>> getSupplementaryData()
+    {
+        Map<String, List<String>> supplementaryData = SUPPLEMENTARY_DATA_CACHE.getIfPresent( SUPPLEMENTARY_DATA_KEY );
+
+        if ( supplementaryData == null )
+        {
+            supplementaryData = loadSupplementaryData();
+
+            SUPPLEMENTARY_DATA_CACHE.put( SUPPLEMENTARY_DATA_KEY, supplementaryData );
+        }
+
+        return supplementaryData;
+    }
+
+    private void invalidateCache()
+    {
+        RULE_ENGINE_CONTEXT_CACHE.invalidateAll();
+        SUPPLEMENTARY_DATA_CACHE.invalidateAll();
+    }
+
+    private Map<String, List<String>> loadSupplementaryData()
+    {
+        Map<String, List<String>> supplementaryData = new HashMap<>();
+
+        List<OrganisationUnitGroup> groups = organisationUnitGroupService.getAllOrganisationUnitGroups();
+
+        groups.stream().forEach( group -> supplementaryData.put( group.getUid(), group.getMembers().stream().map( OrganisationUnit::getUid ).collect( Collectors.toList() ) ) );
+
+        return Collections.unmodifiableMap( supplementaryData );
     }
 }
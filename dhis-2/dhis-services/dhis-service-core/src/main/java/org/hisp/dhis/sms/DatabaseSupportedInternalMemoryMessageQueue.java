@@ -28,18 +28,41 @@ package org.hisp.dhis.sms;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
-import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Collectors;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.hisp.dhis.sms.incoming.IncomingSms;
 import org.hisp.dhis.sms.incoming.IncomingSmsStore;
+import org.hisp.dhis.sms.incoming.SmsMessageStatus;
 import org.springframework.beans.factory.annotation.Autowired;
 
+/**
+ * Bounded, thread-safe in-memory queue of incoming SMS backed by the database.
+ * Messages which do not fit in the queue remain unprocessed in the database
+ * and are loaded again once the queue has been drained.
+ */
 public class DatabaseSupportedInternalMemoryMessageQueue
     implements MessageQueue
 {
-    private List<IncomingSms> queue = new ArrayList<>();
+    private static final Log log = LogFactory.getLog( DatabaseSupportedInternalMemoryMessageQueue.class );
+
+    private static final int CAPACITY = 10000;
+
+    private final BlockingQueue<IncomingSms> queue = new LinkedBlockingQueue<>( CAPACITY );
+
+    /**
+     * Identifiers of messages which are queued or being processed.
+     */
+    private final Set<Integer> pending = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean overflow = false;
 
     // -------------------------------------------------------------------------
     // Dependencies
@@ -55,34 +78,76 @@ public class DatabaseSupportedInternalMemoryMessageQueue
     @Override
     public void put( IncomingSms message )
     {
-        queue.add( message );
+        if ( message.getId() != null && !pending.add( message.getId() ) )
+        {
+            return;
+        }
+
+        if ( !queue.offer( message ) )
+        {
+            if ( message.getId() != null )
+            {
+                pending.remove( message.getId() );
+            }
+
+            overflow = true;
+
+            log.warn( "Incoming SMS queue is full, SMS will be loaded from the database when the queue has been drained: " + message.getId() );
+        }
     }
 
     @Override
     public IncomingSms get()
     {
-        if ( queue != null && queue.size() > 0 )
+        IncomingSms message = queue.poll();
+
+        if ( message == null && overflow )
         {
-            return queue.get( 0 );
+            overflow = false;
+
+            addAll( incomingSmsStore.getSmsByStatus( SmsMessageStatus.INCOMING, "" ).stream()
+                .filter( sms -> !sms.isParsed() )
+                .collect( Collectors.toList() ) );
+
+            message = queue.poll();
         }
 
-        return null;
+        return message;
     }
 
     @Override
     public void remove( IncomingSms message )
     {
         queue.remove( message );
+
+        if ( message.getId() != null )
+        {
+            pending.remove( message.getId() );
+        }
     }
 
     @Override
     public void initialize()
     {
-        Collection<IncomingSms> messages = incomingSmsStore.getAllUnparsedSmses();
+        List<IncomingSms> messages = incomingSmsStore.getAllUnparsedSmses();
 
         if ( messages != null )
         {
-            queue.addAll( messages );
+            addAll( messages );
         }
     }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Adds the given messages in the order they were received.
+     */
+    private void addAll( List<IncomingSms> messages )
+    {
+        messages.sort( Comparator.comparing( IncomingSms::getId ) );
+
+        messages.forEach( this::put );
+    }
 }
@@ -28,23 +28,50 @@ package org.hisp.dhis.sms;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.annotation.Resource;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.hisp.dhis.common.ListMap;
+import org.hisp.dhis.commons.util.SystemUtils;
 import org.hisp.dhis.message.MessageSender;
+import org.hisp.dhis.sms.command.SMSCommand;
+import org.hisp.dhis.sms.command.SMSCommandService;
 import org.hisp.dhis.sms.incoming.IncomingSms;
 import org.hisp.dhis.sms.incoming.IncomingSmsListener;
 import org.hisp.dhis.sms.incoming.IncomingSmsService;
 import org.hisp.dhis.sms.incoming.SmsMessageStatus;
+import org.hisp.dhis.sms.parse.ParserType;
+import org.hisp.dhis.system.util.SmsUtils;
+import org.hisp.dhis.user.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
 
+/**
+ * Consumes incoming SMS from the message queue in batches. Messages in a batch
+ * are partitioned by originator and the partitions are processed concurrently,
+ * while messages from the same originator are processed in the order they were
+ * received.
+ */
 public class SmsConsumerThread
 {
     private static final Log log = LogFactory.getLog( SmsConsumerThread.class );
 
+    private static final int BATCH_SIZE = 1000;
+
     private List<IncomingSmsListener> listeners;
 
     @Autowired
@@ -57,59 +84,236 @@ public class SmsConsumerThread
     @Autowired
     private IncomingSmsService incomingSmsService;
 
+    @Autowired
+    private SMSCommandService smsCommandService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     public SmsConsumerThread()
     {
     }
 
     public void spawnSmsConsumer()
     {
-        IncomingSms message = messageQueue.get();
+        List<IncomingSms> batch = getBatch();
 
-        while ( message != null )
+        if ( batch.isEmpty() )
         {
-            log.info( "Received SMS: " + message.getText() );
-            
-            try
-            {
-                for ( IncomingSmsListener listener : listeners )
-                {
-                    if ( listener.accept( message ) )
-                    {
-                        listener.receive( message );
-                        messageQueue.remove( message );
-                        return;
-                    }
-                }
+            return;
+        }
 
-                log.warn( "No SMS command found in received data" );
+        ExecutorService executor = Executors.newFixedThreadPool( SystemUtils.getThreadPoolSize() );
 
-                message.setStatus( SmsMessageStatus.UNHANDLED );
+        try
+        {
+            while ( !batch.isEmpty() )
+            {
+                processBatch( batch, executor );
 
-                smsSender.sendMessage( null, "No command found", message.getOriginator() );
+                batch = getBatch();
             }
-            catch ( Exception e )
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Autowired
+    public void setListeners( List<IncomingSmsListener> listeners )
+    {
+        this.listeners = listeners;
+
+        log.info( "Following listners are registered: " + listeners );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Takes up to {@link #BATCH_SIZE} messages from the message queue.
+     */
+    private List<IncomingSms> getBatch()
+    {
+        List<IncomingSms> batch = new ArrayList<>();
+
+        IncomingSms message;
+
+        while ( batch.size() < BATCH_SIZE && ( message = messageQueue.get() ) != null )
+        {
+            batch.add( message );
+        }
+
+        return batch;
+    }
+
+    /**
+     * Partitions the given messages by originator. All messages of an
+     * originator are in the same partition, in the order of the given list.
+     *
+     * @param messages the messages.
+     * @param partitions the maximum number of partitions.
+     * @return the partitions.
+     */
+    static Collection<List<IncomingSms>> getPartitions( List<IncomingSms> messages, int partitions )
+    {
+        ListMap<Integer, IncomingSms> partitionMap = new ListMap<>();
+
+        for ( IncomingSms message : messages )
+        {
+            String originator = message.getOriginator();
+
+            partitionMap.putValue( Math.floorMod( originator != null ? originator.hashCode() : 0, partitions ), message );
+        }
+
+        return partitionMap.values();
+    }
+
+    /**
+     * Processes the given batch of messages with one task per partition of
+     * originators, then writes the resulting statuses in bulk. Each message
+     * is processed in its own transaction.
+     */
+    private void processBatch( List<IncomingSms> batch, ExecutorService executor )
+    {
+        Map<String, ParserType> commandParserTypes = getCommandParserTypes();
+
+        List<Future<?>> futures = new ArrayList<>();
+
+        for ( List<IncomingSms> partition : getPartitions( batch, SystemUtils.getThreadPoolSize() ) )
+        {
+            futures.add( executor.submit( () -> partition.forEach( message -> transactionTemplate.execute( status -> {
+                processMessage( message, commandParserTypes, status );
+                return null;
+            } ) ) ) );
+        }
+
+        try
+        {
+            for ( Future<?> future : futures )
             {
-                e.printStackTrace();
+                future.get();
+            }
+        }
+        catch ( ExecutionException ex )
+        {
+            throw new RuntimeException( "Exception during incoming SMS processing", ex.getCause() );
+        }
+        catch ( InterruptedException ex )
+        {
+            Thread.currentThread().interrupt();
+
+            throw new RuntimeException( "Incoming SMS processing was interrupted", ex );
+        }
+        finally
+        {
+            incomingSmsService.updateStatuses( batch );
+
+            batch.forEach( messageQueue::remove );
+        }
+
+        log.info( "Processed incoming SMS: " + batch.size() );
+    }
 
-                message.setStatus( SmsMessageStatus.FAILED );
-                message.setParsed( false );
+    /**
+     * Passes the given message to the first listener which accepts it. The
+     * message was loaded outside of the current transaction, so its user is
+     * reloaded here. The message itself stays detached, so that the status
+     * set by the listener is written only by the bulk update of the batch.
+     * Changes made for a message which fails are rolled back.
+     */
+    private void processMessage( IncomingSms message, Map<String, ParserType> commandParserTypes,
+        TransactionStatus status )
+    {
+        log.info( "Received SMS: " + message.getText() );
+
+        try
+        {
+            if ( message.getUser() != null )
+            {
+                message.setUser( userService.getUser( message.getUser().getId() ) );
             }
-            finally
+
+            Set<ParserType> parserTypes = getParserTypes( message, commandParserTypes );
+
+            for ( IncomingSmsListener listener : listeners )
             {
-                messageQueue.remove( message );
+                ParserType parserType = listener.getParserType();
+
+                if ( ( parserType == null || parserTypes.contains( parserType ) ) && listener.accept( message ) )
+                {
+                    listener.receive( message );
+                    return;
+                }
+            }
+
+            log.warn( "No SMS command found in received data" );
+
+            message.setStatus( SmsMessageStatus.UNHANDLED );
 
-                incomingSmsService.update( message );
+            smsSender.sendMessage( null, "No command found", message.getOriginator() );
+        }
+        catch ( Exception e )
+        {
+            log.error( "Exception during processing of incoming SMS: " + message.getId(), e );
 
-                message = messageQueue.get();
+            message.setStatus( SmsMessageStatus.FAILED );
+            message.setParsed( false );
+
+            status.setRollbackOnly();
+        }
+    }
+
+    /**
+     * Returns the parser types of all SMS commands by lower case command name.
+     */
+    private Map<String, ParserType> getCommandParserTypes()
+    {
+        Map<String, ParserType> commandParserTypes = new HashMap<>();
+
+        for ( SMSCommand smsCommand : smsCommandService.getSMSCommands() )
+        {
+            if ( smsCommand.getName() != null )
+            {
+                commandParserTypes.put( smsCommand.getName().toLowerCase(), smsCommand.getParserType() );
             }
         }
+
+        return commandParserTypes;
     }
 
-    @Autowired
-    public void setListeners( List<IncomingSmsListener> listeners )
+    /**
+     * Returns the parser types of the SMS commands which may match the command
+     * of the given message. Mirrors the case-insensitive partial match on command
+     * name used by the listeners, so that only listeners for these parser types
+     * need to look up the command.
+     */
+    private Set<ParserType> getParserTypes( IncomingSms message, Map<String, ParserType> commandParserTypes )
     {
-        this.listeners = listeners;
+        Set<ParserType> parserTypes = new HashSet<>();
 
-        log.info( "Following listners are registered: " + listeners );
+        String commandString = SmsUtils.getCommandString( message );
+
+        if ( commandString == null )
+        {
+            return parserTypes;
+        }
+
+        String command = commandString.toLowerCase();
+
+        for ( Map.Entry<String, ParserType> entry : commandParserTypes.entrySet() )
+        {
+            if ( entry.getKey().contains( command ) )
+            {
+                parserTypes.add( entry.getValue() );
+            }
+        }
+
+        return parserTypes;
     }
 }
@@ -28,7 +28,10 @@ package org.hisp.dhis.sms.hibernate;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import org.hibernate.Criteria;
 import org.hibernate.Session;
@@ -126,6 +129,28 @@ public class HibernateIncomingSmsStore
         sessionFactory.getCurrentSession().update( incomingSms );
     }
 
+    @Override
+    public void updateStatuses( Collection<IncomingSms> incomingSmses )
+    {
+        Map<Boolean, Map<SmsMessageStatus, List<Integer>>> ids = incomingSmses.stream()
+            .collect( Collectors.partitioningBy( IncomingSms::isParsed, Collectors.groupingBy( IncomingSms::getStatus,
+                Collectors.mapping( IncomingSms::getId, Collectors.toList() ) ) ) );
+
+        String hql = "update IncomingSms set status = :status, parsed = :parsed where id in (:ids)";
+
+        for ( Map.Entry<Boolean, Map<SmsMessageStatus, List<Integer>>> parsed : ids.entrySet() )
+        {
+            for ( Map.Entry<SmsMessageStatus, List<Integer>> status : parsed.getValue().entrySet() )
+            {
+                sessionFactory.getCurrentSession().createQuery( hql )
+                    .setParameter( "status", status.getKey() )
+                    .setParameter( "parsed", parsed.getKey() )
+                    .setParameterList( "ids", status.getValue() )
+                    .executeUpdate();
+            }
+        }
+    }
+
     @SuppressWarnings( "unchecked" )
     @Override
     public List<IncomingSms> getAllUnparsedSmses()
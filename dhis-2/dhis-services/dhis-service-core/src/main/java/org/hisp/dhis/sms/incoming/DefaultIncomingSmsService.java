@@ -28,6 +28,7 @@ package org.hisp.dhis.sms.incoming;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
@@ -136,6 +137,12 @@ public class DefaultIncomingSmsService
         incomingSmsStore.update( incomingSms );
     }
 
+    @Override
+    public void updateStatuses( Collection<IncomingSms> smses )
+    {
+        incomingSmsStore.updateStatuses( smses );
+    }
+
     @Override
     public List<IncomingSms> getSmsByStatus( SmsMessageStatus status, String keyword )
     {
@@ -40,7 +40,6 @@ import org.hisp.dhis.sms.command.SMSCommand;
 import org.hisp.dhis.sms.command.code.SMSCode;
 import org.hisp.dhis.sms.incoming.IncomingSms;
 import org.hisp.dhis.sms.incoming.IncomingSmsListener;
-import org.hisp.dhis.sms.incoming.IncomingSmsService;
 import org.hisp.dhis.sms.incoming.SmsMessageStatus;
 import org.hisp.dhis.system.util.SmsUtils;
 import org.hisp.dhis.trackedentitydatavalue.TrackedEntityDataValue;
@@ -96,9 +95,6 @@ public abstract class BaseSMSListener implements IncomingSmsListener
     @Autowired
     private UserService userService;
 
-    @Autowired
-    private IncomingSmsService incomingSmsService;
-
     @Resource( name = "smsMessageSender" )
     private MessageSender smsSender;
 
@@ -182,12 +178,14 @@ public abstract class BaseSMSListener implements IncomingSmsListener
         return userService.getUser( sms.getUser().getUid() );
     }
 
+    /**
+     * Sets the status of the given SMS. The status is not written here, but by
+     * the caller of the listener once processing has completed.
+     */
     protected void update( IncomingSms sms, SmsMessageStatus status, boolean parsed )
     {
         sms.setStatus( status );
         sms.setParsed( parsed );
-
-        incomingSmsService.update( sms );
     }
 
     protected boolean validateInputValues( Map<String, String> commandValuePairs, SMSCommand smsCommand, IncomingSms sms )
@@ -62,6 +62,12 @@ public class DhisMessageAlertListener
     @Resource( name = "smsMessageSender" )
     private MessageSender smsSender;
 
+    @Override
+    public ParserType getParserType()
+    {
+        return ParserType.ALERT_PARSER;
+    }
+
     @Override
     protected SMSCommand getSMSCommand( IncomingSms sms )
     {
@@ -102,6 +102,12 @@ public class ProgramStageDataEntrySMSListener
         registerProgramStage( teis.iterator().next(), sms, smsCommand, parsedMessage, ous );
     }
 
+    @Override
+    public ParserType getParserType()
+    {
+        return ParserType.PROGRAM_STAGE_DATAENTRY_PARSER;
+    }
+
     @Override
     protected SMSCommand getSMSCommand( IncomingSms sms )
     {
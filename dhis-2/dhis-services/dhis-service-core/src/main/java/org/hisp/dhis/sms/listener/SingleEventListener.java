@@ -66,6 +66,12 @@ public class SingleEventListener
     // Implementation
     // -------------------------------------------------------------------------
 
+    @Override
+    public ParserType getParserType()
+    {
+        return ParserType.EVENT_REGISTRATION_PARSER;
+    }
+
     @Override
     protected SMSCommand getSMSCommand( IncomingSms sms )
     {
@@ -70,6 +70,12 @@ public class UnregisteredSMSListener
     // IncomingSmsListener implementation
     // -------------------------------------------------------------------------
 
+    @Override
+    public ParserType getParserType()
+    {
+        return ParserType.UNREGISTERED_PARSER;
+    }
+
     @Override
     protected SMSCommand getSMSCommand( IncomingSms sms )
     {
@@ -1027,6 +1027,8 @@ public class TableAlteror
 
         upgradeDataValueSoftDelete();
 
+        addFileResourceContentMd5Index();
+
         initOauth2();
 
         upgradeDataValuesWithAttributeOptionCombo();
@@ -1130,6 +1132,11 @@ public class TableAlteror
         executeSql( "create index in_datavalue_deleted on datavalue(deleted)" );
     }
 
+    private void addFileResourceContentMd5Index()
+    {
+        executeSql( "create index in_fileresource_contentmd5 on fileresource(contentmd5)" );
+    }
+
     private void initOauth2()
     {
         // OAuth2
@@ -115,6 +115,7 @@ public class TableAlteror
         executeSql( "CREATE INDEX index_programinstance ON programinstance( programinstanceid )" );
         executeSql( "CREATE INDEX index_trackedentitydatavalue_programstageinstanceid ON trackedentitydatavalue( programstageinstanceid )" );
         executeSql( "CREATE INDEX index_trackedentitydatavalueaudit_programstageinstanceid ON trackedentitydatavalueaudit( programstageinstanceid )" );
+        executeSql( "CREATE INDEX index_programstageinstance_lastupdated_id ON programstageinstance( lastupdated desc, programstageinstanceid desc )" );
 
         executeSql( "ALTER TABLE program DROP COLUMN maxDaysAllowedInputData" );
 
@@ -0,0 +1,116 @@
+package org.hisp.dhis.cache;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+import org.hisp.dhis.DhisTest;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.dataelement.DataElementService;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.organisationunit.OrganisationUnitHierarchyIndex;
+import org.hisp.dhis.organisationunit.OrganisationUnitService;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the publishing of invalidations on commit and the clearing of caches
+ * subscribed to the {@link CacheInvalidationBus}. Changes are committed, hence
+ * the test is not transactional.
+ */
+public class HibernateCacheInvalidationListenerTest
+    extends DhisTest
+{
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Autowired
+    private DataElementService dataElementService;
+
+    @Autowired
+    private OrganisationUnitService organisationUnitService;
+
+    @Override
+    protected boolean emptyDatabaseAfterTest()
+    {
+        return true;
+    }
+
+    @Test
+    public void testPublishSubscribedRegionOnCommit()
+    {
+        List<String> keys = new ArrayList<>();
+
+        cacheInvalidationBus.subscribe( DataElement.class.getName(), keys::add );
+
+        DataElement dataElement = createDataElement( 'A' );
+        dataElementService.addDataElement( dataElement );
+
+        assertEquals( Collections.singletonList( String.valueOf( dataElement.getId() ) ), keys );
+
+        dataElement.setName( "DataElementUpdated" );
+        dataElementService.updateDataElement( dataElement );
+
+        assertEquals( 2, keys.size() );
+    }
+
+    @Test
+    public void testClearOrganisationUnitIndexesOnInvalidation()
+    {
+        OrganisationUnitHierarchyIndex index = organisationUnitService.getOrganisationUnitHierarchyIndex();
+
+        assertSame( index, organisationUnitService.getOrganisationUnitHierarchyIndex() );
+
+        cacheInvalidationBus.invalidate( OrganisationUnit.class.getName(), "1" );
+
+        assertNotSame( index, organisationUnitService.getOrganisationUnitHierarchyIndex() );
+    }
+
+    @Test
+    public void testClearOrganisationUnitIndexesOnCommit()
+    {
+        OrganisationUnit organisationUnit = createOrganisationUnit( 'A' );
+        organisationUnitService.addOrganisationUnit( organisationUnit );
+
+        OrganisationUnitHierarchyIndex index = organisationUnitService.getOrganisationUnitHierarchyIndex();
+
+        assertTrue( cacheInvalidationBus.isSubscribed( OrganisationUnit.class.getName() ) );
+
+        organisationUnit.setName( "OrganisationUnitUpdated" );
+        organisationUnitService.updateOrganisationUnit( organisationUnit );
+
+        assertNotSame( index, organisationUnitService.getOrganisationUnitHierarchyIndex() );
+    }
+}
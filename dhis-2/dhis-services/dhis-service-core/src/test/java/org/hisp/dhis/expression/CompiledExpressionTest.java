@@ -0,0 +1,211 @@
+package org.hisp.dhis.expression;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import com.google.common.collect.ImmutableMap;
+import org.hisp.dhis.DhisConvenienceTest;
+import org.hisp.dhis.common.DimensionalItemObject;
+import org.hisp.dhis.dataelement.DataElement;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hisp.dhis.expression.MissingValueStrategy.*;
+import static org.junit.Assert.*;
+
+public class CompiledExpressionTest
+    extends DhisConvenienceTest
+{
+    private static final double DELTA = 0.01;
+
+    private DataElement deA;
+    private DataElement deB;
+
+    private Map<DimensionalItemObject, Double> valueMap;
+
+    private Map<String, Double> constantMap;
+
+    private Map<String, Integer> orgUnitCountMap;
+
+    @Before
+    public void before()
+    {
+        deA = createDataElement( 'A' );
+        deB = createDataElement( 'B' );
+
+        valueMap = new HashMap<>();
+        valueMap.put( deA, 12d );
+        valueMap.put( deB, 34d );
+
+        constantMap = ImmutableMap.of( "xxxxxxxxx05", 2d );
+        orgUnitCountMap = ImmutableMap.of( "xxxxxxxxx06", 20 );
+    }
+
+    private String item( DataElement dataElement )
+    {
+        return "#{" + dataElement.getUid() + "}";
+    }
+
+    @Test
+    public void testEvaluate()
+    {
+        CompiledExpression expression = CompiledExpression.compile(
+            item( deA ) + " + " + item( deB ) + " * C{xxxxxxxxx05}" );
+
+        assertNotNull( expression );
+        assertEquals( 80d, expression.evaluate( valueMap, constantMap, orgUnitCountMap, null, NEVER_SKIP ), DELTA );
+
+        valueMap.put( deA, 2d );
+
+        assertEquals( 70d, expression.evaluate( valueMap, constantMap, orgUnitCountMap, null, NEVER_SKIP ), DELTA );
+    }
+
+    @Test
+    public void testEvaluateRepeatedItem()
+    {
+        CompiledExpression expression = CompiledExpression.compile( item( deA ) + " * " + item( deA ) );
+
+        assertEquals( 144d, expression.evaluate( valueMap, constantMap, orgUnitCountMap, null, NEVER_SKIP ), DELTA );
+    }
+
+    @Test
+    public void testEvaluateOrgUnitGroupsAndDays()
+    {
+        CompiledExpression expression = CompiledExpression.compile( "OUG{xxxxxxxxx06} * [days] + OUG{xxxxxxxxx07}" );
+
+        assertEquals( 600d, expression.evaluate( valueMap, constantMap, orgUnitCountMap, 30, NEVER_SKIP ), DELTA );
+        assertEquals( 0d, expression.evaluate( valueMap, constantMap, orgUnitCountMap, null, NEVER_SKIP ), DELTA );
+    }
+
+    @Test
+    public void testEvaluateScalarFunction()
+    {
+        CompiledExpression expression = CompiledExpression.compile( "if(" + item( deA ) + " > 10, 1, 0)" );
+
+        assertEquals( 1d, expression.evaluate( valueMap, constantMap, orgUnitCountMap, null, NEVER_SKIP ), DELTA );
+    }
+
+    @Test
+    public void testEvaluateMissingValues()
+    {
+        CompiledExpression expression = CompiledExpression.compile( item( deA ) + " + " + item( deB ) );
+
+        valueMap.remove( deB );
+
+        assertEquals( 12d, expression.evaluate( valueMap, constantMap, orgUnitCountMap, null, NEVER_SKIP ), DELTA );
+        assertEquals( 12d, expression.evaluate( valueMap, constantMap, orgUnitCountMap, null, SKIP_IF_ALL_VALUES_MISSING ), DELTA );
+        assertNull( expression.evaluate( valueMap, constantMap, orgUnitCountMap, null, SKIP_IF_ANY_VALUE_MISSING ) );
+
+        valueMap.remove( deA );
+
+        assertEquals( 0d, expression.evaluate( valueMap, constantMap, orgUnitCountMap, null, NEVER_SKIP ), DELTA );
+        assertNull( expression.evaluate( valueMap, constantMap, orgUnitCountMap, null, SKIP_IF_ALL_VALUES_MISSING ) );
+    }
+
+    @Test
+    public void testEvaluateSeveralExpressions()
+    {
+        CompiledExpression expressionA = CompiledExpression.compile(
+            item( deA ) + " + " + item( deB ) + " * C{xxxxxxxxx05}" );
+        CompiledExpression expressionB = CompiledExpression.compile( item( deB ) + " - " + item( deA ) );
+        CompiledExpression expressionC = CompiledExpression.compile( "[days] * 2" );
+
+        assertEquals( 80d, expressionA.evaluate( valueMap, constantMap, orgUnitCountMap, null, NEVER_SKIP ), DELTA );
+        assertEquals( 22d, expressionB.evaluate( valueMap, constantMap, orgUnitCountMap, null, NEVER_SKIP ), DELTA );
+        assertEquals( 60d, expressionC.evaluate( valueMap, constantMap, orgUnitCountMap, 30, NEVER_SKIP ), DELTA );
+
+        valueMap.remove( deB );
+
+        assertEquals( -12d, expressionB.evaluate( valueMap, constantMap, orgUnitCountMap, null, NEVER_SKIP ), DELTA );
+        assertEquals( 12d, expressionA.evaluate( valueMap, constantMap, orgUnitCountMap, null, NEVER_SKIP ), DELTA );
+        assertNull( expressionA.evaluate( valueMap, constantMap, orgUnitCountMap, null, SKIP_IF_ANY_VALUE_MISSING ) );
+        assertEquals( 0d, expressionC.evaluate( valueMap, constantMap, orgUnitCountMap, null, NEVER_SKIP ), DELTA );
+    }
+
+    @Test
+    public void testEvaluateConcurrently()
+        throws Exception
+    {
+        CompiledExpression expression = CompiledExpression.compile( item( deA ) + " * C{xxxxxxxxx05}" );
+
+        ExecutorService executor = Executors.newFixedThreadPool( 4 );
+
+        try
+        {
+            List<Future<Boolean>> futures = new ArrayList<>();
+
+            for ( int i = 0; i < 4; i++ )
+            {
+                final double value = i;
+
+                futures.add( executor.submit( () -> {
+                    Map<DimensionalItemObject, Double> values = ImmutableMap.of( deA, value );
+
+                    for ( int j = 0; j < 1000; j++ )
+                    {
+                        Double result = expression.evaluate( values, constantMap, orgUnitCountMap, null, NEVER_SKIP );
+
+                        if ( result == null || Math.abs( result - value * 2 ) > DELTA )
+                        {
+                            return false;
+                        }
+                    }
+
+                    return true;
+                } ) );
+            }
+
+            for ( Future<Boolean> future : futures )
+            {
+                assertTrue( future.get() );
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCompileNotSupported()
+    {
+        assertNull( CompiledExpression.compile( null ) );
+        assertNull( CompiledExpression.compile( "" ) );
+        assertNull( CompiledExpression.compile( "isNull(" + item( deA ) + ")" ) );
+        assertNull( CompiledExpression.compile( "sum(" + item( deA ) + ")" ) );
+        assertNull( CompiledExpression.compile( "2 +* 3" ) );
+    }
+}
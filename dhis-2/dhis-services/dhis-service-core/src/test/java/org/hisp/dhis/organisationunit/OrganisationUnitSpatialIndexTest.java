@@ -0,0 +1,105 @@
+package org.hisp.dhis.organisationunit;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class OrganisationUnitSpatialIndexTest
+{
+    private static final String POLYGON_A = "[[[0.0,0.0],[10.0,0.0],[10.0,10.0],[0.0,10.0],[0.0,0.0]]]";
+    private static final String POLYGON_B = "[[[0.0,0.0],[5.0,0.0],[5.0,5.0],[0.0,5.0],[0.0,0.0]]]";
+    private static final String MULTI_POLYGON_C = "[[[[5.0,5.0],[10.0,5.0],[10.0,10.0],[5.0,10.0],[5.0,5.0]]]]";
+
+    private OrganisationUnitSpatialIndex index;
+
+    @Before
+    public void before()
+    {
+        index = new OrganisationUnitSpatialIndex();
+
+        index.add( 1, 1, FeatureType.POLYGON, POLYGON_A );
+        index.add( 2, 2, FeatureType.POLYGON, POLYGON_B );
+        index.add( 3, 2, FeatureType.MULTI_POLYGON, MULTI_POLYGON_C );
+        index.add( 4, 3, FeatureType.POINT, "[1.0,1.0]" );
+        index.add( 5, 3, FeatureType.POINT, "[1.5,1.0]" );
+        index.add( 6, 3, FeatureType.POINT, "[3.0,1.0]" );
+        index.add( 7, 2, FeatureType.POLYGON, "[[[invalid" );
+        index.add( 8, 2, FeatureType.NONE, POLYGON_A );
+
+        index.build();
+    }
+
+    @Test
+    public void testGetPolygonLevels()
+    {
+        assertEquals( 2, index.getPolygonLevels().size() );
+        assertEquals( Integer.valueOf( 1 ), index.getPolygonLevels().first() );
+        assertEquals( Integer.valueOf( 2 ), index.getPolygonLevels().last() );
+    }
+
+    @Test
+    public void testGetPolygonsContaining()
+    {
+        List<Integer> ids = index.getPolygonsContaining( 2.0, 2.0, 1 );
+        assertEquals( 1, ids.size() );
+        assertTrue( ids.contains( 1 ) );
+
+        ids = index.getPolygonsContaining( 2.0, 2.0, 2 );
+        assertEquals( 1, ids.size() );
+        assertTrue( ids.contains( 2 ) );
+
+        ids = index.getPolygonsContaining( 7.0, 8.0, 2 );
+        assertEquals( 1, ids.size() );
+        assertTrue( ids.contains( 3 ) );
+
+        assertTrue( index.getPolygonsContaining( 7.0, 2.0, 2 ).isEmpty() );
+        assertTrue( index.getPolygonsContaining( 20.0, 20.0, 1 ).isEmpty() );
+        assertTrue( index.getPolygonsContaining( 2.0, 2.0, 3 ).isEmpty() );
+    }
+
+    @Test
+    public void testGetPointsWithinDistance()
+    {
+        List<Integer> ids = index.getPointsWithinDistance( 1.0, 1.0, 100000 );
+        assertEquals( 2, ids.size() );
+        assertTrue( ids.contains( 4 ) );
+        assertTrue( ids.contains( 5 ) );
+
+        ids = index.getPointsWithinDistance( 1.0, 1.0, 1000 );
+        assertEquals( 1, ids.size() );
+        assertTrue( ids.contains( 4 ) );
+
+        assertTrue( index.getPointsWithinDistance( 50.0, 50.0, 1000 ).isEmpty() );
+    }
+}
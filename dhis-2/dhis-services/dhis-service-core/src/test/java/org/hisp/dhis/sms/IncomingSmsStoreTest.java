@@ -0,0 +1,118 @@
+package org.hisp.dhis.sms;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.hibernate.SessionFactory;
+import org.hisp.dhis.DhisSpringTest;
+import org.hisp.dhis.sms.incoming.IncomingSms;
+import org.hisp.dhis.sms.incoming.IncomingSmsStore;
+import org.hisp.dhis.sms.incoming.SmsMessageStatus;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IncomingSmsStoreTest
+    extends DhisSpringTest
+{
+    @Autowired
+    private IncomingSmsStore incomingSmsStore;
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private IncomingSms createIncomingSms( String originator, String text )
+    {
+        IncomingSms sms = new IncomingSms();
+        sms.setOriginator( originator );
+        sms.setText( text );
+        sms.setGatewayId( "GatewayA" );
+        sms.setSentDate( new Date() );
+        sms.setReceivedDate( new Date() );
+
+        return sms;
+    }
+
+    private List<Integer> getIds( SmsMessageStatus status )
+    {
+        return incomingSmsStore.getSmsByStatus( status, "" ).stream()
+            .map( IncomingSms::getId ).sorted().collect( Collectors.toList() );
+    }
+
+    // -------------------------------------------------------------------------
+    // Tests
+    // -------------------------------------------------------------------------
+
+    @Test
+    public void testUpdateStatuses()
+    {
+        IncomingSms smsA = createIncomingSms( "4740000001", "TextA" );
+        IncomingSms smsB = createIncomingSms( "4740000002", "TextB" );
+        IncomingSms smsC = createIncomingSms( "4740000003", "TextC" );
+        IncomingSms smsD = createIncomingSms( "4740000004", "TextD" );
+
+        incomingSmsStore.save( smsA );
+        incomingSmsStore.save( smsB );
+        incomingSmsStore.save( smsC );
+        incomingSmsStore.save( smsD );
+
+        // Statuses are set on detached messages, as by the SMS consumer
+
+        sessionFactory.getCurrentSession().flush();
+        sessionFactory.getCurrentSession().clear();
+
+        smsA.setStatus( SmsMessageStatus.PROCESSED );
+        smsA.setParsed( true );
+        smsB.setStatus( SmsMessageStatus.PROCESSED );
+        smsB.setParsed( true );
+        smsC.setStatus( SmsMessageStatus.FAILED );
+        smsC.setParsed( false );
+
+        incomingSmsStore.updateStatuses( newArrayList( smsA, smsB, smsC ) );
+
+        assertEquals( newArrayList( smsA.getId(), smsB.getId() ), getIds( SmsMessageStatus.PROCESSED ) );
+        assertEquals( newArrayList( smsC.getId() ), getIds( SmsMessageStatus.FAILED ) );
+        assertEquals( newArrayList( smsD.getId() ), getIds( SmsMessageStatus.INCOMING ) );
+
+        assertTrue( incomingSmsStore.get( smsA.getId() ).isParsed() );
+        assertFalse( incomingSmsStore.get( smsC.getId() ).isParsed() );
+        assertFalse( incomingSmsStore.get( smsD.getId() ).isParsed() );
+    }
+}
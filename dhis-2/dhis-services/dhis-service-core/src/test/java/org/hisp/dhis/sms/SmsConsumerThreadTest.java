@@ -0,0 +1,107 @@
+package org.hisp.dhis.sms;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.hisp.dhis.sms.incoming.IncomingSms;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SmsConsumerThreadTest
+{
+    private IncomingSms createIncomingSms( int id, String originator )
+    {
+        IncomingSms sms = new IncomingSms();
+        sms.setId( id );
+        sms.setOriginator( originator );
+
+        return sms;
+    }
+
+    @Test
+    public void testGetPartitions()
+    {
+        List<IncomingSms> messages = new ArrayList<>();
+
+        for ( int i = 0; i < 100; i++ )
+        {
+            messages.add( createIncomingSms( i, "47400000" + ( i % 10 ) ) );
+        }
+
+        messages.add( createIncomingSms( 100, null ) );
+
+        Collection<List<IncomingSms>> partitions = SmsConsumerThread.getPartitions( messages, 4 );
+
+        assertTrue( partitions.size() <= 4 );
+        assertEquals( messages.size(), partitions.stream().mapToInt( List::size ).sum() );
+
+        for ( int i = 0; i < 10; i++ )
+        {
+            String originator = "47400000" + i;
+
+            List<List<IncomingSms>> originatorPartitions = partitions.stream()
+                .filter( p -> p.stream().anyMatch( m -> originator.equals( m.getOriginator() ) ) )
+                .collect( Collectors.toList() );
+
+            assertEquals( 1, originatorPartitions.size() );
+
+            List<Integer> ids = originatorPartitions.get( 0 ).stream()
+                .filter( m -> originator.equals( m.getOriginator() ) )
+                .map( IncomingSms::getId ).collect( Collectors.toList() );
+
+            assertEquals( 10, ids.size() );
+
+            for ( int j = 1; j < ids.size(); j++ )
+            {
+                assertTrue( ids.get( j - 1 ) < ids.get( j ) );
+            }
+        }
+    }
+
+    @Test
+    public void testGetPartitionsSinglePartition()
+    {
+        List<IncomingSms> messages = new ArrayList<>();
+
+        messages.add( createIncomingSms( 1, "4740000001" ) );
+        messages.add( createIncomingSms( 2, "4740000002" ) );
+        messages.add( createIncomingSms( 3, "4740000001" ) );
+
+        Collection<List<IncomingSms>> partitions = SmsConsumerThread.getPartitions( messages, 1 );
+
+        assertEquals( 1, partitions.size() );
+        assertEquals( messages, partitions.iterator().next() );
+    }
+}
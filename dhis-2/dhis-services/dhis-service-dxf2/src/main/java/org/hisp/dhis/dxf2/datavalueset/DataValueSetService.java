@@ -80,7 +80,16 @@ public interface DataValueSetService
 
     void writeDataValueSetJson( DataExportParams params, OutputStream out );
 
-    void writeDataValueSetJson( Date lastUpdated, OutputStream outputStream, IdSchemes idSchemes );
+    /**
+     * Writes the data values which were last updated within the given time
+     * range as JSON.
+     *
+     * @param lastUpdatedStart the inclusive start of the last updated range.
+     * @param lastUpdatedEnd the exclusive end of the last updated range, can be null.
+     * @param outputStream the stream to write to.
+     * @param idSchemes the identifier schemes.
+     */
+    void writeDataValueSetJson( Date lastUpdatedStart, Date lastUpdatedEnd, OutputStream outputStream, IdSchemes idSchemes );
 
     void writeDataValueSetCsv( DataExportParams params, Writer writer );
 
@@ -46,5 +46,5 @@ public interface DataValueSetStore
 
     void writeDataValueSetCsv( DataExportParams params, Date completeDate, Writer writer );
 
-    void writeDataValueSetJson( Date lastUpdated, OutputStream outputStream, IdSchemes idSchemes );
+    void writeDataValueSetJson( Date lastUpdatedStart, Date lastUpdatedEnd, OutputStream outputStream, IdSchemes idSchemes );
 }
@@ -59,6 +59,8 @@ import org.hisp.dhis.datavalue.AggregateAccessManager;
 import org.hisp.dhis.datavalue.DataExportParams;
 import org.hisp.dhis.datavalue.DataValue;
 import org.hisp.dhis.datavalue.DataValueAudit;
+import org.hisp.dhis.datavalue.DataValueService;
+import org.hisp.dhis.datavalue.DeflatedDataValue;
 import org.hisp.dhis.dxf2.common.ImportOptions;
 import org.hisp.dhis.dxf2.importsummary.ImportConflict;
 import org.hisp.dhis.dxf2.importsummary.ImportCount;
@@ -110,8 +112,10 @@ import java.io.Writer;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -132,6 +136,7 @@ public class DefaultDataValueSetService
 
     private static final String ERROR_OBJECT_NEEDED_TO_COMPLETE = "Must be provided to complete data set";
     private static final int CACHE_MISS_THRESHOLD = 250;
+    private static final int IMPORT_CHUNK_SIZE = 5000;
 
     @Autowired
     private IdentifiableObjectManager identifiableObjectManager;
@@ -151,6 +156,9 @@ public class DefaultDataValueSetService
     @Autowired
     private BatchHandlerFactory batchHandlerFactory;
 
+    @Autowired
+    private DataValueService dataValueService;
+
     @Autowired
     private CompleteDataSetRegistrationService registrationService;
 
@@ -358,9 +366,9 @@ public class DefaultDataValueSetService
     }
 
     @Override
-    public void writeDataValueSetJson( Date lastUpdated, OutputStream outputStream, IdSchemes idSchemes )
+    public void writeDataValueSetJson( Date lastUpdatedStart, Date lastUpdatedEnd, OutputStream outputStream, IdSchemes idSchemes )
     {
-        dataValueSetStore.writeDataValueSetJson( lastUpdated, outputStream, idSchemes );
+        dataValueSetStore.writeDataValueSetJson( lastUpdatedStart, lastUpdatedEnd, outputStream, idSchemes );
     }
 
     @Override
@@ -798,9 +806,8 @@ public class DefaultDataValueSetService
         BatchHandler<DataValue> dataValueBatchHandler = batchHandlerFactory.createBatchHandler( DataValueBatchHandler.class ).init();
         BatchHandler<DataValueAudit> auditBatchHandler = batchHandlerFactory.createBatchHandler( DataValueAuditBatchHandler.class ).init();
 
-        int importCount = 0;
-        int updateCount = 0;
-        int deleteCount = 0;
+        ImportCount importCount = new ImportCount();
+        List<DataValue> chunk = new ArrayList<>( IMPORT_CHUNK_SIZE );
         int totalCount = 0;
 
         // ---------------------------------------------------------------------
@@ -911,7 +918,7 @@ public class DefaultDataValueSetService
                 }
             }
 
-            boolean inUserHierarchy = orgUnitInHierarchyMap.get( orgUnit.getUid(), () -> orgUnit.isDescendant( currentOrgUnits ) );
+            boolean inUserHierarchy = orgUnitInHierarchyMap.get( orgUnit.getUid(), () -> organisationUnitService.isDescendant( orgUnit, currentOrgUnits ) );
 
             if ( !inUserHierarchy )
             {
@@ -1145,10 +1152,119 @@ public class DefaultDataValueSetService
             }
 
             // -----------------------------------------------------------------
-            // Save, update or delete data value
+            // Save, update or delete data values in chunks
             // -----------------------------------------------------------------
 
-            DataValue existingValue = !skipExistingCheck ? dataValueBatchHandler.findObject( internalValue ) : null;
+            chunk.add( internalValue );
+
+            if ( chunk.size() >= IMPORT_CHUNK_SIZE )
+            {
+                importDataValues( chunk, strategy, dryRun, skipExistingCheck, dataValueBatchHandler, auditBatchHandler, importCount );
+
+                chunk.clear();
+            }
+        }
+
+        importDataValues( chunk, strategy, dryRun, skipExistingCheck, dataValueBatchHandler, auditBatchHandler, importCount );
+
+        dataValueBatchHandler.flush();
+        auditBatchHandler.flush();
+
+        importCount.setIgnored( totalCount - importCount.getImported() - importCount.getUpdated() - importCount.getDeleted() );
+
+        summary.setImportCount( importCount );
+        summary.setStatus( summary.getConflicts().isEmpty() ? ImportStatus.SUCCESS : ImportStatus.WARNING );
+        summary.setDescription( "Import process completed successfully" );
+
+        clock.logTime( "Data value import done, total: " + totalCount + ", import: " + importCount.getImported() +
+            ", update: " + importCount.getUpdated() + ", delete: " + importCount.getDeleted() );
+        notifier.notify( id, notificationLevel, "Import done", true ).addJobSummary( id, notificationLevel, summary, ImportSummary.class );
+
+        dataValueSet.close();
+
+        return summary;
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private void handleComplete( DataSet dataSet, Date completeDate, Period period, OrganisationUnit orgUnit,
+        CategoryOptionCombo attributeOptionCombo, ImportSummary summary )
+    {
+        if ( orgUnit == null )
+        {
+            summary.getConflicts().add( new ImportConflict( OrganisationUnit.class.getSimpleName(), ERROR_OBJECT_NEEDED_TO_COMPLETE ) );
+            return;
+        }
+
+        if ( period == null )
+        {
+            summary.getConflicts().add( new ImportConflict( Period.class.getSimpleName(), ERROR_OBJECT_NEEDED_TO_COMPLETE ) );
+            return;
+        }
+
+        period = periodService.reloadPeriod( period );
+
+        CompleteDataSetRegistration completeAlready = registrationService
+            .getCompleteDataSetRegistration( dataSet, period, orgUnit, attributeOptionCombo );
+
+        String username = currentUserService.getCurrentUsername();
+
+        if ( completeAlready != null )
+        {
+            completeAlready.setStoredBy( username );
+            completeAlready.setDate( completeDate );
+
+            registrationService.updateCompleteDataSetRegistration( completeAlready );
+        }
+        else
+        {
+            CompleteDataSetRegistration registration = new CompleteDataSetRegistration( dataSet, period, orgUnit,
+                attributeOptionCombo, completeDate, username );
+
+            registrationService.saveCompleteDataSetRegistration( registration );
+        }
+
+        summary.setDataSetComplete( DateUtils.getMediumDateString( completeDate ) );
+    }
+
+    /**
+     * Saves, updates or deletes the given chunk of data values. Existing data
+     * values for the chunk are looked up with a single query instead of one
+     * query per data value.
+     *
+     * @param chunk                 the chunk of data values.
+     * @param strategy              the import strategy.
+     * @param dryRun                whether to perform a dry run.
+     * @param skipExistingCheck     whether to skip checking for existing data values.
+     * @param dataValueBatchHandler the data value batch handler.
+     * @param auditBatchHandler     the data value audit batch handler.
+     * @param importCount           the import count to update.
+     */
+    private void importDataValues( List<DataValue> chunk, ImportStrategy strategy, boolean dryRun, boolean skipExistingCheck,
+        BatchHandler<DataValue> dataValueBatchHandler, BatchHandler<DataValueAudit> auditBatchHandler, ImportCount importCount )
+    {
+        if ( chunk.isEmpty() )
+        {
+            return;
+        }
+
+        Map<String, DeflatedDataValue> existingValues = new HashMap<>();
+
+        if ( !skipExistingCheck )
+        {
+            dataValueService.getDeflatedDataValues( chunk ).forEach( dv -> existingValues.put( getDataValueKey( dv.getDataElementId(),
+                dv.getPeriodId(), dv.getSourceId(), dv.getCategoryOptionComboId(), dv.getAttributeOptionComboId() ), dv ) );
+        }
+
+        for ( DataValue internalValue : chunk )
+        {
+            final DataElement dataElement = internalValue.getDataElement();
+            final String storedBy = internalValue.getStoredBy();
+
+            DeflatedDataValue existingValue = existingValues.get( getDataValueKey( dataElement.getId(), internalValue.getPeriod().getId(),
+                internalValue.getSource().getId(), internalValue.getCategoryOptionCombo().getId(), internalValue.getAttributeOptionCombo().getId() ) );
 
             // -----------------------------------------------------------------
             // Check soft deleted data values on update and import
@@ -1166,11 +1282,11 @@ public class DefaultDataValueSetService
 
                         auditValue.setAuditType( AuditType.DELETE );
 
-                        deleteCount++;
+                        importCount.incrementDeleted();
                     }
                     else
                     {
-                        updateCount++;
+                        importCount.incrementUpdated();
                     }
 
                     if ( !dryRun )
@@ -1196,7 +1312,7 @@ public class DefaultDataValueSetService
 
                     internalValue.setDeleted( true );
 
-                    deleteCount++;
+                    importCount.incrementDeleted();
 
                     if ( !dryRun )
                     {
@@ -1223,7 +1339,7 @@ public class DefaultDataValueSetService
                     {
                         if ( existingValue != null && existingValue.isDeleted() )
                         {
-                            importCount++;
+                            importCount.incrementImported();
 
                             if ( !dryRun )
                             {
@@ -1259,73 +1375,21 @@ public class DefaultDataValueSetService
 
                             if ( dryRun || added )
                             {
-                                importCount++;
+                                importCount.incrementImported();
                             }
                         }
                     }
                 }
             }
         }
-
-        dataValueBatchHandler.flush();
-        auditBatchHandler.flush();
-
-        int ignores = totalCount - importCount - updateCount - deleteCount;
-
-        summary.setImportCount( new ImportCount( importCount, updateCount, ignores, deleteCount ) );
-        summary.setStatus( summary.getConflicts().isEmpty() ? ImportStatus.SUCCESS : ImportStatus.WARNING );
-        summary.setDescription( "Import process completed successfully" );
-
-        clock.logTime( "Data value import done, total: " + totalCount + ", import: " + importCount + ", update: " + updateCount + ", delete: " + deleteCount );
-        notifier.notify( id, notificationLevel, "Import done", true ).addJobSummary( id, notificationLevel, summary, ImportSummary.class );
-
-        dataValueSet.close();
-
-        return summary;
     }
 
-    // -------------------------------------------------------------------------
-    // Supportive methods
-    // -------------------------------------------------------------------------
-
-    private void handleComplete( DataSet dataSet, Date completeDate, Period period, OrganisationUnit orgUnit,
-        CategoryOptionCombo attributeOptionCombo, ImportSummary summary )
+    /**
+     * Returns a key for the identifying properties of a data value.
+     */
+    private String getDataValueKey( int dataElementId, int periodId, int sourceId, int categoryOptionComboId, int attributeOptionComboId )
     {
-        if ( orgUnit == null )
-        {
-            summary.getConflicts().add( new ImportConflict( OrganisationUnit.class.getSimpleName(), ERROR_OBJECT_NEEDED_TO_COMPLETE ) );
-            return;
-        }
-
-        if ( period == null )
-        {
-            summary.getConflicts().add( new ImportConflict( Period.class.getSimpleName(), ERROR_OBJECT_NEEDED_TO_COMPLETE ) );
-            return;
-        }
-
-        period = periodService.reloadPeriod( period );
-
-        CompleteDataSetRegistration completeAlready = registrationService
-            .getCompleteDataSetRegistration( dataSet, period, orgUnit, attributeOptionCombo );
-
-        String username = currentUserService.getCurrentUsername();
-
-        if ( completeAlready != null )
-        {
-            completeAlready.setStoredBy( username );
-            completeAlready.setDate( completeDate );
-
-            registrationService.updateCompleteDataSetRegistration( completeAlready );
-        }
-        else
-        {
-            CompleteDataSetRegistration registration = new CompleteDataSetRegistration( dataSet, period, orgUnit,
-                attributeOptionCombo, completeDate, username );
-
-            registrationService.saveCompleteDataSetRegistration( registration );
-        }
-
-        summary.setDataSetComplete( DateUtils.getMediumDateString( completeDate ) );
+        return dataElementId + "-" + periodId + "-" + sourceId + "-" + categoryOptionComboId + "-" + attributeOptionComboId;
     }
 
     /**
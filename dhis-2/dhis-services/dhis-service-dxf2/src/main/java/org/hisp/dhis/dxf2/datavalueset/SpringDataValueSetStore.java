@@ -29,6 +29,7 @@ package org.hisp.dhis.dxf2.datavalueset;
  */
 
 import com.csvreader.CsvWriter;
+import com.google.common.collect.Lists;
 import org.hisp.staxwax.factory.XMLFactory;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.logging.Log;
@@ -50,7 +51,9 @@ import java.io.OutputStream;
 import java.io.Writer;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.Date;
+import java.util.List;
 
 import static org.hisp.dhis.common.IdentifiableObjectUtils.getIdentifiers;
 import static org.hisp.dhis.commons.util.TextUtils.getCommaDelimitedString;
@@ -111,7 +114,7 @@ public class SpringDataValueSetStore
     }
 
     @Override
-    public void writeDataValueSetJson( Date lastUpdated, OutputStream outputStream, IdSchemes idSchemes )
+    public void writeDataValueSetJson( Date lastUpdatedStart, Date lastUpdatedEnd, OutputStream outputStream, IdSchemes idSchemes )
     {
         String deScheme = idSchemes.getDataElementIdScheme().getIdentifiableString().toLowerCase();
         String ouScheme = idSchemes.getOrgUnitIdScheme().getIdentifiableString().toLowerCase();
@@ -119,7 +122,9 @@ public class SpringDataValueSetStore
 
         DataValueSet dataValueSet = new StreamingJsonDataValueSet( outputStream );
 
-        final String sql =
+        List<Object> args = Lists.newArrayList( new Timestamp( lastUpdatedStart.getTime() ) );
+
+        String sql =
             "select de." + deScheme + " as deid, pe.startdate as pestart, pt.name as ptname, ou." + ouScheme + " as ouid, " +
             "coc." + ocScheme + " as cocid, aoc." + ocScheme + " as aocid, " +
             "dv.value, dv.storedby, dv.created, dv.lastupdated, dv.comment, dv.followup, dv.deleted " +
@@ -130,12 +135,18 @@ public class SpringDataValueSetStore
             "join organisationunit ou on (dv.sourceid=ou.organisationunitid) " +
             "join categoryoptioncombo coc on (dv.categoryoptioncomboid=coc.categoryoptioncomboid) " +
             "join categoryoptioncombo aoc on (dv.attributeoptioncomboid=aoc.categoryoptioncomboid) " +
-            "where dv.lastupdated >= '" + DateUtils.getLongDateString( lastUpdated ) + "'";
+            "where dv.lastupdated >= ? ";
+
+        if ( lastUpdatedEnd != null )
+        {
+            sql += "and dv.lastupdated < ? ";
+            args.add( new Timestamp( lastUpdatedEnd.getTime() ) );
+        }
 
-        writeDataValueSet( sql, new DataExportParams(), null, dataValueSet );
+        writeDataValueSet( sql, new DataExportParams(), null, dataValueSet, args.toArray() );
     }
 
-    private void writeDataValueSet( String sql, DataExportParams params, Date completeDate, final DataValueSet dataValueSet )
+    private void writeDataValueSet( String sql, DataExportParams params, Date completeDate, final DataValueSet dataValueSet, Object... args )
     {
         if ( params.isSingleDataValueSet() )
         {
@@ -179,7 +190,7 @@ public class SpringDataValueSetStore
                 
                 dataValue.close();
             }
-        } );
+        }, args );
 
         dataValueSet.close();
     }
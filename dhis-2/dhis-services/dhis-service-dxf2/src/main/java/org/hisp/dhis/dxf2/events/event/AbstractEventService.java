@@ -531,7 +531,7 @@ public abstract class AbstractEventService
         {
             int count = 0;
 
-            if ( params.isTotalPages() )
+            if ( params.isTotalPages() && !params.hasPageToken() )
             {
                 count = eventStore.getEventCount( params, organisationUnits );
             }
@@ -543,6 +543,11 @@ public abstract class AbstractEventService
         List<Event> eventList = eventStore.getEvents( params, organisationUnits );
         events.setEvents( eventList );
 
+        if ( params.getNextPageToken() != null )
+        {
+            events.setNextPageToken( params.getNextPageToken().encode() );
+        }
+
         return events;
     }
 
@@ -674,9 +679,11 @@ public abstract class AbstractEventService
     //TODO: Do changes from the comment above
 
     @Override
-    public Events getAnonymousEventValuesLastUpdatedAfter( Date lastSuccessTime )
+    public Events getAnonymousEventValuesLastUpdatedBetween( Date lastUpdatedStart, Date lastUpdatedEnd )
     {
-        EventSearchParams params = buildAnonymousEventsSearchParams( lastSuccessTime );
+        EventSearchParams params = buildAnonymousEventsSearchParams( null );
+        params.setLastUpdatedAfter( lastUpdatedStart );
+        params.setLastUpdatedBefore( lastUpdatedEnd );
         Events anonymousEvents = new Events();
         List<Event> events = eventStore.getEvents( params, null );
         anonymousEvents.setEvents( events );
@@ -1862,6 +1869,16 @@ public abstract class AbstractEventService
             violation = "At least one of the following query parameters are required: orgUnit, program, trackedEntityInstance or event";
         }
 
+        if ( params.hasPageToken() && ( params.isSkipPaging() || ( params.getOrders() != null && !params.getOrders().isEmpty() ) ) )
+        {
+            violation = "Page token can only be used with paging and the default order";
+        }
+
+        if ( params.hasPageToken() && !StringUtils.isNumeric( params.getPageToken().getId() ) )
+        {
+            violation = "Page token is not valid for events: " + params.getPageToken().encode();
+        }
+
         if ( violation != null )
         {
             log.warn( "Validation failed: " + violation );
@@ -31,6 +31,7 @@ package org.hisp.dhis.dxf2.events.event;
 import org.hisp.dhis.category.CategoryOptionCombo;
 import org.hisp.dhis.common.IdSchemes;
 import org.hisp.dhis.common.OrganisationUnitSelectionMode;
+import org.hisp.dhis.common.PageToken;
 import org.hisp.dhis.common.QueryItem;
 import org.hisp.dhis.event.EventStatus;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
@@ -101,6 +102,18 @@ public class EventSearchParams
 
     private Date lastUpdatedEndDate;
 
+    /**
+     * Exclusive upper bound for last updated with millisecond precision, as
+     * opposed to the inclusive day based last updated end date.
+     */
+    private Date lastUpdatedBefore;
+
+    /**
+     * Inclusive lower bound for last updated with millisecond precision, as
+     * opposed to the second based last updated start date.
+     */
+    private Date lastUpdatedAfter;
+
     private Date dueDateStart;
 
     private Date dueDateEnd;
@@ -145,6 +158,17 @@ public class EventSearchParams
 
     private boolean synchronizationQuery;
 
+    /**
+     * Position of the last event of the previous page, used instead of an
+     * offset when paging with the default order.
+     */
+    private PageToken pageToken;
+
+    /**
+     * Position of the last event of the current page, set by the event store.
+     */
+    private PageToken nextPageToken;
+
     // -------------------------------------------------------------------------
     // Constructors
     // -------------------------------------------------------------------------
@@ -177,6 +201,20 @@ public class EventSearchParams
         return (getPageWithDefault() - 1) * getPageSizeWithDefault();
     }
 
+    /**
+     * Indicates whether keyset paging applies, which requires paging and the
+     * default order on last updated and id.
+     */
+    public boolean isKeysetPaging()
+    {
+        return isPaging() && ( orders == null || orders.isEmpty() );
+    }
+
+    public boolean hasPageToken()
+    {
+        return pageToken != null;
+    }
+
     /**
      * Sets paging properties to default values.
      */
@@ -355,6 +393,26 @@ public class EventSearchParams
         this.lastUpdatedEndDate = lastUpdatedEndDate;
     }
 
+    public Date getLastUpdatedBefore()
+    {
+        return lastUpdatedBefore;
+    }
+
+    public void setLastUpdatedBefore( Date lastUpdatedBefore )
+    {
+        this.lastUpdatedBefore = lastUpdatedBefore;
+    }
+
+    public Date getLastUpdatedAfter()
+    {
+        return lastUpdatedAfter;
+    }
+
+    public void setLastUpdatedAfter( Date lastUpdatedAfter )
+    {
+        this.lastUpdatedAfter = lastUpdatedAfter;
+    }
+
     public Date getDueDateStart()
     {
         return dueDateStart;
@@ -549,4 +607,24 @@ public class EventSearchParams
     {
         this.synchronizationQuery = synchronizationQuery;
     }
+
+    public PageToken getPageToken()
+    {
+        return pageToken;
+    }
+
+    public void setPageToken( PageToken pageToken )
+    {
+        this.pageToken = pageToken;
+    }
+
+    public PageToken getNextPageToken()
+    {
+        return nextPageToken;
+    }
+
+    public void setNextPageToken( PageToken nextPageToken )
+    {
+        this.nextPageToken = nextPageToken;
+    }
 }
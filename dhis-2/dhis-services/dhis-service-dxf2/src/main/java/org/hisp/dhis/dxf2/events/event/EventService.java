@@ -84,7 +84,15 @@ public interface EventService
      */
     int getAnonymousEventReadyForSynchronizationCount();
 
-    Events getAnonymousEventValuesLastUpdatedAfter( Date lastSuccessTime );
+    /**
+     * Returns the anonymous events which were last updated within the given
+     * time range.
+     *
+     * @param lastUpdatedStart the inclusive start of the last updated range.
+     * @param lastUpdatedEnd the exclusive end of the last updated range.
+     * @return the anonymous events which were last updated within the given time range.
+     */
+    Events getAnonymousEventValuesLastUpdatedBetween( Date lastUpdatedStart, Date lastUpdatedEnd );
 
     /**
      * Returns the anonymous events that are supposed to be synchronized (lastUpdated > lastSynchronized)
@@ -36,6 +36,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.hisp.dhis.common.IdSchemes;
 import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.common.PageToken;
 import org.hisp.dhis.common.QueryFilter;
 import org.hisp.dhis.common.QueryItem;
 import org.hisp.dhis.common.ValueType;
@@ -63,6 +64,7 @@ import org.springframework.jdbc.support.rowset.SqlRowSet;
 
 import javax.annotation.Resource;
 import java.io.IOException;
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
@@ -171,8 +173,21 @@ public class JdbcEventStore
 
         IdSchemes idSchemes = ObjectUtils.firstNonNull( params.getIdSchemes(), new IdSchemes() );
 
+        int pageEventCount = 0;
+
+        int lastEventId = -1;
+
+        Timestamp lastEventUpdated = null;
+
         while ( rowSet.next() )
         {
+            if ( params.isKeysetPaging() && rowSet.getString( "psi_uid" ) != null && rowSet.getInt( "psi_id" ) != lastEventId )
+            {
+                lastEventId = rowSet.getInt( "psi_id" );
+                lastEventUpdated = rowSet.getTimestamp( "psi_lastupdated" );
+                pageEventCount++;
+            }
+
             if ( rowSet.getString( "psi_uid" ) == null || (params.getCategoryOptionCombo() == null && !isSuperUser && !userHasAccess( rowSet )) )
             {
                 continue;
@@ -295,6 +310,16 @@ public class JdbcEventStore
             }
         }
 
+        // ---------------------------------------------------------------------
+        // Position of the last event, only given for full pages. Events
+        // removed by sharing checks still count towards the page.
+        // ---------------------------------------------------------------------
+
+        if ( params.isKeysetPaging() && lastEventUpdated != null && pageEventCount == params.getPageSizeWithDefault() )
+        {
+            params.setNextPageToken( new PageToken( lastEventUpdated, String.valueOf( lastEventId ) ) );
+        }
+
         if ( params.getCategoryOptionCombo() == null && !isSuper( user ) )
         {
             return events.stream().filter( ev -> ev.getAttributeCategoryOptions() != null && splitToArray( ev.getAttributeCategoryOptions(), TextUtils.SEMICOLON ).size() == ev.getOptionSize() ).collect( Collectors.toList() );
@@ -639,12 +664,22 @@ public class JdbcEventStore
                 + DateUtils.getLongDateString( params.getLastUpdatedStartDate() ) + "' ";
         }
 
+        if ( params.getLastUpdatedAfter() != null )
+        {
+            sql += hlp.whereAnd() + " psi.lastupdated >= '" + DateUtils.getIso8601NoTz( params.getLastUpdatedAfter() ) + "' ";
+        }
+
         if ( params.getLastUpdatedEndDate() != null )
         {
             Date dateAfterEndDate = getDateAfterAddition( params.getLastUpdatedEndDate(), 1 );
             sql += hlp.whereAnd() + " psi.lastupdated < '" + DateUtils.getLongDateString( dateAfterEndDate ) + "' ";
         }
 
+        if ( params.getLastUpdatedBefore() != null )
+        {
+            sql += hlp.whereAnd() + " psi.lastupdated < '" + DateUtils.getIso8601NoTz( params.getLastUpdatedBefore() ) + "' ";
+        }
+
         if ( params.getCategoryOptionCombo() != null )
         {
             sql += hlp.whereAnd() + " psi.attributeoptioncomboid = " + params.getCategoryOptionCombo().getId() + " ";
@@ -703,6 +738,13 @@ public class JdbcEventStore
             sql += hlp.whereAnd() + " psi.deleted is false ";
         }
 
+        if ( params.hasPageToken() )
+        {
+            PageToken token = params.getPageToken();
+
+            sql += hlp.whereAnd() + " (psi.lastupdated, psi.programstageinstanceid) < (" + token.getSortKeyLiteral() + ", " + token.getId() + ") ";
+        }
+
         if ( params.hasSecurityFilter() )
         {
             sql += hlp.whereAnd() + " (p.uid in (" + getQuotedCommaDelimitedString( params.getAccessiblePrograms() ) + ")) ";
@@ -874,7 +916,11 @@ public class JdbcEventStore
     {
         String sql = " ";
 
-        if ( params.isPaging() )
+        if ( params.isPaging() && params.hasPageToken() )
+        {
+            sql += "limit " + params.getPageSizeWithDefault() + " ";
+        }
+        else if ( params.isPaging() )
         {
             sql += "limit " + params.getPageSizeWithDefault() + " offset " + params.getOffset() + " ";
         }
@@ -970,7 +1016,7 @@ public class JdbcEventStore
             }
         }
 
-        return "order by psi_lastupdated desc ";
+        return "order by psi_lastupdated desc, psi_id desc ";
     }
 
     private String getAttributeValueQuery()
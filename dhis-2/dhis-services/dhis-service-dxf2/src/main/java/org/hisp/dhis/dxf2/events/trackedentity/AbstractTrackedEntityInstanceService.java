@@ -32,7 +32,9 @@ import com.google.common.collect.Lists;
 import org.apache.commons.lang3.StringUtils;
 import org.hisp.dhis.common.CodeGenerator;
 import org.hisp.dhis.common.IdSchemes;
+import org.hisp.dhis.common.IdentifiableObject;
 import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.common.IdentifiableObjectUtils;
 import org.hisp.dhis.common.IllegalQueryException;
 import org.hisp.dhis.commons.collection.CachingMap;
 import org.hisp.dhis.dbms.DbmsManager;
@@ -77,8 +79,11 @@ import javax.transaction.Transactional;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -88,6 +93,11 @@ import java.util.stream.Collectors;
 public abstract class AbstractTrackedEntityInstanceService
     implements TrackedEntityInstanceService
 {
+    /**
+     * Maximum number of identifiers per lookup by UID.
+     */
+    private static final int UID_PARTITION_SIZE = 1000;
+
     // -------------------------------------------------------------------------
     // Dependencies
     // -------------------------------------------------------------------------
@@ -136,6 +146,9 @@ public abstract class AbstractTrackedEntityInstanceService
     @Autowired
     protected FileResourceService fileResourceService;
 
+    @Autowired
+    protected TrackedEntityInstanceAggregateStore aggregateStore;
+
     private final CachingMap<String, OrganisationUnit> organisationUnitCache = new CachingMap<>();
 
     private final CachingMap<String, TrackedEntityType> trackedEntityCache = new CachingMap<>();
@@ -152,15 +165,97 @@ public abstract class AbstractTrackedEntityInstanceService
     {
         List<org.hisp.dhis.trackedentity.TrackedEntityInstance> daoTEIs = teiService.getTrackedEntityInstances( queryParams, skipAccessValidation );
 
-        List<TrackedEntityInstance> dtoTEIItems = new ArrayList<>();
         User user = currentUserService.getCurrentUser();
 
+        List<org.hisp.dhis.trackedentity.TrackedEntityInstance> readableTEIs = daoTEIs.stream()
+            .filter( tei -> trackerAccessManager.canRead( user, tei ).isEmpty() )
+            .collect( Collectors.toList() );
+
+        return getTrackedEntityInstances( readableTEIs, params, user );
+    }
+
+    /**
+     * Converts the given tracked entity instances. Attribute values and
+     * relationships are loaded for all tracked entity instances and their
+     * relatives at once instead of per tracked entity instance.
+     *
+     * @param daoTEIs the tracked entity instances, which must be readable by the user.
+     * @param params the {@link TrackedEntityInstanceParams}.
+     * @param user the current user.
+     * @return a list of {@link TrackedEntityInstance}.
+     */
+    private List<TrackedEntityInstance> getTrackedEntityInstances( List<org.hisp.dhis.trackedentity.TrackedEntityInstance> daoTEIs,
+        TrackedEntityInstanceParams params, User user )
+    {
+        List<TrackedEntityInstance> dtoTEIItems = new ArrayList<>();
+
+        if ( daoTEIs.isEmpty() )
+        {
+            return dtoTEIItems;
+        }
+
+        Map<String, TrackedEntityAttribute> readableAttributes = trackedEntityAttributeService.getAllUserReadableTrackedEntityAttributes()
+            .stream().collect( Collectors.toMap( TrackedEntityAttribute::getUid, a -> a ) );
+
+        Map<Integer, List<org.hisp.dhis.dxf2.events.trackedentity.Relationship>> relationships = params.isIncludeRelationships() ?
+            aggregateStore.getRelationships( IdentifiableObjectUtils.getIdentifiers( daoTEIs ) ) : new HashMap<>();
+
+        Map<String, org.hisp.dhis.trackedentity.TrackedEntityInstance> relatives = getRelatives( daoTEIs, relationships );
+
+        Map<String, RelationshipType> relationshipTypes = getRelationshipTypes( relationships );
+
+        Set<Integer> attributeTEIs = new HashSet<>( IdentifiableObjectUtils.getIdentifiers( daoTEIs ) );
+        attributeTEIs.addAll( IdentifiableObjectUtils.getIdentifiers( relatives.values() ) );
+
+        Map<Integer, List<Attribute>> attributes = aggregateStore.getAttributes( attributeTEIs );
+
         for ( org.hisp.dhis.trackedentity.TrackedEntityInstance daoTrackedEntityInstance : daoTEIs )
         {
-            if ( trackerAccessManager.canRead( user, daoTrackedEntityInstance ).isEmpty() )
+            TrackedEntityInstance trackedEntityInstance = getBaseTrackedEntityInstance( daoTrackedEntityInstance );
+
+            for ( org.hisp.dhis.dxf2.events.trackedentity.Relationship relationship : relationships.getOrDefault( daoTrackedEntityInstance.getId(), Lists.newArrayList() ) )
             {
-                dtoTEIItems.add( getTrackedEntityInstance( daoTrackedEntityInstance, params, user ) );
+                RelationshipType relationshipType = relationshipTypes.get( relationship.getRelationship() );
+
+                relationship.setDisplayName( relationshipType != null ? relationshipType.getDisplayName() : null );
+
+                String relativeUid = getRelativeUid( daoTrackedEntityInstance, relationship );
+
+                if ( relativeUid != null )
+                {
+                    org.hisp.dhis.trackedentity.TrackedEntityInstance daoRelative = relatives.get( relativeUid );
+
+                    List<String> errors = trackerAccessManager.canRead( user, daoRelative );
+
+                    if ( !errors.isEmpty() )
+                    {
+                        throw new IllegalQueryException( errors.toString() );
+                    }
+
+                    TrackedEntityInstance relative = getBaseTrackedEntityInstance( daoRelative );
+
+                    addAttributes( relative, daoRelative, attributes.get( daoRelative.getId() ), readableAttributes );
+
+                    relationship.setRelative( relative );
+                }
+
+                trackedEntityInstance.getRelationships().add( relationship );
+            }
+
+            if ( params.isIncludeEnrollments() )
+            {
+                for ( ProgramInstance programInstance : daoTrackedEntityInstance.getProgramInstances() )
+                {
+                    if ( trackerAccessManager.canRead( user, programInstance ).isEmpty() )
+                    {
+                        trackedEntityInstance.getEnrollments().add( enrollmentService.getEnrollment( user, programInstance, params ) );
+                    }
+                }
             }
+
+            addAttributes( trackedEntityInstance, daoTrackedEntityInstance, attributes.get( daoTrackedEntityInstance.getId() ), readableAttributes );
+
+            dtoTEIItems.add( trackedEntityInstance );
         }
 
         return dtoTEIItems;
@@ -213,18 +308,7 @@ public abstract class AbstractTrackedEntityInstanceService
             throw new IllegalQueryException( errors.toString() );
         }
 
-        TrackedEntityInstance trackedEntityInstance = new TrackedEntityInstance();
-        trackedEntityInstance.setTrackedEntityInstance( daoTrackedEntityInstance.getUid() );
-        trackedEntityInstance.setOrgUnit( daoTrackedEntityInstance.getOrganisationUnit().getUid() );
-        trackedEntityInstance.setTrackedEntityType( daoTrackedEntityInstance.getTrackedEntityType().getUid() );
-        trackedEntityInstance.setCreated( DateUtils.getIso8601NoTz( daoTrackedEntityInstance.getCreated() ) );
-        trackedEntityInstance.setCreatedAtClient( DateUtils.getIso8601NoTz( daoTrackedEntityInstance.getLastUpdatedAtClient() ) );
-        trackedEntityInstance.setLastUpdated( DateUtils.getIso8601NoTz( daoTrackedEntityInstance.getLastUpdated() ) );
-        trackedEntityInstance.setLastUpdatedAtClient( DateUtils.getIso8601NoTz( daoTrackedEntityInstance.getLastUpdatedAtClient() ) );
-        trackedEntityInstance.setInactive( daoTrackedEntityInstance.isInactive() );
-        trackedEntityInstance.setFeatureType( daoTrackedEntityInstance.getFeatureType() );
-        trackedEntityInstance.setCoordinates( daoTrackedEntityInstance.getCoordinates() );
-        trackedEntityInstance.setDeleted( daoTrackedEntityInstance.isDeleted() );
+        TrackedEntityInstance trackedEntityInstance = getBaseTrackedEntityInstance( daoTrackedEntityInstance );
 
         if ( params.isIncludeRelationships() )
         {
@@ -629,6 +713,133 @@ public abstract class AbstractTrackedEntityInstanceService
         return importSummaries;
     }
 
+    private TrackedEntityInstance getBaseTrackedEntityInstance( org.hisp.dhis.trackedentity.TrackedEntityInstance daoTrackedEntityInstance )
+    {
+        TrackedEntityInstance trackedEntityInstance = new TrackedEntityInstance();
+        trackedEntityInstance.setTrackedEntityInstance( daoTrackedEntityInstance.getUid() );
+        trackedEntityInstance.setOrgUnit( daoTrackedEntityInstance.getOrganisationUnit().getUid() );
+        trackedEntityInstance.setTrackedEntityType( daoTrackedEntityInstance.getTrackedEntityType().getUid() );
+        trackedEntityInstance.setCreated( DateUtils.getIso8601NoTz( daoTrackedEntityInstance.getCreated() ) );
+        trackedEntityInstance.setCreatedAtClient( DateUtils.getIso8601NoTz( daoTrackedEntityInstance.getLastUpdatedAtClient() ) );
+        trackedEntityInstance.setLastUpdated( DateUtils.getIso8601NoTz( daoTrackedEntityInstance.getLastUpdated() ) );
+        trackedEntityInstance.setLastUpdatedAtClient( DateUtils.getIso8601NoTz( daoTrackedEntityInstance.getLastUpdatedAtClient() ) );
+        trackedEntityInstance.setInactive( daoTrackedEntityInstance.isInactive() );
+        trackedEntityInstance.setFeatureType( daoTrackedEntityInstance.getFeatureType() );
+        trackedEntityInstance.setCoordinates( daoTrackedEntityInstance.getCoordinates() );
+        trackedEntityInstance.setDeleted( daoTrackedEntityInstance.isDeleted() );
+
+        return trackedEntityInstance;
+    }
+
+    /**
+     * Returns the UID of the other side of the given relationship, or null if
+     * the relationship points to the tracked entity instance itself.
+     */
+    private String getRelativeUid( org.hisp.dhis.trackedentity.TrackedEntityInstance daoTrackedEntityInstance,
+        org.hisp.dhis.dxf2.events.trackedentity.Relationship relationship )
+    {
+        if ( !relationship.getTrackedEntityInstanceA().equals( daoTrackedEntityInstance.getUid() ) )
+        {
+            return relationship.getTrackedEntityInstanceA();
+        }
+        else if ( !relationship.getTrackedEntityInstanceB().equals( daoTrackedEntityInstance.getUid() ) )
+        {
+            return relationship.getTrackedEntityInstanceB();
+        }
+
+        return null;
+    }
+
+    private Map<String, org.hisp.dhis.trackedentity.TrackedEntityInstance> getRelatives(
+        List<org.hisp.dhis.trackedentity.TrackedEntityInstance> daoTEIs,
+        Map<Integer, List<org.hisp.dhis.dxf2.events.trackedentity.Relationship>> relationships )
+    {
+        Set<String> relativeUids = new HashSet<>();
+
+        for ( org.hisp.dhis.trackedentity.TrackedEntityInstance daoTrackedEntityInstance : daoTEIs )
+        {
+            relationships.getOrDefault( daoTrackedEntityInstance.getId(), Lists.newArrayList() ).stream()
+                .map( relationship -> getRelativeUid( daoTrackedEntityInstance, relationship ) )
+                .filter( Objects::nonNull )
+                .forEach( relativeUids::add );
+        }
+
+        if ( relativeUids.isEmpty() )
+        {
+            return new HashMap<>();
+        }
+
+        return getByUid( org.hisp.dhis.trackedentity.TrackedEntityInstance.class, relativeUids ).stream()
+            .collect( Collectors.toMap( org.hisp.dhis.trackedentity.TrackedEntityInstance::getUid, tei -> tei ) );
+    }
+
+    private Map<String, RelationshipType> getRelationshipTypes( Map<Integer, List<org.hisp.dhis.dxf2.events.trackedentity.Relationship>> relationships )
+    {
+        Set<String> relationshipTypeUids = relationships.values().stream()
+            .flatMap( List::stream )
+            .map( org.hisp.dhis.dxf2.events.trackedentity.Relationship::getRelationship )
+            .collect( Collectors.toSet() );
+
+        if ( relationshipTypeUids.isEmpty() )
+        {
+            return new HashMap<>();
+        }
+
+        return getByUid( RelationshipType.class, relationshipTypeUids ).stream()
+            .collect( Collectors.toMap( RelationshipType::getUid, rt -> rt ) );
+    }
+
+    /**
+     * Looks up the objects with the given UIDs in partitions, so that the
+     * number of identifiers in each query is bounded.
+     */
+    private <T extends IdentifiableObject> List<T> getByUid( Class<T> clazz, Collection<String> uids )
+    {
+        List<T> objects = new ArrayList<>();
+
+        for ( List<String> partition : Lists.partition( new ArrayList<>( uids ), UID_PARTITION_SIZE ) )
+        {
+            objects.addAll( manager.getByUid( clazz, partition ) );
+        }
+
+        return objects;
+    }
+
+    /**
+     * Adds the given attributes which are readable by the current user to the
+     * given tracked entity instance. Values of confidential attributes are
+     * decrypted through the attribute value service.
+     */
+    private void addAttributes( TrackedEntityInstance trackedEntityInstance, org.hisp.dhis.trackedentity.TrackedEntityInstance daoTrackedEntityInstance,
+        List<Attribute> attributes, Map<String, TrackedEntityAttribute> readableAttributes )
+    {
+        if ( attributes == null )
+        {
+            return;
+        }
+
+        for ( Attribute attribute : attributes )
+        {
+            TrackedEntityAttribute trackedEntityAttribute = readableAttributes.get( attribute.getAttribute() );
+
+            if ( trackedEntityAttribute != null )
+            {
+                attribute.setDisplayName( trackedEntityAttribute.getDisplayName() );
+                attribute.setValueType( trackedEntityAttribute.getValueType() );
+                attribute.setCode( trackedEntityAttribute.getCode() );
+                attribute.setSkipSynchronization( trackedEntityAttribute.getSkipSynchronization() );
+
+                if ( trackedEntityAttribute.isConfidentialBool() )
+                {
+                    TrackedEntityAttributeValue attributeValue = trackedEntityAttributeValueService.getTrackedEntityAttributeValue( daoTrackedEntityInstance, trackedEntityAttribute );
+                    attribute.setValue( attributeValue != null ? attributeValue.getValue() : null );
+                }
+
+                trackedEntityInstance.getAttributes().add( attribute );
+            }
+        }
+    }
+
     private void prepareCaches( List<TrackedEntityInstance> trackedEntityInstances, User user )
     {
         Collection<String> orgUnits = trackedEntityInstances.stream().map( TrackedEntityInstance::getOrgUnit ).collect( Collectors.toSet() );
@@ -0,0 +1,147 @@
+package org.hisp.dhis.dxf2.events.trackedentity;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import com.google.common.collect.Lists;
+import org.hisp.dhis.system.util.DateUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.rowset.SqlRowSet;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.hisp.dhis.commons.util.TextUtils.getCommaDelimitedString;
+
+public class JdbcTrackedEntityInstanceAggregateStore
+    implements TrackedEntityInstanceAggregateStore
+{
+    private static final int PARTITION_SIZE = 10000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // -------------------------------------------------------------------------
+    // TrackedEntityInstanceAggregateStore implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    public Map<Integer, List<Attribute>> getAttributes( Collection<Integer> trackedEntityInstanceIds )
+    {
+        Map<Integer, List<Attribute>> attributes = new HashMap<>();
+
+        for ( List<Integer> ids : Lists.partition( new ArrayList<>( trackedEntityInstanceIds ), PARTITION_SIZE ) )
+        {
+            String sql =
+                "select av.trackedentityinstanceid as tei_id, tea.uid as tea_uid, av.created as av_created, " +
+                "av.lastupdated as av_lastupdated, av.value as av_value, av.storedby as av_storedby " +
+                "from trackedentityattributevalue av " +
+                "inner join trackedentityattribute tea on av.trackedentityattributeid=tea.trackedentityattributeid " +
+                "where av.trackedentityinstanceid in (" + getCommaDelimitedString( ids ) + ")";
+
+            SqlRowSet rowSet = jdbcTemplate.queryForRowSet( sql );
+
+            while ( rowSet.next() )
+            {
+                Attribute attribute = new Attribute();
+                attribute.setAttribute( rowSet.getString( "tea_uid" ) );
+                attribute.setCreated( DateUtils.getIso8601NoTz( rowSet.getTimestamp( "av_created" ) ) );
+                attribute.setLastUpdated( DateUtils.getIso8601NoTz( rowSet.getTimestamp( "av_lastupdated" ) ) );
+                attribute.setValue( rowSet.getString( "av_value" ) );
+                attribute.setStoredBy( rowSet.getString( "av_storedby" ) );
+
+                attributes.computeIfAbsent( rowSet.getInt( "tei_id" ), id -> new ArrayList<>() ).add( attribute );
+            }
+        }
+
+        return attributes;
+    }
+
+    @Override
+    public Map<Integer, List<Relationship>> getRelationships( Collection<Integer> trackedEntityInstanceIds )
+    {
+        Map<Integer, List<Relationship>> relationships = new HashMap<>();
+
+        for ( List<Integer> ids : Lists.partition( new ArrayList<>( trackedEntityInstanceIds ), PARTITION_SIZE ) )
+        {
+            Set<Integer> idSet = new HashSet<>( ids );
+
+            String idString = getCommaDelimitedString( ids );
+
+            String sql =
+                "select r.trackedentityinstanceaid as tei_a_id, r.trackedentityinstancebid as tei_b_id, " +
+                "ta.uid as tei_a_uid, tb.uid as tei_b_uid, rt.uid as rt_uid " +
+                "from relationship r " +
+                "inner join relationshiptype rt on r.relationshiptypeid=rt.relationshiptypeid " +
+                "inner join trackedentityinstance ta on r.trackedentityinstanceaid=ta.trackedentityinstanceid " +
+                "inner join trackedentityinstance tb on r.trackedentityinstancebid=tb.trackedentityinstanceid " +
+                "where r.trackedentityinstanceaid in (" + idString + ") " +
+                "or r.trackedentityinstancebid in (" + idString + ")";
+
+            SqlRowSet rowSet = jdbcTemplate.queryForRowSet( sql );
+
+            while ( rowSet.next() )
+            {
+                int idA = rowSet.getInt( "tei_a_id" );
+                int idB = rowSet.getInt( "tei_b_id" );
+
+                if ( idSet.contains( idA ) )
+                {
+                    relationships.computeIfAbsent( idA, id -> new ArrayList<>() ).add( getRelationship( rowSet ) );
+                }
+
+                if ( idSet.contains( idB ) && idA != idB )
+                {
+                    relationships.computeIfAbsent( idB, id -> new ArrayList<>() ).add( getRelationship( rowSet ) );
+                }
+            }
+        }
+
+        return relationships;
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private Relationship getRelationship( SqlRowSet rowSet )
+    {
+        Relationship relationship = new Relationship();
+        relationship.setTrackedEntityInstanceA( rowSet.getString( "tei_a_uid" ) );
+        relationship.setTrackedEntityInstanceB( rowSet.getString( "tei_b_uid" ) );
+        relationship.setRelationship( rowSet.getString( "rt_uid" ) );
+
+        return relationship;
+    }
+}
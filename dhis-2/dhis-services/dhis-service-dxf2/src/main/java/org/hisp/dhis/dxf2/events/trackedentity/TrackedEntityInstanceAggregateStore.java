@@ -0,0 +1,60 @@
+package org.hisp.dhis.dxf2.events.trackedentity;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Store which loads the associations of many tracked entity instances at once,
+ * with one query per association keyed on tracked entity instance identifier.
+ */
+public interface TrackedEntityInstanceAggregateStore
+{
+    /**
+     * Returns the attribute values of the given tracked entity instances.
+     * Values of confidential attributes are stored encrypted and are returned
+     * without value.
+     *
+     * @param trackedEntityInstanceIds the tracked entity instance identifiers.
+     * @return a mapping from tracked entity instance identifier to attributes.
+     */
+    Map<Integer, List<Attribute>> getAttributes( Collection<Integer> trackedEntityInstanceIds );
+
+    /**
+     * Returns the relationships where the given tracked entity instances are
+     * either side of the relationship. Relationships are returned without
+     * display name and relative.
+     *
+     * @param trackedEntityInstanceIds the tracked entity instance identifiers.
+     * @return a mapping from tracked entity instance identifier to relationships.
+     */
+    Map<Integer, List<Relationship>> getRelationships( Collection<Integer> trackedEntityInstanceIds );
+}
@@ -0,0 +1,109 @@
+package org.hisp.dhis.dxf2.synch;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.hisp.dhis.system.util.CodecUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.web.client.RequestCallback;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Request callback which writes a GZIP compressed JSON body with basic
+ * authentication. The body is compressed up front so that it can be
+ * prepared on one thread and sent on another, and so that it can be
+ * resent when a request is retried.
+ */
+public class CompressedJsonRequestCallback
+    implements RequestCallback
+{
+    private static final String HEADER_AUTHORIZATION = "Authorization";
+
+    private static final String ENCODING_GZIP = "gzip";
+
+    private final byte[] content;
+
+    private final String username;
+
+    private final String password;
+
+    public CompressedJsonRequestCallback( byte[] content, String username, String password )
+    {
+        this.content = content;
+        this.username = username;
+        this.password = password;
+    }
+
+    @Override
+    public void doWithRequest( ClientHttpRequest request )
+        throws IOException
+    {
+        request.getHeaders().setContentType( MediaType.APPLICATION_JSON );
+        request.getHeaders().set( HttpHeaders.CONTENT_ENCODING, ENCODING_GZIP );
+        request.getHeaders().add( HEADER_AUTHORIZATION, CodecUtils.getBasicAuthString( username, password ) );
+
+        request.getBody().write( content );
+    }
+
+    /**
+     * Returns the content written by the given writer, compressed with GZIP.
+     *
+     * @param writer the writer of the content.
+     * @return the compressed content.
+     */
+    public static byte[] compress( ContentWriter writer )
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try ( GZIPOutputStream gzip = new GZIPOutputStream( out ) )
+        {
+            writer.write( gzip );
+        }
+        catch ( IOException ex )
+        {
+            throw new RuntimeException( "Failed to write compressed content", ex );
+        }
+
+        return out.toByteArray();
+    }
+
+    /**
+     * Writer of content to an output stream.
+     */
+    @FunctionalInterface
+    public interface ContentWriter
+    {
+        void write( OutputStream out ) throws IOException;
+    }
+}
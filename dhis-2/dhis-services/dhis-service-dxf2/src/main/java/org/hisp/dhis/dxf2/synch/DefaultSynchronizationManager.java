@@ -53,14 +53,11 @@ import org.hisp.dhis.render.RenderService;
 import org.hisp.dhis.schema.SchemaService;
 import org.hisp.dhis.setting.SettingKey;
 import org.hisp.dhis.setting.SystemSettingManager;
-import org.hisp.dhis.system.util.CodecUtils;
 import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.user.User;
 import org.joda.time.DateTime;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpMethod;
-import org.springframework.http.MediaType;
-import org.springframework.http.client.ClientHttpRequest;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.RequestCallback;
@@ -70,6 +67,10 @@ import org.springframework.web.client.RestTemplate;
 
 import java.io.IOException;
 import java.util.Date;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * @author Lars Helge Overland
@@ -79,8 +80,6 @@ public class DefaultSynchronizationManager
 {
     private static final Log log = LogFactory.getLog( DefaultSynchronizationManager.class );
 
-    private static final String HEADER_AUTHORIZATION = "Authorization";
-
     @Autowired
     private DataValueSetService dataValueSetService;
 
@@ -108,6 +107,9 @@ public class DefaultSynchronizationManager
     @Autowired
     private RenderService renderService;
 
+    @Autowired
+    private SynchronizationStore synchronizationStore;
+
     // -------------------------------------------------------------------------
     // SynchronizatonManager implementation
     // -------------------------------------------------------------------------
@@ -139,7 +141,11 @@ public class DefaultSynchronizationManager
     }
 
     /**
-     * Executes a push of data values to the given remote instance.
+     * Executes a push of data values to the given remote instance. Data values
+     * are pushed in pages ordered by last updated, and the end of each page
+     * which is successfully imported is saved as time of last success, so
+     * that a failed push resumes from the last imported page. The next page
+     * is retrieved while the current page is being sent.
      *
      * @param instance the remote system instance.
      * @return an ImportSummary.
@@ -164,52 +170,49 @@ public class DefaultSynchronizationManager
             return null;
         }
 
-        log.info( "Values: " + lastUpdatedCount + " since last synch success: " + lastSuccessTime );
-
         log.info( "Remote server POST URL: " + instance.getUrl() );
 
-        final RequestCallback requestCallback = request ->
-        {
-            request.getHeaders().setContentType( MediaType.APPLICATION_JSON );
-            request.getHeaders().add( HEADER_AUTHORIZATION, CodecUtils.getBasicAuthString( instance.getUsername(), instance.getPassword() ) );
+        final int pageSize = (int) systemSettingManager.getSystemSetting( SettingKey.DATA_SYNC_PAGE_SIZE );
+
+        ImportSummary summary = new ImportSummary( ImportStatus.SUCCESS );
 
-            dataValueSetService.writeDataValueSetJson( lastSuccessTime, request.getBody(), new IdSchemes() );
-        };
+        ExecutorService executor = Executors.newSingleThreadExecutor();
 
-        ResponseExtractor<ImportSummary> responseExtractor = new ImportSummaryResponseExtractor();
-        ImportSummary summary = null;
         try
         {
-            summary = restTemplate
-                .execute( instance.getUrl(), HttpMethod.POST, requestCallback, responseExtractor );
-        }
-        catch ( HttpClientErrorException ex )
-        {
-            String responseBody = ex.getResponseBodyAsString();
-            summary = WebMessageParseUtils.fromWebMessageResponse( responseBody, ImportSummary.class );
-        }
-        catch ( HttpServerErrorException ex )
-        {
-            String responseBody = ex.getResponseBodyAsString();
-            log.error( "Internal error happened during event data push: " + responseBody, ex );
-            throw ex;
-        }
-        catch ( ResourceAccessException ex )
-        {
-            log.error( "Exception during event data push: " + ex.getMessage(), ex );
-            throw ex;
-        }
+            SynchronizationPage page = getDataValuePage( lastSuccessTime, startTime, pageSize );
 
-        log.info( "Synch summary: " + summary );
+            while ( page != null )
+            {
+                final SynchronizationPage currentPage = page;
 
-        if ( summary != null && ImportStatus.SUCCESS.equals( summary.getStatus() ) )
-        {
-            setLastDataSynchSuccess( startTime );
-            log.info( "Synch successful, setting last success time: " + startTime );
+                Future<ImportSummary> push = executor.submit( () -> pushPage( instance.getUrl(),
+                    instance.getUsername(), instance.getPassword(), currentPage, new ImportSummaryResponseExtractor(), ImportSummary.class ) );
+
+                page = currentPage.isLast() ? null : getDataValuePage( currentPage.getEndDate(), startTime, pageSize );
+
+                ImportSummary pageSummary = getPushResult( push );
+
+                log.info( "Synch summary: " + pageSummary );
+
+                if ( pageSummary == null || !ImportStatus.SUCCESS.equals( pageSummary.getStatus() ) )
+                {
+                    log.warn( "Sync failed: " + pageSummary );
+                    return pageSummary;
+                }
+
+                summary.getImportCount().incrementImported( pageSummary.getImportCount().getImported() );
+                summary.getImportCount().incrementUpdated( pageSummary.getImportCount().getUpdated() );
+                summary.getImportCount().incrementIgnored( pageSummary.getImportCount().getIgnored() );
+                summary.getImportCount().incrementDeleted( pageSummary.getImportCount().getDeleted() );
+
+                setLastDataSynchSuccess( currentPage.getEndDate() );
+                log.info( "Synch of page successful, setting last success time: " + currentPage.getEndDate() );
+            }
         }
-        else
+        finally
         {
-            log.warn( "Sync failed: " + summary );
+            executor.shutdownNow();
         }
 
         return summary;
@@ -251,64 +254,50 @@ public class DefaultSynchronizationManager
 
         final String username = (String) systemSettingManager.getSystemSetting( SettingKey.REMOTE_INSTANCE_USERNAME );
         final String password = (String) systemSettingManager.getSystemSetting( SettingKey.REMOTE_INSTANCE_PASSWORD );
+        final int pageSize = (int) systemSettingManager.getSystemSetting( SettingKey.EVENT_SYNC_PAGE_SIZE );
 
-        final RequestCallback requestCallback = new RequestCallback()
-        {
-            @Override
-            public void doWithRequest( ClientHttpRequest request )
-                throws IOException
-            {
-                request.getHeaders().setContentType( MediaType.APPLICATION_JSON );
-                request.getHeaders().add( HEADER_AUTHORIZATION, CodecUtils.getBasicAuthString( username, password ) );
-                Events result = eventService.getAnonymousEventValuesLastUpdatedAfter( lastSuccessTime );
-                renderService.toJson( request.getBody(), result );
-            }
-        };
+        ImportSummaries summaries = new ImportSummaries();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
 
-        ResponseExtractor<ImportSummaries> responseExtractor = new ImportSummariesResponseExtractor();
-        ImportSummaries summaries = null;
         try
         {
-            summaries = restTemplate.execute( url, HttpMethod.POST, requestCallback, responseExtractor );
-        }
-        catch ( HttpClientErrorException ex )
-        {
-            String responseBody = ex.getResponseBodyAsString();
-            summaries = WebMessageParseUtils.fromWebMessageResponse( responseBody, ImportSummaries.class );
-        }
-        catch ( HttpServerErrorException ex )
-        {
-            String responseBody = ex.getResponseBodyAsString();
-            log.error( "Internal error happened during event data push: " + responseBody, ex );
-            throw ex;
-        }
-        catch ( ResourceAccessException ex )
-        {
-            log.error( "Exception during event data push: " + ex.getMessage(), ex );
-            throw ex;
-        }
+            SynchronizationPage page = getEventPage( lastSuccessTime, startTime, pageSize );
 
-        log.info( "Event synch summary: " + summaries );
-        boolean isError = false;
+            while ( page != null )
+            {
+                final SynchronizationPage currentPage = page;
 
-        if ( summaries != null )
-        {
+                Future<ImportSummaries> push = executor.submit( () -> pushPage( url,
+                    username, password, currentPage, new ImportSummariesResponseExtractor(), ImportSummaries.class ) );
 
-            for ( ImportSummary summary : summaries.getImportSummaries() )
-            {
-                if ( ImportStatus.ERROR.equals( summary.getStatus() ) || ImportStatus.WARNING.equals( summary.getStatus() ) )
+                page = currentPage.isLast() ? null : getEventPage( currentPage.getEndDate(), startTime, pageSize );
+
+                ImportSummaries pageSummaries = getPushResult( push );
+
+                log.info( "Event synch summary: " + pageSummaries );
+
+                if ( pageSummaries != null )
                 {
-                    isError = true;
-                    log.debug( "Sync failed: " + summaries );
-                    break;
+                    summaries.addImportSummaries( pageSummaries );
+
+                    boolean isError = pageSummaries.getImportSummaries().stream()
+                        .anyMatch( summary -> ImportStatus.ERROR.equals( summary.getStatus() ) || ImportStatus.WARNING.equals( summary.getStatus() ) );
+
+                    if ( isError )
+                    {
+                        log.debug( "Sync failed: " + pageSummaries );
+                        return summaries;
+                    }
                 }
+
+                setLastEventSynchSuccess( currentPage.getEndDate() );
+                log.info( "Synch of page successful, setting last success time: " + currentPage.getEndDate() );
             }
         }
-
-        if ( !isError )
+        finally
         {
-            setLastEventSynchSuccess( startTime );
-            log.info( "Synch successful, setting last success time: " + startTime );
+            executor.shutdownNow();
         }
 
         return summaries;
@@ -360,6 +349,117 @@ public class DefaultSynchronizationManager
     // Supportive methods
     // -------------------------------------------------------------------------
 
+    /**
+     * Retrieves the page of data values starting at the given start date and
+     * renders it as compressed JSON.
+     *
+     * @param startDate the inclusive start of the page.
+     * @param endDate the exclusive end of the time range to synchronize.
+     * @param pageSize the maximum number of data values in the page.
+     * @return a {@link SynchronizationPage}.
+     */
+    private SynchronizationPage getDataValuePage( Date startDate, Date endDate, int pageSize )
+    {
+        Date pageEnd = synchronizationStore.getDataValuePageEnd( startDate, endDate, pageSize );
+
+        byte[] content = CompressedJsonRequestCallback.compress( out ->
+            dataValueSetService.writeDataValueSetJson( startDate, pageEnd, out, new IdSchemes() ) );
+
+        return new SynchronizationPage( content, pageEnd, pageEnd.equals( endDate ) );
+    }
+
+    /**
+     * Retrieves the page of anonymous events starting at the given start date
+     * and renders it as compressed JSON.
+     *
+     * @param startDate the inclusive start of the page.
+     * @param endDate the exclusive end of the time range to synchronize.
+     * @param pageSize the maximum number of events in the page.
+     * @return a {@link SynchronizationPage}.
+     */
+    private SynchronizationPage getEventPage( Date startDate, Date endDate, int pageSize )
+    {
+        Date pageEnd = synchronizationStore.getAnonymousEventPageEnd( startDate, endDate, pageSize );
+
+        Events events = eventService.getAnonymousEventValuesLastUpdatedBetween( startDate, pageEnd );
+
+        byte[] content = CompressedJsonRequestCallback.compress( out -> renderService.toJson( out, events ) );
+
+        return new SynchronizationPage( content, pageEnd, pageEnd.equals( endDate ) );
+    }
+
+    /**
+     * Sends the given page to the given URL.
+     *
+     * @param url the URL of the remote server.
+     * @param username the username of the remote server.
+     * @param password the password of the remote server.
+     * @param page the {@link SynchronizationPage}.
+     * @param responseExtractor the extractor of the response.
+     * @param klass the class of the response.
+     * @return the response.
+     */
+    private <T> T pushPage( String url, String username, String password, SynchronizationPage page,
+        ResponseExtractor<T> responseExtractor, Class<T> klass ) throws WebMessageParseException
+    {
+        final RequestCallback requestCallback = new CompressedJsonRequestCallback( page.getContent(), username, password );
+
+        try
+        {
+            return restTemplate.execute( url, HttpMethod.POST, requestCallback, responseExtractor );
+        }
+        catch ( HttpClientErrorException ex )
+        {
+            String responseBody = ex.getResponseBodyAsString();
+            return WebMessageParseUtils.fromWebMessageResponse( responseBody, klass );
+        }
+        catch ( HttpServerErrorException ex )
+        {
+            String responseBody = ex.getResponseBodyAsString();
+            log.error( "Internal error happened during data push: " + responseBody, ex );
+            throw ex;
+        }
+        catch ( ResourceAccessException ex )
+        {
+            log.error( "Exception during data push: " + ex.getMessage(), ex );
+            throw ex;
+        }
+    }
+
+    /**
+     * Waits for the given push to complete and returns the response, throwing
+     * the exception of the push if it failed.
+     *
+     * @param push the push.
+     * @return the response.
+     */
+    private <T> T getPushResult( Future<T> push ) throws WebMessageParseException
+    {
+        try
+        {
+            return push.get();
+        }
+        catch ( InterruptedException ex )
+        {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException( "Synch was interrupted", ex );
+        }
+        catch ( ExecutionException ex )
+        {
+            if ( ex.getCause() instanceof WebMessageParseException )
+            {
+                throw (WebMessageParseException) ex.getCause();
+            }
+
+            if ( ex.getCause() instanceof RuntimeException )
+            {
+                throw (RuntimeException) ex.getCause();
+            }
+
+            throw new RuntimeException( "Synch failed", ex.getCause() );
+        }
+    }
+
     /**
      * Gets the time of the last successful data synchronization operation. If not set,
      * the current date subtracted by three days is returned.
@@ -397,4 +497,39 @@ public class DefaultSynchronizationManager
     {
         systemSettingManager.saveSystemSetting( SettingKey.LAST_SUCCESSFUL_EVENT_DATA_SYNC, time );
     }
+
+    /**
+     * Page of compressed content to synchronize, covering data last updated
+     * before the end date of the page.
+     */
+    private static class SynchronizationPage
+    {
+        private final byte[] content;
+
+        private final Date endDate;
+
+        private final boolean last;
+
+        SynchronizationPage( byte[] content, Date endDate, boolean last )
+        {
+            this.content = content;
+            this.endDate = endDate;
+            this.last = last;
+        }
+
+        byte[] getContent()
+        {
+            return content;
+        }
+
+        Date getEndDate()
+        {
+            return endDate;
+        }
+
+        boolean isLast()
+        {
+            return last;
+        }
+    }
 }
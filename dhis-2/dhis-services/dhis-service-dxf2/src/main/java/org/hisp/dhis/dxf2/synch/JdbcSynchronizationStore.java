@@ -0,0 +1,111 @@
+package org.hisp.dhis.dxf2.synch;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.List;
+
+public class JdbcSynchronizationStore
+    implements SynchronizationStore
+{
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // -------------------------------------------------------------------------
+    // SynchronizationStore implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    public Date getDataValuePageEnd( Date startDate, Date endDate, int pageSize )
+    {
+        final String sql =
+            "select dv.lastupdated from datavalue dv " +
+            "where dv.lastupdated >= ? and dv.lastupdated < ? " +
+            "order by dv.lastupdated " +
+            "limit 1 offset ?";
+
+        return getPageEnd( sql, startDate, endDate, pageSize );
+    }
+
+    @Override
+    public Date getAnonymousEventPageEnd( Date startDate, Date endDate, int pageSize )
+    {
+        final String sql =
+            "select psi.lastupdated from programstageinstance psi " +
+            "inner join programinstance pi on psi.programinstanceid=pi.programinstanceid " +
+            "inner join program p on pi.programid=p.programid " +
+            "where p.type = 'WITHOUT_REGISTRATION' " +
+            "and psi.lastupdated >= ? and psi.lastupdated < ? " +
+            "order by psi.lastupdated " +
+            "limit 1 offset ?";
+
+        return getPageEnd( sql, startDate, endDate, pageSize );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the end of the page by looking up the last updated time of the
+     * first row after the page, truncated to milliseconds. If that row shares
+     * the millisecond of the start of the page, the page is extended to the
+     * next millisecond so that synchronization always advances.
+     *
+     * @param sql the query returning the last updated time of the first row
+     *        after the page.
+     * @param startDate the inclusive start of the page.
+     * @param endDate the exclusive end of the time range.
+     * @param pageSize the page size.
+     * @return the exclusive end of the page.
+     */
+    private Date getPageEnd( String sql, Date startDate, Date endDate, int pageSize )
+    {
+        List<Timestamp> next = jdbcTemplate.queryForList( sql, Timestamp.class,
+            new Timestamp( startDate.getTime() ), new Timestamp( endDate.getTime() ), pageSize );
+
+        if ( next.isEmpty() )
+        {
+            return endDate;
+        }
+
+        long pageEnd = next.get( 0 ).getTime();
+
+        if ( pageEnd <= startDate.getTime() )
+        {
+            pageEnd = startDate.getTime() + 1;
+        }
+
+        return new Date( pageEnd );
+    }
+}
@@ -0,0 +1,67 @@
+package org.hisp.dhis.dxf2.synch;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.Date;
+
+/**
+ * Store which splits the data changed within a time range into pages for
+ * synchronization. Pages are bounded by last updated time in millisecond
+ * precision, which makes the end of an acknowledged page usable as a
+ * high-water mark from where synchronization can resume.
+ */
+public interface SynchronizationStore
+{
+    /**
+     * Returns the exclusive end of the page of data values starting at the
+     * given start date. The page holds at most the given page size of data
+     * values, unless more data values share the same millisecond.
+     *
+     * @param startDate the inclusive start of the page.
+     * @param endDate the exclusive end of the time range to synchronize.
+     * @param pageSize the maximum number of data values in the page.
+     * @return the exclusive end of the page, which is the end date if the
+     *         remaining data values fit in one page.
+     */
+    Date getDataValuePageEnd( Date startDate, Date endDate, int pageSize );
+
+    /**
+     * Returns the exclusive end of the page of events of programs without
+     * registration starting at the given start date. The page holds at most
+     * the given page size of events, unless more events share the same
+     * millisecond.
+     *
+     * @param startDate the inclusive start of the page.
+     * @param endDate the exclusive end of the time range to synchronize.
+     * @param pageSize the maximum number of events in the page.
+     * @return the exclusive end of the page, which is the end date if the
+     *         remaining events fit in one page.
+     */
+    Date getAnonymousEventPageEnd( Date startDate, Date endDate, int pageSize );
+}
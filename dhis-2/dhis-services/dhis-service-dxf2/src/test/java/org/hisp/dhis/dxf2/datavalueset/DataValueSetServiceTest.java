@@ -51,6 +51,7 @@ import org.hisp.dhis.dataset.DataSet;
 import org.hisp.dhis.dataset.DataSetService;
 import org.hisp.dhis.datavalue.DataValue;
 import org.hisp.dhis.datavalue.DataValueAudit;
+import org.hisp.dhis.datavalue.DataValueService;
 import org.hisp.dhis.dxf2.common.ImportOptions;
 import org.hisp.dhis.dxf2.importsummary.ImportStatus;
 import org.hisp.dhis.dxf2.importsummary.ImportSummary;
@@ -113,6 +114,9 @@ public class DataValueSetServiceTest
     @Autowired
     private DataValueSetService dataValueSetService;
 
+    @Autowired
+    private DataValueService dataValueService;
+
     @Autowired
     private CompleteDataSetRegistrationService registrationService;
 
@@ -918,7 +922,9 @@ public class DataValueSetServiceTest
     public void testImportDataValuesUpdatedAudit()
         throws Exception
     {
-        mockDataValueBatchHandler.withFindSelf( true );
+        dataValueService.addDataValue( new DataValue( deA, peA, ouA, ocDef, ocDef, "1" ) );
+        dataValueService.addDataValue( new DataValue( deB, peA, ouA, ocDef, ocDef, "2" ) );
+        dataValueService.addDataValue( new DataValue( deC, peA, ouA, ocDef, ocDef, "3" ) );
         
         in = new ClassPathResource( "datavalueset/dataValueSetA.xml" ).getInputStream();
 
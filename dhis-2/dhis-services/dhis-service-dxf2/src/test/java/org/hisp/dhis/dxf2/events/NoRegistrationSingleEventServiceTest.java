@@ -28,13 +28,19 @@ package org.hisp.dhis.dxf2.events;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import org.hibernate.SessionFactory;
 import org.hisp.dhis.DhisSpringTest;
+import org.hisp.dhis.IntegrationTest;
 import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.common.OrganisationUnitSelectionMode;
+import org.hisp.dhis.common.PageToken;
 import org.hisp.dhis.common.ValueType;
 import org.hisp.dhis.dataelement.DataElement;
 import org.hisp.dhis.dxf2.events.event.DataValue;
 import org.hisp.dhis.dxf2.events.event.Event;
+import org.hisp.dhis.dxf2.events.event.EventSearchParams;
 import org.hisp.dhis.dxf2.events.event.EventService;
+import org.hisp.dhis.dxf2.events.event.Events;
 import org.hisp.dhis.dxf2.importsummary.ImportStatus;
 import org.hisp.dhis.dxf2.importsummary.ImportSummary;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
@@ -50,10 +56,12 @@ import org.hisp.dhis.program.ProgramType;
 import org.hisp.dhis.user.UserService;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.junit.experimental.categories.Category;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Date;
 import java.util.HashSet;
+import java.util.Set;
 
 import static org.junit.Assert.*;
 
@@ -78,6 +86,9 @@ public class NoRegistrationSingleEventServiceTest
     @Autowired
     private IdentifiableObjectManager identifiableObjectManager;
 
+    @Autowired
+    private SessionFactory sessionFactory;
+
     @Autowired
     private UserService _userService;
 
@@ -207,6 +218,75 @@ public class NoRegistrationSingleEventServiceTest
         assertNull( programStageInstanceService.getProgramStageInstance( importSummary.getReference() ) );
     }
 
+    @Test
+    @Category( IntegrationTest.class )
+    public void testGetEventsWithPageToken()
+    {
+        for ( int i = 0; i < 5; i++ )
+        {
+            ImportSummary importSummary = eventService.addEvent( createEvent( programA.getUid(), organisationUnitA.getUid() ), null );
+            assertEquals( ImportStatus.SUCCESS, importSummary.getStatus() );
+        }
+
+        sessionFactory.getCurrentSession().flush();
+
+        Set<String> uids = new HashSet<>();
+
+        Events events = eventService.getEvents( createSearchParams( null ) );
+        assertEquals( 2, events.getEvents().size() );
+        assertNotNull( events.getNextPageToken() );
+        events.getEvents().forEach( event -> uids.add( event.getEvent() ) );
+
+        events = eventService.getEvents( createSearchParams( events.getNextPageToken() ) );
+        assertEquals( 2, events.getEvents().size() );
+        assertNotNull( events.getNextPageToken() );
+        events.getEvents().forEach( event -> uids.add( event.getEvent() ) );
+
+        events = eventService.getEvents( createSearchParams( events.getNextPageToken() ) );
+        assertEquals( 1, events.getEvents().size() );
+        assertNull( events.getNextPageToken() );
+        events.getEvents().forEach( event -> uids.add( event.getEvent() ) );
+
+        assertEquals( 5, uids.size() );
+    }
+
+    @Test
+    @Category( IntegrationTest.class )
+    public void testGetEventsWithPageTokenMatchesOffsetPaging()
+    {
+        for ( int i = 0; i < 4; i++ )
+        {
+            ImportSummary importSummary = eventService.addEvent( createEvent( programA.getUid(), organisationUnitA.getUid() ), null );
+            assertEquals( ImportStatus.SUCCESS, importSummary.getStatus() );
+        }
+
+        sessionFactory.getCurrentSession().flush();
+
+        Events firstPage = eventService.getEvents( createSearchParams( null ) );
+
+        EventSearchParams params = createSearchParams( null );
+        params.setPage( 2 );
+
+        Events secondPage = eventService.getEvents( params );
+        Events nextPage = eventService.getEvents( createSearchParams( firstPage.getNextPageToken() ) );
+
+        assertEquals( 2, secondPage.getEvents().size() );
+        assertEquals( secondPage.getEvents().get( 0 ).getEvent(), nextPage.getEvents().get( 0 ).getEvent() );
+        assertEquals( secondPage.getEvents().get( 1 ).getEvent(), nextPage.getEvents().get( 1 ).getEvent() );
+    }
+
+    private EventSearchParams createSearchParams( String pageToken )
+    {
+        EventSearchParams params = new EventSearchParams();
+        params.setProgram( programA );
+        params.setOrgUnit( organisationUnitA );
+        params.setOrgUnitSelectionMode( OrganisationUnitSelectionMode.SELECTED );
+        params.setPageSize( 2 );
+        params.setPageToken( PageToken.decode( pageToken ) );
+
+        return params;
+    }
+
     private Event createEvent( String program, String orgUnit )
     {
         Event event = new Event();
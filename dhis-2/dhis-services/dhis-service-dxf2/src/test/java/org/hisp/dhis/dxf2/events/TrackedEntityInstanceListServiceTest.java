@@ -0,0 +1,357 @@
+package org.hisp.dhis.dxf2.events;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.hisp.dhis.DhisSpringTest;
+import org.hisp.dhis.category.CategoryService;
+import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.common.IllegalQueryException;
+import org.hisp.dhis.common.OrganisationUnitSelectionMode;
+import org.hisp.dhis.dbms.DbmsManager;
+import org.hisp.dhis.dxf2.events.enrollment.Enrollment;
+import org.hisp.dhis.dxf2.events.event.Event;
+import org.hisp.dhis.dxf2.events.trackedentity.Attribute;
+import org.hisp.dhis.dxf2.events.trackedentity.Relationship;
+import org.hisp.dhis.dxf2.events.trackedentity.TrackedEntityInstance;
+import org.hisp.dhis.dxf2.events.trackedentity.TrackedEntityInstanceService;
+import org.hisp.dhis.event.EventStatus;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.program.Program;
+import org.hisp.dhis.program.ProgramInstance;
+import org.hisp.dhis.program.ProgramInstanceService;
+import org.hisp.dhis.program.ProgramStage;
+import org.hisp.dhis.program.ProgramStageInstance;
+import org.hisp.dhis.program.ProgramTrackedEntityAttribute;
+import org.hisp.dhis.relationship.RelationshipService;
+import org.hisp.dhis.relationship.RelationshipType;
+import org.hisp.dhis.security.acl.AccessStringHelper;
+import org.hisp.dhis.trackedentity.TrackedEntityAttribute;
+import org.hisp.dhis.trackedentity.TrackedEntityInstanceQueryParams;
+import org.hisp.dhis.trackedentity.TrackedEntityType;
+import org.hisp.dhis.trackedentity.TrackedEntityTypeService;
+import org.hisp.dhis.trackedentityattributevalue.TrackedEntityAttributeValue;
+import org.hisp.dhis.trackedentityattributevalue.TrackedEntityAttributeValueService;
+import org.hisp.dhis.user.UserService;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Verifies that tracked entity instances converted as a list, where attribute
+ * values and relationships are loaded for all instances at once, match the
+ * instances converted one by one.
+ */
+public class TrackedEntityInstanceListServiceTest
+    extends DhisSpringTest
+{
+    @Autowired
+    private TrackedEntityInstanceService trackedEntityInstanceService;
+
+    @Autowired
+    private TrackedEntityTypeService trackedEntityTypeService;
+
+    @Autowired
+    private TrackedEntityAttributeValueService attributeValueService;
+
+    @Autowired
+    private ProgramInstanceService programInstanceService;
+
+    @Autowired
+    private RelationshipService relationshipService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private IdentifiableObjectManager manager;
+
+    @Autowired
+    private DbmsManager dbmsManager;
+
+    @Autowired
+    private UserService _userService;
+
+    private OrganisationUnit organisationUnitA;
+    private OrganisationUnit organisationUnitB;
+
+    private TrackedEntityAttribute attributeA;
+    private TrackedEntityAttribute attributeB;
+
+    private ProgramStage programStageA;
+
+    private RelationshipType relationshipTypeA;
+
+    private org.hisp.dhis.trackedentity.TrackedEntityInstance teiA;
+    private org.hisp.dhis.trackedentity.TrackedEntityInstance teiB;
+    private org.hisp.dhis.trackedentity.TrackedEntityInstance teiC;
+    private org.hisp.dhis.trackedentity.TrackedEntityInstance teiD;
+
+    @Override
+    protected void setUpTest()
+        throws Exception
+    {
+        userService = _userService;
+
+        organisationUnitA = createOrganisationUnit( 'A' );
+        organisationUnitB = createOrganisationUnit( 'B', organisationUnitA );
+        manager.save( organisationUnitA );
+        manager.save( organisationUnitB );
+
+        TrackedEntityType trackedEntityType = createTrackedEntityType( 'A' );
+        trackedEntityType.setPublicAccess( AccessStringHelper.FULL );
+        trackedEntityTypeService.addTrackedEntityType( trackedEntityType );
+
+        attributeA = createTrackedEntityAttribute( 'A' );
+        attributeB = createTrackedEntityAttribute( 'B' );
+        manager.save( attributeA );
+        manager.save( attributeB );
+
+        // Attribute B is not part of any program or type and is not readable
+
+        Program programA = createProgram( 'A', new HashSet<>(), organisationUnitA );
+        programA.setTrackedEntityType( trackedEntityType );
+        programA.setPublicAccess( AccessStringHelper.FULL );
+
+        ProgramTrackedEntityAttribute programAttribute = new ProgramTrackedEntityAttribute( programA, attributeA );
+        programAttribute.setAutoFields();
+        programA.getProgramAttributes().add( programAttribute );
+        manager.save( programA );
+
+        programStageA = createProgramStage( 'A', programA );
+        programStageA.setPublicAccess( AccessStringHelper.FULL );
+        manager.save( programStageA );
+
+        programA.getProgramStages().add( programStageA );
+        manager.update( programA );
+
+        relationshipTypeA = createRelationshipType( 'A' );
+        manager.save( relationshipTypeA );
+
+        teiA = createTrackedEntityInstance( 'A', organisationUnitB );
+        teiB = createTrackedEntityInstance( 'B', organisationUnitB );
+        teiC = createTrackedEntityInstance( 'C', organisationUnitB );
+        teiD = createTrackedEntityInstance( 'D', organisationUnitA );
+
+        for ( org.hisp.dhis.trackedentity.TrackedEntityInstance tei : Lists.newArrayList( teiA, teiB, teiC, teiD ) )
+        {
+            tei.setTrackedEntityType( trackedEntityType );
+            manager.save( tei );
+
+            addAttributeValue( tei, attributeA, "A" + tei.getUid() );
+            addAttributeValue( tei, attributeB, "B" + tei.getUid() );
+        }
+
+        // Enrollment of B is in an organisation unit the user cannot read
+
+        ProgramInstance programInstanceA = programInstanceService.enrollTrackedEntityInstance( teiA, programA, null, null, organisationUnitB );
+        ProgramInstance programInstanceB = programInstanceService.enrollTrackedEntityInstance( teiB, programA, null, null, organisationUnitA );
+        ProgramInstance programInstanceC = programInstanceService.enrollTrackedEntityInstance( teiC, programA, null, null, organisationUnitB );
+
+        addEvent( programInstanceA );
+        addEvent( programInstanceA );
+        addEvent( programInstanceB );
+        addEvent( programInstanceC );
+
+        relationshipService.addRelationship( new org.hisp.dhis.relationship.Relationship( teiA, relationshipTypeA, teiC ) );
+
+        dbmsManager.flushSession();
+
+        createUserAndInjectSecurityContext( Sets.newHashSet( organisationUnitB ), Sets.newHashSet( organisationUnitB ), false );
+    }
+
+    @Test
+    public void testGetTrackedEntityInstancesMatchesSingle()
+    {
+        Map<String, TrackedEntityInstance> teis = getTrackedEntityInstances();
+
+        assertEquals( 3, teis.size() );
+
+        for ( org.hisp.dhis.trackedentity.TrackedEntityInstance daoTei : Lists.newArrayList( teiA, teiB, teiC ) )
+        {
+            TrackedEntityInstance tei = teis.get( daoTei.getUid() );
+            TrackedEntityInstance single = trackedEntityInstanceService.getTrackedEntityInstance( daoTei, TrackedEntityInstanceParams.TRUE );
+
+            assertNotNull( tei );
+            assertEquals( describe( single ), describe( tei ) );
+        }
+    }
+
+    @Test
+    public void testGetTrackedEntityInstancesAttributes()
+    {
+        Map<String, TrackedEntityInstance> teis = getTrackedEntityInstances();
+
+        for ( TrackedEntityInstance tei : teis.values() )
+        {
+            assertEquals( 1, tei.getAttributes().size() );
+            assertEquals( attributeA.getUid(), tei.getAttributes().get( 0 ).getAttribute() );
+            assertEquals( "A" + tei.getTrackedEntityInstance(), tei.getAttributes().get( 0 ).getValue() );
+            assertEquals( attributeA.getDisplayName(), tei.getAttributes().get( 0 ).getDisplayName() );
+        }
+    }
+
+    @Test
+    public void testGetTrackedEntityInstancesEnrollments()
+    {
+        Map<String, TrackedEntityInstance> teis = getTrackedEntityInstances();
+
+        assertEquals( 1, teis.get( teiA.getUid() ).getEnrollments().size() );
+        assertEquals( 2, teis.get( teiA.getUid() ).getEnrollments().get( 0 ).getEvents().size() );
+        assertEquals( 0, teis.get( teiB.getUid() ).getEnrollments().size() );
+        assertEquals( 1, teis.get( teiC.getUid() ).getEnrollments().size() );
+        assertEquals( 1, teis.get( teiC.getUid() ).getEnrollments().get( 0 ).getEvents().size() );
+    }
+
+    @Test
+    public void testGetTrackedEntityInstancesRelationships()
+    {
+        Map<String, TrackedEntityInstance> teis = getTrackedEntityInstances();
+
+        List<Relationship> relationshipsA = teis.get( teiA.getUid() ).getRelationships();
+        List<Relationship> relationshipsC = teis.get( teiC.getUid() ).getRelationships();
+
+        assertEquals( 1, relationshipsA.size() );
+        assertEquals( relationshipTypeA.getUid(), relationshipsA.get( 0 ).getRelationship() );
+        assertEquals( relationshipTypeA.getDisplayName(), relationshipsA.get( 0 ).getDisplayName() );
+        assertEquals( teiC.getUid(), relationshipsA.get( 0 ).getRelative().getTrackedEntityInstance() );
+        assertEquals( 1, relationshipsA.get( 0 ).getRelative().getAttributes().size() );
+        assertEquals( "A" + teiC.getUid(), relationshipsA.get( 0 ).getRelative().getAttributes().get( 0 ).getValue() );
+
+        assertEquals( 1, relationshipsC.size() );
+        assertEquals( teiA.getUid(), relationshipsC.get( 0 ).getRelative().getTrackedEntityInstance() );
+
+        assertTrue( teis.get( teiB.getUid() ).getRelationships().isEmpty() );
+    }
+
+    @Test
+    public void testGetTrackedEntityInstancesNotReadable()
+    {
+        Map<String, TrackedEntityInstance> teis = getTrackedEntityInstances();
+
+        assertNull( teis.get( teiD.getUid() ) );
+
+        try
+        {
+            trackedEntityInstanceService.getTrackedEntityInstance( teiD, TrackedEntityInstanceParams.TRUE );
+            fail( "Expected IllegalQueryException" );
+        }
+        catch ( IllegalQueryException ex )
+        {
+            // Expected
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private Map<String, TrackedEntityInstance> getTrackedEntityInstances()
+    {
+        TrackedEntityInstanceQueryParams queryParams = new TrackedEntityInstanceQueryParams()
+            .addOrganisationUnit( organisationUnitA )
+            .setOrganisationUnitMode( OrganisationUnitSelectionMode.DESCENDANTS );
+
+        return trackedEntityInstanceService.getTrackedEntityInstances( queryParams, TrackedEntityInstanceParams.TRUE, true ).stream()
+            .collect( Collectors.toMap( TrackedEntityInstance::getTrackedEntityInstance, Function.identity() ) );
+    }
+
+    private void addAttributeValue( org.hisp.dhis.trackedentity.TrackedEntityInstance tei, TrackedEntityAttribute attribute, String value )
+    {
+        TrackedEntityAttributeValue attributeValue = new TrackedEntityAttributeValue( attribute, tei, value );
+        attributeValueService.addTrackedEntityAttributeValue( attributeValue );
+        tei.getTrackedEntityAttributeValues().add( attributeValue );
+    }
+
+    private void addEvent( ProgramInstance programInstance )
+    {
+        ProgramStageInstance programStageInstance = new ProgramStageInstance( programInstance, programStageA );
+        programStageInstance.setAutoFields();
+        programStageInstance.setOrganisationUnit( programInstance.getOrganisationUnit() );
+        programStageInstance.setAttributeOptionCombo( categoryService.getDefaultCategoryOptionCombo() );
+        programStageInstance.setStatus( EventStatus.ACTIVE );
+        programStageInstance.setExecutionDate( new Date() );
+        programStageInstance.setDueDate( new Date() );
+        manager.save( programStageInstance );
+
+        programInstance.getProgramStageInstances().add( programStageInstance );
+    }
+
+    /**
+     * Returns a description of the attributes, enrollments with events and
+     * relationships with relatives of the given tracked entity instance which
+     * is independent of the order of the items.
+     */
+    private String describe( TrackedEntityInstance tei )
+    {
+        List<String> items = new ArrayList<>();
+
+        tei.getAttributes().forEach( attribute -> items.add( "attribute:" + describe( attribute ) ) );
+
+        for ( Enrollment enrollment : tei.getEnrollments() )
+        {
+            items.add( "enrollment:" + enrollment.getEnrollment() + ":" + enrollment.getEvents().stream()
+                .map( Event::getEvent ).sorted().collect( Collectors.joining( "," ) ) );
+        }
+
+        for ( Relationship relationship : tei.getRelationships() )
+        {
+            TrackedEntityInstance relative = relationship.getRelative();
+
+            items.add( "relationship:" + relationship.getRelationship() + ":" + relationship.getDisplayName() + ":" +
+                relationship.getTrackedEntityInstanceA() + ":" + relationship.getTrackedEntityInstanceB() + ":" +
+                ( relative != null ? relative.getTrackedEntityInstance() + ":" + relative.getAttributes().stream()
+                    .map( this::describe ).sorted().collect( Collectors.joining( "," ) ) : null ) );
+        }
+
+        Collections.sort( items );
+
+        return tei.getTrackedEntityInstance() + ":" + tei.getOrgUnit() + ":" + items;
+    }
+
+    private String describe( Attribute attribute )
+    {
+        return attribute.getAttribute() + "=" + attribute.getValue() + ":" + attribute.getDisplayName() + ":" + attribute.getValueType();
+    }
+}
@@ -0,0 +1,120 @@
+package org.hisp.dhis.dxf2.synch;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.hisp.dhis.system.util.CodecUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CompressedJsonRequestCallbackTest
+{
+    private static final String JSON = "{\"events\":[{\"event\":\"a1234567890\"},{\"event\":\"b1234567890\"}]}";
+
+    private HttpServer server;
+
+    private String contentType;
+
+    private String contentEncoding;
+
+    private String authorization;
+
+    private String body;
+
+    @Before
+    public void before()
+        throws IOException
+    {
+        server = HttpServer.create( new InetSocketAddress( "localhost", 0 ), 0 );
+        server.createContext( "/api/events", exchange -> {
+            contentType = exchange.getRequestHeaders().getFirst( "Content-Type" );
+            contentEncoding = exchange.getRequestHeaders().getFirst( "Content-Encoding" );
+            authorization = exchange.getRequestHeaders().getFirst( "Authorization" );
+            body = IOUtils.toString( new GZIPInputStream( exchange.getRequestBody() ), StandardCharsets.UTF_8 );
+
+            byte[] response = "{}".getBytes( StandardCharsets.UTF_8 );
+            exchange.sendResponseHeaders( 200, response.length );
+
+            try ( OutputStream out = exchange.getResponseBody() )
+            {
+                out.write( response );
+            }
+        } );
+        server.start();
+    }
+
+    @After
+    public void after()
+    {
+        server.stop( 0 );
+    }
+
+    @Test
+    public void testCompress()
+        throws IOException
+    {
+        byte[] content = CompressedJsonRequestCallback.compress( out -> out.write( JSON.getBytes( StandardCharsets.UTF_8 ) ) );
+
+        String json = IOUtils.toString( new GZIPInputStream( new ByteArrayInputStream( content ) ), StandardCharsets.UTF_8 );
+
+        assertEquals( JSON, json );
+    }
+
+    @Test
+    public void testPostCompressedContent()
+    {
+        byte[] content = CompressedJsonRequestCallback.compress( out -> out.write( JSON.getBytes( StandardCharsets.UTF_8 ) ) );
+
+        String url = "http://localhost:" + server.getAddress().getPort() + "/api/events";
+
+        HttpStatus status = new RestTemplate().execute( url, HttpMethod.POST,
+            new CompressedJsonRequestCallback( content, "admin", "district" ), response -> response.getStatusCode() );
+
+        assertEquals( HttpStatus.OK, status );
+        assertTrue( contentType.startsWith( "application/json" ) );
+        assertEquals( "gzip", contentEncoding );
+        assertEquals( CodecUtils.getBasicAuthString( "admin", "district" ), authorization );
+        assertEquals( JSON, body );
+    }
+}
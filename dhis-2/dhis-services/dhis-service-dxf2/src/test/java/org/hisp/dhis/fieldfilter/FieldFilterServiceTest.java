@@ -0,0 +1,195 @@
+package org.hisp.dhis.fieldfilter;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import com.google.common.collect.Lists;
+import org.hisp.dhis.DhisSpringTest;
+import org.hisp.dhis.category.CategoryCombo;
+import org.hisp.dhis.common.DataDimensionType;
+import org.hisp.dhis.common.Pager;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.node.NodeUtils;
+import org.hisp.dhis.node.config.InclusionStrategy;
+import org.hisp.dhis.node.serializers.Jackson2JsonNodeSerializer;
+import org.hisp.dhis.node.types.RootNode;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies that objects written through the field filter plan match the
+ * serialized node tree of the field filter service.
+ */
+public class FieldFilterServiceTest
+    extends DhisSpringTest
+{
+    @Autowired
+    private FieldFilterService fieldFilterService;
+
+    @Test
+    public void testIsStreamable()
+    {
+        assertTrue( fieldFilterService.isStreamable( DataElement.class, Lists.newArrayList( "id", "name", "code" ) ) );
+        assertTrue( fieldFilterService.isStreamable( DataElement.class, Lists.newArrayList( "id,created,lastUpdated,valueType" ) ) );
+
+        assertFalse( fieldFilterService.isStreamable( DataElement.class, null ) );
+        assertFalse( fieldFilterService.isStreamable( DataElement.class, Lists.newArrayList() ) );
+        assertFalse( fieldFilterService.isStreamable( DataElement.class, Lists.newArrayList( "id", "categoryCombo" ) ) );
+        assertFalse( fieldFilterService.isStreamable( DataElement.class, Lists.newArrayList( "id", "dataElementGroups[id]" ) ) );
+        assertFalse( fieldFilterService.isStreamable( DataElement.class, Lists.newArrayList( "id", "name~rename(label)" ) ) );
+        assertFalse( fieldFilterService.isStreamable( DataElement.class, Lists.newArrayList( "*" ) ) );
+    }
+
+    @Test
+    public void testWriteCollectionJsonMatchesNodeTree() throws Exception
+    {
+        DataElement deA = createDataElement( 'A' );
+        DataElement deB = createDataElement( 'B' );
+        DataElement deC = createDataElement( 'C' );
+        deB.setCode( null );
+        deC.setCode( "" );
+
+        List<DataElement> dataElements = Lists.newArrayList( deA, deB, deC );
+        List<String> fields = Lists.newArrayList( "id", "name", "code", "created", "lastUpdated", "valueType", "aggregationType", "zeroIsSignificant" );
+
+        assertTrue( fieldFilterService.isStreamable( DataElement.class, fields ) );
+
+        for ( InclusionStrategy inclusionStrategy : Lists.newArrayList( InclusionStrategy.Include.NON_NULL, InclusionStrategy.Include.NON_EMPTY ) )
+        {
+            String expected = toNodeJson( DataElement.class, dataElements, fields, Defaults.INCLUDE, inclusionStrategy );
+            String actual = toStreamedJson( DataElement.class, dataElements, fields, Defaults.INCLUDE, inclusionStrategy );
+
+            assertEquals( expected, actual );
+        }
+
+        deB.setCode( "DataElementCodeB" );
+
+        String expected = toNodeJson( DataElement.class, dataElements, fields, Defaults.INCLUDE, InclusionStrategy.Include.ALWAYS );
+        String actual = toStreamedJson( DataElement.class, dataElements, fields, Defaults.INCLUDE, InclusionStrategy.Include.ALWAYS );
+
+        assertEquals( expected, actual );
+    }
+
+    @Test
+    public void testWriteCollectionJsonMatchesNodeTreeInFieldOrder() throws Exception
+    {
+        List<DataElement> dataElements = Lists.newArrayList( createDataElement( 'A' ), createDataElement( 'B' ) );
+        List<String> fields = Lists.newArrayList( "shortName,id", "displayName" );
+
+        String expected = toNodeJson( DataElement.class, dataElements, fields, Defaults.INCLUDE, InclusionStrategy.Include.NON_NULL );
+        String actual = toStreamedJson( DataElement.class, dataElements, fields, Defaults.INCLUDE, InclusionStrategy.Include.NON_NULL );
+
+        assertEquals( expected, actual );
+    }
+
+    @Test
+    public void testWriteCollectionJsonExcludeDefaults() throws Exception
+    {
+        CategoryCombo ccA = new CategoryCombo( "default", DataDimensionType.DISAGGREGATION );
+        CategoryCombo ccB = new CategoryCombo( "CategoryComboB", DataDimensionType.DISAGGREGATION );
+        ccA.setAutoFields();
+        ccB.setAutoFields();
+
+        List<CategoryCombo> categoryCombos = Lists.newArrayList( ccA, ccB );
+        List<String> fields = Lists.newArrayList( "id", "name" );
+
+        for ( Defaults defaults : Defaults.values() )
+        {
+            String expected = toNodeJson( CategoryCombo.class, categoryCombos, fields, defaults, InclusionStrategy.Include.NON_NULL );
+            String actual = toStreamedJson( CategoryCombo.class, categoryCombos, fields, defaults, InclusionStrategy.Include.NON_NULL );
+
+            assertEquals( expected, actual );
+        }
+
+        assertFalse( toStreamedJson( CategoryCombo.class, categoryCombos, fields, Defaults.EXCLUDE,
+            InclusionStrategy.Include.NON_NULL ).contains( "\"default\"" ) );
+    }
+
+    @Test
+    public void testWriteCollectionJsonMatchesNodeTreeWithPager() throws Exception
+    {
+        List<DataElement> dataElements = Lists.newArrayList( createDataElement( 'A' ) );
+        List<String> fields = Lists.newArrayList( "id", "name" );
+
+        RootNode nodeRoot = NodeUtils.createMetadata();
+        nodeRoot.addChild( NodeUtils.createPager( new Pager( 1, 1 ) ) );
+        nodeRoot.addChild( fieldFilterService.toCollectionNode( DataElement.class, new FieldFilterParams( dataElements, fields ) ) );
+
+        RootNode streamedRoot = NodeUtils.createMetadata();
+        streamedRoot.addChild( NodeUtils.createPager( new Pager( 1, 1 ) ) );
+
+        assertEquals( serialize( nodeRoot ), serialize( streamedRoot, DataElement.class, new FieldFilterParams( dataElements, fields ) ) );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private String toNodeJson( Class<?> klass, List<?> objects, List<String> fields, Defaults defaults,
+        InclusionStrategy inclusionStrategy ) throws Exception
+    {
+        RootNode rootNode = NodeUtils.createMetadata();
+        rootNode.getConfig().setInclusionStrategy( inclusionStrategy );
+        rootNode.addChild( fieldFilterService.toCollectionNode( klass, new FieldFilterParams( objects, fields, defaults ) ) );
+
+        return serialize( rootNode );
+    }
+
+    private String toStreamedJson( Class<?> klass, List<?> objects, List<String> fields, Defaults defaults,
+        InclusionStrategy inclusionStrategy ) throws Exception
+    {
+        RootNode rootNode = NodeUtils.createMetadata();
+        rootNode.getConfig().setInclusionStrategy( inclusionStrategy );
+
+        return serialize( rootNode, klass, new FieldFilterParams( objects, fields, defaults ) );
+    }
+
+    private String serialize( RootNode rootNode ) throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new Jackson2JsonNodeSerializer().serialize( rootNode, out );
+
+        return out.toString( "UTF-8" );
+    }
+
+    private String serialize( RootNode rootNode, Class<?> klass, FieldFilterParams params ) throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new Jackson2JsonNodeSerializer().serialize( rootNode, out, generator ->
+            fieldFilterService.writeCollectionJson( klass, params, rootNode.getConfig().getInclusionStrategy(), generator ) );
+
+        return out.toString( "UTF-8" );
+    }
+}
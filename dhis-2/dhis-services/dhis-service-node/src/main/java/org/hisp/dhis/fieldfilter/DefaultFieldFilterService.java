@@ -28,6 +28,9 @@ package org.hisp.dhis.fieldfilter;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
@@ -41,6 +44,7 @@ import org.hisp.dhis.node.AbstractNode;
 import org.hisp.dhis.node.Node;
 import org.hisp.dhis.node.NodeTransformer;
 import org.hisp.dhis.node.Preset;
+import org.hisp.dhis.node.config.InclusionStrategy;
 import org.hisp.dhis.node.types.CollectionNode;
 import org.hisp.dhis.node.types.ComplexNode;
 import org.hisp.dhis.node.types.SimpleNode;
@@ -50,7 +54,6 @@ import org.hisp.dhis.schema.Property;
 import org.hisp.dhis.schema.Schema;
 import org.hisp.dhis.schema.SchemaService;
 import org.hisp.dhis.security.acl.AclService;
-import org.hisp.dhis.system.util.ReflectionUtils;
 import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.user.User;
 import org.hisp.dhis.user.UserCredentials;
@@ -58,13 +61,19 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.util.StringUtils;
 
 import javax.annotation.PostConstruct;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 /**
  * @author Morten Olav Hansen <mortenoh@gmail.com>
@@ -77,6 +86,16 @@ public class DefaultFieldFilterService implements FieldFilterService
 
     private final static Pattern TRANSFORMER_PATTERN = Pattern.compile( "(?<type>\\||::|~)(?<name>\\w+)(?:\\((?<args>[\\w;]+)\\))?" );
 
+    /**
+     * Cache for compiled field filter plans, keyed by class and fields. Absent
+     * values indicate fields which require the node tree.
+     */
+    private static final Cache<String, Optional<FieldFilterPlan>> PLAN_CACHE = Caffeine.newBuilder()
+        .expireAfterAccess( 1, TimeUnit.HOURS )
+        .initialCapacity( 100 )
+        .maximumSize( 2000 )
+        .build();
+
     private final FieldParser fieldParser;
 
     private final SchemaService schemaService;
@@ -193,6 +212,101 @@ public class DefaultFieldFilterService implements FieldFilterService
         return collectionNode;
     }
 
+    @Override
+    public boolean isStreamable( Class<?> klass, List<String> fields )
+    {
+        return getPlan( klass, fields ) != null;
+    }
+
+    @Override
+    public void writeCollectionJson( Class<?> wrapper, FieldFilterParams params, InclusionStrategy inclusionStrategy,
+        JsonGenerator generator ) throws IOException
+    {
+        FieldFilterPlan plan = getPlan( wrapper, params.getFields() );
+
+        if ( plan == null )
+        {
+            throw new IllegalArgumentException( "Fields cannot be written without node tree: " + params.getFields() );
+        }
+
+        List<?> objects = params.getObjects();
+
+        if ( Defaults.EXCLUDE == params.getDefaults() )
+        {
+            objects = objects.stream()
+                .filter( object -> !shouldExclude( object, params.getDefaults() ) )
+                .collect( Collectors.toList() );
+        }
+
+        if ( !inclusionStrategy.include( objects ) )
+        {
+            return;
+        }
+
+        generator.writeArrayFieldStart( schemaService.getDynamicSchema( wrapper ).getCollectionName() );
+
+        for ( Object object : objects )
+        {
+            plan.write( generator, object, inclusionStrategy );
+        }
+
+        generator.writeEndArray();
+    }
+
+    /**
+     * Returns the cached field filter plan for the given class and fields, or
+     * null if the fields require the node tree.
+     */
+    private FieldFilterPlan getPlan( Class<?> klass, List<String> fields )
+    {
+        if ( fields == null || fields.isEmpty() )
+        {
+            return null;
+        }
+
+        String key = klass.getName() + ":" + Joiner.on( "," ).join( fields );
+
+        return PLAN_CACHE.get( key, k -> Optional.ofNullable( compilePlan( klass, fields ) ) ).orElse( null );
+    }
+
+    /**
+     * Compiles a field filter plan, following the rules of {@link #buildNode}
+     * for simple properties. Returns null if any field resolves to a collection,
+     * a reference, a complex object or has transformers.
+     */
+    private FieldFilterPlan compilePlan( Class<?> klass, List<String> fields )
+    {
+        Schema schema = schemaService.getDynamicSchema( klass );
+        FieldMap fieldMap = fieldParser.parse( Joiner.on( "," ).join( fields ) );
+
+        updateFields( fieldMap, schema.getKlass() );
+
+        Map<String, Property> properties = new LinkedHashMap<>();
+
+        for ( String fieldKey : fieldMap.keySet() )
+        {
+            Property property = schema.getProperty( fieldKey );
+
+            if ( property == null || !property.isReadable() )
+            {
+                continue;
+            }
+
+            FieldMap fieldValue = fieldMap.get( fieldKey );
+
+            if ( property.isCollection() || property.isIdentifiableObject() || !fieldValue.isEmpty() ||
+                !fieldValue.getPipeline().isEmpty() || PeriodType.class.isAssignableFrom( property.getKlass() ) ||
+                !schemaService.getDynamicSchema( property.getKlass() ).getProperties().isEmpty() )
+            {
+                return null;
+            }
+
+            properties.put( fieldKey, property );
+        }
+
+        return new FieldFilterPlan( properties );
+    }
+
     private AbstractNode buildNode( FieldMap fieldMap, Class<?> klass, Object object, User user, Defaults defaults )
     {
         Schema schema = schemaService.getDynamicSchema( klass );
@@ -241,7 +355,7 @@ public class DefaultFieldFilterService implements FieldFilterService
                 continue;
             }
 
-            Object returnValue = ReflectionUtils.invokeMethod( object, property.getGetterMethod() );
+            Object returnValue = property.getValue( object );
             Schema propertySchema = schemaService.getDynamicSchema( property.getKlass() );
 
             FieldMap fieldValue = fieldMap.get( fieldKey );
@@ -529,7 +643,7 @@ public class DefaultFieldFilterService implements FieldFilterService
                 continue;
             }
 
-            Object returnValue = ReflectionUtils.invokeMethod( object, property.getGetterMethod() );
+            Object returnValue = property.getValue( object );
 
             SimpleNode simpleNode = new SimpleNode( field, returnValue );
             simpleNode.setAttribute( property.isAttribute() );
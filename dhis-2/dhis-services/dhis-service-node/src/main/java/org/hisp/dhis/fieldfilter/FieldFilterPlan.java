@@ -0,0 +1,94 @@
+package org.hisp.dhis.fieldfilter;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.google.common.collect.ImmutableMap;
+import org.hisp.dhis.node.config.InclusionStrategy;
+import org.hisp.dhis.schema.Property;
+import org.hisp.dhis.system.util.DateUtils;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Compiled field filter for a class and a set of fields which only resolve
+ * to simple properties. Writes objects directly to a JSON generator, producing
+ * the same output as the node tree serialized through the JSON node serializer.
+ */
+final class FieldFilterPlan
+{
+    /**
+     * Properties to write, mapped by field name, in output order.
+     */
+    private final ImmutableMap<String, Property> properties;
+
+    FieldFilterPlan( Map<String, Property> properties )
+    {
+        this.properties = ImmutableMap.copyOf( properties );
+    }
+
+    /**
+     * Writes the given object as a JSON object.
+     *
+     * @param generator the JSON generator.
+     * @param object the object to write.
+     * @param inclusionStrategy the inclusion strategy for property values.
+     */
+    void write( JsonGenerator generator, Object object, InclusionStrategy inclusionStrategy )
+        throws IOException
+    {
+        if ( !inclusionStrategy.include( properties.values() ) )
+        {
+            return;
+        }
+
+        generator.writeStartObject();
+
+        for ( Map.Entry<String, Property> entry : properties.entrySet() )
+        {
+            Object value = entry.getValue().getValue( object );
+
+            if ( !inclusionStrategy.include( value ) )
+            {
+                continue;
+            }
+
+            if ( value instanceof Date )
+            {
+                value = DateUtils.getIso8601NoTz( (Date) value );
+            }
+
+            generator.writeObjectField( entry.getKey(), value );
+        }
+
+        generator.writeEndObject();
+    }
+}
@@ -28,9 +28,14 @@ package org.hisp.dhis.fieldfilter;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.hisp.dhis.node.config.InclusionStrategy;
 import org.hisp.dhis.node.types.CollectionNode;
 import org.hisp.dhis.node.types.ComplexNode;
 
+import java.io.IOException;
+import java.util.List;
+
 /**
  * @author Morten Olav Hansen <mortenoh@gmail.com>
  */
@@ -45,4 +50,19 @@ public interface FieldFilterService
      * Perform inclusion/exclusion on a list of objects.
      */
     CollectionNode toCollectionNode( Class<?> wrapper, FieldFilterParams params );
+
+    /**
+     * Indicates whether objects of the given class can be filtered by the given
+     * fields through {@link #writeCollectionJson}, which is the case when all
+     * fields resolve to simple properties without transformers.
+     */
+    boolean isStreamable( Class<?> klass, List<String> fields );
+
+    /**
+     * Perform inclusion/exclusion on a list of objects and write the result as
+     * a JSON array field directly to the given generator, without building a
+     * node tree. Requires the fields to be streamable.
+     */
+    void writeCollectionJson( Class<?> wrapper, FieldFilterParams params, InclusionStrategy inclusionStrategy,
+        JsonGenerator generator ) throws IOException;
 }
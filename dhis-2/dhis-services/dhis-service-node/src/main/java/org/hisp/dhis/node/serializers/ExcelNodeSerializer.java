@@ -31,14 +31,14 @@ package org.hisp.dhis.node.serializers;
 import com.google.common.collect.Lists;
 
 import org.apache.poi.common.usermodel.HyperlinkType;
-import org.apache.poi.xssf.usermodel.XSSFCell;
-import org.apache.poi.xssf.usermodel.XSSFCellStyle;
-import org.apache.poi.xssf.usermodel.XSSFCreationHelper;
-import org.apache.poi.xssf.usermodel.XSSFFont;
-import org.apache.poi.xssf.usermodel.XSSFHyperlink;
-import org.apache.poi.xssf.usermodel.XSSFRow;
-import org.apache.poi.xssf.usermodel.XSSFSheet;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CreationHelper;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Hyperlink;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.hisp.dhis.node.AbstractNodeSerializer;
 import org.hisp.dhis.node.Node;
 import org.hisp.dhis.node.types.CollectionNode;
@@ -62,7 +62,13 @@ import java.util.List;
 @Scope( value = "prototype", proxyMode = ScopedProxyMode.INTERFACES )
 public class ExcelNodeSerializer extends AbstractNodeSerializer
 {
-    private static final String[] CONTENT_TYPES = { "application/vnd.ms-excel" };
+    private static final String[] CONTENT_TYPES = { "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "application/vnd.ms-excel" };
+
+    /**
+     * Number of rows kept in memory, rows outside of the window are written
+     * to temporary files.
+     */
+    private static final int ROW_WINDOW = 100;
 
     @Override
     public List<String> contentTypes()
@@ -70,20 +76,25 @@ public class ExcelNodeSerializer extends AbstractNodeSerializer
         return Lists.newArrayList( CONTENT_TYPES );
     }
 
-    private XSSFWorkbook workbook;
+    private SXSSFWorkbook workbook;
+
+    private SXSSFSheet sheet;
 
-    private XSSFSheet sheet;
+    private int columns;
 
     @Override
     protected void startSerialize( RootNode rootNode, OutputStream outputStream ) throws Exception
     {
-        workbook = new XSSFWorkbook();
+        workbook = new SXSSFWorkbook( ROW_WINDOW );
+        workbook.setCompressTempFiles( true );
         sheet = workbook.createSheet( "Sheet1" );
+        sheet.trackAllColumnsForAutoSizing();
+        columns = 0;
 
-        XSSFFont boldFont = workbook.createFont();
+        Font boldFont = workbook.createFont();
         boldFont.setBold( true );
 
-        XSSFCellStyle boldCellStyle = workbook.createCellStyle();
+        CellStyle boldCellStyle = workbook.createCellStyle();
         boldCellStyle.setFont( boldFont );
 
         // build schema
@@ -95,7 +106,7 @@ public class ExcelNodeSerializer extends AbstractNodeSerializer
                 {
                     Node node = child.getChildren().get( 0 );
 
-                    XSSFRow row = sheet.createRow( 0 );
+                    Row row = sheet.createRow( 0 );
 
                     int cellIdx = 0;
 
@@ -103,11 +114,13 @@ public class ExcelNodeSerializer extends AbstractNodeSerializer
                     {
                         if ( property.isSimple() )
                         {
-                            XSSFCell cell = row.createCell( cellIdx++ );
+                            Cell cell = row.createCell( cellIdx++ );
                             cell.setCellValue( property.getName() );
                             cell.setCellStyle( boldCellStyle );
                         }
                     }
+
+                    columns = cellIdx;
                 }
             }
         }
@@ -116,14 +129,20 @@ public class ExcelNodeSerializer extends AbstractNodeSerializer
     @Override
     protected void endSerialize( RootNode rootNode, OutputStream outputStream ) throws Exception
     {
-        int columns = sheet.getRow( 0 ).getPhysicalNumberOfCells();
-
         for ( int i = 0; i < columns; i++ )
         {
             sheet.autoSizeColumn( i );
         }
 
-        workbook.write( outputStream );
+        try
+        {
+            workbook.write( outputStream );
+        }
+        finally
+        {
+            workbook.dispose();
+            workbook.close();
+        }
     }
 
     @Override
@@ -135,7 +154,7 @@ public class ExcelNodeSerializer extends AbstractNodeSerializer
     @Override
     protected void startWriteRootNode( RootNode rootNode ) throws Exception
     {
-        XSSFCreationHelper creationHelper = workbook.getCreationHelper();
+        CreationHelper creationHelper = workbook.getCreationHelper();
 
         int rowIdx = 1;
 
@@ -145,19 +164,19 @@ public class ExcelNodeSerializer extends AbstractNodeSerializer
             {
                 for ( Node complexNode : collectionNode.getChildren() )
                 {
-                    XSSFRow row = sheet.createRow( rowIdx++ );
+                    Row row = sheet.createRow( rowIdx++ );
                     int cellIdx = 0;
 
                     for ( Node node : complexNode.getChildren() )
                     {
                         if ( node.isSimple() )
                         {
-                            XSSFCell cell = row.createCell( cellIdx++ );
+                            Cell cell = row.createCell( cellIdx++ );
                             cell.setCellValue( getValue( (SimpleNode) node ) );
 
                             if ( node.haveProperty() && PropertyType.URL.equals( node.getProperty().getPropertyType() ) )
                             {
-                                XSSFHyperlink hyperlink = creationHelper.createHyperlink( HyperlinkType.URL );
+                                Hyperlink hyperlink = creationHelper.createHyperlink( HyperlinkType.URL );
                                 hyperlink.setAddress( getValue( (SimpleNode) node ) );
                                 hyperlink.setLabel( getValue( (SimpleNode) node ) );
 
@@ -165,7 +184,7 @@ public class ExcelNodeSerializer extends AbstractNodeSerializer
                             }
                             else if ( node.haveProperty() && PropertyType.EMAIL.equals( node.getProperty().getPropertyType() ) )
                             {
-                                XSSFHyperlink hyperlink = creationHelper.createHyperlink( HyperlinkType.EMAIL );
+                                Hyperlink hyperlink = creationHelper.createHyperlink( HyperlinkType.EMAIL );
                                 hyperlink.setAddress( getValue( (SimpleNode) node ) );
                                 hyperlink.setLabel( getValue( (SimpleNode) node ) );
 
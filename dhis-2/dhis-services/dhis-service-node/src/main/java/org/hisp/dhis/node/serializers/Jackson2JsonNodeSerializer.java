@@ -33,6 +33,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.google.common.collect.Lists;
 import org.hisp.dhis.node.AbstractNodeSerializer;
+import org.hisp.dhis.node.Node;
 import org.hisp.dhis.node.types.CollectionNode;
 import org.hisp.dhis.node.types.ComplexNode;
 import org.hisp.dhis.node.types.RootNode;
@@ -42,6 +43,7 @@ import org.springframework.context.annotation.Scope;
 import org.springframework.context.annotation.ScopedProxyMode;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Date;
 import java.util.List;
@@ -74,6 +76,34 @@ public class Jackson2JsonNodeSerializer extends AbstractNodeSerializer
         return Lists.newArrayList( CONTENT_TYPE );
     }
 
+    /**
+     * Serializes the given root node and lets the given field writer append
+     * fields to the root object directly through the generator. This allows
+     * for writing large collections without building nodes for them.
+     *
+     * @param rootNode the root node.
+     * @param outputStream the stream to write to.
+     * @param fieldWriter the writer of trailing root fields.
+     */
+    public void serialize( RootNode rootNode, OutputStream outputStream, FieldWriter fieldWriter ) throws Exception
+    {
+        this.config = rootNode.getConfig();
+        startSerialize( rootNode, outputStream );
+        startWriteRootNode( rootNode );
+
+        for ( Node node : rootNode.getChildren() )
+        {
+            dispatcher( node );
+            flushStream();
+        }
+
+        fieldWriter.write( generator );
+
+        endWriteRootNode( rootNode );
+        flushStream();
+        this.config = null;
+    }
+
     @Override
     protected void flushStream() throws Exception
     {
@@ -170,4 +200,13 @@ public class Jackson2JsonNodeSerializer extends AbstractNodeSerializer
     {
         generator.writeEndArray();
     }
+
+    /**
+     * Writer of fields to the JSON root object.
+     */
+    @FunctionalInterface
+    public interface FieldWriter
+    {
+        void write( JsonGenerator generator ) throws IOException;
+    }
 }
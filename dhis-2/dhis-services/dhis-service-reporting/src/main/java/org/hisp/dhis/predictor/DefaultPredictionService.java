@@ -35,6 +35,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.hisp.dhis.analytics.AnalyticsService;
 import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.common.AuditType;
 import org.hisp.dhis.common.DimensionItemType;
 import org.hisp.dhis.common.DimensionalItemObject;
 import org.hisp.dhis.common.DimensionalObject;
@@ -49,13 +50,18 @@ import org.hisp.dhis.dataelement.DataElement;
 import org.hisp.dhis.category.CategoryOptionCombo;
 import org.hisp.dhis.category.CategoryService;
 import org.hisp.dhis.dataelement.DataElementOperand;
+import org.hisp.dhis.dataelement.DataElementService;
 import org.hisp.dhis.datavalue.DataExportParams;
 import org.hisp.dhis.datavalue.DataValue;
+import org.hisp.dhis.datavalue.DataValueAudit;
 import org.hisp.dhis.datavalue.DataValueService;
 import org.hisp.dhis.datavalue.DeflatedDataValue;
+import org.hisp.dhis.commons.util.SystemUtils;
 import org.hisp.dhis.expression.Expression;
 import org.hisp.dhis.expression.ExpressionService;
 import org.hisp.dhis.expression.MissingValueStrategy;
+import org.hisp.dhis.jdbc.batchhandler.DataValueAuditBatchHandler;
+import org.hisp.dhis.jdbc.batchhandler.DataValueBatchHandler;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.organisationunit.OrganisationUnitLevel;
 import org.hisp.dhis.organisationunit.OrganisationUnitService;
@@ -67,17 +73,27 @@ import org.hisp.dhis.program.ProgramIndicator;
 import org.hisp.dhis.system.util.MathUtils;
 import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.user.User;
+import org.hisp.quick.BatchHandler;
+import org.hisp.quick.BatchHandlerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.MoreObjects.firstNonNull;
@@ -94,6 +110,8 @@ public class DefaultPredictionService
 {
     private static final Log log = LogFactory.getLog( DefaultPredictionService.class );
 
+    static final int ORG_UNITS_PER_TASK = 500;
+
     @Autowired
     private PredictorService predictorService;
 
@@ -103,6 +121,9 @@ public class DefaultPredictionService
     @Autowired
     private ExpressionService expressionService;
 
+    @Autowired
+    private DataElementService dataElementService;
+
     @Autowired
     private DataValueService dataValueService;
 
@@ -115,6 +136,12 @@ public class DefaultPredictionService
     @Autowired
     private PeriodService periodService;
 
+    @Autowired
+    private BatchHandlerFactory batchHandlerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     @Autowired
     private AnalyticsService analyticsService;
 
@@ -171,20 +198,24 @@ public class DefaultPredictionService
         Set<String> nonAggregates = new HashSet<>();
         expressionService.getAggregatesAndNonAggregatesInExpression( generator.getExpression(), aggregates, nonAggregates );
         Map<String, Double> constantMap = constantService.getConstantMap();
-        List<Period> outputPeriods = getPeriodsBetweenDates( predictor.getPeriodType(), startDate, endDate );
-        Set<Period> existingOutputPeriods = getExistingPeriods( outputPeriods );
+        List<Period> outputPeriods = persistPeriods( getPeriodsBetweenDates( predictor.getPeriodType(), startDate, endDate ) );
+        Set<Period> outputPeriodSet = new HashSet<>( outputPeriods );
         ListMap<Period, Period> samplePeriodsMap = getSamplePeriodsMap( outputPeriods, predictor );
         Set<Period> allSamplePeriods = samplePeriodsMap.uniqueValues();
         Set<DimensionalItemObject> aggregateDimensionItems = getDimensionItems( aggregates, skipTest );
         Set<DimensionalItemObject> nonAggregateDimensionItems = getDimensionItems( nonAggregates, null );
         User currentUser = currentUserService.getCurrentUser();
-        Set<String> defaultOptionComboAsSet = Sets.newHashSet( categoryService.getDefaultCategoryOptionCombo().getUid() );
+        CategoryOptionCombo defaultOptionCombo = categoryService.getDefaultCategoryOptionCombo();
+        Set<String> defaultOptionComboAsSet = Sets.newHashSet( defaultOptionCombo.getUid() );
         Map4<OrganisationUnit, Period, String, DimensionalItemObject, Double> emptyMap4 = new Map4<>();
-        MapMapMap<Period, String, DimensionalItemObject, Double> emptyMapMapMap = new MapMapMap<>();
         boolean usingAttributeOptions = hasAttributeOptions( aggregateDimensionItems ) || hasAttributeOptions( nonAggregateDimensionItems );
+        List<Integer> outputPeriodIds = outputPeriods.stream().map( Period::getId ).collect( Collectors.toList() );
+        Expression generatorExpression = getExpressionCopy( generator );
+        Expression skipTestExpression = getExpressionCopy( skipTest );
+        int outputDataElementId = outputDataElement.getId();
 
-        CategoryOptionCombo outputOptionCombo = predictor.getOutputCombo() == null ?
-            categoryService.getDefaultCategoryOptionCombo() : predictor.getOutputCombo();
+        int outputOptionComboId = predictor.getOutputCombo() == null ?
+            defaultOptionCombo.getId() : predictor.getOutputCombo().getId();
 
         int predictionCount = 0;
 
@@ -197,94 +228,229 @@ public class DefaultPredictionService
             currentUsername = currentUser.getUsername();
         }
 
-        for ( OrganisationUnitLevel orgUnitLevel : predictor.getOrganisationUnitLevels() )
-        {
-            List<OrganisationUnit> orgUnitsAtLevel = organisationUnitService.getOrganisationUnitsAtOrgUnitLevels(
-                Lists.newArrayList( orgUnitLevel ), currentUserOrgUnits );
+        final String storedBy = currentUsername;
 
-            if ( orgUnitsAtLevel.size() == 0 )
-            {
-                continue;
-            }
+        int threadPoolSize = SystemUtils.getThreadPoolSize();
 
-            List<List<OrganisationUnit>> orgUnitLists = Lists.partition(orgUnitsAtLevel, 500);
+        ExecutorService executor = Executors.newFixedThreadPool( threadPoolSize );
 
-            for ( List<OrganisationUnit> orgUnits : orgUnitLists )
+        Deque<Future<Integer>> tasks = new ArrayDeque<>();
+
+        try
+        {
+            for ( OrganisationUnitLevel orgUnitLevel : predictor.getOrganisationUnitLevels() )
             {
-                Map4<OrganisationUnit, Period, String, DimensionalItemObject, Double> aggregateDataMap4 =
-                    aggregateDimensionItems.isEmpty() ? emptyMap4 :
-                        getDataValues( aggregateDimensionItems, allSamplePeriods, orgUnits );
+                List<OrganisationUnit> orgUnitsAtLevel = organisationUnitService.getOrganisationUnitsAtOrgUnitLevels(
+                    Lists.newArrayList( orgUnitLevel ), currentUserOrgUnits );
 
-                Map4<OrganisationUnit, Period, String, DimensionalItemObject, Double> nonAggregateDataMap4 =
-                    nonAggregateDimensionItems.isEmpty() ? emptyMap4 :
-                        getDataValues( nonAggregateDimensionItems, existingOutputPeriods, orgUnits );
+                if ( orgUnitsAtLevel.size() == 0 )
+                {
+                    continue;
+                }
 
-                for ( OrganisationUnit orgUnit : orgUnits )
+                List<List<OrganisationUnit>> orgUnitLists = Lists.partition( orgUnitsAtLevel, ORG_UNITS_PER_TASK );
+
+                for ( List<OrganisationUnit> orgUnits : orgUnitLists )
                 {
-                    MapMapMap<Period, String, DimensionalItemObject, Double> aggregateDataMap = aggregateDataMap4.get( orgUnit );
+                    Map4<OrganisationUnit, Period, String, DimensionalItemObject, Double> aggregateDataMap4 =
+                        aggregateDimensionItems.isEmpty() ? emptyMap4 :
+                            getDataValues( aggregateDimensionItems, allSamplePeriods, orgUnits );
+
+                    Map4<OrganisationUnit, Period, String, DimensionalItemObject, Double> nonAggregateDataMap4 =
+                        nonAggregateDimensionItems.isEmpty() ? emptyMap4 :
+                            getDataValues( nonAggregateDimensionItems, outputPeriodSet, orgUnits );
 
-                    MapMapMap<Period, String, DimensionalItemObject, Double> nonAggregateDataMap =
-                        firstNonNull( nonAggregateDataMap4.get( orgUnit ), emptyMapMapMap );
+                    List<Integer> orgUnitIds = orgUnits.stream().map( OrganisationUnit::getId ).collect( Collectors.toList() );
 
-                    applySkipTest( aggregateDataMap, skipTest, constantMap );
+                    // ---------------------------------------------------------
+                    // Data is read on this thread, predictions are evaluated
+                    // and written by the workers, at most one task per thread
+                    // ---------------------------------------------------------
 
-                    for ( Period period : outputPeriods )
+                    if ( tasks.size() >= threadPoolSize )
                     {
-                        ListMapMap<String, String, Double> aggregateSampleMap = getAggregateSamples( aggregateDataMap,
-                            aggregates, samplePeriodsMap.get( period ), constantMap, generator.getMissingValueStrategy() );
+                        predictionCount += tasks.removeFirst().get();
+                    }
 
-                        MapMap<String, DimensionalItemObject, Double> nonAggregateSampleMap = firstNonNull(
-                            nonAggregateDataMap.get( period ), new MapMap<>() );
+                    tasks.addLast( executor.submit( () -> transactionTemplate.execute( status -> predictOrgUnits(
+                        orgUnitIds, outputPeriodIds, samplePeriodsMap, generatorExpression, skipTestExpression, aggregates,
+                        constantMap, usingAttributeOptions, defaultOptionComboAsSet, aggregateDataMap4,
+                        nonAggregateDataMap4, outputDataElementId, outputOptionComboId, storedBy ) ) ) );
+                }
+            }
 
-                        Set<String> attributeOptionCombos = usingAttributeOptions ?
-                            Sets.union( aggregateSampleMap.keySet(), nonAggregateSampleMap.keySet() ) : defaultOptionComboAsSet;
+            while ( !tasks.isEmpty() )
+            {
+                predictionCount += tasks.removeFirst().get();
+            }
+        }
+        catch ( ExecutionException ex )
+        {
+            throw new RuntimeException( "Exception during prediction", ex.getCause() );
+        }
+        catch ( InterruptedException ex )
+        {
+            Thread.currentThread().interrupt();
 
-                        if ( attributeOptionCombos.isEmpty() && generator.getMissingValueStrategy() == MissingValueStrategy.NEVER_SKIP )
-                        {
-                            attributeOptionCombos = defaultOptionComboAsSet;
-                        }
+            throw new RuntimeException( "Prediction was interrupted", ex );
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
 
-                        ListMap<String, Double> aggregateSampleMapNonAoc = aggregateSampleMap.get( NON_AOC );
+        log.info("Generated " + predictionCount + " predictions for " + predictor.getName()
+            + " from " + startDate.toString() + " to " + endDate.toString() );
 
-                        Map<DimensionalItemObject, Double> nonAggregateSampleMapNonAoc = nonAggregateSampleMap.get( NON_AOC );
+        return predictionCount;
+    }
 
-                        for ( String aoc : attributeOptionCombos )
-                        {
-                            if ( NON_AOC.compareTo( aoc ) == 0 )
-                            {
-                                continue;
-                            }
+    /**
+     * Predicts and writes the data values for a list of organisation units.
+     * Invoked by the workers, which do not share the Hibernate session of the
+     * calling thread, hence the organisation units, output periods, output
+     * data element and output option combo are passed by identifier and
+     * loaded in the transaction of the worker.
+     *
+     * @param orgUnitIds the identifiers of the organisation units to predict for.
+     * @param outputPeriodIds the identifiers of the output periods.
+     * @param samplePeriodsMap the sample periods for each output period.
+     * @param generator the generator expression.
+     * @param skipTest the skip test expression (if any).
+     * @param aggregates the aggregate expressions in the generator.
+     * @param constantMap any constants used in evaluating expressions.
+     * @param usingAttributeOptions whether data is stored by attribute option combo.
+     * @param defaultOptionComboAsSet the default option combo UID as a set.
+     * @param aggregateDataMap4 the sample data by organisation unit.
+     * @param nonAggregateDataMap4 the output period data by organisation unit.
+     * @param outputDataElementId the identifier of the output data element.
+     * @param outputOptionComboId the identifier of the output category option combo.
+     * @param storedBy the user that will store the predicted data values.
+     * @return the number of predictions.
+     */
+    private int predictOrgUnits( List<Integer> orgUnitIds, List<Integer> outputPeriodIds,
+        ListMap<Period, Period> samplePeriodsMap, Expression generator, Expression skipTest, Set<String> aggregates,
+        Map<String, Double> constantMap, boolean usingAttributeOptions, Set<String> defaultOptionComboAsSet,
+        Map4<OrganisationUnit, Period, String, DimensionalItemObject, Double> aggregateDataMap4,
+        Map4<OrganisationUnit, Period, String, DimensionalItemObject, Double> nonAggregateDataMap4,
+        int outputDataElementId, int outputOptionComboId, String storedBy )
+    {
+        List<OrganisationUnit> orgUnits = organisationUnitService.getOrganisationUnits( orgUnitIds );
+        List<Period> outputPeriods = outputPeriodIds.stream().map( periodService::getPeriod ).collect( Collectors.toList() );
+        DataElement outputDataElement = dataElementService.getDataElement( outputDataElementId );
+        CategoryOptionCombo outputOptionCombo = categoryService.getCategoryOptionCombo( outputOptionComboId );
+
+        return writePredictions( getPredictions( orgUnits, outputPeriods, samplePeriodsMap, generator, skipTest,
+            aggregates, constantMap, usingAttributeOptions, defaultOptionComboAsSet, aggregateDataMap4,
+            nonAggregateDataMap4, outputDataElement, outputOptionCombo, storedBy ) );
+    }
+
+    /**
+     * Evaluates the predictions for a list of organisation units. The data
+     * maps must hold the data of these organisation units only, as sample
+     * data is removed from them when the skip test applies.
+     *
+     * @param orgUnits the organisation units to predict for.
+     * @param outputPeriods the output periods.
+     * @param samplePeriodsMap the sample periods for each output period.
+     * @param generator the generator expression.
+     * @param skipTest the skip test expression (if any).
+     * @param aggregates the aggregate expressions in the generator.
+     * @param constantMap any constants used in evaluating expressions.
+     * @param usingAttributeOptions whether data is stored by attribute option combo.
+     * @param defaultOptionComboAsSet the default option combo UID as a set.
+     * @param aggregateDataMap4 the sample data by organisation unit.
+     * @param nonAggregateDataMap4 the output period data by organisation unit.
+     * @param outputDataElement the output data element.
+     * @param outputOptionCombo the output category option combo.
+     * @param storedBy the user that will store the predicted data values.
+     * @return the predicted data values.
+     */
+    private List<DataValue> getPredictions( List<OrganisationUnit> orgUnits, List<Period> outputPeriods,
+        ListMap<Period, Period> samplePeriodsMap, Expression generator, Expression skipTest, Set<String> aggregates,
+        Map<String, Double> constantMap, boolean usingAttributeOptions, Set<String> defaultOptionComboAsSet,
+        Map4<OrganisationUnit, Period, String, DimensionalItemObject, Double> aggregateDataMap4,
+        Map4<OrganisationUnit, Period, String, DimensionalItemObject, Double> nonAggregateDataMap4,
+        DataElement outputDataElement, CategoryOptionCombo outputOptionCombo, String storedBy )
+    {
+        List<DataValue> predictions = new ArrayList<>();
+        Map<String, CategoryOptionCombo> aocLookup = new HashMap<>();
+        boolean integerOutput = outputDataElement.getValueType().isInteger();
+        MapMapMap<Period, String, DimensionalItemObject, Double> emptyMapMapMap = new MapMapMap<>();
+        Date now = new Date();
 
-                            ListMap<String, Double> aggregateValueMap = ListMap.union( aggregateSampleMap.get( aoc ), aggregateSampleMapNonAoc );
+        for ( OrganisationUnit orgUnit : orgUnits )
+        {
+            MapMapMap<Period, String, DimensionalItemObject, Double> aggregateDataMap = aggregateDataMap4.get( orgUnit );
 
-                            Map<DimensionalItemObject, Double> nonAggregateValueMap = combine( nonAggregateSampleMap.get( aoc ), nonAggregateSampleMapNonAoc );
+            MapMapMap<Period, String, DimensionalItemObject, Double> nonAggregateDataMap =
+                firstNonNull( nonAggregateDataMap4.get( orgUnit ), emptyMapMapMap );
 
-                            Double value = expressionService.getExpressionValue( generator, nonAggregateValueMap,
-                                constantMap, null, period.getDaysInPeriod(), aggregateValueMap );
+            applySkipTest( aggregateDataMap, skipTest, constantMap );
 
-                            if ( value != null && !value.isNaN() && !value.isInfinite() &&
-                                !dataValueIsZeroAndInsignificant( Double.toString( value ), outputDataElement ) )
-                            {
-                                String valueString = outputDataElement.getValueType().isInteger() ?
-                                    Long.toString( Math.round( value ) ) :
-                                    Double.toString( MathUtils.roundFraction( value, 4 ) );
+            for ( Period period : outputPeriods )
+            {
+                ListMapMap<String, String, Double> aggregateSampleMap = getAggregateSamples( aggregateDataMap,
+                    aggregates, samplePeriodsMap.get( period ), constantMap, generator.getMissingValueStrategy() );
 
-                                writeDataValue( outputDataElement, period, orgUnit, outputOptionCombo,
-                                    categoryService.getCategoryOptionCombo( aoc ),
-                                    valueString, currentUsername );
+                MapMap<String, DimensionalItemObject, Double> nonAggregateSampleMap = firstNonNull(
+                    nonAggregateDataMap.get( period ), new MapMap<>() );
 
-                                predictionCount++;
-                            }
-                        }
+                Set<String> attributeOptionCombos = usingAttributeOptions ?
+                    Sets.union( aggregateSampleMap.keySet(), nonAggregateSampleMap.keySet() ) : defaultOptionComboAsSet;
+
+                if ( attributeOptionCombos.isEmpty() && generator.getMissingValueStrategy() == MissingValueStrategy.NEVER_SKIP )
+                {
+                    attributeOptionCombos = defaultOptionComboAsSet;
+                }
+
+                ListMap<String, Double> aggregateSampleMapNonAoc = aggregateSampleMap.get( NON_AOC );
+
+                Map<DimensionalItemObject, Double> nonAggregateSampleMapNonAoc = nonAggregateSampleMap.get( NON_AOC );
+
+                for ( String aoc : attributeOptionCombos )
+                {
+                    if ( NON_AOC.compareTo( aoc ) == 0 )
+                    {
+                        continue;
+                    }
+
+                    ListMap<String, Double> aggregateValueMap = ListMap.union( aggregateSampleMap.get( aoc ), aggregateSampleMapNonAoc );
+
+                    Map<DimensionalItemObject, Double> nonAggregateValueMap = combine( nonAggregateSampleMap.get( aoc ), nonAggregateSampleMapNonAoc );
+
+                    Double value = expressionService.getExpressionValue( generator, nonAggregateValueMap,
+                        constantMap, null, period.getDaysInPeriod(), aggregateValueMap );
+
+                    if ( value != null && !value.isNaN() && !value.isInfinite() &&
+                        !dataValueIsZeroAndInsignificant( Double.toString( value ), outputDataElement ) )
+                    {
+                        String valueString = integerOutput ?
+                            Long.toString( Math.round( value ) ) :
+                            Double.toString( MathUtils.roundFraction( value, 4 ) );
+
+                        CategoryOptionCombo attributeOptionCombo = aocLookup.computeIfAbsent( aoc,
+                            uid -> categoryService.getCategoryOptionCombo( uid ) );
+
+                        predictions.add( new DataValue( outputDataElement, period, orgUnit, outputOptionCombo,
+                            attributeOptionCombo, valueString, storedBy, now, null ) );
                     }
                 }
             }
         }
 
-        log.info("Generated " + predictionCount + " predictions for " + predictor.getName()
-            + " from " + startDate.toString() + " to " + endDate.toString() );
+        return predictions;
+    }
 
-        return predictionCount;
+    /**
+     * Returns a copy of the given expression which is not attached to the
+     * Hibernate session of the calling thread, or null if the given
+     * expression is null.
+     */
+    private Expression getExpressionCopy( Expression expression )
+    {
+        return expression == null ? null : new Expression( expression.getExpression(),
+            expression.getDescription(), expression.getMissingValueStrategy() );
     }
 
     private Map<DimensionalItemObject, Double> combine ( Map<DimensionalItemObject, Double> a, Map<DimensionalItemObject, Double> b )
@@ -560,31 +726,19 @@ public class DefaultPredictionService
     }
 
     /**
-     * Finds the set of periods that exist, from a list of periods.
+     * Persists the given periods in a separate transaction, so that the
+     * periods are visible to the batch handlers which write the predicted
+     * data values through their own connections.
      *
-     * Only adds the period if it is found in the database, because:
-     * (a) We will need the period id, and
-     * (b) If the period does not exist in the database, then
-     *     there is no data in the database to look for.
-     *
-     * @param periods the periods to look for
-     * @return the set of periods that exist, with ids.
+     * @param periods the periods to persist.
+     * @return the persisted periods, with ids.
      */
-    private Set<Period> getExistingPeriods( List<Period> periods )
+    private List<Period> persistPeriods( List<Period> periods )
     {
-        Set<Period> existingPeriods = new HashSet<>();
-
-        for ( Period period : periods )
-        {
-            Period existingPeriod = period.getId() != 0 ? period :
-                periodService.getPeriod( period.getStartDate(), period.getEndDate(), period.getPeriodType() );
+        TransactionTemplate requiresNew = new TransactionTemplate( transactionTemplate.getTransactionManager() );
+        requiresNew.setPropagationBehavior( TransactionDefinition.PROPAGATION_REQUIRES_NEW );
 
-            if ( existingPeriod != null )
-            {
-                existingPeriods.add( existingPeriod );
-            }
-        }
-        return existingPeriods;
+        return requiresNew.execute( status -> periodService.reloadPeriods( periods ) );
     }
 
     /**
@@ -784,36 +938,80 @@ public class DefaultPredictionService
     }
 
     /**
-     * Writes (adds or updates) a predicted data value to the database.
+     * Writes (adds or updates) predicted data values to the database in
+     * batches. Existing data values are looked up with a single query, and
+     * predictions which are equal to the existing value are not written.
      *
-     * @param dataElement the data element.
-     * @param period the period.
-     * @param orgUnit the organisation unit.
-     * @param categoryOptionCombo the category option combo.
-     * @param attributeOptionCombo the attribute option combo.
-     * @param value the value.
-     * @param storedBy the user that will store this data value.
+     * The batch handlers write through their own connections, so the writes
+     * are not rolled back with the transaction of the worker. Writing is
+     * idempotent instead: predicting again after a run failed part way skips
+     * the values already written, and the audits are written only after all
+     * data values, so that no update is audited twice.
+     *
+     * @param predictions the predicted data values.
+     * @return the number of predictions.
      */
-    private void writeDataValue( DataElement dataElement, Period period,
-        OrganisationUnit orgUnit, CategoryOptionCombo categoryOptionCombo,
-        CategoryOptionCombo attributeOptionCombo, String value, String storedBy )
+    private int writePredictions( List<DataValue> predictions )
     {
-        DataValue existingValue = dataValueService.getDataValue( dataElement, period,
-            orgUnit, categoryOptionCombo, attributeOptionCombo );
+        if ( predictions.isEmpty() )
+        {
+            return 0;
+        }
 
-        if ( existingValue != null )
+        Map<String, DeflatedDataValue> existingValues = new HashMap<>();
+
+        dataValueService.getDeflatedDataValues( predictions ).forEach( dv -> existingValues.put( getDataValueKey( dv.getDataElementId(),
+            dv.getPeriodId(), dv.getSourceId(), dv.getCategoryOptionComboId(), dv.getAttributeOptionComboId() ), dv ) );
+
+        BatchHandler<DataValue> dataValueBatchHandler = batchHandlerFactory.createBatchHandler( DataValueBatchHandler.class ).init();
+
+        List<DataValueAudit> audits = new ArrayList<>();
+
+        for ( DataValue prediction : predictions )
         {
-            existingValue.setValue( value );
-            existingValue.setStoredBy( storedBy );
+            DeflatedDataValue existingValue = existingValues.get( getDataValueKey( prediction.getDataElement().getId(),
+                prediction.getPeriod().getId(), prediction.getSource().getId(), prediction.getCategoryOptionCombo().getId(),
+                prediction.getAttributeOptionCombo().getId() ) );
+
+            if ( existingValue == null )
+            {
+                dataValueBatchHandler.addObject( prediction );
+            }
+            else if ( existingValue.isDeleted() || !prediction.getValue().equals( existingValue.getValue() ) )
+            {
+                prediction.setCreated( existingValue.getCreated() );
+                prediction.setComment( existingValue.getComment() );
+                prediction.setFollowup( existingValue.isFollowup() );
+
+                dataValueBatchHandler.updateObject( prediction );
 
-            dataValueService.updateDataValue( existingValue );
+                if ( !existingValue.isDeleted() )
+                {
+                    audits.add( new DataValueAudit( prediction, existingValue.getValue(),
+                        prediction.getStoredBy(), AuditType.UPDATE ) );
+                }
+            }
         }
-        else
+
+        dataValueBatchHandler.flush();
+
+        if ( !audits.isEmpty() )
         {
-            DataValue dv = new DataValue( dataElement, period, orgUnit,
-                categoryOptionCombo, attributeOptionCombo, value, storedBy, null, null );
+            BatchHandler<DataValueAudit> auditBatchHandler = batchHandlerFactory.createBatchHandler( DataValueAuditBatchHandler.class ).init();
 
-            dataValueService.addDataValue( dv );
+            audits.forEach( auditBatchHandler::addObject );
+
+            auditBatchHandler.flush();
         }
+
+        return predictions.size();
+    }
+
+    /**
+     * Returns a key for the identifying properties of a data value.
+     */
+    private String getDataValueKey( int dataElementId, int periodId, int sourceId, int categoryOptionComboId, int attributeOptionComboId )
+    {
+        return dataElementId + "-" + periodId + "-" + sourceId + "-" + categoryOptionComboId + "-" + attributeOptionComboId;
     }
 }
@@ -36,9 +36,14 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.velocity.VelocityContext;
 import org.hisp.dhis.chart.Chart;
 import org.hisp.dhis.chart.ChartService;
+import org.hisp.dhis.common.IdentifiableObject;
 import org.hisp.dhis.common.IdentifiableObjectStore;
+import org.hisp.dhis.common.ListMap;
 import org.hisp.dhis.commons.util.Encoder;
+import org.hisp.dhis.commons.util.SystemUtils;
+import org.hisp.dhis.dashboard.Dashboard;
 import org.hisp.dhis.dashboard.DashboardItem;
+import org.hisp.dhis.dashboard.DashboardService;
 import org.hisp.dhis.fileresource.ExternalFileResource;
 import org.hisp.dhis.fileresource.ExternalFileResourceService;
 import org.hisp.dhis.fileresource.FileResource;
@@ -63,11 +68,18 @@ import org.hisp.dhis.system.util.ChartUtils;
 import org.hisp.dhis.system.velocity.VelocityManager;
 import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.user.User;
+import org.hisp.dhis.user.UserCredentials;
 import org.hisp.dhis.user.UserGroup;
+import org.hisp.dhis.user.UserService;
+import org.hisp.dhis.user.UserSettingKey;
+import org.hisp.dhis.user.UserSettingService;
 import org.jfree.chart.JFreeChart;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.MimeTypeUtils;
 
 import javax.imageio.ImageIO;
@@ -75,14 +87,26 @@ import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * @author Stian Sandvold
@@ -126,6 +150,18 @@ public class DefaultPushAnalysisService
     @Autowired
     private SchedulingManager schedulingManager;
 
+    @Autowired
+    private DashboardService dashboardService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserSettingService userSettingService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     @Autowired
     @Qualifier( "emailMessageSender" )
     private MessageSender messageSender;
@@ -225,31 +261,70 @@ public class DefaultPushAnalysisService
         log( jobId, NotificationLevel.INFO, "List composed. " + receivingUsers.size() + " eligible users found.",
             false, null );
 
+        //----------------------------------------------------------------------
+        // Group users which view the same data, as they receive the same report
+        //----------------------------------------------------------------------
+
+        ListMap<String, User> dataViewUsers = new ListMap<>();
+
+        for ( User user : receivingUsers )
+        {
+            dataViewUsers.putValue( getDataViewKey( user, pushAnalysis.getDashboard() ), user );
+        }
+
+        log( jobId, NotificationLevel.INFO, "Users grouped. " + dataViewUsers.size() + " distinct data views found.",
+            false, null );
+
         //----------------------------------------------------------------------
         // Generating reports
         //----------------------------------------------------------------------
 
         log( jobId, NotificationLevel.INFO, "Generating and sending reports", false, null );
 
-        for ( User user : receivingUsers )
+        ConcurrentMap<String, CompletableFuture<String>> imageUrls = new ConcurrentHashMap<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool( SystemUtils.getThreadPoolSize() );
+
+        try
         {
-            try
+            for ( List<User> users : dataViewUsers.values() )
             {
                 String title = pushAnalysis.getTitle();
-                String html = generateHtmlReport( pushAnalysis, user, jobId );
+                String html;
 
-                // TODO: Better handling of messageStatus; Might require refactoring of EmailMessageSender
-                @SuppressWarnings( "unused" )
-                OutboundMessageResponse status = messageSender
-                    .sendMessage( title, html, "", null, Sets.newHashSet( user ), true );
+                try
+                {
+                    html = generateHtmlReport( pushAnalysis, users.get( 0 ), jobId, executor, imageUrls );
+                }
+                catch ( Exception e )
+                {
+                    log( jobId, NotificationLevel.ERROR,
+                        "Could not create report for PushAnalysis '" + pushAnalysis.getName() + "' and " + users.size() +
+                            " users viewing the same data as User '" + users.get( 0 ).getUsername() + "': " + e.getMessage(), false, e );
+                    continue;
+                }
 
+                for ( User user : users )
+                {
+                    try
+                    {
+                        // TODO: Better handling of messageStatus; Might require refactoring of EmailMessageSender
+                        @SuppressWarnings( "unused" )
+                        OutboundMessageResponse status = messageSender
+                            .sendMessage( title, html, "", null, Sets.newHashSet( user ), true );
+                    }
+                    catch ( Exception e )
+                    {
+                        log( jobId, NotificationLevel.ERROR,
+                            "Could not send report for PushAnalysis '" + pushAnalysis.getName() + "' and User '" +
+                                user.getUsername() + "': " + e.getMessage(), false, e );
+                    }
+                }
             }
-            catch ( Exception e )
-            {
-                log( jobId, NotificationLevel.ERROR,
-                    "Could not create or send report for PushAnalysis '" + pushAnalysis.getName() + "' and User '" +
-                        user.getUsername() + "': " + e.getMessage(), false, e );
-            }
+        }
+        finally
+        {
+            executor.shutdown();
         }
     }
 
@@ -264,6 +339,39 @@ public class DefaultPushAnalysisService
         }
 
         user = user == null ? currentUserService.getCurrentUser() : user;
+
+        ExecutorService executor = Executors.newFixedThreadPool( SystemUtils.getThreadPoolSize() );
+
+        try
+        {
+            return generateHtmlReport( pushAnalysis, user, jobId, executor, new ConcurrentHashMap<>() );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    //--------------------------------------------------------------------------
+    // Supportive methods
+    //--------------------------------------------------------------------------
+
+    /**
+     * Generates the HTML report for the given user. Dashboard items are rendered
+     * concurrently using the given executor.
+     *
+     * @param pushAnalysis PushAnalysis to generate report from
+     * @param user         User to base data on
+     * @param jobId        JobId to track process
+     * @param executor     executor to render dashboard items with
+     * @param imageUrls    future URLs of images uploaded during this run, by content MD5 hash
+     * @return String containing a HTML report
+     * @throws IOException if the upload of report content failed.
+     */
+    private String generateHtmlReport( PushAnalysis pushAnalysis, User user, JobConfiguration jobId,
+        ExecutorService executor, ConcurrentMap<String, CompletableFuture<String>> imageUrls )
+        throws IOException
+    {
         log( jobId, NotificationLevel.INFO, "Generating PushAnalysis for user '" + user.getUsername() + "'.", false,
             null );
 
@@ -273,13 +381,41 @@ public class DefaultPushAnalysisService
 
         HashMap<String, String> itemHtml = new HashMap<>();
         HashMap<String, String> itemLink = new HashMap<>();
+        HashMap<String, Future<String>> itemTasks = new HashMap<>();
 
         for ( DashboardItem item : pushAnalysis.getDashboard().getItems() )
         {
-            itemHtml.put( item.getUid(), getItemHtml( item, user, jobId ) );
+            itemTasks.put( item.getUid(), submitItemHtml( executor, item.getUid(), user.getUid(), jobId, imageUrls ) );
             itemLink.put( item.getUid(), getItemLink( item ));
         }
 
+        try
+        {
+            for ( java.util.Map.Entry<String, Future<String>> task : itemTasks.entrySet() )
+            {
+                itemHtml.put( task.getKey(), task.getValue().get() );
+            }
+        }
+        catch ( ExecutionException ex )
+        {
+            if ( ex.getCause() instanceof UncheckedIOException )
+            {
+                throw ( (UncheckedIOException) ex.getCause() ).getCause();
+            }
+
+            throw new RuntimeException( "Exception during rendering of dashboard item", ex.getCause() );
+        }
+        catch ( InterruptedException ex )
+        {
+            Thread.currentThread().interrupt();
+
+            throw new RuntimeException( "Rendering of dashboard items was interrupted", ex );
+        }
+        finally
+        {
+            itemTasks.values().forEach( task -> task.cancel( true ) );
+        }
+
         DateFormat dateFormat = new SimpleDateFormat( "MMMM dd, yyyy" );
         itemHtml.put( "date", dateFormat.format( Calendar.getInstance().getTime() ) );
         itemHtml.put( "instanceBaseUrl", systemSettingManager.getInstanceBaseUrl() );
@@ -311,28 +447,69 @@ public class DefaultPushAnalysisService
 
     }
 
-    //--------------------------------------------------------------------------
-    // Supportive methods
-    //--------------------------------------------------------------------------
+    /**
+     * Submits the rendering of a dashboard item. The item and user are loaded
+     * in a separate transaction on the executing thread, which runs in the
+     * security context of the calling thread.
+     *
+     * @param executor  executor to render with
+     * @param itemUid   uid of the dashboard item to render
+     * @param userUid   uid of the user to render for
+     * @param jobId     for logging
+     * @param imageUrls future URLs of images uploaded during this run, by content MD5 hash
+     * @return the future HTML of the dashboard item
+     */
+    private Future<String> submitItemHtml( ExecutorService executor, String itemUid, String userUid,
+        JobConfiguration jobId, ConcurrentMap<String, CompletableFuture<String>> imageUrls )
+    {
+        SecurityContext securityContext = SecurityContextHolder.getContext();
+
+        return executor.submit( () -> {
+            try
+            {
+                SecurityContextHolder.setContext( securityContext );
+
+                return transactionTemplate.execute( status -> getItemHtml(
+                    dashboardService.getDashboardItem( itemUid ), userService.getUser( userUid ), jobId, imageUrls ) );
+            }
+            finally
+            {
+                SecurityContextHolder.clearContext();
+            }
+        } );
+    }
 
     /**
      * Finds the dashboardItem's type and calls the associated method for generating the resource (either URL og HTML)
      *
-     * @param item   to generate resource
-     * @param user   to generate for
-     * @param jobId for logging
+     * @param item      to generate resource
+     * @param user      to generate for
+     * @param jobId     for logging
+     * @param imageUrls future URLs of images uploaded during this run, by content MD5 hash
      * @return
-     * @throws Exception
+     * @throws UncheckedIOException if the upload of an image failed
      */
-    private String getItemHtml( DashboardItem item, User user, JobConfiguration jobId )
+    private String getItemHtml( DashboardItem item, User user, JobConfiguration jobId, ConcurrentMap<String, CompletableFuture<String>> imageUrls )
+    {
+        try
+        {
+            return getItemHtmlForType( item, user, jobId, imageUrls );
+        }
+        catch ( IOException ex )
+        {
+            throw new UncheckedIOException( ex );
+        }
+    }
+
+    private String getItemHtmlForType( DashboardItem item, User user, JobConfiguration jobId, ConcurrentMap<String, CompletableFuture<String>> imageUrls )
         throws IOException
     {
         switch ( item.getType() )
         {
             case MAP:
-                return generateMapHtml( item.getMap(), user );
+                return generateMapHtml( item.getMap(), user, imageUrls );
             case CHART:
-                return generateChartHtml( item.getChart(), user );
+                return generateChartHtml( item.getChart(), user, imageUrls );
             case REPORT_TABLE:
                 return generateReportTableHtml( item.getReportTable(), user );
             case EVENT_CHART:
@@ -373,12 +550,13 @@ public class DefaultPushAnalysisService
     /**
      * Returns an absolute URL to an image representing the map input
      *
-     * @param map  map to render and upload
-     * @param user user to generate chart for
+     * @param map       map to render and upload
+     * @param user      user to generate chart for
+     * @param imageUrls future URLs of images uploaded during this run, by content MD5 hash
      * @return absolute URL to uploaded image
      * @throws IOException
      */
-    private String generateMapHtml( Map map, User user )
+    private String generateMapHtml( Map map, User user, ConcurrentMap<String, CompletableFuture<String>> imageUrls )
         throws IOException
     {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
@@ -387,24 +565,25 @@ public class DefaultPushAnalysisService
 
         ImageIO.write( image, "PNG", baos );
 
-        return uploadImage( map.getUid(), baos.toByteArray() );
+        return uploadImage( map.getUid(), baos.toByteArray(), imageUrls );
     }
 
     /**
      * Returns an absolute URL to an image representing the chart input
      *
-     * @param chart chart to render and upload
-     * @param user  user to generate chart for
+     * @param chart     chart to render and upload
+     * @param user      user to generate chart for
+     * @param imageUrls future URLs of images uploaded during this run, by content MD5 hash
      * @return absolute URL to uploaded image
      * @throws IOException
      */
-    private String generateChartHtml( Chart chart, User user )
+    private String generateChartHtml( Chart chart, User user, ConcurrentMap<String, CompletableFuture<String>> imageUrls )
         throws IOException
     {
         JFreeChart jFreechart = chartService
             .getJFreeChart( chart, new Date(), null, i18nManager.getI18nFormat(), user );
 
-        return uploadImage( chart.getUid(), ChartUtils.getChartAsPngByteArray( jFreechart, 578, 440 ) );
+        return uploadImage( chart.getUid(), ChartUtils.getChartAsPngByteArray( jFreechart, 578, 440 ), imageUrls );
     }
 
     /**
@@ -430,28 +609,118 @@ public class DefaultPushAnalysisService
     }
 
     /**
-     * Uploads a byte array using FileResource and ExternalFileResource
+     * Uploads a byte array using FileResource and ExternalFileResource. Images
+     * with content identical to an image uploaded earlier in this run, or to a
+     * stored push analysis image, are not uploaded again but share its URL.
+     * The first thread to upload an image registers a future URL for its hash
+     * and uploads it, while threads uploading identical images wait for that
+     * future. A failed upload is removed so that the image can be uploaded again.
      *
-     * @param name  name of the file to be stored
-     * @param bytes the byte array representing the file to be stored
+     * @param name      name of the file to be stored
+     * @param bytes     the byte array representing the file to be stored
+     * @param imageUrls future URLs of images uploaded during this run, by content MD5 hash
      * @return url pointing to the uploaded resource
-     * @throws IOException
      */
-    private String uploadImage( String name, byte[] bytes )
-        throws IOException
+    String uploadImage( String name, byte[] bytes, ConcurrentMap<String, CompletableFuture<String>> imageUrls )
     {
-        FileResource fileResource = new FileResource(
-            name,
-            MimeTypeUtils.IMAGE_PNG.toString(), // All files uploaded from PushAnalysis is PNG.
-            bytes.length,
-            ByteSource.wrap( bytes ).hash( Hashing.md5() ).toString(),
-            FileResourceDomain.PUSH_ANALYSIS
-        );
+        String contentMd5 = ByteSource.wrap( bytes ).hash( Hashing.md5() ).toString();
+
+        CompletableFuture<String> upload = new CompletableFuture<>();
+        CompletableFuture<String> imageUrl = imageUrls.computeIfAbsent( contentMd5, md5 -> upload );
+
+        if ( imageUrl == upload )
+        {
+            try
+            {
+                upload.complete( getImageUrl( name, bytes, contentMd5 ) );
+            }
+            catch ( RuntimeException ex )
+            {
+                imageUrls.remove( contentMd5, upload );
+                upload.completeExceptionally( ex );
+                throw ex;
+            }
+        }
+
+        return imageUrl.join();
+    }
+
+    private String getImageUrl( String name, byte[] bytes, String contentMd5 )
+    {
+        ExternalFileResource existing = externalFileResourceService
+            .getExternalFileResourceByContentMd5( contentMd5, FileResourceDomain.PUSH_ANALYSIS );
+
+        String accessToken;
 
-        String accessToken = saveFileResource( fileResource, bytes );
+        if ( existing != null )
+        {
+            accessToken = existing.getAccessToken();
+        }
+        else
+        {
+            FileResource fileResource = new FileResource(
+                name,
+                MimeTypeUtils.IMAGE_PNG.toString(), // All files uploaded from PushAnalysis is PNG.
+                bytes.length,
+                contentMd5,
+                FileResourceDomain.PUSH_ANALYSIS
+            );
+
+            accessToken = saveFileResource( fileResource, bytes );
+        }
 
         return systemSettingManager.getInstanceBaseUrl() + "/api/externalFileResources/" + accessToken;
+    }
 
+    /**
+     * Returns a key identifying the data which the given user can view on the
+     * given dashboard, made up of the organisation units, dimension constraints,
+     * user roles, user groups and analysis settings of the user, and of the
+     * access granted to the user directly on the dashboard and its items.
+     * Dashboard items render identically for users with the same key.
+     *
+     * @param user      the user
+     * @param dashboard the dashboard to render
+     * @return the data view key of the user
+     */
+    String getDataViewKey( User user, Dashboard dashboard )
+    {
+        UserCredentials credentials = user.getUserCredentials();
+
+        return String.join( "|",
+            Objects.toString( userSettingService.getUserSetting( UserSettingKey.ANALYSIS_DISPLAY_PROPERTY, user ), "" ),
+            Objects.toString( userSettingService.getUserSetting( UserSettingKey.UI_LOCALE, user ), "" ),
+            Objects.toString( userSettingService.getUserSetting( UserSettingKey.DB_LOCALE, user ), "" ),
+            getUserAccesses( user, dashboard ),
+            user.getOrganisationUnit() != null ? user.getOrganisationUnit().getUid() : "",
+            getSortedUids( user.getOrganisationUnits() ),
+            getSortedUids( user.getDataViewOrganisationUnits() ),
+            getSortedUids( user.getGroups() ),
+            credentials != null ? getSortedUids( credentials.getUserAuthorityGroups() ) : "",
+            credentials != null ? getSortedUids( credentials.getCatDimensionConstraints() ) : "",
+            credentials != null ? getSortedUids( credentials.getCogsDimensionConstraints() ) : "" );
+    }
+
+    private String getUserAccesses( User user, Dashboard dashboard )
+    {
+        Stream<IdentifiableObject> objects = Stream.concat( Stream.of( dashboard ), dashboard.getItems().stream()
+            .map( DashboardItem::getEmbeddedItem )
+            .filter( Objects::nonNull ) );
+
+        return objects
+            .flatMap( object -> object.getUserAccesses().stream()
+                .filter( userAccess -> user.getUid().equals( userAccess.getUserUid() ) )
+                .map( userAccess -> object.getUid() + ":" + userAccess.getAccess() ) )
+            .sorted()
+            .collect( Collectors.joining( "," ) );
+    }
+
+    private String getSortedUids( Collection<? extends IdentifiableObject> objects )
+    {
+        return objects == null ? "" : objects.stream()
+            .map( IdentifiableObject::getUid )
+            .sorted()
+            .collect( Collectors.joining( "," ) );
     }
 
     /**
@@ -40,6 +40,7 @@ import org.hisp.dhis.common.DimensionType;
 import org.hisp.dhis.common.DimensionalItemObject;
 import org.hisp.dhis.common.DimensionalObject;
 import org.hisp.dhis.common.Grid;
+import org.hisp.dhis.common.GridRowHandler;
 import org.hisp.dhis.dxf2.datavalueset.DataValueSet;
 import org.hisp.dhis.period.Period;
 
@@ -101,6 +102,12 @@ public class MockAnalyticsService
         throw new NotImplementedException( "" );
     }
 
+    @Override
+    public void getRawDataValues( DataQueryParams params, GridRowHandler handler )
+    {
+        throw new NotImplementedException( "" );
+    }
+
     @Override
     public DataValueSet getAggregatedDataValueSet( DataQueryParams params )
     {
@@ -28,6 +28,7 @@ package org.hisp.dhis.predictor;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import com.google.common.collect.Lists;
 import org.hisp.dhis.DhisTest;
 import org.hisp.dhis.IntegrationTest;
 import org.hisp.dhis.analytics.AggregationType;
@@ -36,11 +37,13 @@ import org.hisp.dhis.category.CategoryCombo;
 import org.hisp.dhis.category.CategoryOption;
 import org.hisp.dhis.category.CategoryOptionCombo;
 import org.hisp.dhis.category.CategoryService;
+import org.hisp.dhis.common.AuditType;
 import org.hisp.dhis.common.ValueType;
 import org.hisp.dhis.dataelement.*;
 import org.hisp.dhis.dataset.DataSet;
 import org.hisp.dhis.dataset.DataSetService;
 import org.hisp.dhis.datavalue.DataValue;
+import org.hisp.dhis.datavalue.DataValueAuditService;
 import org.hisp.dhis.datavalue.DataValueService;
 import org.hisp.dhis.expression.Expression;
 import org.hisp.dhis.expression.ExpressionService;
@@ -56,13 +59,16 @@ import org.joda.time.DateTime;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import static com.google.common.collect.Sets.newHashSet;
 import static org.hisp.dhis.expression.ExpressionService.SYMBOL_DAYS;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 /**
  * @author Lars Helge Overland
@@ -90,6 +96,9 @@ public class PredictionServiceTest
     @Autowired
     private DataValueService dataValueService;
 
+    @Autowired
+    private DataValueAuditService dataValueAuditService;
+
     @Autowired
     private DataSetService dataSetService;
 
@@ -279,6 +288,19 @@ public class PredictionServiceTest
         dataValueService.addDataValue( createDataValue( e, p, s, value.toString(), defaultCombo, attributeOptionCombo ) );
     }
 
+    private void updateDataValue( DataElement e, Period p, OrganisationUnit s, Number value )
+    {
+        DataValue dv = dataValueService.getDataValue( e, p, s, defaultCombo, defaultCombo );
+        dv.setValue( value.toString() );
+        dataValueService.updateDataValue( dv );
+    }
+
+    private int countPredictionUpdateAudits()
+    {
+        return dataValueAuditService.countDataValueAudits( Lists.newArrayList( dataElementX ), new ArrayList<>(),
+            new ArrayList<>(), null, null, AuditType.UPDATE );
+    }
+
     private String getDataValue( DataElement dataElement, CategoryOptionCombo combo, OrganisationUnit source, Period period )
     {
         DataValue dv = dataValueService.getDataValue( dataElement, period, source, combo, defaultCombo );
@@ -556,6 +578,162 @@ public class PredictionServiceTest
         assertEquals( "136", getDataValue( dataElementY, defaultCombo, sourceG, makeMonth( 2001, 7 ) ) );
     }
 
+    @Test
+    @org.junit.experimental.categories.Category( IntegrationTest.class )
+    public void testPredictUpdatesExistingPredictions()
+    {
+        Predictor p = createPredictor( dataElementX, defaultCombo, "PredictUpdate",
+            expressionC, null, periodTypeMonthly, orgUnitLevel1, 0, 0, 0 );
+
+        assertEquals( 3, predictionService.predict( p, monthStart( 2001, 7 ), monthStart( 2001, 8 ) ) );
+
+        assertEquals( "135.8", getDataValue( dataElementX, defaultCombo, sourceA, makeMonth( 2001, 7 ) ) );
+        assertEquals( "135.8", getDataValue( dataElementX, defaultCombo, sourceB, makeMonth( 2001, 7 ) ) );
+        assertEquals( "135.8", getDataValue( dataElementX, defaultCombo, sourceG, makeMonth( 2001, 7 ) ) );
+
+        // Soft delete one prediction, it should be restored by the next run
+
+        dataValueService.deleteDataValue( dataValueService.getDataValue(
+            dataElementX, makeMonth( 2001, 7 ), sourceB, defaultCombo, defaultCombo ) );
+
+        assertNull( getDataValue( dataElementX, defaultCombo, sourceB, makeMonth( 2001, 7 ) ) );
+
+        Expression expressionUpdate = new Expression( "246.8", "descriptionUpdate" );
+        expressionService.addExpression( expressionUpdate );
+        p.setGenerator( expressionUpdate );
+
+        assertEquals( 3, predictionService.predict( p, monthStart( 2001, 7 ), monthStart( 2001, 8 ) ) );
+
+        assertEquals( "246.8", getDataValue( dataElementX, defaultCombo, sourceA, makeMonth( 2001, 7 ) ) );
+        assertEquals( "246.8", getDataValue( dataElementX, defaultCombo, sourceB, makeMonth( 2001, 7 ) ) );
+        assertEquals( "246.8", getDataValue( dataElementX, defaultCombo, sourceG, makeMonth( 2001, 7 ) ) );
+
+        // Predicting unchanged values again leaves them as they are
+
+        assertEquals( 3, predictionService.predict( p, monthStart( 2001, 7 ), monthStart( 2001, 8 ) ) );
+
+        assertEquals( "246.8", getDataValue( dataElementX, defaultCombo, sourceA, makeMonth( 2001, 7 ) ) );
+        assertEquals( "246.8", getDataValue( dataElementX, defaultCombo, sourceB, makeMonth( 2001, 7 ) ) );
+    }
+
+    @Test
+    @org.junit.experimental.categories.Category( IntegrationTest.class )
+    public void testPredictMultipleOrgUnitTasks()
+    {
+        int orgUnitCount = DefaultPredictionService.ORG_UNITS_PER_TASK + 1;
+
+        List<OrganisationUnit> orgUnits = new ArrayList<>();
+
+        for ( int i = 0; i < orgUnitCount; i++ )
+        {
+            OrganisationUnit orgUnit = createOrganisationUnit( "PredictTask" + i );
+            organisationUnitService.addOrganisationUnit( orgUnit );
+            orgUnits.add( orgUnit );
+
+            useDataValue( dataElementA, makeMonth( 2001, 6 ), orgUnit, i + 1 );
+            useDataValue( dataElementB, makeMonth( 2001, 7 ), orgUnit, 1000 );
+        }
+
+        Set<OrganisationUnit> units = new HashSet<>( orgUnits );
+        setDependency( predictionService, "currentUserService", new MockCurrentUserService( true, units, units ), CurrentUserService.class );
+
+        Predictor p = createPredictor( dataElementX, defaultCombo, "PredictMultipleOrgUnitTasks",
+            expressionE, null, periodTypeMonthly, orgUnitLevel1, 1, 0, 0 );
+
+        assertEquals( orgUnitCount, predictionService.predict( p, monthStart( 2001, 7 ), monthStart( 2001, 8 ) ) );
+
+        assertEquals( "1001.0", getDataValue( dataElementX, defaultCombo, orgUnits.get( 0 ), makeMonth( 2001, 7 ) ) );
+        assertEquals( "1500.0", getDataValue( dataElementX, defaultCombo, orgUnits.get( orgUnitCount - 2 ), makeMonth( 2001, 7 ) ) );
+        assertEquals( "1501.0", getDataValue( dataElementX, defaultCombo, orgUnits.get( orgUnitCount - 1 ), makeMonth( 2001, 7 ) ) );
+    }
+
+    @Test
+    @org.junit.experimental.categories.Category( IntegrationTest.class )
+    public void testPredictMultipleOrgUnitTasksWithSkipTest()
+    {
+        int orgUnitCount = 2 * DefaultPredictionService.ORG_UNITS_PER_TASK + 1;
+
+        List<OrganisationUnit> orgUnits = new ArrayList<>();
+
+        for ( int i = 0; i < orgUnitCount; i++ )
+        {
+            OrganisationUnit orgUnit = createOrganisationUnit( "PredictSkipTask" + i );
+            organisationUnitService.addOrganisationUnit( orgUnit );
+            orgUnits.add( orgUnit );
+
+            useDataValue( dataElementA, makeMonth( 2001, 6 ), orgUnit, altCombo, i + 1 );
+
+            if ( i % 2 == 1 )
+            {
+                useDataValue( dataElementB, makeMonth( 2001, 6 ), orgUnit, altCombo, 1 );
+            }
+        }
+
+        Set<OrganisationUnit> units = new HashSet<>( orgUnits );
+        setDependency( predictionService, "currentUserService", new MockCurrentUserService( true, units, units ), CurrentUserService.class );
+
+        Predictor p = createPredictor( dataElementX, defaultCombo, "PredictMultipleOrgUnitTasksWithSkipTest",
+            new Expression( "SUM(#{" + dataElementA.getUid() + "})", "descriptionSum" ),
+            new Expression( "#{" + dataElementB.getUid() + "}", "outbreak" ),
+            periodTypeMonthly, orgUnitLevel1, 1, 0, 0 );
+
+        assertEquals( orgUnitCount / 2 + 1, predictionService.predict( p, monthStart( 2001, 7 ), monthStart( 2001, 8 ) ) );
+
+        assertEquals( "1.0", getDataValue( dataElementX, defaultCombo, altCombo, orgUnits.get( 0 ), makeMonth( 2001, 7 ) ) );
+        assertNull( getDataValue( dataElementX, defaultCombo, altCombo, orgUnits.get( 1 ), makeMonth( 2001, 7 ) ) );
+        assertEquals( "501.0", getDataValue( dataElementX, defaultCombo, altCombo, orgUnits.get( 500 ), makeMonth( 2001, 7 ) ) );
+        assertNull( getDataValue( dataElementX, defaultCombo, altCombo, orgUnits.get( 501 ), makeMonth( 2001, 7 ) ) );
+        assertEquals( "1001.0", getDataValue( dataElementX, defaultCombo, altCombo, orgUnits.get( orgUnitCount - 1 ), makeMonth( 2001, 7 ) ) );
+    }
+
+    @Test
+    @org.junit.experimental.categories.Category( IntegrationTest.class )
+    public void testPredictMultipleOrgUnitTasksAgain()
+    {
+        int orgUnitCount = 2 * DefaultPredictionService.ORG_UNITS_PER_TASK + 1;
+
+        List<OrganisationUnit> orgUnits = new ArrayList<>();
+
+        for ( int i = 0; i < orgUnitCount; i++ )
+        {
+            OrganisationUnit orgUnit = createOrganisationUnit( "PredictAgainTask" + i );
+            organisationUnitService.addOrganisationUnit( orgUnit );
+            orgUnits.add( orgUnit );
+
+            useDataValue( dataElementA, makeMonth( 2001, 6 ), orgUnit, i + 1 );
+        }
+
+        Set<OrganisationUnit> units = new HashSet<>( orgUnits );
+        setDependency( predictionService, "currentUserService", new MockCurrentUserService( true, units, units ), CurrentUserService.class );
+
+        Predictor p = createPredictor( dataElementX, defaultCombo, "PredictMultipleOrgUnitTasksAgain",
+            new Expression( "SUM(#{" + dataElementA.getUid() + "})", "descriptionSum" ), null,
+            periodTypeMonthly, orgUnitLevel1, 1, 0, 0 );
+
+        assertEquals( orgUnitCount, predictionService.predict( p, monthStart( 2001, 7 ), monthStart( 2001, 8 ) ) );
+        assertEquals( 0, countPredictionUpdateAudits() );
+
+        // Predicting unchanged values again neither writes nor audits them
+
+        assertEquals( orgUnitCount, predictionService.predict( p, monthStart( 2001, 7 ), monthStart( 2001, 8 ) ) );
+        assertEquals( 0, countPredictionUpdateAudits() );
+
+        // Only changed predictions in any of the tasks are updated and audited
+
+        updateDataValue( dataElementA, makeMonth( 2001, 6 ), orgUnits.get( 0 ), 10 );
+        updateDataValue( dataElementA, makeMonth( 2001, 6 ), orgUnits.get( orgUnitCount - 1 ), 20 );
+
+        assertEquals( orgUnitCount, predictionService.predict( p, monthStart( 2001, 7 ), monthStart( 2001, 8 ) ) );
+        assertEquals( 2, countPredictionUpdateAudits() );
+
+        assertEquals( "10.0", getDataValue( dataElementX, defaultCombo, orgUnits.get( 0 ), makeMonth( 2001, 7 ) ) );
+        assertEquals( "2.0", getDataValue( dataElementX, defaultCombo, orgUnits.get( 1 ), makeMonth( 2001, 7 ) ) );
+        assertEquals( "20.0", getDataValue( dataElementX, defaultCombo, orgUnits.get( orgUnitCount - 1 ), makeMonth( 2001, 7 ) ) );
+
+        assertEquals( orgUnitCount, predictionService.predict( p, monthStart( 2001, 7 ), monthStart( 2001, 8 ) ) );
+        assertEquals( 2, countPredictionUpdateAudits() );
+    }
+
     @Test
     @org.junit.experimental.categories.Category( IntegrationTest.class )
     public void testPredictDays()
@@ -0,0 +1,274 @@
+package org.hisp.dhis.pushanalysis;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+import org.hisp.dhis.chart.Chart;
+import org.hisp.dhis.dashboard.Dashboard;
+import org.hisp.dhis.dashboard.DashboardItem;
+import org.hisp.dhis.fileresource.ExternalFileResource;
+import org.hisp.dhis.fileresource.ExternalFileResourceService;
+import org.hisp.dhis.fileresource.FileResourceDomain;
+import org.hisp.dhis.fileresource.FileResourceService;
+import org.hisp.dhis.scheduling.SchedulingManager;
+import org.hisp.dhis.setting.SystemSettingManager;
+import org.hisp.dhis.user.User;
+import org.hisp.dhis.user.UserAccess;
+import org.hisp.dhis.user.UserSettingKey;
+import org.hisp.dhis.user.UserSettingService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests the grouping of push analysis recipients by data view and the
+ * deduplication of uploaded images.
+ */
+@RunWith( MockitoJUnitRunner.class )
+public class DefaultPushAnalysisServiceTest
+{
+    @InjectMocks
+    private DefaultPushAnalysisService pushAnalysisService;
+
+    @Mock
+    private UserSettingService userSettingService;
+
+    @Mock
+    private ExternalFileResourceService externalFileResourceService;
+
+    @Mock
+    private FileResourceService fileResourceService;
+
+    @Mock
+    private SchedulingManager schedulingManager;
+
+    @Mock
+    private SystemSettingManager systemSettingManager;
+
+    private final ConcurrentMap<String, CompletableFuture<String>> imageUrls = new ConcurrentHashMap<>();
+
+    private final byte[] imageA = { 1, 2, 3 };
+
+    private final byte[] imageB = { 4, 5, 6 };
+
+    private Dashboard dashboard;
+
+    private Chart chart;
+
+    private User userA;
+
+    private User userB;
+
+    @Before
+    public void setUp()
+    {
+        chart = new Chart( "ChartA" );
+        chart.setUid( "chartUidA" );
+
+        DashboardItem item = new DashboardItem( "itemUidA" );
+        item.setChart( chart );
+
+        dashboard = new Dashboard( "DashboardA" );
+        dashboard.setUid( "dashboardA" );
+        dashboard.getItems().add( item );
+
+        userA = createUser( "userUidA" );
+        userB = createUser( "userUidB" );
+
+        when( systemSettingManager.getInstanceBaseUrl() ).thenReturn( "http://localhost" );
+    }
+
+    @Test
+    public void testDataViewKeyEqualForSameDataView()
+    {
+        assertEquals( pushAnalysisService.getDataViewKey( userA, dashboard ),
+            pushAnalysisService.getDataViewKey( userB, dashboard ) );
+    }
+
+    @Test
+    public void testDataViewKeyDiffersByDirectSharing()
+    {
+        chart.getUserAccesses().add( new UserAccess( userA, "r-------" ) );
+
+        assertNotEquals( pushAnalysisService.getDataViewKey( userA, dashboard ),
+            pushAnalysisService.getDataViewKey( userB, dashboard ) );
+
+        chart.getUserAccesses().add( new UserAccess( userB, "r-------" ) );
+
+        assertEquals( pushAnalysisService.getDataViewKey( userA, dashboard ),
+            pushAnalysisService.getDataViewKey( userB, dashboard ) );
+    }
+
+    @Test
+    public void testDataViewKeyDiffersByDirectDashboardSharing()
+    {
+        dashboard.getUserAccesses().add( new UserAccess( userB, "rw------" ) );
+
+        assertNotEquals( pushAnalysisService.getDataViewKey( userA, dashboard ),
+            pushAnalysisService.getDataViewKey( userB, dashboard ) );
+    }
+
+    @Test
+    public void testDataViewKeyDiffersByAnalysisDisplayProperty()
+    {
+        when( userSettingService.getUserSetting( UserSettingKey.ANALYSIS_DISPLAY_PROPERTY, userA ) ).thenReturn( "shortName" );
+        when( userSettingService.getUserSetting( UserSettingKey.ANALYSIS_DISPLAY_PROPERTY, userB ) ).thenReturn( "name" );
+
+        assertNotEquals( pushAnalysisService.getDataViewKey( userA, dashboard ),
+            pushAnalysisService.getDataViewKey( userB, dashboard ) );
+    }
+
+    @Test
+    public void testUploadImageOncePerContent()
+    {
+        when( externalFileResourceService.saveExternalFileResource( any( ExternalFileResource.class ) ) )
+            .thenReturn( "tokenA", "tokenB" );
+
+        assertEquals( "http://localhost/api/externalFileResources/tokenA", pushAnalysisService.uploadImage( "chartA", imageA, imageUrls ) );
+        assertEquals( "http://localhost/api/externalFileResources/tokenA", pushAnalysisService.uploadImage( "chartB", imageA.clone(), imageUrls ) );
+        assertEquals( "http://localhost/api/externalFileResources/tokenB", pushAnalysisService.uploadImage( "chartC", imageB, imageUrls ) );
+
+        verify( externalFileResourceService, times( 2 ) ).saveExternalFileResource( any( ExternalFileResource.class ) );
+        assertEquals( 2, imageUrls.size() );
+    }
+
+    @Test
+    public void testUploadImageReusesStoredImage()
+    {
+        ExternalFileResource existing = new ExternalFileResource();
+        existing.setAccessToken( "tokenStored" );
+
+        when( externalFileResourceService.getExternalFileResourceByContentMd5( anyString(), eq( FileResourceDomain.PUSH_ANALYSIS ) ) )
+            .thenReturn( existing );
+
+        assertEquals( "http://localhost/api/externalFileResources/tokenStored", pushAnalysisService.uploadImage( "chartA", imageA, imageUrls ) );
+
+        verify( externalFileResourceService, never() ).saveExternalFileResource( any( ExternalFileResource.class ) );
+    }
+
+    @Test
+    public void testUploadImageAfterFailedUpload()
+    {
+        when( externalFileResourceService.saveExternalFileResource( any( ExternalFileResource.class ) ) )
+            .thenThrow( new IllegalStateException( "Storage unavailable" ) )
+            .thenReturn( "tokenA" );
+
+        try
+        {
+            pushAnalysisService.uploadImage( "chartA", imageA, imageUrls );
+            fail( "Upload should fail" );
+        }
+        catch ( IllegalStateException ex )
+        {
+            assertTrue( imageUrls.isEmpty() );
+        }
+
+        assertEquals( "http://localhost/api/externalFileResources/tokenA", pushAnalysisService.uploadImage( "chartA", imageA, imageUrls ) );
+
+        verify( externalFileResourceService, times( 2 ) ).saveExternalFileResource( any( ExternalFileResource.class ) );
+    }
+
+    @Test
+    public void testUploadImageConcurrently()
+        throws Exception
+    {
+        CountDownLatch saving = new CountDownLatch( 1 );
+        CountDownLatch saved = new CountDownLatch( 1 );
+
+        when( externalFileResourceService.saveExternalFileResource( any( ExternalFileResource.class ) ) ).thenAnswer( invocation -> {
+            saving.countDown();
+            saved.await();
+            return "tokenA";
+        } );
+
+        ExecutorService executor = Executors.newFixedThreadPool( 2 );
+
+        try
+        {
+            Future<String> first = executor.submit( () -> pushAnalysisService.uploadImage( "chartA", imageA, imageUrls ) );
+
+            assertTrue( saving.await( 10, TimeUnit.SECONDS ) );
+
+            // The future URL is registered before the image is stored
+
+            assertEquals( 1, imageUrls.size() );
+            assertFalse( imageUrls.values().iterator().next().isDone() );
+
+            Future<String> second = executor.submit( () -> pushAnalysisService.uploadImage( "chartC", imageA, imageUrls ) );
+
+            assertFalse( second.isDone() );
+
+            saved.countDown();
+
+            assertEquals( "http://localhost/api/externalFileResources/tokenA", first.get( 10, TimeUnit.SECONDS ) );
+            assertEquals( "http://localhost/api/externalFileResources/tokenA", second.get( 10, TimeUnit.SECONDS ) );
+        }
+        finally
+        {
+            saved.countDown();
+            executor.shutdownNow();
+        }
+
+        verify( externalFileResourceService, times( 1 ) ).saveExternalFileResource( any( ExternalFileResource.class ) );
+    }
+
+    //--------------------------------------------------------------------------
+    // Supportive methods
+    //--------------------------------------------------------------------------
+
+    private User createUser( String uid )
+    {
+        User user = new User();
+        user.setUid( uid );
+        return user;
+    }
+}
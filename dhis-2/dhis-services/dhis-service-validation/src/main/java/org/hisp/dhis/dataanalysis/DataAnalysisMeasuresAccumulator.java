@@ -0,0 +1,147 @@
+package org.hisp.dhis.dataanalysis;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.hisp.dhis.datavalue.DeflatedDataValue;
+import org.hisp.dhis.period.Period;
+import org.hisp.dhis.system.util.MathUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import static org.hisp.dhis.common.IdentifiableObjectUtils.getIdentifiers;
+
+/**
+ * Calculates the average and standard deviation measures of data values in a
+ * single pass using Welford's algorithm. Data values must be supplied ordered
+ * by data element, category option combo and organisation unit. When all
+ * values of a combination have been supplied, the measures are handed to the
+ * handler together with the values of the combination which belong to the
+ * analysis periods. Combinations with a standard deviation of zero are skipped.
+ */
+class DataAnalysisMeasuresAccumulator
+    implements Consumer<DeflatedDataValue>
+{
+    private final Set<Integer> periodIds;
+
+    private final Date from;
+
+    private final BiConsumer<DataAnalysisMeasures, List<DeflatedDataValue>> handler;
+
+    private int dataElementId = -1;
+
+    private int categoryOptionComboId = -1;
+
+    private int orgUnitId = -1;
+
+    private long count;
+
+    private double mean;
+
+    private double sumOfSquares;
+
+    private List<DeflatedDataValue> values = new ArrayList<>();
+
+    /**
+     * @param periods the analysis periods, values of which are handed to the handler.
+     * @param from the start date of values to include in the measures.
+     * @param handler the handler of measures and analysis period values.
+     */
+    DataAnalysisMeasuresAccumulator( Collection<Period> periods, Date from,
+        BiConsumer<DataAnalysisMeasures, List<DeflatedDataValue>> handler )
+    {
+        this.periodIds = new HashSet<>( getIdentifiers( periods ) );
+        this.from = from;
+        this.handler = handler;
+    }
+
+    @Override
+    public void accept( DeflatedDataValue value )
+    {
+        if ( value.getDataElementId() != dataElementId || value.getCategoryOptionComboId() != categoryOptionComboId ||
+            value.getSourceId() != orgUnitId )
+        {
+            flush();
+
+            dataElementId = value.getDataElementId();
+            categoryOptionComboId = value.getCategoryOptionComboId();
+            orgUnitId = value.getSourceId();
+        }
+
+        Double number = MathUtils.parseDouble( value.getValue() );
+
+        if ( number == null )
+        {
+            return; // Ignore any non-numeric values
+        }
+
+        if ( !value.getPeriod().getStartDate().before( from ) )
+        {
+            count++;
+
+            double delta = number - mean;
+            mean += delta / count;
+            sumOfSquares += delta * ( number - mean );
+        }
+
+        if ( periodIds.contains( value.getPeriodId() ) )
+        {
+            values.add( value );
+        }
+    }
+
+    /**
+     * Hands the measures of the current combination to the handler and resets
+     * the accumulated state. Must be invoked after the last value is supplied.
+     */
+    public void flush()
+    {
+        if ( count > 0 )
+        {
+            double standardDeviation = Math.sqrt( sumOfSquares / count );
+
+            if ( standardDeviation != 0.0 )
+            {
+                handler.accept( new DataAnalysisMeasures( dataElementId, orgUnitId, categoryOptionComboId,
+                    mean, standardDeviation ), values );
+            }
+        }
+
+        count = 0;
+        mean = 0.0;
+        sumOfSquares = 0.0;
+        values = new ArrayList<>();
+    }
+}
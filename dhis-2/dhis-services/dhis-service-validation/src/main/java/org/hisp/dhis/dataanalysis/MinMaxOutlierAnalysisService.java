@@ -126,41 +126,49 @@ public class MinMaxOutlierAnalysisService
 
         BatchHandler<MinMaxDataElement> batchHandler = batchHandlerFactory.createBatchHandler( MinMaxDataElementBatchHandler.class ).init();
 
+        Map<Integer, DataElement> dataElementMap = new HashMap<>();
+        Set<CategoryOptionCombo> categoryOptionCombos = new HashSet<>();
+
         for ( DataElement dataElement : dataElements )
         {
             if ( dataElement.getValueType().isNumeric() )
             {
-                Set<CategoryOptionCombo> categoryOptionCombos = dataElement.getCategoryOptionCombos();
-
-                List<DataAnalysisMeasures> measuresList = dataAnalysisStore.getDataAnalysisMeasures( dataElement, categoryOptionCombos, parentPaths, from );
-
-                for ( DataAnalysisMeasures measures : measuresList )
-                {
-                    int min = (int) Math.round( MathUtils.getLowBound( measures.getStandardDeviation(), stdDevFactor, measures.getAverage() ) );
-                    int max = (int) Math.round( MathUtils.getHighBound( measures.getStandardDeviation(), stdDevFactor, measures.getAverage() ) );
-
-                    switch ( dataElement.getValueType() )
-                    {
-                        case INTEGER_POSITIVE:
-                        case INTEGER_ZERO_OR_POSITIVE:
-                            min = Math.max( 0, min ); // Cannot be < 0
-                            break;
-                        case INTEGER_NEGATIVE:
-                            max = Math.min( 0, max ); // Cannot be > 0
-                            break;
-                    }
-
-                    OrganisationUnit orgUnit = new OrganisationUnit();
-                    orgUnit.setId( measures.getOrgUnitId() );
-
-                    CategoryOptionCombo categoryOptionCombo = new CategoryOptionCombo();
-                    categoryOptionCombo.setId( measures.getCategoryOptionComboId() );
-
-                    batchHandler.addObject( new MinMaxDataElement( orgUnit, dataElement, categoryOptionCombo, min, max, true ) );
-                }
+                dataElementMap.put( dataElement.getId(), dataElement );
+                categoryOptionCombos.addAll( dataElement.getCategoryOptionCombos() );
             }
         }
 
+        DataAnalysisMeasuresAccumulator accumulator = new DataAnalysisMeasuresAccumulator( new ArrayList<>(), from, ( measures, values ) ->
+        {
+            DataElement dataElement = dataElementMap.get( measures.getDataElementId() );
+
+            int min = (int) Math.round( MathUtils.getLowBound( measures.getStandardDeviation(), stdDevFactor, measures.getAverage() ) );
+            int max = (int) Math.round( MathUtils.getHighBound( measures.getStandardDeviation(), stdDevFactor, measures.getAverage() ) );
+
+            switch ( dataElement.getValueType() )
+            {
+                case INTEGER_POSITIVE:
+                case INTEGER_ZERO_OR_POSITIVE:
+                    min = Math.max( 0, min ); // Cannot be < 0
+                    break;
+                case INTEGER_NEGATIVE:
+                    max = Math.min( 0, max ); // Cannot be > 0
+                    break;
+            }
+
+            OrganisationUnit orgUnit = new OrganisationUnit();
+            orgUnit.setId( measures.getOrgUnitId() );
+
+            CategoryOptionCombo categoryOptionCombo = new CategoryOptionCombo();
+            categoryOptionCombo.setId( measures.getCategoryOptionComboId() );
+
+            batchHandler.addObject( new MinMaxDataElement( orgUnit, dataElement, categoryOptionCombo, min, max, true ) );
+        } );
+
+        dataAnalysisStore.getDataAnalysisValues( dataElementMap.values(), categoryOptionCombos, parentPaths, new ArrayList<>(), from, accumulator );
+
+        accumulator.flush();
+
         log.info( "Min-max value generation done" );
 
         batchHandler.flush();
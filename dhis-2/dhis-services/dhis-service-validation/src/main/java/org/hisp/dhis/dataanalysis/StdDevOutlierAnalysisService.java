@@ -30,7 +30,6 @@ package org.hisp.dhis.dataanalysis;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.hisp.dhis.common.MapMap;
 import org.hisp.dhis.category.CategoryOptionCombo;
 import org.hisp.dhis.dataelement.DataElement;
 import org.hisp.dhis.datavalue.DeflatedDataValue;
@@ -72,45 +71,43 @@ public class StdDevOutlierAnalysisService
 
         List<DeflatedDataValue> outlierCollection = new ArrayList<>();
 
-        List<String> parentsPaths = parents.stream().map( OrganisationUnit::getPath ).collect( Collectors.toList() );
-
-        loop : for ( DataElement dataElement : dataElements )
+        if ( stdDevFactor == null )
         {
-            // TODO filter periods with data element period type
+            return outlierCollection;
+        }
 
-            if ( dataElement.getValueType().isNumeric() && stdDevFactor != null )
-            {
-                Set<CategoryOptionCombo> categoryOptionCombos = dataElement.getCategoryOptionCombos();
+        // TODO filter periods with data element period type
 
-                List<DataAnalysisMeasures> measuresList = dataAnalysisStore.getDataAnalysisMeasures( dataElement, categoryOptionCombos, parentsPaths, from );
+        List<DataElement> numericDataElements = dataElements.stream()
+            .filter( de -> de.getValueType().isNumeric() ).collect( Collectors.toList() );
 
-                MapMap<Integer, Integer, Integer> lowBoundMapMap = new MapMap<>(); // catOptionComboId, orgUnitId, lowBound
-                MapMap<Integer, Integer, Integer> highBoundMapMap = new MapMap<>(); // catOptionComboId, orgUnitId, highBound
+        Set<CategoryOptionCombo> categoryOptionCombos = numericDataElements.stream()
+            .flatMap( de -> de.getCategoryOptionCombos().stream() ).collect( Collectors.toSet() );
 
-                for ( DataAnalysisMeasures measures : measuresList )
-                {
-                    int lowBound = (int) Math.round( MathUtils.getLowBound( measures.getStandardDeviation(), stdDevFactor, measures.getAverage() ) );
-                    int highBound = (int) Math.round( MathUtils.getHighBound( measures.getStandardDeviation(), stdDevFactor, measures.getAverage() ) );
+        List<String> parentsPaths = parents.stream().map( OrganisationUnit::getPath ).collect( Collectors.toList() );
 
-                    lowBoundMapMap.putEntry( measures.getCategoryOptionComboId(), measures.getOrgUnitId(), lowBound );
-                    highBoundMapMap.putEntry( measures.getCategoryOptionComboId(), measures.getOrgUnitId(), highBound );
-                }
+        DataAnalysisMeasuresAccumulator accumulator = new DataAnalysisMeasuresAccumulator( periods, from, ( measures, values ) ->
+        {
+            int lowBound = (int) Math.round( MathUtils.getLowBound( measures.getStandardDeviation(), stdDevFactor, measures.getAverage() ) );
+            int highBound = (int) Math.round( MathUtils.getHighBound( measures.getStandardDeviation(), stdDevFactor, measures.getAverage() ) );
 
-                for ( CategoryOptionCombo categoryOptionCombo : categoryOptionCombos )
-                {
-                    Map<Integer, Integer> lowBoundMap = lowBoundMapMap.get( categoryOptionCombo.getId() );
-                    Map<Integer, Integer> highBoundMap = highBoundMapMap.get( categoryOptionCombo.getId() );
+            for ( DeflatedDataValue value : values )
+            {
+                double number = Double.parseDouble( value.getValue() );
 
-                    outlierCollection.addAll( dataAnalysisStore.getDeflatedDataValues( dataElement, categoryOptionCombo, periods,
-                        lowBoundMap, highBoundMap ) );
+                if ( ( number < lowBound || number > highBound ) && outlierCollection.size() <= MAX_OUTLIERS )
+                {
+                    value.setMin( lowBound );
+                    value.setMax( highBound );
 
-                    if ( outlierCollection.size() > MAX_OUTLIERS )
-                    {
-                        break loop;
-                    }
+                    outlierCollection.add( value );
                 }
             }
-        }
+        } );
+
+        dataAnalysisStore.getDataAnalysisValues( numericDataElements, categoryOptionCombos, parentsPaths, periods, from, accumulator );
+
+        accumulator.flush();
 
         return outlierCollection;
     }
@@ -31,9 +31,7 @@ package org.hisp.dhis.dataanalysis.jdbc;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.hisp.dhis.category.CategoryOptionCombo;
-import org.hisp.dhis.commons.collection.PaginatedList;
 import org.hisp.dhis.commons.util.TextUtils;
-import org.hisp.dhis.dataanalysis.DataAnalysisMeasures;
 import org.hisp.dhis.dataanalysis.DataAnalysisStore;
 import org.hisp.dhis.dataelement.DataElement;
 import org.hisp.dhis.dataset.DataSet;
@@ -43,14 +41,16 @@ import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.period.Period;
 import org.hisp.dhis.system.objectmapper.DeflatedDataValueNameMinMaxRowMapper;
 import org.hisp.dhis.system.util.DateUtils;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.rowset.SqlRowSet;
 
+import java.sql.ResultSet;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
-import java.util.Map;
+import java.util.function.Consumer;
 
 import static org.hisp.dhis.common.IdentifiableObjectUtils.getIdentifiers;
 import static org.hisp.dhis.commons.util.TextUtils.getCommaDelimitedString;
@@ -64,6 +64,8 @@ public class JdbcDataAnalysisStore
 {
     private static final Log log = LogFactory.getLog( JdbcDataAnalysisStore.class );
 
+    private static final int FETCH_SIZE = 10000;
+
     // -------------------------------------------------------------------------
     // Dependencies
     // -------------------------------------------------------------------------
@@ -90,18 +92,17 @@ public class JdbcDataAnalysisStore
     // -------------------------------------------------------------------------
 
     @Override
-    public List<DataAnalysisMeasures> getDataAnalysisMeasures( DataElement dataElement,
-        Collection<CategoryOptionCombo> categoryOptionCombos,
-        Collection<String> parentPaths, Date from )
+    public void getDataAnalysisValues( Collection<DataElement> dataElements,
+        Collection<CategoryOptionCombo> categoryOptionCombos, Collection<String> parentPaths,
+        Collection<Period> periods, Date from, Consumer<DeflatedDataValue> consumer )
     {
-        List<DataAnalysisMeasures> measures = new ArrayList<>();
-
-        if ( categoryOptionCombos.isEmpty() || parentPaths.isEmpty() )
+        if ( dataElements.isEmpty() || categoryOptionCombos.isEmpty() || parentPaths.isEmpty() )
         {
-            return measures;
+            return;
         }
 
-        String catOptionComboIds = TextUtils.getCommaDelimitedString( getIdentifiers( categoryOptionCombos ) );
+        String dataElementIds = getCommaDelimitedString( getIdentifiers( dataElements ) );
+        String catOptionComboIds = getCommaDelimitedString( getIdentifiers( categoryOptionCombos ) );
 
         String matchPaths = "(";
         for ( String path : parentPaths )
@@ -110,38 +111,80 @@ public class JdbcDataAnalysisStore
         }
         matchPaths = TextUtils.removeLastOr( matchPaths ) + ") ";
 
+        String matchPeriods = "pe.startdate >= '" + DateUtils.getMediumDateString( from ) + "' ";
+
+        if ( !periods.isEmpty() )
+        {
+            matchPeriods = "(" + matchPeriods + "or dv.periodid in (" + getCommaDelimitedString( getIdentifiers( periods ) ) + ")) ";
+        }
+
         String sql =
-            "select dv.sourceid, dv.categoryoptioncomboid, " +
-                "avg( cast( dv.value as " + statementBuilder.getDoubleColumnType() + " ) ) as average, " +
-                "stddev_pop( cast( dv.value as " + statementBuilder.getDoubleColumnType() +
-                " ) ) as standarddeviation " +
+            "select dv.dataelementid, dv.periodid, dv.sourceid, dv.categoryoptioncomboid, dv.attributeoptioncomboid, dv.value, dv.storedby, dv.lastupdated, " +
+                "dv.created, dv.comment, dv.followup, ou.name as sourcename, de.name as dataelementname, " +
+                "pt.name as periodtypename, pe.startdate, pe.enddate, coc.name as categoryoptioncomboname " +
                 "from datavalue dv " +
-                "join organisationunit ou on ou.organisationunitid = dv.sourceid " +
+                "join dataelement de on dv.dataelementid = de.dataelementid " +
                 "join period pe on dv.periodid = pe.periodid " +
-                "where dv.dataelementid = " + dataElement.getId() + " " +
+                "join periodtype pt on pe.periodtypeid = pt.periodtypeid " +
+                "join organisationunit ou on dv.sourceid = ou.organisationunitid " +
+                "join categoryoptioncombo coc on dv.categoryoptioncomboid = coc.categoryoptioncomboid " +
+                "where dv.dataelementid in (" + dataElementIds + ") " +
                 "and dv.categoryoptioncomboid in (" + catOptionComboIds + ") " +
-                "and pe.startdate >= '" + DateUtils.getMediumDateString( from ) + "' " +
+                "and " + matchPeriods +
                 "and " + matchPaths +
                 "and dv.deleted is false " +
-                "group by dv.sourceid, dv.categoryoptioncomboid";
+                "order by dv.dataelementid, dv.categoryoptioncomboid, dv.sourceid";
 
-        SqlRowSet rowSet = jdbcTemplate.queryForRowSet( sql );
+        log.debug( "Data analysis values SQL: " + sql );
 
-        while ( rowSet.next() )
-        {
-            int orgUnitId = rowSet.getInt( 1 );
-            int categoryOptionComboId = rowSet.getInt( 2 );
-            double average = rowSet.getDouble( 3 );
-            double standardDeviation = rowSet.getDouble( 4 );
+        jdbcTemplate.execute( (ConnectionCallback<Void>) connection -> {
+
+            // PostgreSQL only fetches rows with a cursor outside of auto-commit mode
 
-            if ( standardDeviation != 0.0 )
+            boolean autoCommit = connection.getAutoCommit();
+
+            connection.setAutoCommit( false );
+
+            try ( Statement statement = connection.createStatement() )
             {
-                measures
-                    .add( new DataAnalysisMeasures( orgUnitId, categoryOptionComboId, average, standardDeviation ) );
+                statement.setFetchSize( FETCH_SIZE );
+
+                try ( ResultSet resultSet = statement.executeQuery( sql ) )
+                {
+                    while ( resultSet.next() )
+                    {
+                        DeflatedDataValue value = new DeflatedDataValue();
+
+                        value.setDataElementId( resultSet.getInt( "dataelementid" ) );
+                        value.setPeriodId( resultSet.getInt( "periodid" ) );
+                        value.setSourceId( resultSet.getInt( "sourceid" ) );
+                        value.setCategoryOptionComboId( resultSet.getInt( "categoryoptioncomboid" ) );
+                        value.setAttributeOptionComboId( resultSet.getInt( "attributeoptioncomboid" ) );
+                        value.setValue( resultSet.getString( "value" ) );
+                        value.setStoredBy( resultSet.getString( "storedby" ) );
+                        value.setCreated( resultSet.getDate( "created" ) );
+                        value.setLastUpdated( resultSet.getDate( "lastupdated" ) );
+                        value.setComment( resultSet.getString( "comment" ) );
+                        value.setFollowup( resultSet.getBoolean( "followup" ) );
+                        value.setDataElementName( resultSet.getString( "dataelementname" ) );
+                        value.setPeriod(
+                            resultSet.getString( "periodtypename" ),
+                            resultSet.getDate( "startdate" ),
+                            resultSet.getDate( "enddate" ) );
+                        value.setSourceName( resultSet.getString( "sourcename" ) );
+                        value.setCategoryOptionComboName( resultSet.getString( "categoryoptioncomboname" ) );
+
+                        consumer.accept( value );
+                    }
+                }
+            }
+            finally
+            {
+                connection.setAutoCommit( autoCommit );
             }
-        }
 
-        return measures;
+            return null;
+        } );
     }
 
     @Override
@@ -190,71 +233,6 @@ public class JdbcDataAnalysisStore
         return jdbcTemplate.query( sql, new DeflatedDataValueNameMinMaxRowMapper( null, null ) );
     }
 
-    @Override
-    public List<DeflatedDataValue> getDeflatedDataValues( DataElement dataElement,
-        CategoryOptionCombo categoryOptionCombo,
-        Collection<Period> periods, Map<Integer, Integer> lowerBoundMap, Map<Integer, Integer> upperBoundMap )
-    {
-        if ( lowerBoundMap == null || lowerBoundMap.isEmpty() || periods.isEmpty() )
-        {
-            return new ArrayList<>();
-        }
-
-        //TODO parallel processes?
-
-        List<List<Integer>> organisationUnitPages = new PaginatedList<>( lowerBoundMap.keySet() ).setPageSize( 1000 )
-            .getPages();
-
-        log.debug( "No of pages: " + organisationUnitPages.size() );
-
-        List<DeflatedDataValue> dataValues = new ArrayList<>();
-
-        for ( List<Integer> unitPage : organisationUnitPages )
-        {
-            dataValues.addAll(
-                getDeflatedDataValues( dataElement, categoryOptionCombo, periods, unitPage, lowerBoundMap,
-                    upperBoundMap ) );
-        }
-
-        return dataValues;
-    }
-
-    private List<DeflatedDataValue> getDeflatedDataValues( DataElement dataElement,
-        CategoryOptionCombo categoryOptionCombo,
-        Collection<Period> periods, List<Integer> organisationUnits, Map<Integer, Integer> lowerBoundMap,
-        Map<Integer, Integer> upperBoundMap )
-    {
-        String periodIds = TextUtils.getCommaDelimitedString( getIdentifiers( periods ) );
-
-        String sql =
-            "select dv.dataelementid, dv.periodid, dv.sourceid, dv.categoryoptioncomboid, dv.attributeoptioncomboid, dv.value, dv.storedby, dv.lastupdated, " +
-                "dv.created, dv.comment, dv.followup, ou.name as sourcename, " +
-                "'" + dataElement.getName() +
-                "' as dataelementname, pt.name as periodtypename, pe.startdate, pe.enddate, " +
-                "'" + categoryOptionCombo.getName() + "' as categoryoptioncomboname " +
-                "from datavalue dv " +
-                "join period pe on dv.periodid = pe.periodid " +
-                "join periodtype pt on pe.periodtypeid = pt.periodtypeid " +
-                "join organisationunit ou on dv.sourceid = ou.organisationunitid " +
-                "where dv.dataelementid = " + dataElement.getId() + " " +
-                "and dv.categoryoptioncomboid = " + categoryOptionCombo.getId() + " " +
-                "and dv.periodid in (" + periodIds + ") and ( ";
-
-        for ( Integer orgUnitUid : organisationUnits )
-        {
-            sql += "( dv.sourceid = " + orgUnitUid + " " +
-                "and ( cast( dv.value as " + statementBuilder.getDoubleColumnType() + " ) < " +
-                lowerBoundMap.get( orgUnitUid ) + " " +
-                "or cast( dv.value as " + statementBuilder.getDoubleColumnType() + " ) > " +
-                upperBoundMap.get( orgUnitUid ) + " ) ) or ";
-        }
-
-        sql = TextUtils.removeLastOr( sql ) + " ) ";
-        sql += "and dv.deleted is false ";
-
-        return jdbcTemplate.query( sql, new DeflatedDataValueNameMinMaxRowMapper( lowerBoundMap, upperBoundMap ) );
-    }
-
     @Override
     public List<DeflatedDataValue> getFollowupDataValues( OrganisationUnit organisationUnit, DataSet dataSet,
         int limit )
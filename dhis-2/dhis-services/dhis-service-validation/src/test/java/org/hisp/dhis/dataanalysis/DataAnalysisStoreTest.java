@@ -35,6 +35,7 @@ import org.hisp.dhis.category.CategoryOptionCombo;
 import org.hisp.dhis.category.CategoryService;
 import org.hisp.dhis.dataelement.*;
 import org.hisp.dhis.datavalue.DataValueService;
+import org.hisp.dhis.datavalue.DeflatedDataValue;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.organisationunit.OrganisationUnitService;
 import org.hisp.dhis.period.MonthlyPeriodType;
@@ -42,6 +43,7 @@ import org.hisp.dhis.period.Period;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
@@ -152,12 +154,61 @@ public class DataAnalysisStoreTest
         dataValueService.addDataValue( createDataValue( dataElementA, periodI, organisationUnitA, "3", categoryOptionCombo ) );
         dataValueService.addDataValue( createDataValue( dataElementA, periodJ, organisationUnitA, "15", categoryOptionCombo ) );
 
-        List<DataAnalysisMeasures> measures = dataAnalysisStore.getDataAnalysisMeasures( dataElementA,
-            Lists.newArrayList( categoryOptionCombo ), Lists.newArrayList( organisationUnitA.getPath() ), from );
+        List<DataAnalysisMeasures> measures = new ArrayList<>();
+
+        DataAnalysisMeasuresAccumulator accumulator = new DataAnalysisMeasuresAccumulator(
+            new ArrayList<>(), from, ( m, v ) -> measures.add( m ) );
+
+        dataAnalysisStore.getDataAnalysisValues( Lists.newArrayList( dataElementA ), Lists.newArrayList( categoryOptionCombo ),
+            Lists.newArrayList( organisationUnitA.getPath() ), new ArrayList<>(), from, accumulator );
+
+        accumulator.flush();
 
         assertEquals( 1, measures.size() );
 
         assertEquals( 12.78, measures.get( 0 ).getAverage(), DELTA );
         assertEquals( 15.26, measures.get( 0 ).getStandardDeviation(), DELTA );
     }
+
+    @Test
+    public void testGetDataAnalysisValues()
+    {
+        dataValueService.addDataValue( createDataValue( dataElementA, periodA, organisationUnitA, "5", categoryOptionCombo ) );
+        dataValueService.addDataValue( createDataValue( dataElementA, periodB, organisationUnitA, "2", categoryOptionCombo ) );
+        dataValueService.addDataValue( createDataValue( dataElementA, periodC, organisationUnitA, "1", categoryOptionCombo ) );
+        dataValueService.addDataValue( createDataValue( dataElementA, periodD, organisationUnitA, "12", categoryOptionCombo ) );
+        dataValueService.addDataValue( createDataValue( dataElementA, periodE, organisationUnitA, "10", categoryOptionCombo ) );
+        dataValueService.addDataValue( createDataValue( dataElementA, periodF, organisationUnitA, "7", categoryOptionCombo ) );
+        dataValueService.addDataValue( createDataValue( dataElementA, periodG, organisationUnitA, "52", categoryOptionCombo ) );
+        dataValueService.addDataValue( createDataValue( dataElementA, periodH, organisationUnitA, "23", categoryOptionCombo ) );
+        dataValueService.addDataValue( createDataValue( dataElementA, periodI, organisationUnitA, "3", categoryOptionCombo ) );
+        dataValueService.addDataValue( createDataValue( dataElementA, periodJ, organisationUnitA, "15", categoryOptionCombo ) );
+        dataValueService.addDataValue( createDataValue( dataElementB, periodA, organisationUnitA, "4", categoryOptionCombo ) );
+        dataValueService.addDataValue( createDataValue( dataElementB, periodB, organisationUnitA, "8", categoryOptionCombo ) );
+
+        List<DataAnalysisMeasures> measures = new ArrayList<>();
+        List<DeflatedDataValue> values = new ArrayList<>();
+
+        DataAnalysisMeasuresAccumulator accumulator = new DataAnalysisMeasuresAccumulator(
+            Lists.newArrayList( periodG ), from, ( m, v ) -> {
+                measures.add( m );
+                values.addAll( v );
+            } );
+
+        dataAnalysisStore.getDataAnalysisValues( Lists.newArrayList( dataElementA, dataElementB ), Lists.newArrayList( categoryOptionCombo ),
+            Lists.newArrayList( organisationUnitA.getPath() ), Lists.newArrayList( periodG ), from, accumulator );
+
+        accumulator.flush();
+
+        assertEquals( 2, measures.size() );
+
+        DataAnalysisMeasures measuresA = measures.get( 0 ).getDataElementId() == dataElementA.getId() ? measures.get( 0 ) : measures.get( 1 );
+
+        assertEquals( 12.78, measuresA.getAverage(), DELTA );
+        assertEquals( 15.26, measuresA.getStandardDeviation(), DELTA );
+
+        assertEquals( 1, values.size() );
+        assertEquals( "52", values.get( 0 ).getValue() );
+        assertEquals( dataElementA.getName(), values.get( 0 ).getDataElementName() );
+    }
 }
@@ -53,6 +53,37 @@ public class SystemUtils
         return Runtime.getRuntime().availableProcessors();
     }
 
+    /**
+     * Gets the number of threads to use for parallel background work, which
+     * is the number of CPU cores, leaving one core free when more than two
+     * are available.
+     * @return the number of threads to use.
+     */
+    public static int getThreadPoolSize()
+    {
+        return getThreadPoolSize( null );
+    }
+
+    /**
+     * Gets the number of threads to use for parallel work on a server with
+     * the given number of CPU cores, leaving one core free when more than two
+     * are available. Uses the CPU cores of this server if the given number is
+     * null or zero.
+     * @param cores the number of CPU cores, can be null.
+     * @return the number of threads to use.
+     */
+    public static int getThreadPoolSize( Integer cores )
+    {
+        int threadPoolSize = ( cores == null || cores == 0 ) ? getCpuCores() : cores;
+
+        if ( threadPoolSize > 2 )
+        {
+            threadPoolSize--;
+        }
+
+        return threadPoolSize;
+    }
+
     /**
      * Gets a String containing info of available and used memory of this JVM.
      * @return an info string.
@@ -87,6 +87,10 @@ public enum ConfigurationKey
     REDIS_ENABLED( "redis.enabled", "false", false ),
     REDIS_USE_SSL( "redis.use.ssl", "false", false ),
     LEADER_TIME_TO_LIVE( "leader.time.to.live.minutes", "2", false ),
+    ANALYTICS_CACHE_EXPIRATION( "analytics.cache.expiration", "0", false ),
+    ANALYTICS_CACHE_MAX_SIZE( "analytics.cache.max_size", "2000", false ),
+    ANALYTICS_ASYNC_MAX_USER_QUERIES( "analytics.async.max_user_queries", "2", false ),
+    ANALYTICS_ASYNC_MAX_QUERIES( "analytics.async.max_queries", "4", false ),
     RABBITMQ_CONNECTION_TIMEOUT( "rabbitmq.connection-timeout", "60000", false );
 
     private final String key;
@@ -201,7 +201,11 @@ public class DefaultHibernateConfigurationProvider
         // Handle cache replication
         // ---------------------------------------------------------------------
         
-        if ( configurationProvider.isClusterEnabled() )
+        if ( configurationProvider.isClusterEnabled() && "true".equalsIgnoreCase( configurationProvider.getProperty( ConfigurationKey.REDIS_ENABLED ) ) )
+        {
+            log.info( "Clustering enabled with cache invalidation through redis, cache replication disabled" );
+        }
+        else if ( configurationProvider.isClusterEnabled() )
         {
             config.setProperty( "net.sf.ehcache.configurationResourceName", FILENAME_EHCACHE_REPLICATION );
             
@@ -263,4 +263,12 @@ public interface StatementBuilder
      * @return true if partial indexes aer supported.
      */
     boolean supportsPartialIndexes();
+
+    /**
+     * Indicates whether the DBMS supports bulk loading of rows through
+     * {@code copy from stdin}.
+     *
+     * @return true if bulk loading through copy is supported.
+     */
+    boolean supportsCopy();
 }
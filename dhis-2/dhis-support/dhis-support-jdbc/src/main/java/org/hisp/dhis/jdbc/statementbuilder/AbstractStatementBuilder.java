@@ -288,4 +288,10 @@ public abstract class AbstractStatementBuilder
     {
         return false;
     }
+
+    @Override
+    public boolean supportsCopy()
+    {
+        return false;
+    }
 }
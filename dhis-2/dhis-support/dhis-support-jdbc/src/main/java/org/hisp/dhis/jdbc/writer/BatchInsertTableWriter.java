@@ -0,0 +1,110 @@
+package org.hisp.dhis.jdbc.writer;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.hisp.dhis.jdbc.TableWriter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link TableWriter} which writes rows through batches of insert statements.
+ * Used for databases which do not support bulk loading through COPY.
+ */
+public class BatchInsertTableWriter
+    implements TableWriter
+{
+    private static final int BATCH_SIZE = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final String table;
+
+    private final List<Object[]> batch = new ArrayList<>( BATCH_SIZE );
+
+    private String sql;
+
+    private long rowCount = 0;
+
+    public BatchInsertTableWriter( JdbcTemplate jdbcTemplate, String table )
+    {
+        this.jdbcTemplate = jdbcTemplate;
+        this.table = table;
+    }
+
+    // -------------------------------------------------------------------------
+    // TableWriter implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    public void write( Object[] row )
+    {
+        if ( sql == null )
+        {
+            sql = "insert into " + table + " values (" + String.join( ",", Collections.nCopies( row.length, "?" ) ) + ")";
+        }
+
+        batch.add( row );
+
+        rowCount++;
+
+        if ( batch.size() >= BATCH_SIZE )
+        {
+            flush();
+        }
+    }
+
+    @Override
+    public long getRowCount()
+    {
+        return rowCount;
+    }
+
+    @Override
+    public void close()
+    {
+        flush();
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private void flush()
+    {
+        if ( !batch.isEmpty() )
+        {
+            jdbcTemplate.batchUpdate( sql, batch );
+
+            batch.clear();
+        }
+    }
+}
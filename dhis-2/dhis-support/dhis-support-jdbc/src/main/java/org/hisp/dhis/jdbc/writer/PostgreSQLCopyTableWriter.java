@@ -0,0 +1,248 @@
+package org.hisp.dhis.jdbc.writer;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.hisp.dhis.jdbc.TableWriter;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * {@link TableWriter} which streams rows to a PostgreSQL table through
+ * {@code COPY FROM STDIN} in text format. Rows are encoded into a buffer which
+ * is sent to the server each time it exceeds the buffer size. The copy is
+ * started when the first row is written, so that no connection is held when
+ * there are no rows.
+ */
+public class PostgreSQLCopyTableWriter
+    implements TableWriter
+{
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String NULL = "\\N";
+
+    private final DataSource dataSource;
+
+    private final String sql;
+
+    private Connection connection;
+
+    private CopyIn copyIn;
+
+    private final StringBuilder buffer = new StringBuilder( BUFFER_SIZE + 1024 );
+
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat( "yyyy-MM-dd HH:mm:ss.SSS" );
+
+    private long rowCount = 0;
+
+    public PostgreSQLCopyTableWriter( DataSource dataSource, String table )
+    {
+        this.dataSource = dataSource;
+        this.sql = "copy " + table + " from stdin";
+    }
+
+    // -------------------------------------------------------------------------
+    // TableWriter implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    public void write( Object[] row )
+    {
+        if ( copyIn == null )
+        {
+            startCopy();
+        }
+
+        for ( int i = 0; i < row.length; i++ )
+        {
+            if ( i > 0 )
+            {
+                buffer.append( '\t' );
+            }
+
+            appendValue( row[i] );
+        }
+
+        buffer.append( '\n' );
+
+        rowCount++;
+
+        if ( buffer.length() >= BUFFER_SIZE )
+        {
+            flush();
+        }
+    }
+
+    @Override
+    public long getRowCount()
+    {
+        return rowCount;
+    }
+
+    @Override
+    public void close()
+    {
+        if ( copyIn == null )
+        {
+            return;
+        }
+
+        try
+        {
+            flush();
+
+            copyIn.endCopy();
+        }
+        catch ( SQLException ex )
+        {
+            throw new UncategorizedSQLException( "End copy", sql, ex );
+        }
+        finally
+        {
+            cancelIfActive();
+
+            DataSourceUtils.releaseConnection( connection, dataSource );
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private void startCopy()
+    {
+        connection = DataSourceUtils.getConnection( dataSource );
+
+        try
+        {
+            copyIn = connection.unwrap( PGConnection.class ).getCopyAPI().copyIn( sql );
+        }
+        catch ( SQLException ex )
+        {
+            DataSourceUtils.releaseConnection( connection, dataSource );
+
+            throw new UncategorizedSQLException( "Start copy", sql, ex );
+        }
+    }
+
+    private void flush()
+    {
+        if ( buffer.length() == 0 )
+        {
+            return;
+        }
+
+        byte[] bytes = buffer.toString().getBytes( StandardCharsets.UTF_8 );
+
+        buffer.setLength( 0 );
+
+        try
+        {
+            copyIn.writeToCopy( bytes, 0, bytes.length );
+        }
+        catch ( SQLException ex )
+        {
+            throw new UncategorizedSQLException( "Write copy", sql, ex );
+        }
+    }
+
+    private void cancelIfActive()
+    {
+        try
+        {
+            if ( copyIn.isActive() )
+            {
+                copyIn.cancelCopy();
+            }
+        }
+        catch ( SQLException ex )
+        {
+            // Connection is released regardless
+        }
+    }
+
+    /**
+     * Appends the given value in the COPY text format, where null is written
+     * as \N and backslash, tab, newline and carriage return are escaped.
+     */
+    private void appendValue( Object value )
+    {
+        if ( value == null )
+        {
+            buffer.append( NULL );
+        }
+        else if ( value instanceof Boolean )
+        {
+            buffer.append( (Boolean) value ? 't' : 'f' );
+        }
+        else if ( value instanceof Number )
+        {
+            buffer.append( value );
+        }
+        else if ( value instanceof Date )
+        {
+            buffer.append( dateFormat.format( (Date) value ) );
+        }
+        else
+        {
+            String string = value.toString();
+
+            for ( int i = 0; i < string.length(); i++ )
+            {
+                char c = string.charAt( i );
+
+                switch ( c )
+                {
+                    case '\\':
+                        buffer.append( "\\\\" );
+                        break;
+                    case '\t':
+                        buffer.append( "\\t" );
+                        break;
+                    case '\n':
+                        buffer.append( "\\n" );
+                        break;
+                    case '\r':
+                        buffer.append( "\\r" );
+                        break;
+                    default:
+                        buffer.append( c );
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.hisp.dhis.jdbc.writer;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.hisp.dhis.jdbc.StatementBuilder;
+import org.hisp.dhis.jdbc.TableWriter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Factory for {@link TableWriter} instances. Provides a writer based on COPY
+ * if supported by the database as indicated by the {@link StatementBuilder},
+ * and a writer based on batch inserts otherwise.
+ */
+public class TableWriterFactory
+{
+    /**
+     * Returns a table writer for the given table. The writer must be closed
+     * after use.
+     *
+     * @param jdbcTemplate the {@link JdbcTemplate}.
+     * @param statementBuilder the {@link StatementBuilder}.
+     * @param table the table name.
+     * @return a {@link TableWriter}.
+     */
+    public static TableWriter getTableWriter( JdbcTemplate jdbcTemplate, StatementBuilder statementBuilder, String table )
+    {
+        if ( statementBuilder.supportsCopy() )
+        {
+            return new PostgreSQLCopyTableWriter( jdbcTemplate.getDataSource(), table );
+        }
+
+        return new BatchInsertTableWriter( jdbcTemplate, table );
+    }
+}
@@ -0,0 +1,87 @@
+package org.hisp.dhis.jdbc.writer;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@RunWith( MockitoJUnitRunner.class )
+public class BatchInsertTableWriterTest
+{
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @SuppressWarnings( "unchecked" )
+    public void testWriteRows()
+    {
+        BatchInsertTableWriter writer = new BatchInsertTableWriter( jdbcTemplate, "_test" );
+        writer.write( new Object[] { "A", 1 } );
+        writer.write( new Object[] { "B", null } );
+
+        verify( jdbcTemplate, never() ).batchUpdate( anyString(), anyListOf( Object[].class ) );
+
+        writer.close();
+
+        ArgumentCaptor<List> rows = ArgumentCaptor.forClass( List.class );
+
+        verify( jdbcTemplate ).batchUpdate( eq( "insert into _test values (?,?)" ), rows.capture() );
+
+        List<Object[]> batch = rows.getValue();
+
+        assertEquals( 2, writer.getRowCount() );
+        assertEquals( 2, batch.size() );
+        assertArrayEquals( new Object[] { "A", 1 }, batch.get( 0 ) );
+        assertArrayEquals( new Object[] { "B", null }, batch.get( 1 ) );
+    }
+
+    @Test
+    public void testCloseWithoutRows()
+    {
+        BatchInsertTableWriter writer = new BatchInsertTableWriter( jdbcTemplate, "_test" );
+        writer.close();
+
+        assertEquals( 0, writer.getRowCount() );
+        verify( jdbcTemplate, never() ).batchUpdate( anyString(), anyListOf( Object[].class ) );
+    }
+}
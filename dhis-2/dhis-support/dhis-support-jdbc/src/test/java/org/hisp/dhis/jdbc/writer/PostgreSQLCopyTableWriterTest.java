@@ -0,0 +1,166 @@
+package org.hisp.dhis.jdbc.writer;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith( MockitoJUnitRunner.class )
+public class PostgreSQLCopyTableWriterTest
+{
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PGConnection pgConnection;
+
+    @Mock
+    private CopyManager copyManager;
+
+    @Mock
+    private CopyIn copyIn;
+
+    @Before
+    public void setUp()
+        throws Exception
+    {
+        when( dataSource.getConnection() ).thenReturn( connection );
+        when( connection.unwrap( PGConnection.class ) ).thenReturn( pgConnection );
+        when( pgConnection.getCopyAPI() ).thenReturn( copyManager );
+        when( copyManager.copyIn( "copy _test from stdin" ) ).thenReturn( copyIn );
+    }
+
+    @Test
+    public void testWriteEscapedStrings()
+        throws Exception
+    {
+        assertEquals( "a\\\\b\tc\\td\te\\nf\tg\\rh\n", write( new Object[] { "a\\b", "c\td", "e\nf", "g\rh" } ) );
+    }
+
+    @Test
+    public void testWriteNull()
+        throws Exception
+    {
+        assertEquals( "A\t\\N\t\\N\n", write( new Object[] { "A", null, null } ) );
+    }
+
+    @Test
+    public void testWriteBooleanAndNumber()
+        throws Exception
+    {
+        assertEquals( "t\tf\t12\t4.5\n", write( new Object[] { true, false, 12, 4.5d } ) );
+    }
+
+    @Test
+    public void testWriteDateAndTimestamp()
+        throws Exception
+    {
+        Date date = new GregorianCalendar( 2018, Calendar.MARCH, 4 ).getTime();
+        Calendar calendar = new GregorianCalendar( 2018, Calendar.MARCH, 4, 13, 5, 9 );
+        calendar.set( Calendar.MILLISECOND, 120 );
+        Timestamp timestamp = new Timestamp( calendar.getTimeInMillis() );
+
+        assertEquals( "2018-03-04 00:00:00.000\t2018-03-04 13:05:09.120\n", write( new Object[] { date, timestamp } ) );
+    }
+
+    @Test
+    public void testWriteRows()
+        throws Exception
+    {
+        PostgreSQLCopyTableWriter writer = new PostgreSQLCopyTableWriter( dataSource, "_test" );
+        writer.write( new Object[] { "A", 1 } );
+        writer.write( new Object[] { "B", 2 } );
+        writer.close();
+
+        assertEquals( 2, writer.getRowCount() );
+        assertEquals( "A\t1\nB\t2\n", getCopied() );
+        verify( copyIn ).endCopy();
+        verify( connection ).close();
+    }
+
+    @Test
+    public void testCloseWithoutRows()
+        throws Exception
+    {
+        PostgreSQLCopyTableWriter writer = new PostgreSQLCopyTableWriter( dataSource, "_test" );
+        writer.close();
+
+        assertEquals( 0, writer.getRowCount() );
+        verify( dataSource, never() ).getConnection();
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private String write( Object[] row )
+        throws Exception
+    {
+        PostgreSQLCopyTableWriter writer = new PostgreSQLCopyTableWriter( dataSource, "_test" );
+        writer.write( row );
+        writer.close();
+
+        return getCopied();
+    }
+
+    private String getCopied()
+        throws Exception
+    {
+        ArgumentCaptor<byte[]> bytes = ArgumentCaptor.forClass( byte[].class );
+        ArgumentCaptor<Integer> length = ArgumentCaptor.forClass( Integer.class );
+
+        verify( copyIn ).writeToCopy( bytes.capture(), eq( 0 ), length.capture() );
+
+        return new String( bytes.getValue(), 0, length.getValue(), StandardCharsets.UTF_8 );
+    }
+}
@@ -29,6 +29,7 @@ package org.hisp.dhis.cache;
  */
 
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -64,6 +65,8 @@ public class CacheBuilder<V>
     
     private boolean expiryEnabled;
 
+    private Consumer<String> evictionListener;
+
     public CacheBuilder( RedisTemplate<String, ?> redisTemplate, DhisConfigurationProvider configurationProvider )
     {
         this.configurationProvider = configurationProvider;
@@ -75,6 +78,7 @@ public class CacheBuilder<V>
         this.expiryInSeconds = 0;
         this.defaultValue = null;
         this.expiryEnabled = false;
+        this.evictionListener = null;
     }
 
     /**
@@ -168,6 +172,22 @@ public class CacheBuilder<V>
         return this;
     }
 
+    /**
+     * Configure the cache instance to notify the given listener with the key
+     * of every entry which is evicted because of size or expiry constraints.
+     * Explicit invalidation does not notify the listener. Only applies to local
+     * cache instances, as evictions in a shared redis store are not visible to
+     * a single instance.
+     * 
+     * @param evictionListener The listener to notify
+     * @return The builder instance.
+     */
+    public CacheBuilder<V> withEvictionListener( Consumer<String> evictionListener )
+    {
+        this.evictionListener = evictionListener;
+        return this;
+    }
+
     /**
      * Creates and returns a cacheInstance based on the system configuration and
      * the cache builder parameters. If {@code maximumSize} is 0 then a
@@ -234,6 +254,11 @@ public class CacheBuilder<V>
         return defaultValue;
     }
 
+    public Consumer<String> getEvictionListener()
+    {
+        return evictionListener;
+    }
+
     public RedisTemplate<String, ?> getRedisTemplate()
     {
         return redisTemplate;
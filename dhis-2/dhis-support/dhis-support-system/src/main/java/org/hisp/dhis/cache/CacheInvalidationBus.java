@@ -0,0 +1,98 @@
+package org.hisp.dhis.cache;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import com.google.common.collect.SetMultimap;
+
+import java.util.function.Consumer;
+
+/**
+ * Bus for cache invalidation messages between the instances of a cluster.
+ * Each instance keeps local caches and subscribes to invalidations of cache
+ * regions. Only invalidation keys are broadcast, never cached values.
+ */
+public interface CacheInvalidationBus
+{
+    /**
+     * Subscribes the given listener to invalidations of the given region,
+     * published by this or by other instances. The listener is given the
+     * invalidated key, or null if all keys of the region are invalidated.
+     *
+     * @param region the cache region.
+     * @param listener the listener.
+     */
+    void subscribe( String region, Consumer<String> listener );
+
+    /**
+     * Subscribes the given listener to invalidations of the given region
+     * published by other instances only. Used for caches which are kept
+     * consistent within this instance by other means, such as the Hibernate
+     * second-level cache.
+     *
+     * @param region the cache region.
+     * @param listener the listener.
+     */
+    void subscribeRemote( String region, Consumer<String> listener );
+
+    /**
+     * Indicates whether listeners of this instance are subscribed to
+     * invalidations of the given region, not including listeners subscribed
+     * to invalidations published by other instances only.
+     *
+     * @param region the cache region.
+     * @return true if listeners are subscribed to the region.
+     */
+    boolean isSubscribed( String region );
+
+    /**
+     * Publishes the invalidation of the given key of the given region to the
+     * subscribers of this and other instances.
+     *
+     * @param region the cache region.
+     * @param key the cache key.
+     */
+    void invalidate( String region, String key );
+
+    /**
+     * Publishes the invalidation of the given keys, mapped by region, to the
+     * subscribers of this and other instances. Other instances are notified
+     * through a single message.
+     *
+     * @param keys the cache keys mapped by cache region.
+     */
+    void invalidate( SetMultimap<String, String> keys );
+
+    /**
+     * Publishes the invalidation of all keys of the given region to the
+     * subscribers of this and other instances.
+     *
+     * @param region the cache region.
+     */
+    void invalidateAll( String region );
+}
@@ -0,0 +1,301 @@
+package org.hisp.dhis.cache;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import com.google.common.collect.MapMaker;
+import com.google.common.collect.MultimapBuilder;
+import com.google.common.collect.SetMultimap;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionRemoveEvent;
+import org.hibernate.event.spi.PostCollectionRemoveEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.annotation.PostConstruct;
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * Publishes invalidations of entities and collections held in the Hibernate
+ * second-level cache to the {@link CacheInvalidationBus} when a transaction
+ * commits, and evicts the local second-level cache when such invalidations
+ * are received from other instances. Entities are published with the entity
+ * name as region and the identifier as key, collections with the collection
+ * role as region and the owner identifier as key. Only entities and collections
+ * which are held in the second-level cache, or which have listeners subscribed
+ * to their region, are published. The invalidations of a transaction are
+ * collected per session and published together after commit.
+ */
+public class HibernateCacheInvalidationListener
+    implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener,
+    PostCollectionUpdateEventListener, PostCollectionRecreateEventListener, PostCollectionRemoveEventListener
+{
+    private static final Log log = LogFactory.getLog( HibernateCacheInvalidationListener.class );
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    private SessionFactoryImplementor factory;
+
+    /**
+     * Invalidations of the current transaction of each session, which are
+     * published and removed when the transaction completes. Sessions are weakly
+     * referenced so that sessions closed without completion are not retained.
+     */
+    private final Map<EventSource, SetMultimap<String, String>> pending = new MapMaker().weakKeys().makeMap();
+
+    @PostConstruct
+    public void init()
+    {
+        factory = sessionFactory.unwrap( SessionFactoryImplementor.class );
+
+        EventListenerRegistry registry = factory.getServiceRegistry().getService( EventListenerRegistry.class );
+        registry.appendListeners( EventType.POST_INSERT, this );
+        registry.appendListeners( EventType.POST_UPDATE, this );
+        registry.appendListeners( EventType.POST_DELETE, this );
+        registry.appendListeners( EventType.POST_COLLECTION_UPDATE, this );
+        registry.appendListeners( EventType.POST_COLLECTION_RECREATE, this );
+        registry.appendListeners( EventType.POST_COLLECTION_REMOVE, this );
+
+        int regions = 0;
+
+        for ( EntityPersister persister : factory.getMetamodel().entityPersisters().values() )
+        {
+            if ( persister.hasCache() )
+            {
+                cacheInvalidationBus.subscribeRemote( persister.getEntityName(), key -> evictEntity( persister, key ) );
+                regions++;
+            }
+        }
+
+        for ( CollectionPersister persister : factory.getMetamodel().collectionPersisters().values() )
+        {
+            if ( persister.hasCache() )
+            {
+                cacheInvalidationBus.subscribeRemote( persister.getRole(), key -> evictCollection( persister, key ) );
+                regions++;
+            }
+        }
+
+        log.info( String.format( "Subscribed to invalidation of %d second-level cache regions", regions ) );
+    }
+
+    // -------------------------------------------------------------------------
+    // Publish
+    // -------------------------------------------------------------------------
+
+    @Override
+    public void onPostInsert( PostInsertEvent event )
+    {
+        publishEntity( event.getSession(), event.getPersister(), event.getId() );
+    }
+
+    @Override
+    public void onPostUpdate( PostUpdateEvent event )
+    {
+        publishEntity( event.getSession(), event.getPersister(), event.getId() );
+    }
+
+    @Override
+    public void onPostDelete( PostDeleteEvent event )
+    {
+        publishEntity( event.getSession(), event.getPersister(), event.getId() );
+    }
+
+    @Override
+    public void onPostUpdateCollection( PostCollectionUpdateEvent event )
+    {
+        publishCollection( event );
+    }
+
+    @Override
+    public void onPostRecreateCollection( PostCollectionRecreateEvent event )
+    {
+        publishCollection( event );
+    }
+
+    @Override
+    public void onPostRemoveCollection( PostCollectionRemoveEvent event )
+    {
+        publishCollection( event );
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding( EntityPersister persister )
+    {
+        return false;
+    }
+
+    private void publishEntity( EventSource session, EntityPersister persister, Serializable id )
+    {
+        if ( isPublished( persister.hasCache(), persister.getEntityName() ) && id != null )
+        {
+            publishOnCommit( session, persister.getEntityName(), id.toString() );
+        }
+    }
+
+    private void publishCollection( AbstractCollectionEvent event )
+    {
+        String role = event.getCollection().getRole();
+        Serializable ownerId = event.getAffectedOwnerIdOrNull();
+
+        if ( role != null && ownerId != null && isPublished( factory.getMetamodel().collectionPersister( role ).hasCache(), role ) )
+        {
+            publishOnCommit( event.getSession(), role, ownerId.toString() );
+        }
+    }
+
+    private boolean isPublished( boolean cached, String region )
+    {
+        return cached || cacheInvalidationBus.isSubscribed( region );
+    }
+
+    private void publishOnCommit( EventSource session, String region, String key )
+    {
+        pending.computeIfAbsent( session, this::registerPublish ).put( region, key );
+    }
+
+    /**
+     * Registers the publishing of the invalidations of the current transaction
+     * of the given session, and returns the set to collect them in.
+     */
+    private SetMultimap<String, String> registerPublish( EventSource session )
+    {
+        SetMultimap<String, String> keys = MultimapBuilder.hashKeys().hashSetValues().build();
+
+        session.getActionQueue().registerProcess( ( success, s ) -> {
+            pending.remove( session );
+
+            if ( success )
+            {
+                cacheInvalidationBus.invalidate( keys );
+            }
+        } );
+
+        return keys;
+    }
+
+    // -------------------------------------------------------------------------
+    // Evict
+    // -------------------------------------------------------------------------
+
+    private void evictEntity( EntityPersister persister, String key )
+    {
+        Serializable id = key != null ? toIdentifier( persister.getIdentifierType().getReturnedClass(), key ) : null;
+
+        if ( id != null )
+        {
+            factory.getCache().evictEntityData( persister.getEntityName(), id );
+        }
+        else
+        {
+            factory.getCache().evictEntityData( persister.getEntityName() );
+        }
+
+        evictQueries();
+    }
+
+    private void evictCollection( CollectionPersister persister, String key )
+    {
+        Serializable ownerId = key != null ? toIdentifier( persister.getKeyType().getReturnedClass(), key ) : null;
+
+        if ( ownerId != null )
+        {
+            factory.getCache().evictCollectionData( persister.getRole(), ownerId );
+        }
+        else
+        {
+            factory.getCache().evictCollectionData( persister.getRole() );
+        }
+
+        evictQueries();
+    }
+
+    /**
+     * Evicts cached query results, as the query cache timestamps of this
+     * instance are not updated for changes made by other instances.
+     */
+    private void evictQueries()
+    {
+        if ( factory.getSessionFactoryOptions().isQueryCacheEnabled() )
+        {
+            factory.getCache().evictQueryRegions();
+        }
+    }
+
+    /**
+     * Converts the given key to an identifier of the given type. Returns null
+     * if the type is not supported, in which case the region is evicted.
+     */
+    private static Serializable toIdentifier( Class<?> type, String key )
+    {
+        try
+        {
+            if ( Integer.class.equals( type ) || int.class.equals( type ) )
+            {
+                return Integer.valueOf( key );
+            }
+            else if ( Long.class.equals( type ) || long.class.equals( type ) )
+            {
+                return Long.valueOf( key );
+            }
+            else if ( String.class.equals( type ) )
+            {
+                return key;
+            }
+        }
+        catch ( NumberFormatException ex )
+        {
+            log.debug( "Invalid cache invalidation key: " + key );
+        }
+
+        return null;
+    }
+}
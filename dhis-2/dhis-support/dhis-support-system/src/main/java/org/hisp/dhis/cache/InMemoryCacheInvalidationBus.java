@@ -0,0 +1,130 @@
+package org.hisp.dhis.cache;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import com.google.common.collect.SetMultimap;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-memory implementation of {@link CacheInvalidationBus} which dispatches
+ * invalidations to the subscribers of this instance only. Used for single
+ * instance deployments and for testing.
+ */
+public class InMemoryCacheInvalidationBus
+    implements CacheInvalidationBus
+{
+    private static final Log log = LogFactory.getLog( InMemoryCacheInvalidationBus.class );
+
+    private final Map<String, List<Consumer<String>>> listeners = new ConcurrentHashMap<>();
+
+    private final Map<String, List<Consumer<String>>> remoteListeners = new ConcurrentHashMap<>();
+
+    @Override
+    public void subscribe( String region, Consumer<String> listener )
+    {
+        listeners.computeIfAbsent( region, r -> new CopyOnWriteArrayList<>() ).add( listener );
+    }
+
+    @Override
+    public void subscribeRemote( String region, Consumer<String> listener )
+    {
+        remoteListeners.computeIfAbsent( region, r -> new CopyOnWriteArrayList<>() ).add( listener );
+    }
+
+    @Override
+    public boolean isSubscribed( String region )
+    {
+        return listeners.containsKey( region );
+    }
+
+    @Override
+    public void invalidate( String region, String key )
+    {
+        dispatch( region, key, false );
+    }
+
+    @Override
+    public void invalidate( SetMultimap<String, String> keys )
+    {
+        for ( Map.Entry<String, String> entry : keys.entries() )
+        {
+            dispatch( entry.getKey(), entry.getValue(), false );
+        }
+    }
+
+    @Override
+    public void invalidateAll( String region )
+    {
+        dispatch( region, null, false );
+    }
+
+    /**
+     * Dispatches an invalidation to the subscribers of this instance.
+     *
+     * @param region the cache region.
+     * @param key the cache key, null if all keys are invalidated.
+     * @param remote whether the invalidation was published by another instance.
+     */
+    protected void dispatch( String region, String key, boolean remote )
+    {
+        notify( listeners.get( region ), region, key );
+
+        if ( remote )
+        {
+            notify( remoteListeners.get( region ), region, key );
+        }
+    }
+
+    private void notify( List<Consumer<String>> regionListeners, String region, String key )
+    {
+        if ( regionListeners == null )
+        {
+            return;
+        }
+
+        for ( Consumer<String> listener : regionListeners )
+        {
+            try
+            {
+                listener.accept( key );
+            }
+            catch ( RuntimeException ex )
+            {
+                log.warn( String.format( "Cache invalidation failed for region: '%s', key: '%s'", region, key ), ex );
+            }
+        }
+    }
+}
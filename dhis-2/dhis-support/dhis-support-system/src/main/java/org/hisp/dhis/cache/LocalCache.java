@@ -30,6 +30,7 @@ package org.hisp.dhis.cache;
 
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import com.github.benmanes.caffeine.cache.Caffeine;
 
@@ -70,6 +71,17 @@ public class LocalCache<V> implements Cache<V>
         {
             builder.maximumSize( cacheBuilder.getMaximumSize() );
         }
+        if ( cacheBuilder.getEvictionListener() != null )
+        {
+            final Consumer<String> evictionListener = cacheBuilder.getEvictionListener();
+
+            builder.removalListener( ( key, value, cause ) -> {
+                if ( cause.wasEvicted() )
+                {
+                    evictionListener.accept( (String) key );
+                }
+            } );
+        }
         
         this.caffeineCache = builder.build();
         this.defaultValue = cacheBuilder.getDefaultValue();
@@ -0,0 +1,135 @@
+package org.hisp.dhis.cache;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import com.google.common.collect.SetMultimap;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Implementation of {@link CacheInvalidationBus} which broadcasts invalidations
+ * to other instances through redis publish/subscribe. Invalidations are
+ * dispatched to the subscribers of this instance directly, and to the
+ * subscribers of other instances when the message is received from redis.
+ * Messages published by this instance are ignored when received.
+ * <p>
+ * A message holds the instance identifier followed by pairs of region and key,
+ * separated by line breaks. A region without a key invalidates the region.
+ */
+public class RedisCacheInvalidationBus
+    extends InMemoryCacheInvalidationBus
+    implements MessageListener
+{
+    private static final Log log = LogFactory.getLog( RedisCacheInvalidationBus.class );
+
+    public static final String CHANNEL = "dhis2:cache:invalidation";
+
+    private static final String SEPARATOR = "\n";
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final StringRedisTemplate redisTemplate;
+
+    public RedisCacheInvalidationBus( RedisConnectionFactory connectionFactory )
+    {
+        this.redisTemplate = new StringRedisTemplate( connectionFactory );
+    }
+
+    @Override
+    public void invalidate( String region, String key )
+    {
+        super.invalidate( region, key );
+
+        publish( instanceId + SEPARATOR + region + SEPARATOR + key );
+    }
+
+    @Override
+    public void invalidate( SetMultimap<String, String> keys )
+    {
+        if ( keys.isEmpty() )
+        {
+            return;
+        }
+
+        super.invalidate( keys );
+
+        StringBuilder message = new StringBuilder( instanceId );
+
+        for ( Map.Entry<String, String> entry : keys.entries() )
+        {
+            message.append( SEPARATOR ).append( entry.getKey() ).append( SEPARATOR ).append( entry.getValue() );
+        }
+
+        publish( message.toString() );
+    }
+
+    @Override
+    public void invalidateAll( String region )
+    {
+        super.invalidateAll( region );
+
+        publish( instanceId + SEPARATOR + region );
+    }
+
+    @Override
+    public void onMessage( Message message, byte[] pattern )
+    {
+        String[] parts = new String( message.getBody(), StandardCharsets.UTF_8 ).split( SEPARATOR );
+
+        if ( parts.length < 2 || instanceId.equals( parts[0] ) )
+        {
+            return;
+        }
+
+        for ( int i = 1; i < parts.length; i += 2 )
+        {
+            dispatch( parts[i], i + 1 < parts.length ? parts[i + 1] : null, true );
+        }
+    }
+
+    private void publish( String message )
+    {
+        try
+        {
+            redisTemplate.convertAndSend( CHANNEL, message );
+        }
+        catch ( RuntimeException ex )
+        {
+            log.error( "Failed to publish cache invalidation: " + message, ex );
+        }
+    }
+}
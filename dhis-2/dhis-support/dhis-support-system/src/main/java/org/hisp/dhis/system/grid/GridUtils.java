@@ -31,19 +31,24 @@ package org.hisp.dhis.system.grid;
 import com.csvreader.CsvWriter;
 import com.lowagie.text.Document;
 import com.lowagie.text.pdf.PdfPTable;
-import jxl.Workbook;
-import jxl.WorkbookSettings;
-import jxl.write.*;
-import jxl.write.Number;
 import net.sf.jasperreports.engine.*;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.WorkbookUtil;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.velocity.VelocityContext;
 import org.hisp.dhis.common.DimensionalObjectUtils;
 import org.hisp.dhis.common.Grid;
 import org.hisp.dhis.common.GridHeader;
+import org.hisp.dhis.common.GridRowHandler;
 import org.hisp.dhis.commons.collection.ListUtils;
 import org.hisp.dhis.commons.util.Encoder;
 import org.hisp.dhis.commons.util.TextUtils;
@@ -67,6 +72,7 @@ import org.springframework.jdbc.support.rowset.SqlRowSet;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
@@ -84,19 +90,13 @@ public class GridUtils
     private static final String EMPTY = "";
     private static final char CSV_DELIMITER = ',';
     private static final String XLS_SHEET_PREFIX = "Sheet ";
-    private static final int JXL_MAX_COLS = 256;
+    private static final int XLS_MAX_COLS = SpreadsheetVersion.EXCEL2007.getMaxColumns();
+    private static final int XLS_ROW_WINDOW = 100;
+    private static final String XLS_FONT_NAME = "Arial";
+    private static final short XLS_FONT_SIZE = 10;
 
     private static final NodeFilter HTML_ROW_FILTER = new OrFilter( new TagNameFilter( "td" ), new TagNameFilter( "th" ) );
 
-    private static final WritableCellFormat XLS_FORMAT_TTTLE = new WritableCellFormat( new WritableFont(
-        WritableFont.ARIAL, 10, WritableFont.BOLD, false ) );
-
-    private static final WritableCellFormat XLS_FORMAT_LABEL = new WritableCellFormat( new WritableFont(
-        WritableFont.ARIAL, 10, WritableFont.BOLD, false ) );
-
-    private static final WritableCellFormat XLS_FORMAT_TEXT = new WritableCellFormat( new WritableFont(
-        WritableFont.ARIAL, 10, WritableFont.NO_BOLD, false ) );
-
     private static final Encoder ENCODER = new Encoder();
 
     private static final String KEY_GRID = "grid";
@@ -210,42 +210,60 @@ public class GridUtils
 
     /**
      * Writes a XLS (Excel workbook) representation of the given list of Grids to the given OutputStream.
+     * The workbook is written in the Office Open XML format through a streaming writer which keeps
+     * a window of rows in memory, so that memory use is independent of the number of rows.
      */
     public static void toXls( List<Grid> grids, OutputStream out )
         throws Exception
     {
-        WritableWorkbook workbook = openWorkbook( out );
+        SXSSFWorkbook workbook = openWorkbook();
 
-        for ( int i = 0; i < grids.size(); i++ )
+        try
         {
-            Grid grid = grids.get( i );
+            XlsStyles styles = new XlsStyles( workbook );
 
-            String sheetName = CodecUtils.filenameEncode( StringUtils.defaultIfEmpty( grid.getTitle(), XLS_SHEET_PREFIX + (i + 1) ) );
+            for ( int i = 0; i < grids.size(); i++ )
+            {
+                Grid grid = grids.get( i );
 
-            toXlsInternal( grid, workbook, sheetName, i );
-        }
+                String sheetName = CodecUtils.filenameEncode( StringUtils.defaultIfEmpty( grid.getTitle(), XLS_SHEET_PREFIX + (i + 1) ) );
 
-        workbook.write();
-        workbook.close();
+                toXlsInternal( grid, workbook, styles, sheetName, i );
+            }
+
+            workbook.write( out );
+        }
+        finally
+        {
+            closeWorkbook( workbook );
+        }
     }
 
     /**
      * Writes a XLS (Excel workbook) representation of the given Grid to the given OutputStream.
+     * The workbook is written in the Office Open XML format through a streaming writer which keeps
+     * a window of rows in memory, so that memory use is independent of the number of rows.
      */
     public static void toXls( Grid grid, OutputStream out )
         throws Exception
     {
-        WritableWorkbook workbook = openWorkbook( out );
+        SXSSFWorkbook workbook = openWorkbook();
 
-        String sheetName = CodecUtils.filenameEncode( StringUtils.defaultIfEmpty( grid.getTitle(), XLS_SHEET_PREFIX + 1 ) );
+        try
+        {
+            String sheetName = CodecUtils.filenameEncode( StringUtils.defaultIfEmpty( grid.getTitle(), XLS_SHEET_PREFIX + 1 ) );
 
-        toXlsInternal( grid, workbook, sheetName, 0 );
+            toXlsInternal( grid, workbook, new XlsStyles( workbook ), sheetName, 0 );
 
-        workbook.write();
-        workbook.close();
+            workbook.write( out );
+        }
+        finally
+        {
+            closeWorkbook( workbook );
+        }
     }
 
-    private static void toXlsInternal( Grid grid, WritableWorkbook workbook, String sheetName, int sheetNo )
+    private static void toXlsInternal( Grid grid, SXSSFWorkbook workbook, XlsStyles styles, String sheetName, int sheetNo )
         throws Exception
     {
         if ( grid == null )
@@ -255,12 +273,12 @@ public class GridUtils
 
         int cols = grid.getVisibleHeaders().size();
 
-        if ( cols > JXL_MAX_COLS )
+        if ( cols > XLS_MAX_COLS )
         {
-            log.warn( "Grid will be truncated, no of columns is greater than JXL max limit: " + cols + "/" + JXL_MAX_COLS );
+            log.warn( "Grid will be truncated, no of columns is greater than XLS max limit: " + cols + "/" + XLS_MAX_COLS );
         }
 
-        WritableSheet sheet = workbook.createSheet( sheetName, sheetNo );
+        Sheet sheet = workbook.createSheet( getXlsSheetName( workbook, sheetName, sheetNo ) );
 
         int rowNumber = 0;
 
@@ -268,21 +286,23 @@ public class GridUtils
 
         if ( StringUtils.isNotEmpty( grid.getTitle() ) )
         {
-            sheet.addCell( new Label( 0, rowNumber++, grid.getTitle(), XLS_FORMAT_TTTLE ) );
+            addXlsCell( sheet.createRow( rowNumber++ ), 0, grid.getTitle(), styles.title );
             rowNumber++;
         }
 
         if ( StringUtils.isNotEmpty( grid.getSubtitle() ) )
         {
-            sheet.addCell( new Label( 0, rowNumber++, grid.getSubtitle(), XLS_FORMAT_TTTLE ) );
+            addXlsCell( sheet.createRow( rowNumber++ ), 0, grid.getSubtitle(), styles.title );
             rowNumber++;
         }
 
-        List<GridHeader> headers = ListUtils.subList( grid.getVisibleHeaders(), 0, JXL_MAX_COLS );
+        List<GridHeader> headers = ListUtils.subList( grid.getVisibleHeaders(), 0, XLS_MAX_COLS );
+
+        Row headerRow = sheet.createRow( rowNumber );
 
         for ( GridHeader header : headers )
         {
-            sheet.addCell( new Label( columnIndex++, rowNumber, header.getName(), XLS_FORMAT_LABEL ) );
+            addXlsCell( headerRow, columnIndex++, header.getName(), styles.label );
         }
 
         rowNumber++;
@@ -291,19 +311,23 @@ public class GridUtils
         {
             columnIndex = 0;
 
-            List<Object> colums = ListUtils.subList( row, 0, JXL_MAX_COLS );
+            Row sheetRow = sheet.createRow( rowNumber );
+
+            List<Object> colums = ListUtils.subList( row, 0, XLS_MAX_COLS );
 
             for ( Object column : colums )
             {
                 if ( column != null && MathUtils.isNumeric( String.valueOf( column ) ) )
                 {
-                    sheet.addCell( new Number( columnIndex++, rowNumber, Double.valueOf( String.valueOf( column ) ), XLS_FORMAT_TEXT ) );
+                    Cell cell = sheetRow.createCell( columnIndex++ );
+                    cell.setCellValue( Double.valueOf( String.valueOf( column ) ) );
+                    cell.setCellStyle( styles.text );
                 }
                 else
                 {
                     String content = column != null ? String.valueOf( column ) : EMPTY;
 
-                    sheet.addCell( new Label( columnIndex++, rowNumber, content, XLS_FORMAT_TEXT ) );
+                    addXlsCell( sheetRow, columnIndex++, content, styles.text );
                 }
             }
 
@@ -311,6 +335,23 @@ public class GridUtils
         }
     }
 
+    private static void addXlsCell( Row row, int columnIndex, String value, CellStyle style )
+    {
+        Cell cell = row.createCell( columnIndex );
+        cell.setCellValue( value );
+        cell.setCellStyle( style );
+    }
+
+    /**
+     * Returns a valid sheet name which is unique within the given workbook.
+     */
+    private static String getXlsSheetName( SXSSFWorkbook workbook, String sheetName, int sheetNo )
+    {
+        String name = WorkbookUtil.createSafeSheetName( sheetName );
+
+        return workbook.getSheet( name ) == null ? name : WorkbookUtil.createSafeSheetName( XLS_SHEET_PREFIX + (sheetNo + 1) + " " + name );
+    }
+
     /**
      * Writes a CSV representation of the given Grid to the given OutputStream.
      */
@@ -347,6 +388,68 @@ public class GridUtils
         }
     }
 
+    /**
+     * Returns a {@link GridRowHandler} which writes a CSV representation of
+     * the handled grid content to the given Writer, without keeping rows
+     * in memory.
+     */
+    public static GridRowHandler getCsvRowHandler( Writer writer )
+    {
+        final CsvWriter csvWriter = new CsvWriter( writer, CSV_DELIMITER );
+
+        return new GridRowHandler()
+        {
+            @Override
+            public void handleHeaders( List<GridHeader> headers )
+            {
+                if ( !headers.isEmpty() )
+                {
+                    for ( GridHeader header : headers )
+                    {
+                        write( header.getColumn() );
+                    }
+
+                    endRecord();
+                }
+            }
+
+            @Override
+            public void handleRow( List<Object> row )
+            {
+                for ( Object value : row )
+                {
+                    write( value != null ? String.valueOf( value ) : StringUtils.EMPTY );
+                }
+
+                endRecord();
+            }
+
+            private void write( String value )
+            {
+                try
+                {
+                    csvWriter.write( value );
+                }
+                catch ( IOException ex )
+                {
+                    throw new UncheckedIOException( ex );
+                }
+            }
+
+            private void endRecord()
+            {
+                try
+                {
+                    csvWriter.endRecord();
+                }
+                catch ( IOException ex )
+                {
+                    throw new UncheckedIOException( ex );
+                }
+            }
+        };
+    }
+
     /**
      * Writes a Jasper Reports representation of the given Grid to the given OutputStream.
      */
@@ -684,14 +787,57 @@ public class GridUtils
     }
 
     /**
-     * Opens a workbook with UTF-8 encoding.
+     * Opens a streaming workbook which keeps a window of rows in memory and
+     * writes the remaining rows to compressed temporary files.
      */
-    private static WritableWorkbook openWorkbook( OutputStream outputStream )
+    private static SXSSFWorkbook openWorkbook()
+    {
+        SXSSFWorkbook workbook = new SXSSFWorkbook( XLS_ROW_WINDOW );
+        workbook.setCompressTempFiles( true );
+
+        return workbook;
+    }
+
+    /**
+     * Closes the given workbook and removes its temporary files.
+     */
+    private static void closeWorkbook( SXSSFWorkbook workbook )
         throws IOException
     {
-        WorkbookSettings ws = new WorkbookSettings();
-        ws.setEncoding( "UTF-8" );
+        workbook.dispose();
+        workbook.close();
+    }
+
+    /**
+     * Cell styles of a workbook. Styles are shared by all cells since the
+     * number of styles in a workbook is limited.
+     */
+    private static class XlsStyles
+    {
+        private final CellStyle title;
+
+        private final CellStyle label;
+
+        private final CellStyle text;
+
+        XlsStyles( SXSSFWorkbook workbook )
+        {
+            this.title = createStyle( workbook, true );
+            this.label = createStyle( workbook, true );
+            this.text = createStyle( workbook, false );
+        }
+
+        private static CellStyle createStyle( SXSSFWorkbook workbook, boolean bold )
+        {
+            Font font = workbook.createFont();
+            font.setFontName( XLS_FONT_NAME );
+            font.setFontHeightInPoints( XLS_FONT_SIZE );
+            font.setBold( bold );
 
-        return Workbook.createWorkbook( outputStream, ws );
+            CellStyle style = workbook.createCellStyle();
+            style.setFont( font );
+
+            return style;
+        }
     }
 }
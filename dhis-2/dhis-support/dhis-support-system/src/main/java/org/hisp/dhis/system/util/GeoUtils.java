@@ -28,9 +28,8 @@ package org.hisp.dhis.system.util;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
-import com.vividsolutions.jts.geom.MultiPolygon;
+import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.geom.Point;
-import com.vividsolutions.jts.geom.Polygon;
 import org.apache.commons.lang3.StringUtils;
 import org.geotools.geojson.geom.GeometryJSON;
 import org.geotools.referencing.GeodeticCalculator;
@@ -167,26 +166,13 @@ public class GeoUtils
         {
             boolean contains = false;
 
-            GeometryJSON gtjson = new GeometryJSON();
-
             Point point = getGeoJsonPoint( longitude, latitude );
 
             if ( point != null && point.isValid() )
             {
-                if ( featureType == FeatureType.POLYGON )
-                {
-                    Polygon polygon = gtjson.readPolygon( new StringReader(
-                        "{\"type\":\"Polygon\", \"coordinates\":" + multiPolygonJson + "}" ) );
-
-                    contains = polygon.contains( point );
-                }
-                else if ( featureType == FeatureType.MULTI_POLYGON )
-                {
-                    MultiPolygon multiPolygon = gtjson.readMultiPolygon( new StringReader(
-                        "{\"type\":\"MultiPolygon\", \"coordinates\":" + multiPolygonJson + "}" ) );
-
-                    contains = multiPolygon.contains( point );
-                }
+                Geometry polygon = getPolygonGeometry( multiPolygonJson, featureType );
+
+                contains = polygon != null && polygon.contains( point );
             }
 
             return contains;
@@ -197,6 +183,34 @@ public class GeoUtils
         }
     }
 
+    /**
+     * Returns the polygon or multi-polygon geometry of the given GeoJSON
+     * coordinates.
+     *
+     * @param coordinatesJson the GeoJSON coordinates of the polygon.
+     * @param featureType the feature type, polygon or multi-polygon.
+     * @return the geometry, or null if the feature type is not a polygon.
+     * @throws IOException if the coordinates could not be parsed.
+     */
+    public static Geometry getPolygonGeometry( String coordinatesJson, FeatureType featureType )
+        throws IOException
+    {
+        GeometryJSON gtjson = new GeometryJSON();
+
+        if ( featureType == FeatureType.POLYGON )
+        {
+            return gtjson.readPolygon( new StringReader(
+                "{\"type\":\"Polygon\", \"coordinates\":" + coordinatesJson + "}" ) );
+        }
+        else if ( featureType == FeatureType.MULTI_POLYGON )
+        {
+            return gtjson.readMultiPolygon( new StringReader(
+                "{\"type\":\"MultiPolygon\", \"coordinates\":" + coordinatesJson + "}" ) );
+        }
+
+        return null;
+    }
+
     /**
      * Escapes the String encoded SVG.
      * @param svg the String encoded SVG.
@@ -0,0 +1,143 @@
+package org.hisp.dhis.cache;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import com.google.common.collect.MultimapBuilder;
+import com.google.common.collect.SetMultimap;
+import org.junit.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CacheInvalidationBusTest
+{
+    @Test
+    public void testInvalidate()
+    {
+        CacheInvalidationBus bus = new InMemoryCacheInvalidationBus();
+
+        List<String> keys = new ArrayList<>();
+        List<String> remoteKeys = new ArrayList<>();
+
+        bus.subscribe( "regionA", keys::add );
+        bus.subscribeRemote( "regionA", remoteKeys::add );
+
+        bus.invalidate( "regionA", "keyA" );
+        bus.invalidate( "regionB", "keyB" );
+        bus.invalidateAll( "regionA" );
+
+        assertTrue( bus.isSubscribed( "regionA" ) );
+        assertFalse( bus.isSubscribed( "regionB" ) );
+        assertEquals( 2, keys.size() );
+        assertEquals( "keyA", keys.get( 0 ) );
+        assertNull( keys.get( 1 ) );
+        assertTrue( remoteKeys.isEmpty() );
+    }
+
+    @Test
+    public void testInvalidateBatch()
+    {
+        CacheInvalidationBus bus = new InMemoryCacheInvalidationBus();
+
+        List<String> keysA = new ArrayList<>();
+        List<String> keysB = new ArrayList<>();
+        List<String> remoteKeys = new ArrayList<>();
+
+        bus.subscribe( "regionA", keysA::add );
+        bus.subscribe( "regionB", keysB::add );
+        bus.subscribeRemote( "regionA", remoteKeys::add );
+
+        SetMultimap<String, String> keys = MultimapBuilder.hashKeys().hashSetValues().build();
+        keys.put( "regionA", "keyA" );
+        keys.put( "regionA", "keyB" );
+        keys.put( "regionA", "keyA" );
+        keys.put( "regionB", "keyC" );
+
+        bus.invalidate( keys );
+
+        assertEquals( 2, keysA.size() );
+        assertTrue( keysA.containsAll( Arrays.asList( "keyA", "keyB" ) ) );
+        assertEquals( Collections.singletonList( "keyC" ), keysB );
+        assertTrue( remoteKeys.isEmpty() );
+    }
+
+    @Test
+    public void testReceiveRemoteInvalidation()
+    {
+        RedisCacheInvalidationBus bus = new RedisCacheInvalidationBus( new LettuceConnectionFactory() );
+
+        List<String> keys = new ArrayList<>();
+        List<String> remoteKeys = new ArrayList<>();
+
+        bus.subscribe( "regionA", keys::add );
+        bus.subscribeRemote( "regionA", remoteKeys::add );
+
+        bus.onMessage( message( "instanceB\nregionA\nkeyA" ), null );
+        bus.onMessage( message( "instanceB\nregionA" ), null );
+        bus.onMessage( message( "instanceB\nregionB\nkeyB" ), null );
+
+        assertEquals( 2, keys.size() );
+        assertEquals( "keyA", keys.get( 0 ) );
+        assertNull( keys.get( 1 ) );
+        assertEquals( keys, remoteKeys );
+    }
+
+    @Test
+    public void testReceiveRemoteInvalidationBatch()
+    {
+        RedisCacheInvalidationBus bus = new RedisCacheInvalidationBus( new LettuceConnectionFactory() );
+
+        List<String> keysA = new ArrayList<>();
+        List<String> keysB = new ArrayList<>();
+
+        bus.subscribe( "regionA", keysA::add );
+        bus.subscribe( "regionB", keysB::add );
+
+        bus.onMessage( message( "instanceB\nregionA\nkeyA\nregionB\nkeyB\nregionA\nkeyC" ), null );
+
+        assertEquals( Arrays.asList( "keyA", "keyC" ), keysA );
+        assertEquals( Collections.singletonList( "keyB" ), keysB );
+    }
+
+    private DefaultMessage message( String body )
+    {
+        return new DefaultMessage( RedisCacheInvalidationBus.CHANNEL.getBytes( StandardCharsets.UTF_8 ),
+            body.getBytes( StandardCharsets.UTF_8 ) );
+    }
+}
@@ -28,15 +28,24 @@ package org.hisp.dhis.system.grid;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
 
 import java.util.List;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.hisp.dhis.common.Grid;
+import org.hisp.dhis.common.GridHeader;
+import org.hisp.dhis.common.GridRowHandler;
 import org.junit.Test;
 import org.springframework.core.io.ClassPathResource;
 
+import com.google.common.collect.Lists;
+
 import static org.junit.Assert.*;
 
 /**
@@ -56,4 +65,54 @@ public class GridUtilsTest
         assertEquals( 6, grids.size() );
         assertEquals( "TitleA", grids.get( 0 ).getTitle() );
     }
+
+    @Test
+    public void testGetCsvRowHandler()
+    {
+        StringWriter writer = new StringWriter();
+
+        GridRowHandler handler = GridUtils.getCsvRowHandler( writer );
+
+        handler.handleHeaders( Lists.newArrayList( new GridHeader( "dx", "Data" ), new GridHeader( "value", "Value" ) ) );
+        handler.handleRow( Lists.<Object>newArrayList( "deabcdefghA", 12.0 ) );
+        handler.handleRow( Lists.<Object>newArrayList( "deabcdefghB", null ) );
+
+        String[] lines = writer.toString().split( "\\r?\\n" );
+
+        assertEquals( 3, lines.length );
+        assertEquals( "Data,Value", lines[0] );
+        assertEquals( "deabcdefghA,12.0", lines[1] );
+        assertTrue( lines[2].startsWith( "deabcdefghB," ) );
+    }
+
+    @Test
+    public void testToXls()
+        throws Exception
+    {
+        Grid grid = new ListGrid();
+        grid.setTitle( "Data values" );
+        grid.addHeader( new GridHeader( "dx", "Data" ) );
+        grid.addHeader( new GridHeader( "value", "Value" ) );
+
+        for ( int i = 0; i < 250; i++ )
+        {
+            grid.addRow().addValue( "deabcdefgh" + i ).addValue( i * 2.0 );
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        GridUtils.toXls( grid, out );
+
+        try ( XSSFWorkbook workbook = new XSSFWorkbook( new ByteArrayInputStream( out.toByteArray() ) ) )
+        {
+            Sheet sheet = workbook.getSheetAt( 0 );
+
+            assertEquals( "Data values", sheet.getSheetName() );
+            assertEquals( "Data values", sheet.getRow( 0 ).getCell( 0 ).getStringCellValue() );
+            assertEquals( "Data", sheet.getRow( 2 ).getCell( 0 ).getStringCellValue() );
+            assertEquals( "Value", sheet.getRow( 2 ).getCell( 1 ).getStringCellValue() );
+            assertEquals( "deabcdefgh0", sheet.getRow( 3 ).getCell( 0 ).getStringCellValue() );
+            assertEquals( 498.0, sheet.getRow( 252 ).getCell( 1 ).getNumericCellValue(), 0.01 );
+        }
+    }
 }
@@ -0,0 +1,87 @@
+package org.hisp.dhis.webapi.controller;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hisp.dhis.dataset.DataSet;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.period.MonthlyPeriodType;
+import org.hisp.dhis.webapi.DhisWebSpringTest;
+import org.hisp.dhis.webapi.documentation.common.TestUtils;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class DataIntegrityControllerTest
+    extends DhisWebSpringTest
+{
+    @Test
+    public void testRunDataIntegrityCheck() throws Exception
+    {
+        MockHttpSession session = getSession( "ALL" );
+
+        OrganisationUnit orgUnit = createOrganisationUnit( 'A' );
+        manager.save( orgUnit );
+
+        DataSet dataSetA = createDataSet( 'A', new MonthlyPeriodType() );
+        dataSetA.addOrganisationUnit( orgUnit );
+        DataSet dataSetB = createDataSet( 'B', new MonthlyPeriodType() );
+
+        manager.save( dataSetA );
+        manager.save( dataSetB );
+
+        MvcResult result = mvc.perform( get( "/dataIntegrity/dataSetsNotAssignedToOrganisationUnits" )
+            .session( session ).accept( TestUtils.APPLICATION_JSON_UTF8 ) )
+            .andExpect( status().isOk() )
+            .andReturn();
+
+        JsonNode node = new ObjectMapper().readTree( result.getResponse().getContentAsString() );
+        JsonNode dataSets = node.get( "dataSetsNotAssignedToOrganisationUnits" );
+
+        assertEquals( 1, dataSets.size() );
+        assertEquals( dataSetB.getDisplayName(), dataSets.get( 0 ).asText() );
+        assertFalse( node.has( "dataElementsWithoutDataSet" ) );
+    }
+
+    @Test
+    public void testRunUnknownDataIntegrityCheck() throws Exception
+    {
+        MockHttpSession session = getSession( "ALL" );
+
+        mvc.perform( get( "/dataIntegrity/unknownCheck" )
+            .session( session ).accept( TestUtils.APPLICATION_JSON_UTF8 ) )
+            .andExpect( status().isNotFound() );
+    }
+}
@@ -70,6 +70,7 @@ import org.hisp.dhis.node.Node;
 import org.hisp.dhis.node.NodeUtils;
 import org.hisp.dhis.node.Preset;
 import org.hisp.dhis.node.config.InclusionStrategy;
+import org.hisp.dhis.node.serializers.Jackson2JsonNodeSerializer;
 import org.hisp.dhis.node.types.CollectionNode;
 import org.hisp.dhis.node.types.ComplexNode;
 import org.hisp.dhis.node.types.RootNode;
@@ -105,12 +106,15 @@ import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.util.StringUtils;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -188,6 +192,9 @@ public abstract class AbstractCrudController<T extends IdentifiableObject>
     @Autowired
     protected PatchService patchService;
 
+    @Autowired
+    protected ContentNegotiationManager contentNegotiationManager;
+
     //--------------------------------------------------------------------------
     // GET
     //--------------------------------------------------------------------------
@@ -195,7 +202,7 @@ public abstract class AbstractCrudController<T extends IdentifiableObject>
     @RequestMapping( method = RequestMethod.GET )
     public @ResponseBody RootNode getObjectList(
         @RequestParam Map<String, String> rpParameters, OrderParams orderParams,
-        HttpServletResponse response, HttpServletRequest request, User currentUser ) throws QueryParserException
+        HttpServletResponse response, HttpServletRequest request, User currentUser ) throws Exception
     {
         List<String> fields = Lists.newArrayList( contextService.getParameterValues( "fields" ) );
         List<String> filters = Lists.newArrayList( contextService.getParameterValues( "filter" ) );
@@ -238,11 +245,23 @@ public abstract class AbstractCrudController<T extends IdentifiableObject>
             rootNode.addChild( NodeUtils.createPager( pager ) );
         }
 
-        rootNode.addChild( fieldFilterService.toCollectionNode( getEntityClass(),
-            new FieldFilterParams( entities, fields, Defaults.valueOf( options.get( "defaults", DEFAULTS ) ) ) ) );
+        FieldFilterParams fieldFilterParams = new FieldFilterParams( entities, fields, Defaults.valueOf( options.get( "defaults", DEFAULTS ) ) );
 
         response.setHeader( ContextUtils.HEADER_CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue() );
 
+        // write plain JSON with simple fields directly without building a node tree
+        if ( isJsonResponse( request ) && fieldFilterService.isStreamable( getEntityClass(), fields ) )
+        {
+            response.setContentType( ContextUtils.CONTENT_TYPE_JSON );
+
+            new Jackson2JsonNodeSerializer().serialize( rootNode, response.getOutputStream(), generator ->
+                fieldFilterService.writeCollectionJson( getEntityClass(), fieldFilterParams, rootNode.getConfig().getInclusionStrategy(), generator ) );
+
+            return null;
+        }
+
+        rootNode.addChild( fieldFilterService.toCollectionNode( getEntityClass(), fieldFilterParams ) );
+
         return rootNode;
     }
 
@@ -1311,6 +1330,19 @@ public abstract class AbstractCrudController<T extends IdentifiableObject>
         return isCompatibleWith( type, MediaType.APPLICATION_JSON );
     }
 
+    /**
+     * Is the response negotiated as plain, uncompressed JSON?
+     *
+     * @param request HttpServletRequest from current session
+     * @return true if the response is plain JSON
+     */
+    protected boolean isJsonResponse( HttpServletRequest request ) throws HttpMediaTypeNotAcceptableException
+    {
+        List<MediaType> mediaTypes = contentNegotiationManager.resolveMediaTypes( new ServletWebRequest( request ) );
+
+        return !mediaTypes.isEmpty() && MediaType.APPLICATION_JSON.equalsTypeAndSubtype( mediaTypes.get( 0 ) );
+    }
+
     /**
      * Are we receiving XML data?
      *
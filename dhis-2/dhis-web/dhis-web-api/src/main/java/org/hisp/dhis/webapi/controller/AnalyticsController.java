@@ -28,6 +28,7 @@ package org.hisp.dhis.webapi.controller;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import org.apache.commons.io.IOUtils;
 import org.hisp.dhis.analytics.*;
 import org.hisp.dhis.analytics.AnalyticsTableType;
 import org.hisp.dhis.common.DataQueryRequest;
@@ -37,22 +38,35 @@ import org.hisp.dhis.common.Grid;
 import org.hisp.dhis.common.IdScheme;
 import org.hisp.dhis.common.cache.CacheStrategy;
 import org.hisp.dhis.dxf2.datavalueset.DataValueSet;
+import org.hisp.dhis.dxf2.webmessage.WebMessageException;
+import org.hisp.dhis.dxf2.webmessage.WebMessageUtils;
+import org.hisp.dhis.fileresource.FileResource;
+import org.hisp.dhis.fileresource.FileResourceService;
+import org.hisp.dhis.fileresource.FileResourceStorageStatus;
+import org.hisp.dhis.scheduling.JobConfiguration;
+import org.hisp.dhis.scheduling.JobType;
 import org.hisp.dhis.system.grid.GridUtils;
 import org.hisp.dhis.webapi.mvc.annotation.ApiVersion;
+import org.hisp.dhis.webapi.service.WebMessageService;
 import org.hisp.dhis.webapi.utils.ContextUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.InputStream;
 import java.util.Date;
 import java.util.Set;
 
 import static org.hisp.dhis.common.DimensionalObjectUtils.getItemsFromParam;
+import static org.hisp.dhis.dxf2.webmessage.WebMessageUtils.jobConfigurationReport;
 
 /**
  * @author Lars Helge Overland
@@ -64,6 +78,7 @@ public class AnalyticsController
     private static final String RESOURCE_PATH = "/analytics";
     private static final String DATA_VALUE_SET_PATH = "/dataValueSet";
     private static final String RAW_DATA_PATH = "/rawData";
+    private static final String ASYNC_PATH = "/async";
 
     @Autowired
     private DataQueryService dataQueryService;
@@ -71,6 +86,15 @@ public class AnalyticsController
     @Autowired
     private AnalyticsService analyticsService;
 
+    @Autowired
+    private AsyncAnalyticsService asyncAnalyticsService;
+
+    @Autowired
+    private FileResourceService fileResourceService;
+
+    @Autowired
+    private WebMessageService webMessageService;
+
     @Autowired
     private ContextUtils contextUtils;
 
@@ -337,7 +361,7 @@ public class AnalyticsController
         GridUtils.toCsv( grid, response.getWriter() );
     }
 
-    @RequestMapping( value = RESOURCE_PATH + ".xls", method = RequestMethod.GET )
+    @RequestMapping( value = { RESOURCE_PATH + ".xlsx", RESOURCE_PATH + ".xls" }, method = RequestMethod.GET )
     public void getXls(
         @RequestParam Set<String> dimension,
         @RequestParam( required = false ) Set<String> filter,
@@ -384,7 +408,7 @@ public class AnalyticsController
         
         DataQueryParams params = dataQueryService.getFromRequest( request );        
 
-        contextUtils.configureAnalyticsResponse( response, ContextUtils.CONTENT_TYPE_EXCEL, CacheStrategy.RESPECT_SYSTEM_SETTING, "data.xls", true, params.getLatestEndDate() );
+        contextUtils.configureAnalyticsResponse( response, ContextUtils.CONTENT_TYPE_EXCEL, CacheStrategy.RESPECT_SYSTEM_SETTING, "data.xlsx", true, params.getLatestEndDate() );
         Grid grid = analyticsService.getAggregatedDataValues( params, getItemsFromParam( columns ), getItemsFromParam( rows ) );
         GridUtils.toXls( grid, response.getOutputStream() );
     }
@@ -549,8 +573,7 @@ public class AnalyticsController
 
         contextUtils.configureAnalyticsResponse( response, ContextUtils.CONTENT_TYPE_CSV,
             CacheStrategy.RESPECT_SYSTEM_SETTING, null, false, params.getLatestEndDate() );
-        Grid grid = analyticsService.getRawDataValues( params );
-        GridUtils.toCsv( grid, response.getWriter() );
+        analyticsService.getRawDataValues( params, GridUtils.getCsvRowHandler( response.getWriter() ) );
     }
 
     // -------------------------------------------------------------------------
@@ -662,4 +685,125 @@ public class AnalyticsController
     {
         return AnalyticsTableType.values();
     }
+
+    // -------------------------------------------------------------------------
+    // Asynchronous queries
+    // -------------------------------------------------------------------------
+
+    @RequestMapping( value = RESOURCE_PATH + ASYNC_PATH, method = RequestMethod.POST )
+    public void submitQuery(
+        @RequestParam Set<String> dimension,
+        @RequestParam( required = false ) Set<String> filter,
+        @RequestParam( required = false ) AggregationType aggregationType,
+        @RequestParam( required = false ) String measureCriteria,
+        @RequestParam( required = false ) String preAggregationMeasureCriteria,
+        @RequestParam( required = false ) Date startDate,
+        @RequestParam( required = false ) Date endDate,
+        @RequestParam( required = false ) SortOrder order,
+        @RequestParam( required = false ) boolean skipMeta,
+        @RequestParam( required = false ) boolean skipData,
+        @RequestParam( required = false ) boolean skipRounding,
+        @RequestParam( required = false ) boolean completedOnly,
+        @RequestParam( required = false ) boolean hierarchyMeta,
+        @RequestParam( required = false ) boolean ignoreLimit,
+        @RequestParam( required = false ) boolean hideEmptyRows,
+        @RequestParam( required = false ) boolean hideEmptyColumns,
+        @RequestParam( required = false ) boolean showHierarchy,
+        @RequestParam( required = false ) boolean includeNumDen,
+        @RequestParam( required = false ) boolean includeMetadataDetails,
+        @RequestParam( required = false ) DisplayProperty displayProperty,
+        @RequestParam( required = false ) IdScheme outputIdScheme,
+        @RequestParam( required = false ) IdScheme inputIdScheme,
+        @RequestParam( required = false ) String approvalLevel,
+        @RequestParam( required = false ) Date relativePeriodDate,
+        @RequestParam( required = false ) String userOrgUnit,
+        @RequestParam( required = false ) String columns,
+        @RequestParam( required = false ) String rows,
+        DhisApiVersion apiVersion,
+        HttpServletRequest request,
+        HttpServletResponse response ) throws Exception
+    {
+        DataQueryRequest queryRequest = DataQueryRequest.newBuilder()
+            .dimension( dimension ).filter( filter ).aggregationType( aggregationType )
+            .measureCriteria( measureCriteria ).preAggregationMeasureCriteria( preAggregationMeasureCriteria )
+            .startDate( startDate ).endDate( endDate ).skipMeta( skipMeta ).skipData( skipData )
+            .skipRounding( skipRounding ).completedOnly( completedOnly ).hierarchyMeta( hierarchyMeta )
+            .ignoreLimit( ignoreLimit ).hideEmptyRows( hideEmptyRows ).hideEmptyColumns( hideEmptyColumns )
+            .showHierarchy( showHierarchy ).includeNumDen( includeNumDen )
+            .includeMetadataDetails( includeMetadataDetails ).displayProperty( displayProperty )
+            .outputIdScheme( outputIdScheme ).inputIdScheme( inputIdScheme ).approvalLevel( approvalLevel )
+            .relativePeriodDate( relativePeriodDate ).userOrgUnit( userOrgUnit ).apiVersion( apiVersion )
+            .order( order ).build();
+
+        JobConfiguration jobId = asyncAnalyticsService.submitAggregatedDataValues( queryRequest, getItemsFromParam( columns ), getItemsFromParam( rows ) );
+
+        sendJobReport( jobId, request, response );
+    }
+
+    @RequestMapping( value = RESOURCE_PATH + RAW_DATA_PATH + ASYNC_PATH, method = RequestMethod.POST )
+    public void submitRawDataQuery(
+        @RequestParam Set<String> dimension,
+        @RequestParam( required = false ) Date startDate,
+        @RequestParam( required = false ) Date endDate,
+        @RequestParam( required = false ) boolean skipMeta,
+        @RequestParam( required = false ) boolean skipData,
+        @RequestParam( required = false ) boolean hierarchyMeta,
+        @RequestParam( required = false ) boolean showHierarchy,
+        @RequestParam( required = false ) boolean includeMetadataDetails,
+        @RequestParam( required = false ) DisplayProperty displayProperty,
+        @RequestParam( required = false ) IdScheme outputIdScheme,
+        @RequestParam( required = false ) IdScheme inputIdScheme,
+        @RequestParam( required = false ) String userOrgUnit,
+        DhisApiVersion apiVersion,
+        HttpServletRequest request,
+        HttpServletResponse response ) throws Exception
+    {
+        DataQueryRequest queryRequest = DataQueryRequest.newBuilder()
+            .dimension( dimension ).startDate( startDate ).endDate( endDate ).skipMeta( skipMeta )
+            .skipData( skipData ).hierarchyMeta( hierarchyMeta ).showHierarchy( showHierarchy )
+            .includeMetadataDetails( includeMetadataDetails ).displayProperty( displayProperty )
+            .outputIdScheme( outputIdScheme ).inputIdScheme( inputIdScheme ).userOrgUnit( userOrgUnit )
+            .allowAllPeriods( true ).apiVersion( apiVersion ).build();
+
+        JobConfiguration jobId = asyncAnalyticsService.submitRawDataValues( queryRequest );
+
+        sendJobReport( jobId, request, response );
+    }
+
+    /**
+     * Returns the gzip compressed result of an asynchronous query. Results are
+     * kept for at least two hours after the query has completed.
+     */
+    @RequestMapping( value = RESOURCE_PATH + ASYNC_PATH + "/{jobId}", method = RequestMethod.GET )
+    public void getQueryResult( @PathVariable String jobId, HttpServletResponse response ) throws Exception
+    {
+        FileResource fileResource = asyncAnalyticsService.getResult( jobId );
+
+        if ( fileResource == null )
+        {
+            throw new WebMessageException( WebMessageUtils.notFound( "No analytics query result found for job: " + jobId ) );
+        }
+
+        if ( fileResource.getStorageStatus() != FileResourceStorageStatus.STORED )
+        {
+            throw new WebMessageException( WebMessageUtils.conflict( "Analytics query result is not yet available for job: " + jobId ) );
+        }
+
+        response.setContentType( fileResource.getContentType() );
+        response.setHeader( HttpHeaders.CONTENT_ENCODING, "gzip" );
+        response.setHeader( HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + fileResource.getName() );
+        response.setContentLengthLong( fileResource.getContentLength() );
+
+        try ( InputStream in = fileResourceService.getFileResourceContent( fileResource ).openStream() )
+        {
+            IOUtils.copy( in, response.getOutputStream() );
+        }
+    }
+
+    private void sendJobReport( JobConfiguration jobId, HttpServletRequest request, HttpServletResponse response )
+        throws Exception
+    {
+        response.setHeader( "Location", ContextUtils.getRootPath( request ) + "/system/tasks/" + JobType.ANALYTICS_QUERY + "/" + jobId.getUid() );
+        webMessageService.send( jobConfigurationReport( jobId ), response, request );
+    }
 }
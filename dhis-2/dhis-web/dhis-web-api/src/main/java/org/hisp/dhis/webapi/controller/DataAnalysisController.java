@@ -438,7 +438,7 @@ public class DataAnalysisController
         GridUtils.toPdf( grid, response.getOutputStream() );
     }
 
-    @RequestMapping( value = "/report.xls", method = RequestMethod.GET )
+    @RequestMapping( value = { "/report.xlsx", "/report.xls" }, method = RequestMethod.GET )
     public void getXlsReport( HttpSession session, HttpServletResponse response )
         throws Exception
     {
@@ -447,7 +447,7 @@ public class DataAnalysisController
         Grid grid = generateAnalysisReportGridFromResults( results, (OrganisationUnit) session.getAttribute(
             KEY_ORG_UNIT ) );
 
-        String filename = filenameEncode( grid.getTitle() ) + ".xls";
+        String filename = filenameEncode( grid.getTitle() ) + ".xlsx";
         contextUtils.configureResponse( response, ContextUtils.CONTENT_TYPE_EXCEL, CacheStrategy.RESPECT_SYSTEM_SETTING,
             filename, false );
 
@@ -488,7 +488,7 @@ public class DataAnalysisController
         GridUtils.toPdf( grid, response.getOutputStream() );
     }
 
-    @RequestMapping( value = "validationRules/report.xls", method = RequestMethod.GET )
+    @RequestMapping( value = { "validationRules/report.xlsx", "validationRules/report.xls" }, method = RequestMethod.GET )
     public void getValidationRulesXlsReport( HttpSession session, HttpServletResponse response )
         throws Exception
     {
@@ -497,7 +497,7 @@ public class DataAnalysisController
         Grid grid = generateValidationRulesReportGridFromResults( results, (OrganisationUnit) session.getAttribute(
             KEY_ORG_UNIT ) );
 
-        String filename = filenameEncode( grid.getTitle() ) + ".xls";
+        String filename = filenameEncode( grid.getTitle() ) + ".xlsx";
         contextUtils.configureResponse( response, ContextUtils.CONTENT_TYPE_EXCEL, CacheStrategy.RESPECT_SYSTEM_SETTING,
             filename, false );
 
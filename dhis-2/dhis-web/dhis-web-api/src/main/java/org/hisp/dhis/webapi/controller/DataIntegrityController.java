@@ -29,6 +29,10 @@ package org.hisp.dhis.webapi.controller;
  */
 
 import org.hisp.dhis.common.DhisApiVersion;
+import org.hisp.dhis.dataintegrity.DataIntegrityCheckType;
+import org.hisp.dhis.dataintegrity.DataIntegrityService;
+import org.hisp.dhis.dataintegrity.FlattenedDataIntegrityReport;
+import org.hisp.dhis.dxf2.webmessage.WebMessageException;
 import org.hisp.dhis.scheduling.JobConfiguration;
 import org.hisp.dhis.scheduling.JobType;
 import org.hisp.dhis.scheduling.SchedulingManager;
@@ -38,13 +42,18 @@ import org.hisp.dhis.webapi.service.WebMessageService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import java.util.EnumSet;
+
 import static org.hisp.dhis.dxf2.webmessage.WebMessageUtils.jobConfigurationReport;
+import static org.hisp.dhis.dxf2.webmessage.WebMessageUtils.notFound;
 
 /**
  * @author Halvdan Hoem Grelland <halvdanhg@gmail.com>
@@ -63,6 +72,9 @@ public class DataIntegrityController
     @Autowired
     private WebMessageService webMessageService;
 
+    @Autowired
+    private DataIntegrityService dataIntegrityService;
+
     public static final String RESOURCE_PATH = "/dataIntegrity";
 
     //--------------------------------------------------------------------------
@@ -82,4 +94,23 @@ public class DataIntegrityController
 
         webMessageService.send( jobConfigurationReport( jobConfiguration ), response, request );
     }
+
+    //--------------------------------------------------------------------------
+    // Run single data integrity check
+    //--------------------------------------------------------------------------
+
+    @PreAuthorize( "hasRole('ALL') or hasRole('F_PERFORM_MAINTENANCE')" )
+    @RequestMapping( value = DataIntegrityController.RESOURCE_PATH + "/{check}", method = RequestMethod.GET )
+    public @ResponseBody FlattenedDataIntegrityReport runDataIntegrityCheck( @PathVariable String check )
+        throws WebMessageException
+    {
+        DataIntegrityCheckType checkType = DataIntegrityCheckType.fromName( check );
+
+        if ( checkType == null )
+        {
+            throw new WebMessageException( notFound( "Data integrity check does not exist: " + check ) );
+        }
+
+        return dataIntegrityService.getFlattenedDataIntegrityReport( EnumSet.of( checkType ), ( c, report ) -> {} );
+    }
 }
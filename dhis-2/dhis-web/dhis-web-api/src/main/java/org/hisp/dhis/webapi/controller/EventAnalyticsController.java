@@ -30,6 +30,7 @@ package org.hisp.dhis.webapi.controller;
 
 import org.hisp.dhis.analytics.AggregationType;
 import org.hisp.dhis.analytics.AnalyticsMetaDataKey;
+import org.hisp.dhis.analytics.AsyncAnalyticsService;
 import org.hisp.dhis.analytics.EventOutputType;
 import org.hisp.dhis.analytics.Rectangle;
 import org.hisp.dhis.analytics.SortOrder;
@@ -40,8 +41,11 @@ import org.hisp.dhis.common.*;
 import org.hisp.dhis.common.cache.CacheStrategy;
 import org.hisp.dhis.event.EventStatus;
 import org.hisp.dhis.program.ProgramStatus;
+import org.hisp.dhis.scheduling.JobConfiguration;
+import org.hisp.dhis.scheduling.JobType;
 import org.hisp.dhis.system.grid.GridUtils;
 import org.hisp.dhis.webapi.mvc.annotation.ApiVersion;
+import org.hisp.dhis.webapi.service.WebMessageService;
 import org.hisp.dhis.webapi.utils.ContextUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -53,11 +57,14 @@ import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.util.Date;
 import java.util.Map;
 import java.util.Set;
 
+import static org.hisp.dhis.dxf2.webmessage.WebMessageUtils.jobConfigurationReport;
+
 /**
  * @author Lars Helge Overland
  */
@@ -73,6 +80,12 @@ public class EventAnalyticsController
     @Autowired
     private EventAnalyticsService analyticsService;
 
+    @Autowired
+    private AsyncAnalyticsService asyncAnalyticsService;
+
+    @Autowired
+    private WebMessageService webMessageService;
+
     @Autowired
     private ContextUtils contextUtils;
     
@@ -181,7 +194,7 @@ public class EventAnalyticsController
     }
 
     @PreAuthorize( "hasRole('ALL') or hasRole('F_VIEW_EVENT_ANALYTICS')" )
-    @RequestMapping( value = RESOURCE_PATH + "/aggregate/{program}.xls", method = RequestMethod.GET )
+    @RequestMapping( value = { RESOURCE_PATH + "/aggregate/{program}.xlsx", RESOURCE_PATH + "/aggregate/{program}.xls" }, method = RequestMethod.GET )
     public void getAggregateXls(
         @PathVariable String program,
         @RequestParam( required = false ) String stage,
@@ -224,7 +237,7 @@ public class EventAnalyticsController
    
         EventQueryParams params = eventDataQueryService.getFromRequest( request );
 
-        contextUtils.configureResponse( response, ContextUtils.CONTENT_TYPE_EXCEL, CacheStrategy.RESPECT_SYSTEM_SETTING, "events.xls", true );
+        contextUtils.configureResponse( response, ContextUtils.CONTENT_TYPE_EXCEL, CacheStrategy.RESPECT_SYSTEM_SETTING, "events.xlsx", true );
         Grid grid = analyticsService.getAggregatedEventData( params, DimensionalObjectUtils.getItemsFromParam( columns ), DimensionalObjectUtils.getItemsFromParam( rows ) );
         GridUtils.toXls( substituteMetaData( grid ), response.getOutputStream() );
     }
@@ -504,6 +517,7 @@ public class EventAnalyticsController
         @RequestParam( required = false ) ProgramStatus programStatus,
         @RequestParam( required = false ) Integer page,
         @RequestParam( required = false ) Integer pageSize,
+        @RequestParam( required = false ) String pageToken,
         @RequestParam( required = false ) DisplayProperty displayProperty,
         @RequestParam( required = false ) Date relativePeriodDate,
         @RequestParam( required = false ) String userOrgUnit,
@@ -518,7 +532,7 @@ public class EventAnalyticsController
             .hierarchyMeta( hierarchyMeta ).coordinatesOnly( coordinatesOnly )
             .includeMetadataDetails( includeMetadataDetails ).eventStatus( eventStatus ).programStatus( programStatus )
             .displayProperty( displayProperty ).relativePeriodDate( relativePeriodDate ).userOrgUnit( userOrgUnit )
-            .coordinateField( coordinateField ).page( page ).pageSize( pageSize ).apiVersion( apiVersion ).build();
+            .coordinateField( coordinateField ).page( page ).pageSize( pageSize ).pageToken( pageToken ).apiVersion( apiVersion ).build();
    
         EventQueryParams params = eventDataQueryService.getFromRequest( request );
 
@@ -526,6 +540,50 @@ public class EventAnalyticsController
         return analyticsService.getEvents( params );
     }
 
+    @PreAuthorize( "hasRole('ALL') or hasRole('F_VIEW_EVENT_ANALYTICS')" )
+    @RequestMapping( value = RESOURCE_PATH + "/query/{program}/async", method = RequestMethod.POST )
+    public void submitQuery(
+        @PathVariable String program,
+        @RequestParam( required = false ) String stage,
+        @RequestParam( required = false ) Date startDate,
+        @RequestParam( required = false ) Date endDate,
+        @RequestParam Set<String> dimension,
+        @RequestParam( required = false ) Set<String> filter,
+        @RequestParam( required = false ) OrganisationUnitSelectionMode ouMode,
+        @RequestParam( required = false ) Set<String> asc,
+        @RequestParam( required = false ) Set<String> desc,
+        @RequestParam( required = false ) boolean skipMeta,
+        @RequestParam( required = false ) boolean skipData,
+        @RequestParam( required = false ) boolean completedOnly,
+        @RequestParam( required = false ) boolean hierarchyMeta,
+        @RequestParam( required = false ) boolean coordinatesOnly,
+        @RequestParam( required = false ) boolean includeMetadataDetails,
+        @RequestParam( required = false ) EventStatus eventStatus,
+        @RequestParam( required = false ) ProgramStatus programStatus,
+        @RequestParam( required = false ) Integer page,
+        @RequestParam( required = false ) Integer pageSize,
+        @RequestParam( required = false ) DisplayProperty displayProperty,
+        @RequestParam( required = false ) Date relativePeriodDate,
+        @RequestParam( required = false ) String userOrgUnit,
+        @RequestParam( required = false ) String coordinateField,
+        DhisApiVersion apiVersion,
+        HttpServletRequest request,
+        HttpServletResponse response ) throws Exception
+    {
+        EventDataQueryRequest queryRequest = EventDataQueryRequest.newBuilder().program( program ).stage( stage )
+            .startDate( startDate ).endDate( endDate ).dimension( dimension ).filter( filter ).ouMode( ouMode )
+            .asc( asc ).desc( desc ).skipMeta( skipMeta ).skipData( skipData ).completedOnly( completedOnly )
+            .hierarchyMeta( hierarchyMeta ).coordinatesOnly( coordinatesOnly )
+            .includeMetadataDetails( includeMetadataDetails ).eventStatus( eventStatus ).programStatus( programStatus )
+            .displayProperty( displayProperty ).relativePeriodDate( relativePeriodDate ).userOrgUnit( userOrgUnit )
+            .coordinateField( coordinateField ).page( page ).pageSize( pageSize ).apiVersion( apiVersion ).build();
+
+        JobConfiguration jobId = asyncAnalyticsService.submitEvents( queryRequest );
+
+        response.setHeader( "Location", ContextUtils.getRootPath( request ) + "/system/tasks/" + JobType.ANALYTICS_QUERY + "/" + jobId.getUid() );
+        webMessageService.send( jobConfigurationReport( jobId ), response, request );
+    }
+
     @PreAuthorize( "hasRole('ALL') or hasRole('F_VIEW_EVENT_ANALYTICS')" )
     @RequestMapping( value = RESOURCE_PATH + "/query/{program}.xml", method = RequestMethod.GET )
     public void getQueryXml(
@@ -547,6 +605,7 @@ public class EventAnalyticsController
         @RequestParam( required = false ) ProgramStatus programStatus,
         @RequestParam( required = false ) Integer page,
         @RequestParam( required = false ) Integer pageSize,
+        @RequestParam( required = false ) String pageToken,
         @RequestParam( required = false ) DisplayProperty displayProperty,
         @RequestParam( required = false ) Date relativePeriodDate,
         @RequestParam( required = false ) String userOrgUnit,
@@ -561,7 +620,7 @@ public class EventAnalyticsController
             .hierarchyMeta( hierarchyMeta ).coordinatesOnly( coordinatesOnly ).eventStatus( eventStatus )
             .programStatus( programStatus ).displayProperty( displayProperty ).relativePeriodDate( relativePeriodDate )
             .userOrgUnit( userOrgUnit ).coordinateField( coordinateField ).page( page ).pageSize( pageSize )
-            .apiVersion( apiVersion ).build();
+            .pageToken( pageToken ).apiVersion( apiVersion ).build();
      
         EventQueryParams params = eventDataQueryService.getFromRequest( request );
 
@@ -571,7 +630,7 @@ public class EventAnalyticsController
     }
 
     @PreAuthorize( "hasRole('ALL') or hasRole('F_VIEW_EVENT_ANALYTICS')" )
-    @RequestMapping( value = RESOURCE_PATH + "/query/{program}.xls", method = RequestMethod.GET )
+    @RequestMapping( value = { RESOURCE_PATH + "/query/{program}.xlsx", RESOURCE_PATH + "/query/{program}.xls" }, method = RequestMethod.GET )
     public void getQueryXls(
         @PathVariable String program,
         @RequestParam( required = false ) String stage,
@@ -609,7 +668,7 @@ public class EventAnalyticsController
    
         EventQueryParams params = eventDataQueryService.getFromRequest( request );
 
-        contextUtils.configureResponse( response, ContextUtils.CONTENT_TYPE_EXCEL, CacheStrategy.RESPECT_SYSTEM_SETTING, "events.xls", true );
+        contextUtils.configureResponse( response, ContextUtils.CONTENT_TYPE_EXCEL, CacheStrategy.RESPECT_SYSTEM_SETTING, "events.xlsx", true );
         Grid grid = analyticsService.getEvents( params );
         GridUtils.toXls( substituteMetaData( grid ), response.getOutputStream() );
     }
@@ -30,6 +30,8 @@ import org.hisp.dhis.analytics.AnalyticsTableGenerator;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import com.google.common.collect.ImmutableMap;
+import org.hisp.dhis.analytics.AnalyticsCache;
 import org.hisp.dhis.analytics.AnalyticsTableService;
 import org.hisp.dhis.analytics.partition.PartitionManager;
 import org.hisp.dhis.appmanager.AppManager;
@@ -55,11 +57,13 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author Lars Helge Overland
@@ -107,6 +111,9 @@ public class MaintenanceController
     @Autowired
     private AppManager appManager;
 
+    @Autowired
+    private AnalyticsCache analyticsCache;
+
     @RequestMapping( value = "/analyticsTablesClear", method = { RequestMethod.PUT, RequestMethod.POST } )
     @PreAuthorize( "hasRole('ALL') or hasRole('F_PERFORM_MAINTENANCE')" )
     @ResponseStatus( HttpStatus.NO_CONTENT )
@@ -218,6 +225,18 @@ public class MaintenanceController
     {
         cacheManager.clearCache();
         partitionManager.clearCaches();
+        analyticsCache.invalidateAll();
+    }
+
+    @RequestMapping( value = "/analyticsCacheStatistics", method = RequestMethod.GET )
+    @PreAuthorize( "hasRole('ALL') or hasRole('F_PERFORM_MAINTENANCE')" )
+    public @ResponseBody Map<String, Object> getAnalyticsCacheStatistics()
+    {
+        return ImmutableMap.of(
+            "enabled", analyticsCache.isEnabled(),
+            "hitCount", analyticsCache.getHitCount(),
+            "missCount", analyticsCache.getMissCount(),
+            "evictionCount", analyticsCache.getEvictionCount() );
     }
 
     @RequestMapping( value = "/dataPruning/organisationUnits/{uid}", method = { RequestMethod.PUT, RequestMethod.POST } )
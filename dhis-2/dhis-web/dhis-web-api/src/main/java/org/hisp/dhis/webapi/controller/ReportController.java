@@ -149,7 +149,7 @@ public class ReportController
         @RequestParam( value = "date", required = false ) Date date,
         HttpServletRequest request, HttpServletResponse response ) throws Exception
     {
-        getReport( request, response, uid, organisationUnitUid, period, date, "xls", ContextUtils.CONTENT_TYPE_EXCEL, true );
+        getReport( request, response, uid, organisationUnitUid, period, date, "xls", ContextUtils.CONTENT_TYPE_EXCEL_LEGACY, true );
     }
 
     @RequestMapping( value = "/{uid}/data.html", method = RequestMethod.GET )
@@ -169,7 +169,7 @@ public class ReportTableController
         GridUtils.toPdf( grid, response.getOutputStream() );
     }
 
-    @RequestMapping( value = "/{uid}/data.xls", method = RequestMethod.GET )
+    @RequestMapping( value = { "/{uid}/data.xlsx", "/{uid}/data.xls" }, method = RequestMethod.GET )
     public void getReportTableXls( @PathVariable( "uid" ) String uid,
         @RequestParam( value = "ou", required = false ) String organisationUnitUid,
         @RequestParam( value = "date", required = false ) Date date,
@@ -177,7 +177,7 @@ public class ReportTableController
     {
         Grid grid = getReportTableGrid( uid, organisationUnitUid, date );
 
-        String filename = filenameEncode( grid.getTitle() ) + ".xls";
+        String filename = filenameEncode( grid.getTitle() ) + ".xlsx";
         contextUtils.configureResponse( response, ContextUtils.CONTENT_TYPE_EXCEL, CacheStrategy.RESPECT_SYSTEM_SETTING, filename, true );
 
         GridUtils.toXls( grid, response.getOutputStream() );
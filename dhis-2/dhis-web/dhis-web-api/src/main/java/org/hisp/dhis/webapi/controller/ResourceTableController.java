@@ -79,6 +79,7 @@ public class ResourceTableController
         @RequestParam( required = false ) boolean skipEvents,
         @RequestParam( required = false ) boolean skipEnrollment,
         @RequestParam( required = false ) Integer lastYears,
+        @RequestParam( required = false ) boolean latestUpdate,
         HttpServletResponse response, HttpServletRequest request )
     {
         Set<AnalyticsTableType> skipTableTypes = new HashSet<>();
@@ -100,7 +101,7 @@ public class ResourceTableController
             skipTableTypes.add( AnalyticsTableType.ENROLLMENT );
         }
 
-        AnalyticsJobParameters analyticsJobParameters = new AnalyticsJobParameters( lastYears, skipTableTypes, skipResourceTables );
+        AnalyticsJobParameters analyticsJobParameters = new AnalyticsJobParameters( lastYears, skipTableTypes, skipResourceTables, latestUpdate );
 
         JobConfiguration analyticsTableJob = new JobConfiguration( "inMemoryAnalyticsJob", JobType.ANALYTICS_TABLE, "", analyticsJobParameters, false, true, true );
         analyticsTableJob.setUserUid( currentUserService.getCurrentUser().getUid() );
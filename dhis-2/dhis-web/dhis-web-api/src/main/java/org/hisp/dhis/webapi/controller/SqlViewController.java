@@ -121,7 +121,7 @@ public class SqlViewController
         GridUtils.toCsv( grid, response.getWriter() );
     }
 
-    @RequestMapping( value = "/{uid}/data.xls", method = RequestMethod.GET )
+    @RequestMapping( value = { "/{uid}/data.xlsx", "/{uid}/data.xls" }, method = RequestMethod.GET )
     public void getViewXls( @PathVariable( "uid" ) String uid,
         @RequestParam( required = false ) Set<String> criteria, @RequestParam( required = false ) Set<String> var,
         HttpServletResponse response ) throws Exception
@@ -133,7 +133,7 @@ public class SqlViewController
 
         Grid grid = sqlViewService.getSqlViewGrid( sqlView, SqlView.getCriteria( criteria ), SqlView.getCriteria( var ), filters, fields );
 
-        String filename = CodecUtils.filenameEncode( grid.getTitle() ) + ".xls";
+        String filename = CodecUtils.filenameEncode( grid.getTitle() ) + ".xlsx";
 
         contextUtils.configureResponse( response, ContextUtils.CONTENT_TYPE_EXCEL, sqlView.getCacheStrategy(), filename, true );
 
@@ -49,6 +49,7 @@ import java.io.IOException;
 public class ExcelMessageConverter extends AbstractHttpMessageConverter<RootNode>
 {
     public static final ImmutableList<MediaType> SUPPORTED_MEDIA_TYPES = ImmutableList.<MediaType>builder()
+        .add( new MediaType( "application", "vnd.openxmlformats-officedocument.spreadsheetml.sheet" ) )
         .add( new MediaType( "application", "vnd.ms-excel" ) )
         .build();
 
@@ -81,6 +82,6 @@ public class ExcelMessageConverter extends AbstractHttpMessageConverter<RootNode
     @Override
     protected void writeInternal( RootNode rootNode, HttpOutputMessage outputMessage ) throws IOException, HttpMessageNotWritableException
     {
-        nodeService.serialize( rootNode, "application/vnd.ms-excel", outputMessage.getBody() );
+        nodeService.serialize( rootNode, "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", outputMessage.getBody() );
     }
 }
@@ -58,7 +58,7 @@ public class GridXlsResult
      */
     private static final long serialVersionUID = 3030165635768899728L;
 
-    private static final String DEFAULT_NAME = "Grid.xls";
+    private static final String DEFAULT_NAME = "Grid.xlsx";
     
     // -------------------------------------------------------------------------
     // Input
@@ -107,7 +107,7 @@ public class GridXlsResult
 
         OutputStream out = response.getOutputStream();
 
-        String filename = filenameEncode( defaultIfEmpty( grid != null ? grid.getTitle() : grids.iterator().next().getTitle(), DEFAULT_NAME ) ) + ".xls";
+        String filename = filenameEncode( defaultIfEmpty( grid != null ? grid.getTitle() : grids.iterator().next().getTitle(), DEFAULT_NAME ) ) + ".xlsx";
         
         ContextUtils.configureResponse( response, ContextUtils.CONTENT_TYPE_EXCEL, true, filename, true );
         